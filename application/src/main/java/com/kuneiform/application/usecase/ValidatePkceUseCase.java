@@ -27,8 +27,8 @@ public class ValidatePkceUseCase {
   public boolean execute(String authorizationCode, String codeVerifier) {
     log.debug("Validating PKCE for authorization code");
 
-    Optional<AuthorizationSession> sessionOpt =
-        sessionStorage.findByAuthorizationCode(authorizationCode);
+    // Consuming makes the code single-use: a second exchange of the same code finds no session
+    Optional<AuthorizationSession> sessionOpt = sessionStorage.consume(authorizationCode);
 
     if (sessionOpt.isEmpty()) {
       log.warn("Session not found for authorization code");
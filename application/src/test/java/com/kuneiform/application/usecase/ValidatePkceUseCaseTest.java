@@ -44,7 +44,7 @@ class ValidatePkceUseCaseTest {
             .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
-    when(sessionStorage.findByAuthorizationCode("code-123")).thenReturn(Optional.of(session));
+    when(sessionStorage.consume("code-123")).thenReturn(Optional.of(session));
 
     boolean result = useCase.execute("code-123", verifier);
 
@@ -69,7 +69,7 @@ class ValidatePkceUseCaseTest {
             .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
-    when(sessionStorage.findByAuthorizationCode("code-123")).thenReturn(Optional.of(session));
+    when(sessionStorage.consume("code-123")).thenReturn(Optional.of(session));
 
     boolean result = useCase.execute("code-123", verifier);
 
@@ -95,7 +95,7 @@ class ValidatePkceUseCaseTest {
             .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
-    when(sessionStorage.findByAuthorizationCode("code-123")).thenReturn(Optional.of(session));
+    when(sessionStorage.consume("code-123")).thenReturn(Optional.of(session));
 
     boolean result = useCase.execute("code-123", invalidVerifier);
 
@@ -115,7 +115,7 @@ class ValidatePkceUseCaseTest {
             .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
-    when(sessionStorage.findByAuthorizationCode("code-123")).thenReturn(Optional.of(session));
+    when(sessionStorage.consume("code-123")).thenReturn(Optional.of(session));
 
     boolean result = useCase.execute("code-123", null);
 
@@ -137,7 +137,7 @@ class ValidatePkceUseCaseTest {
             .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
-    when(sessionStorage.findByAuthorizationCode("code-123")).thenReturn(Optional.of(session));
+    when(sessionStorage.consume("code-123")).thenReturn(Optional.of(session));
 
     boolean result = useCase.execute("code-123", null);
 
@@ -146,7 +146,7 @@ class ValidatePkceUseCaseTest {
 
   @Test
   void shouldRejectNonExistentSession() {
-    when(sessionStorage.findByAuthorizationCode("invalid-code")).thenReturn(Optional.empty());
+    when(sessionStorage.consume("invalid-code")).thenReturn(Optional.empty());
 
     boolean result = useCase.execute("invalid-code", "verifier");
 
@@ -168,10 +168,33 @@ class ValidatePkceUseCaseTest {
             .expiresAt(Instant.now().plusSeconds(600))
             .build();
 
-    when(sessionStorage.findByAuthorizationCode("code-123")).thenReturn(Optional.of(session));
+    when(sessionStorage.consume("code-123")).thenReturn(Optional.of(session));
 
     boolean result = useCase.execute("code-123", "verifier");
 
     assertFalse(result);
   }
+
+  @Test
+  void shouldConsumeCodeSoSecondExchangeFails() {
+    AuthorizationSession session =
+        AuthorizationSession.builder()
+            .authorizationCode("code-123")
+            .userId("user-123")
+            .clientId("client-123")
+            .authorizedScopes(Set.of("openid"))
+            .redirectUri("http://localhost:3000/callback")
+            .createdAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(600))
+            .build();
+
+    when(sessionStorage.consume("code-123"))
+        .thenReturn(Optional.of(session))
+        .thenReturn(Optional.empty());
+
+    assertTrue(useCase.execute("code-123", null));
+    assertFalse(useCase.execute("code-123", null));
+    verify(sessionStorage, never()).findByAuthorizationCode(any());
+    verify(sessionStorage, never()).deleteByAuthorizationCode(any());
+  }
 }
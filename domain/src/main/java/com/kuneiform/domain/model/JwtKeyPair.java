@@ -1,24 +1,30 @@
 package com.kuneiform.domain.model;
 
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import java.security.PrivateKey;
+import java.security.PublicKey;
 import lombok.Value;
 
 /**
- * Domain model representing a JWT RSA key pair.
+ * Domain model representing a JWT signing key pair.
  *
  * <p>This immutable value object encapsulates the public and private keys used for JWT signing and
- * verification, along with a unique key identifier.
+ * verification, along with a unique key identifier. Keys are either RSA (RS256) or EC on the P-256
+ * curve (ES256).
  */
 @Value
 public class JwtKeyPair {
 
-  /** The RSA public key used for JWT signature verification. */
-  RSAPublicKey publicKey;
+  /** The public key used for JWT signature verification. */
+  PublicKey publicKey;
 
-  /** The RSA private key used for JWT signing. */
-  RSAPrivateKey privateKey;
+  /** The private key used for JWT signing. */
+  PrivateKey privateKey;
 
   /** Unique identifier for this key pair, used in JWK sets. */
   String keyId;
+
+  /** The JWS algorithm this key pair signs with, derived from the public key. */
+  public JwtSigningAlgorithm getAlgorithm() {
+    return JwtSigningAlgorithm.forKey(publicKey);
+  }
 }
@@ -0,0 +1,89 @@
+package com.kuneiform.domain.model;
+
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+
+/**
+ * JWS algorithms the authorization server can sign tokens with.
+ *
+ * <p>ES256 signatures are much cheaper to compute than RS256 ones and take 64 bytes instead of 256,
+ * so tokens are smaller as well.
+ */
+public enum JwtSigningAlgorithm {
+
+  /** RSASSA-PKCS1-v1_5 with SHA-256, signed with an RSA key. */
+  RS256("RSA"),
+
+  /** ECDSA with SHA-256, signed with a P-256 key. */
+  ES256("EC");
+
+  private static final ECParameterSpec P_256 = namedCurve("secp256r1");
+
+  private final String keyAlgorithm;
+
+  JwtSigningAlgorithm(String keyAlgorithm) {
+    this.keyAlgorithm = keyAlgorithm;
+  }
+
+  /** JCA name of the key algorithm ({@code RSA} or {@code EC}). */
+  public String getKeyAlgorithm() {
+    return keyAlgorithm;
+  }
+
+  /**
+   * Parses an algorithm name, ignoring case.
+   *
+   * @throws IllegalArgumentException if the algorithm is not supported
+   */
+  public static JwtSigningAlgorithm from(String name) {
+    for (JwtSigningAlgorithm algorithm : values()) {
+      if (algorithm.name().equalsIgnoreCase(name)) {
+        return algorithm;
+      }
+    }
+    throw new IllegalArgumentException(
+        "Unsupported JWT signing algorithm: '" + name + "'. Supported values are: RS256, ES256");
+  }
+
+  /**
+   * Returns the algorithm a public key signs with.
+   *
+   * @throws IllegalArgumentException if the key is neither RSA nor EC on the P-256 curve
+   */
+  public static JwtSigningAlgorithm forKey(PublicKey key) {
+    if (key instanceof RSAPublicKey) {
+      return RS256;
+    }
+    if (key instanceof ECPublicKey ecKey && isP256(ecKey.getParams())) {
+      return ES256;
+    }
+    throw new IllegalArgumentException(
+        "Unsupported JWT key: " + key.getAlgorithm() + ". Use an RSA or a P-256 EC key");
+  }
+
+  /**
+   * Whether the parameters describe P-256. The field size alone is not enough: other 256-bit
+   * curves such as secp256k1 would pass, and ES256 is only defined on P-256.
+   */
+  private static boolean isP256(ECParameterSpec params) {
+    return params.getCurve().equals(P_256.getCurve())
+        && params.getGenerator().equals(P_256.getGenerator())
+        && params.getOrder().equals(P_256.getOrder())
+        && params.getCofactor() == P_256.getCofactor();
+  }
+
+  private static ECParameterSpec namedCurve(String name) {
+    try {
+      AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+      parameters.init(new ECGenParameterSpec(name));
+      return parameters.getParameterSpec(ECParameterSpec.class);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("EC curve not available: " + name, e);
+    }
+  }
+}
@@ -29,6 +29,8 @@ public class OAuthClient {
 
   String tenantId; // Reference to tenant which contains user provider configuration
 
+  String tokenSigningAlgorithm; // e.g., "RS256", "ES256"; null uses the server default
+
   // Optional metadata for account page display
   String imageUrl; // URL to client application's logo
   String accessUrl; // URL where user can initiate login (e.g., https://myapp.com/login)
@@ -24,4 +24,11 @@ public class UserProvider {
    * actual user ID. Example: "http://localhost:8080/api/v1/users/{userId}/scopes"
    */
   String scopesValidationEndpoint;
+
+  /**
+   * Optional URL template for batch scope validation, used instead of the scopes validation
+   * endpoint when set. It answers with the allowed subset of the requested scopes and may send a
+   * Cache-Control max-age. Example: "http://localhost:8080/api/v1/users/{userId}/scopes/decision"
+   */
+  String scopesBatchValidationEndpoint;
 }
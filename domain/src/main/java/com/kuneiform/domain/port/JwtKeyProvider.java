@@ -1,11 +1,12 @@
 package com.kuneiform.domain.port;
 
 import com.kuneiform.domain.model.JwtKeyPair;
+import java.util.List;
 
 /**
  * Port interface for providing JWT key pairs.
  *
- * <p>This interface defines the contract for obtaining RSA key pairs used in JWT signing and
+ * <p>This interface defines the contract for obtaining the key pairs used in JWT signing and
  * verification. Different implementations can provide keys from various sources (runtime
  * generation, file system, key management services, etc.).
  *
@@ -15,10 +16,20 @@ import com.kuneiform.domain.model.JwtKeyPair;
 public interface JwtKeyProvider {
 
   /**
-   * Retrieves the JWT key pair.
+   * Retrieves the primary JWT key pair.
    *
-   * @return the RSA key pair with public key, private key, and key ID
+   * @return the key pair with public key, private key, and key ID
    * @throws IllegalStateException if the key pair cannot be provided
    */
   JwtKeyPair getKeyPair();
+
+  /**
+   * Retrieves every JWT key pair, the primary one first. At most one key pair per signing
+   * algorithm is returned, so a token's algorithm selects its key.
+   *
+   * @return all key pairs to publish and sign with
+   */
+  default List<JwtKeyPair> getKeyPairs() {
+    return List.of(getKeyPair());
+  }
 }
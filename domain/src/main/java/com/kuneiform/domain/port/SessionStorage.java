@@ -14,6 +14,15 @@ public interface SessionStorage {
 
   Optional<AuthorizationSession> findByAuthorizationCode(String authorizationCode);
 
+  /**
+   * Atomically remove and return the session of an authorization code, so each code can be
+   * redeemed only once even under concurrent exchanges.
+   *
+   * @param authorizationCode The authorization code
+   * @return The session, or empty if it does not exist, has expired or was already consumed
+   */
+  Optional<AuthorizationSession> consume(String authorizationCode);
+
   /**
    * Find all sessions for a specific user.
    *
@@ -24,6 +33,13 @@ public interface SessionStorage {
 
   void deleteByAuthorizationCode(String authorizationCode);
 
+  /**
+   * Delete all sessions of a specific user, e.g. on logout.
+   *
+   * @param userId The user's ID
+   */
+  void deleteByUserId(String userId);
+
   // Deletes all expired sessions. This can be used for cleanup tasks.
   void deleteExpiredSessions();
 }
@@ -0,0 +1,107 @@
+package com.kuneiform.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigInteger;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECFieldFp;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.EllipticCurve;
+import org.junit.jupiter.api.Test;
+
+class JwtSigningAlgorithmTest {
+
+  @Test
+  void shouldParseAlgorithmIgnoringCase() {
+    assertThat(JwtSigningAlgorithm.from("rs256")).isEqualTo(JwtSigningAlgorithm.RS256);
+    assertThat(JwtSigningAlgorithm.from("ES256")).isEqualTo(JwtSigningAlgorithm.ES256);
+  }
+
+  @Test
+  void shouldRejectUnsupportedAlgorithm() {
+    assertThatThrownBy(() -> JwtSigningAlgorithm.from("HS256"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("HS256");
+  }
+
+  @Test
+  void shouldDeriveAlgorithmFromKey() throws Exception {
+    KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+    rsa.initialize(2048);
+    KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+    ec.initialize(new ECGenParameterSpec("secp256r1"));
+
+    assertThat(JwtSigningAlgorithm.forKey(rsa.generateKeyPair().getPublic()))
+        .isEqualTo(JwtSigningAlgorithm.RS256);
+    assertThat(JwtSigningAlgorithm.forKey(ec.generateKeyPair().getPublic()))
+        .isEqualTo(JwtSigningAlgorithm.ES256);
+  }
+
+  @Test
+  void shouldRejectEcKeyOnOtherCurve() throws Exception {
+    KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+    ec.initialize(new ECGenParameterSpec("secp384r1"));
+
+    assertThatThrownBy(() -> JwtSigningAlgorithm.forKey(ec.generateKeyPair().getPublic()))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldRejectOtherCurveOfTheSameFieldSize() {
+    // secp256k1 is a 256-bit curve too, but not the one ES256 is defined on. The JDK no longer
+    // generates keys on it, so the key is built from the curve parameters.
+    ECParameterSpec secp256k1 =
+        new ECParameterSpec(
+            new EllipticCurve(
+                new ECFieldFp(
+                    new BigInteger(
+                        "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEFFFFFC2F", 16)),
+                BigInteger.ZERO,
+                BigInteger.valueOf(7)),
+            new ECPoint(
+                new BigInteger(
+                    "79BE667EF9DCBBAC55A06295CE870B07029BFCDB2DCE28D959F2815B16F81798", 16),
+                new BigInteger(
+                    "483ADA7726A3C4655DA4FBFC0E1108A8FD17B448A68554199C47D08FFB10D4B8", 16)),
+            new BigInteger("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364141", 16),
+            1);
+    ECPublicKey key = ecPublicKey(secp256k1);
+
+    assertThatThrownBy(() -> JwtSigningAlgorithm.forKey(key))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Use an RSA or a P-256 EC key");
+  }
+
+  private static ECPublicKey ecPublicKey(ECParameterSpec params) {
+    return new ECPublicKey() {
+      @Override
+      public ECPoint getW() {
+        return params.getGenerator();
+      }
+
+      @Override
+      public ECParameterSpec getParams() {
+        return params;
+      }
+
+      @Override
+      public String getAlgorithm() {
+        return "EC";
+      }
+
+      @Override
+      public String getFormat() {
+        return "X.509";
+      }
+
+      @Override
+      public byte[] getEncoded() {
+        return new byte[0];
+      }
+    };
+  }
+}
@@ -0,0 +1,126 @@
+package com.kuneiform.infrastructure.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kuneiform.infrastructure.util.TokenIndexKeys;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+/**
+ * {@code findByToken} hit path of the in-memory token store as it was before token digests, to
+ * compare with {@link TokenLookupBenchmark} on the same data. Run with {@code -prof gc}.
+ *
+ * <p>The lookup is replayed against two Caffeine caches set up as the store had them: the token
+ * index keyed by {@code <type>:<full token value>} mapping to the authorization ID, and the
+ * authorizations by ID. Debug arguments (substrings and concatenation) were built even with debug
+ * logging off, so they are built here too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenLookupBaselineBenchmark {
+
+  private static final int AUTHORIZATIONS = 10_000;
+  private static final Duration MAX_TTL = Duration.ofHours(1);
+
+  private Cache<String, OAuth2Authorization> authorizationCache;
+  private Cache<String, String> tokenIndexCache;
+  private String accessToken;
+  private String refreshToken;
+
+  @Setup
+  public void setUp() {
+    authorizationCache =
+        Caffeine.newBuilder().expireAfterWrite(MAX_TTL).maximumSize(AUTHORIZATIONS * 2).build();
+    tokenIndexCache =
+        Caffeine.newBuilder().expireAfterWrite(MAX_TTL).maximumSize(AUTHORIZATIONS * 8).build();
+
+    RegisteredClient client =
+        RegisteredClient.withId("client-1")
+            .clientId("client-1")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost:8080/callback")
+            .build();
+
+    Instant now = Instant.now();
+    Instant expiresAt = now.plus(1, ChronoUnit.HOURS);
+    // Same JWT-sized access tokens as TokenLookupBenchmark
+    String jwtBody = "x".repeat(900);
+    for (int i = 0; i < AUTHORIZATIONS; i++) {
+      String accessTokenValue = "eyJhbGciOiJSUzI1NiJ9." + jwtBody + i + ".signature";
+      String refreshTokenValue = "refresh-token-" + i;
+      OAuth2Authorization authorization =
+          OAuth2Authorization.withRegisteredClient(client)
+              .id("auth-" + i)
+              .principalName("user-" + i)
+              .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+              .token(
+                  new OAuth2AccessToken(
+                      OAuth2AccessToken.TokenType.BEARER, accessTokenValue, now, expiresAt))
+              .refreshToken(new OAuth2RefreshToken(refreshTokenValue, now, expiresAt))
+              .build();
+      authorizationCache.put(authorization.getId(), authorization);
+      tokenIndexCache.put(
+          TokenIndexKeys.legacy("access_token", accessTokenValue), authorization.getId());
+      tokenIndexCache.put(
+          TokenIndexKeys.legacy("refresh_token", refreshTokenValue), authorization.getId());
+    }
+
+    int sample = AUTHORIZATIONS / 2;
+    accessToken = "eyJhbGciOiJSUzI1NiJ9." + jwtBody + sample + ".signature";
+    refreshToken = "refresh-token-" + sample;
+  }
+
+  @Benchmark
+  public OAuth2Authorization findByAccessToken(Blackhole blackhole) {
+    return findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN, blackhole);
+  }
+
+  @Benchmark
+  public OAuth2Authorization findByRefreshToken(Blackhole blackhole) {
+    return findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN, blackhole);
+  }
+
+  private OAuth2Authorization findByToken(
+      String token, OAuth2TokenType tokenType, Blackhole blackhole) {
+    blackhole.consume(token.substring(0, Math.min(20, token.length())) + "...");
+
+    String authId =
+        tokenIndexCache.getIfPresent(TokenIndexKeys.legacy(tokenType.getValue(), token));
+    if (authId == null) {
+      return null;
+    }
+
+    OAuth2Authorization auth = authorizationCache.getIfPresent(authId);
+    if (auth != null && OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+      // Refresh token reuse check
+      String currentVal = auth.getRefreshToken().getToken().getTokenValue();
+      blackhole.consume(currentVal.equals(token));
+      blackhole.consume(token.substring(0, Math.min(10, token.length())) + "...");
+      blackhole.consume(currentVal.substring(0, Math.min(10, currentVal.length())) + "...");
+    }
+    return auth;
+  }
+}
@@ -0,0 +1,117 @@
+package com.kuneiform.infrastructure.benchmark;
+
+import com.kuneiform.infrastructure.adapter.InMemoryOAuth2AuthorizationServiceAdapter;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.util.TokenIndexKeys;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+/**
+ * {@code findByToken} hit path of the in-memory token store, plus index key construction on its
+ * own: the string key ({@code <type>:<Base64url digest>}) every lookup used to build versus the
+ * binary {@code TokenDigest} used now. Run with {@code -prof gc} and compare {@code
+ * gc.alloc.rate.norm} (bytes per lookup).
+ *
+ * <p>{@link TokenLookupBaselineBenchmark} replays the lookup as it was before token digests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenLookupBenchmark {
+
+  private static final int AUTHORIZATIONS = 10_000;
+
+  @Param({"on-heap", "off-heap"})
+  public String indexMode;
+
+  private InMemoryOAuth2AuthorizationServiceAdapter service;
+  private String accessToken;
+  private String refreshToken;
+
+  @Setup
+  public void setUp() {
+    WedgeConfigProperties config = new WedgeConfigProperties();
+    config.getTokenStorage().setMaxSize(AUTHORIZATIONS * 2);
+    config.getTokenStorage().setIndexMode(indexMode);
+    service = new InMemoryOAuth2AuthorizationServiceAdapter(config);
+    service.init();
+
+    RegisteredClient client =
+        RegisteredClient.withId("client-1")
+            .clientId("client-1")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost:8080/callback")
+            .build();
+
+    Instant now = Instant.now();
+    Instant expiresAt = now.plus(1, ChronoUnit.HOURS);
+    // JWT-sized access tokens, as issued with self-contained token format
+    String jwtBody = "x".repeat(900);
+    for (int i = 0; i < AUTHORIZATIONS; i++) {
+      String accessTokenValue = "eyJhbGciOiJSUzI1NiJ9." + jwtBody + i + ".signature";
+      String refreshTokenValue = "refresh-token-" + i;
+      OAuth2Authorization authorization =
+          OAuth2Authorization.withRegisteredClient(client)
+              .id("auth-" + i)
+              .principalName("user-" + i)
+              .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+              .token(
+                  new OAuth2AccessToken(
+                      OAuth2AccessToken.TokenType.BEARER, accessTokenValue, now, expiresAt))
+              .refreshToken(new OAuth2RefreshToken(refreshTokenValue, now, expiresAt))
+              .build();
+      service.save(authorization);
+    }
+
+    int sample = AUTHORIZATIONS / 2;
+    accessToken = "eyJhbGciOiJSUzI1NiJ9." + jwtBody + sample + ".signature";
+    refreshToken = "refresh-token-" + sample;
+  }
+
+  @Benchmark
+  public OAuth2Authorization findByAccessToken() {
+    return service.findByToken(accessToken, OAuth2TokenType.ACCESS_TOKEN);
+  }
+
+  @Benchmark
+  public OAuth2Authorization findByRefreshToken() {
+    return service.findByToken(refreshToken, OAuth2TokenType.REFRESH_TOKEN);
+  }
+
+  @Benchmark
+  public OAuth2Authorization findWithoutTypeHint() {
+    // Token introspection passes no type; the access token is the first type probed
+    return service.findByToken(accessToken, null);
+  }
+
+  @Benchmark
+  public Object stringIndexKey() {
+    return TokenIndexKeys.hashed("access_token", accessToken);
+  }
+
+  @Benchmark
+  public Object binaryIndexKey() {
+    return TokenIndexKeys.digestOf("access_token", accessToken);
+  }
+}
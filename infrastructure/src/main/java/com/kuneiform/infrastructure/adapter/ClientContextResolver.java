@@ -0,0 +1,153 @@
+package com.kuneiform.infrastructure.adapter;
+
+import com.kuneiform.domain.model.OAuthClient;
+import com.kuneiform.domain.model.Tenant;
+import com.kuneiform.domain.port.ClientRepository;
+import com.kuneiform.domain.port.TenantRepository;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.security.TenantContext;
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the tenant and user provider serving a client from maps precomputed at startup.
+ *
+ * <p>Both maps are immutable and replaced as a whole on {@link #refresh()}, so a lookup is a single
+ * hash lookup with no repository or JDBC call. They are rebuilt whenever a {@link
+ * ClientRegistrationsChangedEvent} is published, i.e. when a client is saved, deleted or moved to
+ * another tenant. Tenants are loaded once at startup and have no write path, so they need no event.
+ * Clients or tenants missing from the maps, such as rows inserted behind the server's back, are
+ * still resolved through the repositories.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClientContextResolver {
+
+  private final ClientRepository clientRepository;
+  private final TenantRepository tenantRepository;
+  private final WedgeConfigProperties config;
+
+  private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of());
+
+  @PostConstruct
+  public void init() {
+    refresh();
+  }
+
+  /** Rebuilds the client and tenant maps and swaps them in atomically. */
+  public void refresh() {
+    Map<String, Tenant> tenants = new HashMap<>();
+    for (Tenant tenant : tenantRepository.findAll()) {
+      if (tenant.getUserProvider() != null) {
+        tenants.put(tenant.getId(), tenant);
+      }
+    }
+
+    List<OAuthClient> clientList = clientRepository.findAll();
+    Map<String, ResolvedClientContext> clients = new HashMap<>();
+    for (OAuthClient client : clientList) {
+      Tenant tenant = client.getTenantId() != null ? tenants.get(client.getTenantId()) : null;
+      if (tenant != null) {
+        clients.put(
+            client.getClientId(),
+            new ResolvedClientContext(client, tenant, tenant.getUserProvider()));
+      }
+    }
+
+    snapshot = new Snapshot(Map.copyOf(clients), Map.copyOf(tenants));
+    log.info(
+        "Resolved user provider context for {} of {} clients across {} tenants",
+        clients.size(),
+        clientList.size(),
+        tenants.size());
+  }
+
+  @EventListener
+  public void onClientRegistrationsChanged(ClientRegistrationsChangedEvent event) {
+    log.debug("Client '{}' changed, rebuilding client contexts", event.clientId());
+    refresh();
+  }
+
+  /**
+   * Resolve the tenant whose user provider serves the request. If tenantId is provided, look up
+   * tenant directly. Otherwise, look up client to find tenant. Only tenants with a user provider
+   * are returned.
+   */
+  public Optional<Tenant> resolveTenant(String clientId, String tenantId) {
+    if (tenantId != null && !tenantId.isBlank()) {
+      Tenant tenant = snapshot.tenants().get(tenantId);
+      return tenant != null ? Optional.of(tenant) : findTenant(tenantId, clientId);
+    }
+
+    if (clientId == null || clientId.isBlank()) {
+      log.warn("Cannot resolve user provider: both tenantId and clientId are missing");
+      return Optional.empty();
+    }
+
+    return resolve(clientId).map(ResolvedClientContext::tenant);
+  }
+
+  /** Resolve the client together with its tenant; only tenants with a user provider qualify. */
+  public Optional<ResolvedClientContext> resolve(String clientId) {
+    ResolvedClientContext context = snapshot.clients().get(clientId);
+    if (context == null) {
+      return findContext(clientId);
+    }
+
+    // Same rule DatabaseClientRepositoryAdapter applies, without asking TenantClientPort
+    if (config.getMultiTenancy().isEnabled() && TenantContext.hasTenant()) {
+      String currentTenant = TenantContext.getCurrentTenant();
+      if (!currentTenant.equals(context.tenant().getId())) {
+        log.debug("Client '{}' not accessible in tenant '{}'", clientId, currentTenant);
+        return Optional.empty();
+      }
+    }
+    return Optional.of(context);
+  }
+
+  private Optional<ResolvedClientContext> findContext(String clientId) {
+    Optional<OAuthClient> clientOpt = clientRepository.findByClientId(clientId);
+
+    if (clientOpt.isEmpty()) {
+      log.error("Client not found for clientId: {}", clientId);
+      return Optional.empty();
+    }
+
+    OAuthClient client = clientOpt.get();
+    String tenantId = client.getTenantId();
+
+    if (tenantId == null || tenantId.isBlank()) {
+      log.warn("Tenant not configured for client: {}", clientId);
+      return Optional.empty();
+    }
+
+    return findTenant(tenantId, clientId)
+        .map(tenant -> new ResolvedClientContext(client, tenant, tenant.getUserProvider()));
+  }
+
+  private Optional<Tenant> findTenant(String tenantId, String clientId) {
+    Optional<Tenant> tenantOpt = tenantRepository.findById(tenantId);
+    if (tenantOpt.isEmpty()) {
+      log.error("Tenant not found: {} for client: {}", tenantId, clientId);
+      return Optional.empty();
+    }
+
+    Tenant tenant = tenantOpt.get();
+    if (tenant.getUserProvider() == null) {
+      log.warn("User provider not configured for tenant: {}", tenantId);
+      return Optional.empty();
+    }
+
+    return tenantOpt;
+  }
+
+  private record Snapshot(Map<String, ResolvedClientContext> clients, Map<String, Tenant> tenants) {}
+}
@@ -0,0 +1,4 @@
+package com.kuneiform.infrastructure.adapter;
+
+/** Published when a client is saved or deleted so precomputed client lookups can be rebuilt. */
+public record ClientRegistrationsChangedEvent(String clientId) {}
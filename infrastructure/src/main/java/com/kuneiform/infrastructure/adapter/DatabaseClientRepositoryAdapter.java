@@ -12,12 +12,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
  * Database-backed implementation of ClientRepository using Spring Data JDBC. Includes an in-memory
  * cache for improved performance. Supports multi-tenancy by filtering clients based on
- * TenantContext.
+ * TenantContext. Saves and deletes publish a {@link ClientRegistrationsChangedEvent}.
  */
 @Slf4j
 public class DatabaseClientRepositoryAdapter implements ClientRepository {
@@ -26,18 +27,21 @@ public class DatabaseClientRepositoryAdapter implements ClientRepository {
   private final PasswordEncoder passwordEncoder;
   private final TenantClientPort tenantClientPort;
   private final boolean multiTenancyEnabled;
+  private final ApplicationEventPublisher eventPublisher;
   private final Map<String, OAuthClient> cache = new ConcurrentHashMap<>();
 
   public DatabaseClientRepositoryAdapter(
       OAuthClientJdbcRepository repository,
       PasswordEncoder passwordEncoder,
       TenantClientPort tenantClientPort,
-      WedgeConfigProperties config) {
+      WedgeConfigProperties config,
+      ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
     this.passwordEncoder = passwordEncoder;
     this.tenantClientPort = tenantClientPort;
     this.multiTenancyEnabled =
         config.getMultiTenancy() != null && config.getMultiTenancy().isEnabled();
+    this.eventPublisher = eventPublisher;
     loadCache();
   }
 
@@ -134,6 +138,7 @@ public class DatabaseClientRepositoryAdapter implements ClientRepository {
     // Update cache
     cache.put(savedClient.getClientId(), savedClient);
     log.info("Saved OAuth client to database: {}", savedClient.getClientId());
+    eventPublisher.publishEvent(new ClientRegistrationsChangedEvent(savedClient.getClientId()));
 
     return savedClient;
   }
@@ -143,6 +148,7 @@ public class DatabaseClientRepositoryAdapter implements ClientRepository {
     repository.deleteByClientId(clientId);
     cache.remove(clientId);
     log.info("Deleted OAuth client from database: {}", clientId);
+    eventPublisher.publishEvent(new ClientRegistrationsChangedEvent(clientId));
   }
 
   /** Converts database entity to domain model. */
@@ -162,6 +168,7 @@ public class DatabaseClientRepositoryAdapter implements ClientRepository {
                 && entity.getRequireAuthorizationConsent())
         .requirePkce(entity.getRequirePkce() != null && entity.getRequirePkce())
         .tenantId(entity.getTenantId())
+        .tokenSigningAlgorithm(entity.getTokenSigningAlgorithm())
         .imageUrl(entity.getImageUrl())
         .accessUrl(entity.getAccessUrl())
         .build();
@@ -182,6 +189,7 @@ public class DatabaseClientRepositoryAdapter implements ClientRepository {
     entity.setRequireAuthorizationConsent(client.isRequireAuthorizationConsent());
     entity.setRequirePkce(client.isRequirePkce());
     entity.setTenantId(client.getTenantId());
+    entity.setTokenSigningAlgorithm(client.getTokenSigningAlgorithm());
     entity.setImageUrl(client.getImageUrl());
     entity.setAccessUrl(client.getAccessUrl());
 
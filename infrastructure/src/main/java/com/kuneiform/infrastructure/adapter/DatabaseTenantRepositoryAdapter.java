@@ -69,6 +69,8 @@ public class DatabaseTenantRepositoryAdapter implements TenantRepository {
             .timeout(
                 entity.getUserProviderTimeout() != null ? entity.getUserProviderTimeout() : 5000)
             .mfaRegistrationEndpoint(entity.getMfaRegistrationEndpoint())
+            .scopesValidationEndpoint(entity.getScopesValidationEndpoint())
+            .scopesBatchValidationEndpoint(entity.getScopesBatchValidationEndpoint())
             .build();
 
     return Tenant.builder()
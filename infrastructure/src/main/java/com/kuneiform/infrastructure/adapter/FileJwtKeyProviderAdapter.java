@@ -1,28 +1,39 @@
 package com.kuneiform.infrastructure.adapter;
 
 import com.kuneiform.domain.model.JwtKeyPair;
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
 import com.kuneiform.domain.port.JwtKeyProvider;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.KeyFactory;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Adapter that loads RSA key pairs from PEM files.
+ * Adapter that loads JWT key pairs from PEM files.
  *
- * <p>This implementation reads RSA keys from the file system, supporting standard PEM formats:
+ * <p>This implementation reads RSA or P-256 EC keys from the file system, supporting standard PEM
+ * formats:
  *
  * <ul>
  *   <li>Private keys in PKCS#8 format
  *   <li>Public keys in X.509 format
  * </ul>
  *
+ * <p>The key type is detected from the public key, and determines the signing algorithm (RS256 or
+ * ES256). Besides the primary key pair, additional key pairs can be loaded so that clients can be
+ * configured with a different algorithm; at most one key pair per algorithm is allowed.
+ *
  * <p>This adapter is suitable for production environments where keys are managed externally and
  * should persist across application restarts.
  *
@@ -32,10 +43,10 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FileJwtKeyProviderAdapter implements JwtKeyProvider {
 
-  private final String privateKeyPath;
-  private final String publicKeyPath;
-  private final String keyId;
-  private final JwtKeyPair cachedKeyPair;
+  /** Location of one key pair on disk. */
+  public record KeyFiles(String privateKeyPath, String publicKeyPath, String keyId) {}
+
+  private final List<JwtKeyPair> cachedKeyPairs;
 
   /**
    * Creates a new file-based key provider and loads the key pair immediately.
@@ -46,37 +57,66 @@ public class FileJwtKeyProviderAdapter implements JwtKeyProvider {
    * @throws IllegalStateException if key files cannot be read or parsed
    */
   public FileJwtKeyProviderAdapter(String privateKeyPath, String publicKeyPath, String keyId) {
-    this.privateKeyPath = privateKeyPath;
-    this.publicKeyPath = publicKeyPath;
-    this.keyId = keyId;
-    this.cachedKeyPair = loadKeyPair();
+    this(List.of(new KeyFiles(privateKeyPath, publicKeyPath, keyId)));
+  }
+
+  /**
+   * Creates a new file-based key provider and loads all key pairs immediately.
+   *
+   * @param keyFiles the key pairs to load, the primary one first
+   * @throws IllegalStateException if key files cannot be read or parsed, or if two key pairs use
+   *     the same signing algorithm
+   */
+  public FileJwtKeyProviderAdapter(List<KeyFiles> keyFiles) {
+    List<JwtKeyPair> keyPairs = new ArrayList<>(keyFiles.size());
+    Set<JwtSigningAlgorithm> algorithms = EnumSet.noneOf(JwtSigningAlgorithm.class);
+    for (KeyFiles files : keyFiles) {
+      JwtKeyPair keyPair = loadKeyPair(files);
+      if (!algorithms.add(keyPair.getAlgorithm())) {
+        throw new IllegalStateException(
+            "Only one JWT key pair per signing algorithm is allowed, found a second "
+                + keyPair.getAlgorithm()
+                + " key: "
+                + files.keyId());
+      }
+      keyPairs.add(keyPair);
+    }
+    this.cachedKeyPairs = List.copyOf(keyPairs);
   }
 
   @Override
   public JwtKeyPair getKeyPair() {
-    return cachedKeyPair;
+    return cachedKeyPairs.getFirst();
+  }
+
+  @Override
+  public List<JwtKeyPair> getKeyPairs() {
+    return cachedKeyPairs;
   }
 
-  private JwtKeyPair loadKeyPair() {
+  private JwtKeyPair loadKeyPair(KeyFiles files) {
     try {
       log.info("Loading JWT key pair from files:");
-      log.info("  Private key: {}", privateKeyPath);
-      log.info("  Public key: {}", publicKeyPath);
+      log.info("  Private key: {}", files.privateKeyPath());
+      log.info("  Public key: {}", files.publicKeyPath());
 
-      RSAPrivateKey privateKey = loadPrivateKey(privateKeyPath);
-      RSAPublicKey publicKey = loadPublicKey(publicKeyPath);
+      PublicKey publicKey = loadPublicKey(files.publicKeyPath());
+      PrivateKey privateKey = loadPrivateKey(files.privateKeyPath(), publicKey.getAlgorithm());
+      JwtKeyPair keyPair = new JwtKeyPair(publicKey, privateKey, files.keyId());
 
-      log.info("Successfully loaded RSA key pair with key ID: {}", keyId);
-      return new JwtKeyPair(publicKey, privateKey, keyId);
+      log.info(
+          "Successfully loaded {} key pair with key ID: {}", keyPair.getAlgorithm(), files.keyId());
+      return keyPair;
     } catch (Exception ex) {
       throw new IllegalStateException(
           "Failed to load JWT key pair from files. "
-              + "Ensure the files exist and are in valid PEM format (PKCS#8 for private key, X.509 for public key).",
+              + "Ensure the files exist and are in valid PEM format (PKCS#8 for private key, X.509 for public key) "
+              + "and hold an RSA or a P-256 EC key.",
           ex);
     }
   }
 
-  private RSAPrivateKey loadPrivateKey(String filePath) throws Exception {
+  private PrivateKey loadPrivateKey(String filePath, String keyAlgorithm) throws Exception {
     Path path = Paths.get(filePath);
     if (!Files.exists(path)) {
       throw new IllegalArgumentException("Private key file not found: " + filePath);
@@ -91,12 +131,12 @@ public class FileJwtKeyProviderAdapter implements JwtKeyProvider {
 
     byte[] encoded = Base64.getDecoder().decode(privateKeyPEM);
     PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(encoded);
-    KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+    KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
 
-    return (RSAPrivateKey) keyFactory.generatePrivate(keySpec);
+    return keyFactory.generatePrivate(keySpec);
   }
 
-  private RSAPublicKey loadPublicKey(String filePath) throws Exception {
+  private PublicKey loadPublicKey(String filePath) throws Exception {
     Path path = Paths.get(filePath);
     if (!Files.exists(path)) {
       throw new IllegalArgumentException("Public key file not found: " + filePath);
@@ -111,8 +151,16 @@ public class FileJwtKeyProviderAdapter implements JwtKeyProvider {
 
     byte[] encoded = Base64.getDecoder().decode(publicKeyPEM);
     X509EncodedKeySpec keySpec = new X509EncodedKeySpec(encoded);
-    KeyFactory keyFactory = KeyFactory.getInstance("RSA");
 
-    return (RSAPublicKey) keyFactory.generatePublic(keySpec);
+    // The X.509 structure names its algorithm; try each supported key type in turn
+    InvalidKeySpecException failure = null;
+    for (JwtSigningAlgorithm algorithm : JwtSigningAlgorithm.values()) {
+      try {
+        return KeyFactory.getInstance(algorithm.getKeyAlgorithm()).generatePublic(keySpec);
+      } catch (InvalidKeySpecException ex) {
+        failure = ex;
+      }
+    }
+    throw failure;
   }
 }
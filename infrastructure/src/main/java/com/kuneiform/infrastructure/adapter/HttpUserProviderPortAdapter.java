@@ -2,12 +2,9 @@ package com.kuneiform.infrastructure.adapter;
 
 import com.kuneiform.domain.exception.UserProviderException;
 import com.kuneiform.domain.model.MfaData;
-import com.kuneiform.domain.model.OAuthClient;
 import com.kuneiform.domain.model.Tenant;
 import com.kuneiform.domain.model.User;
 import com.kuneiform.domain.model.UserProvider;
-import com.kuneiform.domain.port.ClientRepository;
-import com.kuneiform.domain.port.TenantRepository;
 import com.kuneiform.domain.port.UserProviderPort;
 import com.kuneiform.infrastructure.adapter.models.MfaDataResponse;
 import com.kuneiform.infrastructure.adapter.models.UserResponse;
@@ -27,25 +24,30 @@ import org.springframework.stereotype.Component;
 public class HttpUserProviderPortAdapter implements UserProviderPort {
 
   private final UserProviderRestClient userProviderRestClient;
-  private final ClientRepository clientRepository;
-  private final TenantRepository tenantRepository;
+  private final ClientContextResolver clientContextResolver;
+  private final UserProviderCache userProviderCache;
 
   @Override
   public Optional<User> findByUsername(String clientId, String tenantId, String username) {
     log.debug(
         "Finding user by username: {} for client: {} (tenant: {})", username, clientId, tenantId);
 
-    Optional<UserProvider> userProviderOpt = getUserProvider(clientId, tenantId);
-    if (userProviderOpt.isEmpty()) {
+    Optional<Tenant> tenantOpt = clientContextResolver.resolveTenant(clientId, tenantId);
+    if (tenantOpt.isEmpty()) {
       return Optional.empty();
     }
 
-    UserProvider userProvider = userProviderOpt.get();
+    Tenant tenant = tenantOpt.get();
+    UserProvider userProvider = tenant.getUserProvider();
 
     try {
-      return userProviderRestClient
-          .findByUsername(userProvider.getEndpoint(), username)
-          .map(this::mapToUser);
+      return userProviderCache.findByUsername(
+          tenant.getId(),
+          username,
+          () ->
+              userProviderRestClient
+                  .findByUsername(tenant.getId(), userProvider.getEndpoint(), username)
+                  .map(this::mapToUser));
     } catch (Exception e) {
       if (e instanceof UserProviderException userProviderException) {
         log.debug(
@@ -67,16 +69,18 @@ public class HttpUserProviderPortAdapter implements UserProviderPort {
         tenantId,
         scopes);
 
-    Optional<UserProvider> userProviderOpt = getUserProvider(clientId, tenantId);
-    if (userProviderOpt.isEmpty()) {
+    Optional<Tenant> tenantOpt = clientContextResolver.resolveTenant(clientId, tenantId);
+    if (tenantOpt.isEmpty()) {
       return Optional.empty();
     }
 
-    UserProvider userProvider = userProviderOpt.get();
+    Tenant tenant = tenantOpt.get();
+    UserProvider userProvider = tenant.getUserProvider();
 
     try {
       return userProviderRestClient
-          .validateCredentials(userProvider.getEndpoint(), username, password, scopes)
+          .validateCredentials(
+              tenant.getId(), userProvider.getEndpoint(), username, password, scopes)
           .map(this::mapToUser);
     } catch (Exception e) {
       return Optional.empty();
@@ -97,12 +101,28 @@ public class HttpUserProviderPortAdapter implements UserProviderPort {
       return true;
     }
 
-    Optional<UserProvider> userProviderOpt = getUserProvider(clientId, tenantId);
-    if (userProviderOpt.isEmpty()) {
+    Optional<Tenant> tenantOpt = clientContextResolver.resolveTenant(clientId, tenantId);
+    if (tenantOpt.isEmpty()) {
       return false;
     }
 
-    UserProvider userProvider = userProviderOpt.get();
+    Tenant tenant = tenantOpt.get();
+    UserProvider userProvider = tenant.getUserProvider();
+
+    if (userProvider.getScopesBatchValidationEndpoint() != null) {
+      try {
+        String endpoint =
+            userProvider.getScopesBatchValidationEndpoint().replace("{userId}", userId);
+        return userProviderCache.decideScopes(
+            tenant.getId(),
+            userId,
+            scopes,
+            evaluated -> userProviderRestClient.decideScopes(tenant.getId(), endpoint, evaluated));
+      } catch (Exception e) {
+        log.error("Error validating scopes", e);
+        return false;
+      }
+    }
 
     if (userProvider.getScopesValidationEndpoint() == null) {
       // If no validation endpoint configured, assume all scopes are allowed
@@ -111,83 +131,30 @@ public class HttpUserProviderPortAdapter implements UserProviderPort {
 
     try {
       String endpoint = userProvider.getScopesValidationEndpoint().replace("{userId}", userId);
-      return userProviderRestClient.validateScopes(endpoint, scopes);
+      return userProviderCache.validateScopes(
+          tenant.getId(),
+          userId,
+          scopes,
+          () -> userProviderRestClient.validateScopes(tenant.getId(), endpoint, scopes));
     } catch (Exception e) {
       log.error("Error validating scopes", e);
       return false;
     }
   }
 
-  /**
-   * Resolve user provider. If tenantId is provided, look up tenant directly. Otherwise, look up
-   * client to find tenant.
-   */
-  private Optional<UserProvider> getUserProvider(String clientId, String tenantId) {
-    // 1. If tenantId is provided, use it directly
-    if (tenantId != null && !tenantId.isBlank()) {
-      Optional<Tenant> tenantOpt = tenantRepository.findById(tenantId);
-      if (tenantOpt.isEmpty()) {
-        log.error("Tenant not found: {} (requested with client: {})", tenantId, clientId);
-        return Optional.empty();
-      }
-
-      Tenant tenant = tenantOpt.get();
-      if (tenant.getUserProvider() == null) {
-        log.warn("User provider not configured for tenant: {}", tenantId);
-        return Optional.empty();
-      }
-
-      return Optional.of(tenant.getUserProvider());
-    }
-
-    // 2. Fallback: resolve via clientId
-    if (clientId == null || clientId.isBlank()) {
-      log.warn("Cannot resolve user provider: both tenantId and clientId are missing");
-      return Optional.empty();
-    }
-
-    Optional<OAuthClient> clientOpt = clientRepository.findByClientId(clientId);
-
-    if (clientOpt.isEmpty()) {
-      log.error("Client not found for clientId: {}", clientId);
-      return Optional.empty();
-    }
-
-    OAuthClient client = clientOpt.get();
-    String resolvedTenantId = client.getTenantId();
-
-    if (resolvedTenantId == null || resolvedTenantId.isBlank()) {
-      log.warn("Tenant not configured for client: {}", clientId);
-      return Optional.empty();
-    }
-
-    Optional<Tenant> tenantOpt = tenantRepository.findById(resolvedTenantId);
-    if (tenantOpt.isEmpty()) {
-      log.error("Tenant not found: {} for client: {}", resolvedTenantId, clientId);
-      return Optional.empty();
-    }
-
-    Tenant tenant = tenantOpt.get();
-    if (tenant.getUserProvider() == null) {
-      log.warn("User provider not configured for tenant: {}", resolvedTenantId);
-      return Optional.empty();
-    }
-
-    return Optional.of(tenant.getUserProvider());
-  }
-
   @Override
   public boolean registerMfa(
       String clientId, String tenantId, String userId, String mfaSecret, String mfaKeyId) {
     log.debug(
         "Registering MFA for user: {} for client: {} (tenant: {})", userId, clientId, tenantId);
 
-    Optional<UserProvider> userProviderOpt = getUserProvider(clientId, tenantId);
-    if (userProviderOpt.isEmpty()) {
+    Optional<Tenant> tenantOpt = clientContextResolver.resolveTenant(clientId, tenantId);
+    if (tenantOpt.isEmpty()) {
       return false;
     }
 
-    UserProvider userProvider = userProviderOpt.get();
+    Tenant tenant = tenantOpt.get();
+    UserProvider userProvider = tenant.getUserProvider();
 
     if (userProvider.getMfaRegistrationEndpoint() == null) {
       log.warn("MFA registration endpoint not configured for user provider");
@@ -196,7 +163,10 @@ public class HttpUserProviderPortAdapter implements UserProviderPort {
 
     try {
       String mfaEndpoint = userProvider.getMfaRegistrationEndpoint().replace("{userId}", userId);
-      return userProviderRestClient.registerMfa(mfaEndpoint, mfaSecret, mfaKeyId);
+      boolean registered =
+          userProviderRestClient.registerMfa(tenant.getId(), mfaEndpoint, mfaSecret, mfaKeyId);
+      userProviderCache.invalidateUser(userId);
+      return registered;
     } catch (Exception e) {
       return false;
     }
@@ -3,10 +3,25 @@ package com.kuneiform.infrastructure.adapter;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.util.OffHeapTokenIndex;
+import com.kuneiform.infrastructure.util.OnHeapTokenIndex;
+import com.kuneiform.infrastructure.util.TokenDigest;
+import com.kuneiform.infrastructure.util.TokenIndex;
+import com.kuneiform.infrastructure.util.TokenIndexKeys;
 import jakarta.annotation.PostConstruct;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -23,6 +38,20 @@ import org.springframework.stereotype.Component;
  *
  * <p>Uses custom {@link Expiry} policy to calculate TTL based on refresh token expiration time.
  * Suitable for development and single-instance deployments.
+ *
+ * <p>Token indexes are keyed by a binary digest of the token value ({@link TokenDigest}), so large
+ * self-contained access tokens are not duplicated as index keys and lookups build no strings.
+ * Each cached record owns its index entries and the index points straight at the record: a lookup
+ * is a single probe, and removal, eviction or expiry of the record drops its entries with it.
+ * Saves and removals of the same authorization are serialized through striped locks so refresh
+ * token rotation updates in place.
+ *
+ * <p>With {@code wedge.token-storage.index-mode=off-heap} the token index is an {@link
+ * OffHeapTokenIndex}, which keeps GC work flat on nodes holding millions of live tokens.
+ *
+ * <p>The principal index keeps every authorization ID of a user (one per device/client), bounded
+ * by {@code wedge.token-storage.max-authorizations-per-user}. It is kept in sync on save, remove
+ * and eviction so logout can revoke all grants of a user with a single lookup.
  */
 @Slf4j
 @Component
@@ -33,16 +62,25 @@ import org.springframework.stereotype.Component;
     matchIfMissing = true)
 public class InMemoryOAuth2AuthorizationServiceAdapter implements OAuth2AuthorizationService {
 
+  private static final int LOCK_STRIPES = 64;
+
   private final WedgeConfigProperties config;
 
-  private Cache<String, OAuth2Authorization> authorizationCache;
-  private Cache<String, String> tokenIndexCache; // token value -> authorization ID
-  private Cache<String, String> principalIndexCache; // userId -> authorization ID
+  private Cache<String, AuthorizationRecord> authorizationCache;
+  // token type + digest -> owning record; entries live exactly as long as their record
+  private TokenIndex<AuthorizationRecord> tokenIndex;
+  // Serializes save/remove per authorization ID so a rotation never interleaves with its cleanup
+  private final Object[] locks = createLocks();
+  // userId -> authorization IDs, oldest first. Sets are copy-on-write and never mutated in place.
+  private final Map<String, Set<String>> principalIndex = new ConcurrentHashMap<>();
+  private int maxAuthorizationsPerUser;
 
   @PostConstruct
   public void init() {
     long maxTtl = config.getTokenStorage().getMaxTtl();
     int maxSize = config.getTokenStorage().getMaxSize();
+    int maxPerUser = config.getTokenStorage().getMaxAuthorizationsPerUser();
+    String indexMode = config.getTokenStorage().getIndexMode();
 
     if (maxTtl <= 0) {
       throw new IllegalArgumentException("Token storage max-ttl must be positive, got: " + maxTtl);
@@ -53,58 +91,81 @@ public class InMemoryOAuth2AuthorizationServiceAdapter implements OAuth2Authoriz
           "Token storage max-size must be positive, got: " + maxSize);
     }
 
-    // Main cache with custom per-item TTL
-    this.authorizationCache =
-        Caffeine.newBuilder()
-            .expireAfter(new OAuth2AuthorizationExpiry(config))
-            .maximumSize(maxSize)
-            .recordStats()
-            .build();
+    if (maxPerUser <= 0) {
+      throw new IllegalArgumentException(
+          "Token storage max-authorizations-per-user must be positive, got: " + maxPerUser);
+    }
 
-    // Index cache for fast token lookups (token value -> auth ID)
-    this.tokenIndexCache =
-        Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofSeconds(maxTtl))
-            .maximumSize(maxSize * 4) // Up to 4 tokens per authorization
-            .build();
+    this.maxAuthorizationsPerUser = maxPerUser;
+    this.tokenIndex = createTokenIndex(indexMode, maxSize);
 
-    // Principal index cache for logout support (userId -> auth ID)
-    this.principalIndexCache =
+    // Main cache with custom per-item TTL.
+    // The eviction listener runs synchronously and removes the token and principal index entries
+    // owned by the record, so no index outlives an authorization that expired or was evicted for
+    // size. The system scheduler expires records promptly instead of on the next cache access.
+    this.authorizationCache =
         Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofSeconds(maxTtl))
+            .expireAfter(new AuthorizationRecordExpiry())
             .maximumSize(maxSize)
+            .scheduler(Scheduler.systemScheduler())
+            .evictionListener(
+                (String key, AuthorizationRecord value, RemovalCause cause) -> {
+                  if (key != null && value != null) {
+                    unindexTokens(value);
+                    unindexPrincipal(value.authorization().getPrincipalName(), key);
+                  }
+                })
+            .recordStats()
             .build();
 
     log.info(
-        "In-memory OAuth2AuthorizationService initialized: max-ttl={}s, maxSize={}",
+        "In-memory OAuth2AuthorizationService initialized: max-ttl={}s, maxSize={}, maxPerUser={},"
+            + " indexMode={}",
         maxTtl,
-        maxSize);
+        maxSize,
+        maxPerUser,
+        indexMode);
+  }
+
+  private static TokenIndex<AuthorizationRecord> createTokenIndex(String indexMode, int maxSize) {
+    return switch (indexMode) {
+      case "on-heap" -> new OnHeapTokenIndex<>();
+      // Up to 4 tokens per authorization
+      case "off-heap" -> new OffHeapTokenIndex<>(Math.multiplyExact(maxSize, 4));
+      default ->
+          throw new IllegalArgumentException(
+              "Token storage index-mode must be 'on-heap' or 'off-heap', got: " + indexMode);
+    };
   }
 
   @Override
   public void save(OAuth2Authorization authorization) {
     String id = authorization.getId();
+    AuthorizationRecord record =
+        new AuthorizationRecord(
+            authorization, collectIndexKeys(authorization), calculateExpiresAt(authorization));
+
+    synchronized (lockFor(id)) {
+      AuthorizationRecord existing = authorizationCache.getIfPresent(id);
+      log.debug("SAVE called for authId={} ({})", id, existing != null ? "UPDATE" : "CREATE");
+
+      // Index before publishing the record: if it is evicted right away, the eviction listener
+      // finds and removes these entries.
+      for (TokenDigest indexKey : record.indexKeys()) {
+        tokenIndex.put(indexKey, record);
+      }
+      authorizationCache.put(id, record);
 
-    OAuth2Authorization existingAuth = authorizationCache.getIfPresent(id);
-    boolean isUpdate = existingAuth != null;
-    log.debug("SAVE called for authId={} ({})", id, isUpdate ? "UPDATE" : "CREATE");
-
-    if (isUpdate) {
-      // Clean up old indexes if tokens have changed (e.g. Refresh Token Rotation)
-      removeStaleTokenIndexes(existingAuth, authorization);
+      if (existing != null) {
+        // Drop entries of tokens that changed (e.g. Refresh Token Rotation); keys shared with the
+        // new record already point to it and are left alone.
+        unindexTokens(existing);
+      }
     }
 
-    // Store authorization by ID
-    authorizationCache.put(id, authorization);
-
-    // Create indexes for fast token lookup
-    createTokenIndexes(authorization);
-
     // Index by userId for logout support
     // Note: getPrincipalName() returns the userId from the User object
-    if (authorization.getPrincipalName() != null) {
-      principalIndexCache.put(authorization.getPrincipalName(), id);
-    }
+    indexPrincipal(authorization.getPrincipalName(), id);
 
     log.debug("Saved authorization: id={}, principal={}", id, authorization.getPrincipalName());
   }
@@ -116,20 +177,23 @@ public class InMemoryOAuth2AuthorizationServiceAdapter implements OAuth2Authoriz
     }
 
     String id = authorization.getId();
-    authorizationCache.invalidate(id);
-    removeTokenIndexes(authorization);
+    synchronized (lockFor(id)) {
+      AuthorizationRecord existing = authorizationCache.asMap().remove(id);
+      if (existing != null) {
+        unindexTokens(existing);
+      }
+    }
 
     // Remove principal index
-    if (authorization.getPrincipalName() != null) {
-      principalIndexCache.invalidate(authorization.getPrincipalName());
-    }
+    unindexPrincipal(authorization.getPrincipalName(), id);
 
     log.debug("Removed authorization: id={}", id);
   }
 
   @Override
   public OAuth2Authorization findById(String id) {
-    return authorizationCache.getIfPresent(id);
+    AuthorizationRecord record = authorizationCache.getIfPresent(id);
+    return record != null ? record.authorization() : null;
   }
 
   @Override
@@ -138,282 +202,285 @@ public class InMemoryOAuth2AuthorizationServiceAdapter implements OAuth2Authoriz
       return null;
     }
 
-    log.debug(
-        "Looking for token: type={}, value={}",
-        tokenType != null ? tokenType.getValue() : "null",
-        token.substring(0, Math.min(20, token.length())) + "...");
-
-    // Lookup via index
-    String indexKey = buildTokenIndexKey(tokenType, token);
-    String authId = tokenIndexCache.getIfPresent(indexKey);
+    // Single probe with a binary key: the index entry is the record itself
+    AuthorizationRecord record =
+        tokenType != null
+            ? findLiveRecord(TokenIndexKeys.digestOf(tokenType.getValue(), token))
+            : findLiveRecordOfAnyType(token);
 
-    if (authId == null) {
-      log.warn("Token NOT found in index: key={}", indexKey);
+    if (record == null) {
+      // Unknown, revoked or expired; expired records are unindexed on the next maintenance run
+      log.debug(
+          "Token not found in index: type={}", tokenType != null ? tokenType.getValue() : null);
       return null;
     }
 
-    log.debug("Found auth ID in index: {}", authId);
+    OAuth2Authorization auth = record.authorization();
+    if (log.isDebugEnabled() && OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+      logRefreshTokenReuseCheck(auth, token);
+    }
+    return auth;
+  }
 
-    // Get from main cache
-    OAuth2Authorization auth = authorizationCache.getIfPresent(authId);
+  private AuthorizationRecord findLiveRecord(TokenDigest indexKey) {
+    AuthorizationRecord record = tokenIndex.get(indexKey);
+    return record != null && !record.isExpired(Instant.now()) ? record : null;
+  }
 
-    if (auth == null) {
-      log.warn("Authorization NOT found in cache for ID: {}", authId);
-    } else {
-      log.debug("Found authorization in cache");
-      // Debug: Compare requested token with current stored token
-      if (tokenType != null && OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
-        var currentRefresh = auth.getRefreshToken();
-        if (currentRefresh != null) {
-          String currentVal = currentRefresh.getToken().getTokenValue();
-          boolean match = currentVal.equals(token);
-          log.debug(
-              "Reuse Check: Requested={}, CurrentStored={} (Match={})",
-              token.substring(0, Math.min(10, token.length())) + "...",
-              currentVal.substring(0, Math.min(10, currentVal.length())) + "...",
-              match);
-        } else {
-          log.warn("Reuse Check: No Refresh Token in stored authorization!");
-        }
+  private AuthorizationRecord findLiveRecordOfAnyType(String token) {
+    // The digest covers the token value only, so it is computed once and re-tagged per type
+    TokenDigest digest = null;
+    for (String type : TokenIndexKeys.UNTYPED_LOOKUP_ORDER) {
+      digest = digest == null ? TokenIndexKeys.digestOf(type, token) : digest.withTokenType(type);
+      AuthorizationRecord record = findLiveRecord(digest);
+      if (record != null) {
+        return record;
       }
     }
+    return null;
+  }
 
-    return auth;
+  private void logRefreshTokenReuseCheck(OAuth2Authorization auth, String token) {
+    // Debug: Compare requested token with current stored token
+    var currentRefresh = auth.getRefreshToken();
+    if (currentRefresh != null) {
+      String currentVal = currentRefresh.getToken().getTokenValue();
+      log.debug(
+          "Reuse Check: Requested={}..., CurrentStored={}... (Match={})",
+          token.substring(0, Math.min(10, token.length())),
+          currentVal.substring(0, Math.min(10, currentVal.length())),
+          currentVal.equals(token));
+    } else {
+      log.warn("Reuse Check: No Refresh Token in stored authorization!");
+    }
   }
 
-  private void createTokenIndexes(OAuth2Authorization authorization) {
-    String authId = authorization.getId();
+  private List<TokenDigest> collectIndexKeys(OAuth2Authorization authorization) {
+    List<TokenDigest> indexKeys = new ArrayList<>(4);
 
     // Index all token types using class-based keys (Spring stores tokens by class,
     // not string keys)
-    indexToken(authorization.getToken(OAuth2AccessToken.class), "access_token", authId);
-    indexToken(authorization.getToken(OAuth2RefreshToken.class), "refresh_token", authId);
-    indexToken(authorization.getToken("id_token"), "id_token", authId);
-
-    OAuth2Authorization.Token<OAuth2AuthorizationCode> codeToken =
-        authorization.getToken(OAuth2AuthorizationCode.class);
-
-    if (codeToken != null) {
-      String tokenValue = codeToken.getToken().getTokenValue();
-      // Only index if not already present to avoid spamming logs
-      if (tokenIndexCache.getIfPresent(buildTokenIndexKey("code", tokenValue)) == null) {
-        log.debug(
-            "Indexed authorization code: {}",
-            tokenValue.substring(0, Math.min(20, tokenValue.length())) + "...");
-        String indexKey = buildTokenIndexKey("code", tokenValue);
-        tokenIndexCache.put(indexKey, authId);
-      }
-    }
+    addIndexKey(indexKeys, authorization.getToken(OAuth2AccessToken.class), "access_token");
+    addIndexKey(indexKeys, authorization.getToken(OAuth2RefreshToken.class), "refresh_token");
+    addIndexKey(indexKeys, authorization.getToken("id_token"), "id_token");
+    addIndexKey(indexKeys, authorization.getToken(OAuth2AuthorizationCode.class), "code");
 
     // Index STATE token for consent flow (Spring Auth Server looks up by state)
     String state = authorization.getAttribute("state");
     if (state != null) {
-      String indexKey = buildTokenIndexKey("state", state);
-      tokenIndexCache.put(indexKey, authId);
-      log.debug("Indexed state token");
+      indexKeys.add(TokenIndexKeys.digestOf("state", state));
     }
+
+    return List.copyOf(indexKeys);
   }
 
-  private void removeStaleTokenIndexes(OAuth2Authorization oldAuth, OAuth2Authorization newAuth) {
-    // Check Refresh Token change
-    var oldRefresh = oldAuth.getRefreshToken();
-    var newRefresh = newAuth.getRefreshToken();
-    if (oldRefresh != null && newRefresh != null) {
-      String oldVal = oldRefresh.getToken().getTokenValue();
-      String newVal = newRefresh.getToken().getTokenValue();
-      if (!oldVal.equals(newVal)) {
-        String key = buildTokenIndexKey("refresh_token", oldVal);
-        tokenIndexCache.invalidate(key);
-        log.debug(
-            "Removed stale refresh token index: {}",
-            key.substring(0, Math.min(30, key.length())) + "...");
-      }
+  private void addIndexKey(
+      List<TokenDigest> indexKeys, OAuth2Authorization.Token<?> token, String tokenTypeValue) {
+    if (token != null && token.getToken() != null) {
+      indexKeys.add(TokenIndexKeys.digestOf(tokenTypeValue, token.getToken().getTokenValue()));
     }
+  }
 
-    // Check Access Token change
-    var oldAccess = oldAuth.getAccessToken();
-    var newAccess = newAuth.getAccessToken();
-    if (oldAccess != null && newAccess != null) {
-      String oldVal = oldAccess.getToken().getTokenValue();
-      String newVal = newAccess.getToken().getTokenValue();
-      if (!oldVal.equals(newVal)) {
-        String key = buildTokenIndexKey("access_token", oldVal);
-        tokenIndexCache.invalidate(key);
-      }
+  private void unindexTokens(AuthorizationRecord record) {
+    // Conditional remove: an entry that was re-pointed to a newer record is kept
+    for (TokenDigest indexKey : record.indexKeys()) {
+      tokenIndex.remove(indexKey, record);
     }
   }
 
-  private void indexToken(
-      OAuth2Authorization.Token<?> token, String tokenTypeValue, String authId) {
-    if (token != null && token.getToken() != null) {
-      String tokenValue = token.getToken().getTokenValue();
-      String indexKey = buildTokenIndexKey(tokenTypeValue, tokenValue);
-      tokenIndexCache.put(indexKey, authId);
-      log.debug(
-          "Indexed token: type={}, key={}, authId={}",
-          tokenTypeValue,
-          indexKey.substring(0, Math.min(30, indexKey.length())) + "...",
-          authId);
-    }
+  private Object lockFor(String authorizationId) {
+    return locks[Math.floorMod(authorizationId.hashCode(), LOCK_STRIPES)];
   }
 
-  private void removeTokenIndexes(OAuth2Authorization authorization) {
-    // Remove all token indexes when authorization is removed
-    if (authorization.getAccessToken() != null) {
-      tokenIndexCache.invalidate(
-          buildTokenIndexKey(
-              "access_token", authorization.getAccessToken().getToken().getTokenValue()));
-    }
+  /** Returns the current number of authorizations in cache. */
+  public long getAuthorizationCount() {
+    return authorizationCache.estimatedSize();
+  }
 
-    if (authorization.getRefreshToken() != null) {
-      tokenIndexCache.invalidate(
-          buildTokenIndexKey(
-              "refresh_token", authorization.getRefreshToken().getToken().getTokenValue()));
-    }
+  public String getStats() {
+    return "Authorizations: " + authorizationCache.stats() + ", Indexes: " + tokenIndex.size();
+  }
 
-    OAuth2Authorization.Token<?> idToken = authorization.getToken("id_token");
-    if (idToken != null) {
-      tokenIndexCache.invalidate(
-          buildTokenIndexKey("id_token", idToken.getToken().getTokenValue()));
+  /** Returns the most recently saved authorization of a user, or null if there is none. */
+  public OAuth2Authorization findByUserId(String userId) {
+    List<OAuth2Authorization> authorizations = findAllByUserId(userId);
+    return authorizations.isEmpty() ? null : authorizations.getLast();
+  }
+
+  /**
+   * Used during logout to find and revoke every authorization of a specific user (one per
+   * device/client) with a single index lookup. Results are ordered oldest first.
+   */
+  public List<OAuth2Authorization> findAllByUserId(String userId) {
+    if (userId == null) {
+      return Collections.emptyList();
     }
 
-    OAuth2Authorization.Token<OAuth2AuthorizationCode> authCode =
-        authorization.getToken(OAuth2AuthorizationCode.class);
-    if (authCode != null) {
-      tokenIndexCache.invalidate(buildTokenIndexKey("code", authCode.getToken().getTokenValue()));
+    Set<String> authIds = principalIndex.get(userId);
+    if (authIds == null) {
+      return Collections.emptyList();
     }
 
-    // Remove state index
-    String state = authorization.getAttribute("state");
-    if (state != null) {
-      tokenIndexCache.invalidate(buildTokenIndexKey("state", state));
+    List<OAuth2Authorization> result = new ArrayList<>(authIds.size());
+    for (String authId : authIds) {
+      AuthorizationRecord record = authorizationCache.getIfPresent(authId);
+      if (record != null) {
+        result.add(record.authorization());
+      } else {
+        // Expired but not yet reported by Caffeine's maintenance cycle
+        unindexPrincipal(userId, authId);
+      }
     }
-  }
 
-  private String buildTokenIndexKey(String tokenTypeValue, String tokenValue) {
-    return tokenTypeValue + ":" + tokenValue;
+    return result;
   }
 
-  private String buildTokenIndexKey(OAuth2TokenType tokenType, String tokenValue) {
-    return tokenType.getValue() + ":" + tokenValue;
+  private static Object[] createLocks() {
+    Object[] stripes = new Object[LOCK_STRIPES];
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      stripes[i] = new Object();
+    }
+    return stripes;
   }
 
-  /** Returns the current number of authorizations in cache. */
-  public long getAuthorizationCount() {
-    return authorizationCache.estimatedSize();
-  }
+  private void indexPrincipal(String userId, String authId) {
+    if (userId == null) {
+      return;
+    }
 
-  public String getStats() {
-    return "Authorizations: "
-        + authorizationCache.stats()
-        + ", Indexes: "
-        + tokenIndexCache.stats();
+    principalIndex.compute(
+        userId,
+        (key, current) -> {
+          LinkedHashSet<String> updated =
+              current != null ? new LinkedHashSet<>(current) : new LinkedHashSet<>();
+          // Re-insert so the most recently saved authorization is always last
+          updated.remove(authId);
+          updated.add(authId);
+
+          Iterator<String> oldest = updated.iterator();
+          while (updated.size() > maxAuthorizationsPerUser) {
+            String dropped = oldest.next();
+            oldest.remove();
+            log.warn(
+                "Principal index limit reached for user {}, dropping authId={}", key, dropped);
+          }
+
+          return Collections.unmodifiableSet(updated);
+        });
   }
 
-  /** Used during logout to find and revoke authorizations for a specific user. */
-  public OAuth2Authorization findByUserId(String userId) {
+  private void unindexPrincipal(String userId, String authId) {
     if (userId == null) {
-      return null;
+      return;
     }
 
-    String authId = principalIndexCache.getIfPresent(userId);
-    if (authId == null) {
-      return null;
+    principalIndex.computeIfPresent(
+        userId,
+        (key, current) -> {
+          if (!current.contains(authId)) {
+            return current;
+          }
+          if (current.size() == 1) {
+            return null;
+          }
+          LinkedHashSet<String> updated = new LinkedHashSet<>(current);
+          updated.remove(authId);
+          return Collections.unmodifiableSet(updated);
+        });
+  }
+
+  /**
+   * Absolute expiry of an authorization: the earliest token expiry, capped at max-ttl from now.
+   * Computed once per save so the cache and token lookups agree on when a record is gone.
+   */
+  private Instant calculateExpiresAt(OAuth2Authorization authorization) {
+    // Find the earliest expiry time across ALL tokens
+    Instant earliestExpiry = null;
+
+    // Check authorization code
+    OAuth2Authorization.Token<?> code = authorization.getToken("code");
+    if (code != null && code.getToken() != null && code.getToken().getExpiresAt() != null) {
+      earliestExpiry = code.getToken().getExpiresAt();
     }
 
-    return authorizationCache.getIfPresent(authId);
+    // Check access token
+    OAuth2Authorization.Token<?> accessToken = authorization.getAccessToken();
+    if (accessToken != null
+        && accessToken.getToken() != null
+        && accessToken.getToken().getExpiresAt() != null) {
+      if (earliestExpiry == null
+          || accessToken.getToken().getExpiresAt().isBefore(earliestExpiry)) {
+        earliestExpiry = accessToken.getToken().getExpiresAt();
+      }
+    }
+
+    // Check refresh token
+    OAuth2Authorization.Token<?> refreshToken = authorization.getRefreshToken();
+    if (refreshToken != null
+        && refreshToken.getToken() != null
+        && refreshToken.getToken().getExpiresAt() != null) {
+      if (earliestExpiry == null
+          || refreshToken.getToken().getExpiresAt().isBefore(earliestExpiry)) {
+        earliestExpiry = refreshToken.getToken().getExpiresAt();
+      }
+    }
+
+    // Check ID token
+    OAuth2Authorization.Token<?> idToken = authorization.getToken("id_token");
+    if (idToken != null
+        && idToken.getToken() != null
+        && idToken.getToken().getExpiresAt() != null) {
+      if (earliestExpiry == null || idToken.getToken().getExpiresAt().isBefore(earliestExpiry)) {
+        earliestExpiry = idToken.getToken().getExpiresAt();
+      }
+    }
+
+    // Cap at max-ttl; fallback to max-ttl if no tokens with expiry
+    Instant maxExpiry = Instant.now().plusSeconds(config.getTokenStorage().getMaxTtl());
+    return earliestExpiry != null && earliestExpiry.isBefore(maxExpiry)
+        ? earliestExpiry
+        : maxExpiry;
   }
 
   /**
-   * Custom Caffeine Expiry policy that calculates TTL per authorization based on the refresh
-   * token's remaining lifetime.
+   * An authorization together with the token index keys it owns. The token index maps each key to
+   * the record itself, so removing the record (explicitly, on eviction or on expiry) removes
+   * exactly the entries it created.
    */
-  private static class OAuth2AuthorizationExpiry implements Expiry<String, OAuth2Authorization> {
-
-    private final WedgeConfigProperties config;
+  private record AuthorizationRecord(
+      OAuth2Authorization authorization, List<TokenDigest> indexKeys, Instant expiresAt) {
 
-    public OAuth2AuthorizationExpiry(WedgeConfigProperties config) {
-      this.config = config;
+    boolean isExpired(Instant now) {
+      return !now.isBefore(expiresAt);
     }
+  }
+
+  /** Caffeine Expiry policy driven by the absolute expiry stored in each record. */
+  private static class AuthorizationRecordExpiry implements Expiry<String, AuthorizationRecord> {
 
     @Override
-    public long expireAfterCreate(String key, OAuth2Authorization value, long currentTime) {
-      return calculateExpirationNanos(value);
+    public long expireAfterCreate(String key, AuthorizationRecord value, long currentTime) {
+      return remainingNanos(value);
     }
 
     @Override
     public long expireAfterUpdate(
-        String key, OAuth2Authorization value, long currentTime, long currentDuration) {
+        String key, AuthorizationRecord value, long currentTime, long currentDuration) {
       // Recalculate on update (e.g., when token is rotated)
-      return calculateExpirationNanos(value);
+      return remainingNanos(value);
     }
 
     @Override
     public long expireAfterRead(
-        String key, OAuth2Authorization value, long currentTime, long currentDuration) {
+        String key, AuthorizationRecord value, long currentTime, long currentDuration) {
       // Don't change expiration on read
       return currentDuration;
     }
 
-    private long calculateExpirationNanos(OAuth2Authorization authorization) {
-      // Find the earliest expiry time across ALL tokens
-      Instant earliestExpiry = null;
-
-      // Check authorization code
-      OAuth2Authorization.Token<?> code = authorization.getToken("code");
-      if (code != null && code.getToken() != null && code.getToken().getExpiresAt() != null) {
-        earliestExpiry = code.getToken().getExpiresAt();
-      }
-
-      // Check access token
-      OAuth2Authorization.Token<?> accessToken = authorization.getAccessToken();
-      if (accessToken != null
-          && accessToken.getToken() != null
-          && accessToken.getToken().getExpiresAt() != null) {
-        if (earliestExpiry == null
-            || accessToken.getToken().getExpiresAt().isBefore(earliestExpiry)) {
-          earliestExpiry = accessToken.getToken().getExpiresAt();
-        }
-      }
-
-      // Check refresh token
-      OAuth2Authorization.Token<?> refreshToken = authorization.getRefreshToken();
-      if (refreshToken != null
-          && refreshToken.getToken() != null
-          && refreshToken.getToken().getExpiresAt() != null) {
-        if (earliestExpiry == null
-            || refreshToken.getToken().getExpiresAt().isBefore(earliestExpiry)) {
-          earliestExpiry = refreshToken.getToken().getExpiresAt();
-        }
-      }
-
-      // Check ID token
-      OAuth2Authorization.Token<?> idToken = authorization.getToken("id_token");
-      if (idToken != null
-          && idToken.getToken() != null
-          && idToken.getToken().getExpiresAt() != null) {
-        if (earliestExpiry == null || idToken.getToken().getExpiresAt().isBefore(earliestExpiry)) {
-          earliestExpiry = idToken.getToken().getExpiresAt();
-        }
-      }
-
-      if (earliestExpiry != null) {
-        Duration remaining = Duration.between(Instant.now(), earliestExpiry);
-
-        if (remaining.isNegative()) {
-          // Already expired
-          return 0;
-        }
-
-        // Cap at max-ttl
-        Duration maxTtl = Duration.ofSeconds(config.getTokenStorage().getMaxTtl());
-        Duration actual = remaining.compareTo(maxTtl) > 0 ? maxTtl : remaining;
-
-        return actual.toNanos();
-      }
-
-      // Fallback to max-ttl if no tokens with expiry
-      return Duration.ofSeconds(config.getTokenStorage().getMaxTtl()).toNanos();
+    private static long remainingNanos(AuthorizationRecord record) {
+      Duration remaining = Duration.between(Instant.now(), record.expiresAt());
+      // Already expired
+      return remaining.isNegative() ? 0 : remaining.toNanos();
     }
   }
 }
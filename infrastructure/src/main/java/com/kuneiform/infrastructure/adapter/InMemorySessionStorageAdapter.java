@@ -2,12 +2,18 @@ package com.kuneiform.infrastructure.adapter;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.kuneiform.domain.model.AuthorizationSession;
 import com.kuneiform.domain.port.SessionStorage;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import jakarta.annotation.PostConstruct;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -17,6 +23,10 @@ import org.springframework.stereotype.Component;
  *
  * <p>Uses Caffeine cache for automatic TTL-based expiration, size limits, and high-performance
  * concurrent access. Suitable for development and single-instance deployments.
+ *
+ * <p>A userId to authorization codes index, maintained through the cache's removal listener, keeps
+ * per-user lookups and deletes proportional to the user's own sessions instead of scanning the
+ * whole cache.
  */
 @Slf4j
 @Component
@@ -27,6 +37,7 @@ import org.springframework.stereotype.Component;
 public class InMemorySessionStorageAdapter implements SessionStorage {
 
   private final WedgeConfigProperties properties;
+  private final Map<String, Set<String>> codesByUserId = new ConcurrentHashMap<>();
   private Cache<String, AuthorizationSession> sessions;
 
   public InMemorySessionStorageAdapter(WedgeConfigProperties properties) {
@@ -51,11 +62,16 @@ public class InMemorySessionStorageAdapter implements SessionStorage {
             .expireAfterWrite(Duration.ofSeconds(ttl))
             .maximumSize(maxSize)
             .recordStats()
+            // Run listeners on the calling thread so the user index never lags behind the cache
+            .executor(Runnable::run)
             .removalListener(
-                (key, value, cause) -> {
+                (String key, AuthorizationSession value, RemovalCause cause) -> {
                   if (cause.wasEvicted()) {
                     log.debug("Session evicted: code={}, cause={}", key, cause);
                   }
+                  if (key != null && value != null) {
+                    unindex(value.getUserId(), key);
+                  }
                 })
             .build();
 
@@ -64,10 +80,25 @@ public class InMemorySessionStorageAdapter implements SessionStorage {
 
   @Override
   public void save(AuthorizationSession session) {
-    sessions.put(session.getAuthorizationCode(), session);
-
-    log.debug(
-        "Saved session: code={}, userId={}", session.getAuthorizationCode(), session.getUserId());
+    // Index after the put: a removal listener for an earlier session under this code then either
+    // sees the new session and keeps the entry, or runs before the entry is re-added. The entry is
+    // only added while the cache still holds a session of this user under the code; if it was
+    // evicted in between, its listener has already run and would not drop the entry again.
+    String code = session.getAuthorizationCode();
+    sessions.put(code, session);
+    codesByUserId.compute(
+        session.getUserId(),
+        (userId, codes) -> {
+          AuthorizationSession current = sessions.asMap().get(code);
+          if (current == null || !current.getUserId().equals(userId)) {
+            return codes;
+          }
+          Set<String> userCodes = codes != null ? codes : ConcurrentHashMap.newKeySet();
+          userCodes.add(code);
+          return userCodes;
+        });
+
+    log.debug("Saved session: code={}, userId={}", code, session.getUserId());
   }
 
   @Override
@@ -88,11 +119,33 @@ public class InMemorySessionStorageAdapter implements SessionStorage {
   }
 
   @Override
-  public java.util.List<AuthorizationSession> findByUserId(String userId) {
-    return sessions.asMap().values().stream()
-        .filter(session -> session.getUserId().equals(userId))
-        .filter(session -> !session.isExpired())
-        .toList();
+  public Optional<AuthorizationSession> consume(String authorizationCode) {
+    // The removal listener drops the code from the user index
+    AuthorizationSession session = sessions.asMap().remove(authorizationCode);
+
+    if (session == null || session.isExpired()) {
+      return Optional.empty();
+    }
+
+    log.debug("Consumed session: code={}", authorizationCode);
+    return Optional.of(session);
+  }
+
+  @Override
+  public List<AuthorizationSession> findByUserId(String userId) {
+    Set<String> codes = codesByUserId.get(userId);
+    if (codes == null) {
+      return List.of();
+    }
+
+    List<AuthorizationSession> userSessions = new ArrayList<>(codes.size());
+    for (String code : codes) {
+      AuthorizationSession session = sessions.getIfPresent(code);
+      if (session != null && session.getUserId().equals(userId) && !session.isExpired()) {
+        userSessions.add(session);
+      }
+    }
+    return userSessions;
   }
 
   @Override
@@ -101,6 +154,40 @@ public class InMemorySessionStorageAdapter implements SessionStorage {
     log.debug("Deleted session: code={}", authorizationCode);
   }
 
+  @Override
+  public void deleteByUserId(String userId) {
+    Set<String> codes = codesByUserId.get(userId);
+    if (codes == null) {
+      return;
+    }
+
+    List<String> userCodes = new ArrayList<>(codes.size());
+    for (String code : codes) {
+      AuthorizationSession session = sessions.getIfPresent(code);
+      if (session != null && session.getUserId().equals(userId)) {
+        userCodes.add(code);
+      }
+    }
+    sessions.invalidateAll(userCodes);
+    log.debug("Deleted {} session(s) for user: {}", userCodes.size(), userId);
+  }
+
+  /**
+   * Drops {@code code} from the user's index unless the cache still maps it to a session of that
+   * user, which happens when a session is replaced by a newer one of the same user.
+   */
+  private void unindex(String userId, String code) {
+    codesByUserId.computeIfPresent(
+        userId,
+        (id, codes) -> {
+          AuthorizationSession current = sessions.asMap().get(code);
+          if (current == null || !current.getUserId().equals(id)) {
+            codes.remove(code);
+          }
+          return codes.isEmpty() ? null : codes;
+        });
+  }
+
   @Override
   public void deleteExpiredSessions() {
     // Caffeine handles TTL-based expiration automatically
@@ -9,11 +9,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 /**
  * In-memory implementation of TenantClientPort for YAML configuration mode. Loads tenant-client
- * relationships from YAML and stores in memory.
+ * relationships from YAML and stores in memory. Changes publish a {@link
+ * ClientRegistrationsChangedEvent}.
  */
 @Slf4j
 @Component
@@ -25,6 +27,7 @@ import org.springframework.stereotype.Component;
 public class InMemoryTenantClientAdapter implements TenantClientPort {
 
   private final WedgeConfigProperties wedgeConfig;
+  private final ApplicationEventPublisher eventPublisher;
 
   // Map of tenantId -> Set of clientIds
   private final Map<String, List<String>> tenantClients = new ConcurrentHashMap<>();
@@ -69,14 +72,15 @@ public class InMemoryTenantClientAdapter implements TenantClientPort {
   public void addClientToTenant(String tenantId, String clientId) {
     tenantClients.computeIfAbsent(tenantId, k -> new ArrayList<>()).add(clientId);
     log.info("Added client '{}' to tenant '{}'", clientId, tenantId);
+    eventPublisher.publishEvent(new ClientRegistrationsChangedEvent(clientId));
   }
 
   @Override
   public void removeClientFromTenant(String tenantId, String clientId) {
     List<String> clients = tenantClients.get(tenantId);
-    if (clients != null) {
-      clients.remove(clientId);
+    if (clients != null && clients.remove(clientId)) {
       log.info("Removed client '{}' from tenant '{}'", clientId, tenantId);
+      eventPublisher.publishEvent(new ClientRegistrationsChangedEvent(clientId));
     }
   }
 }
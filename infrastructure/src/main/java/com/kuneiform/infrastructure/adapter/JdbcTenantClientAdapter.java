@@ -5,13 +5,14 @@ import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 /**
  * JDBC implementation of TenantClientPort using oauth_clients.tenant_id. Queries the existing
  * tenant_id column on oauth_clients table instead of a junction table. Works with PostgreSQL,
- * MySQL, and SQL Server.
+ * MySQL, and SQL Server. Changes publish a {@link ClientRegistrationsChangedEvent}.
  */
 @Slf4j
 @Component
@@ -20,9 +21,13 @@ import org.springframework.stereotype.Component;
 public class JdbcTenantClientAdapter implements TenantClientPort {
 
   private final JdbcTemplate jdbcTemplate;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public JdbcTenantClientAdapter(@Qualifier("clientJdbcTemplate") JdbcTemplate jdbcTemplate) {
+  public JdbcTenantClientAdapter(
+      @Qualifier("clientJdbcTemplate") JdbcTemplate jdbcTemplate,
+      ApplicationEventPublisher eventPublisher) {
     this.jdbcTemplate = jdbcTemplate;
+    this.eventPublisher = eventPublisher;
   }
 
   @Override
@@ -46,6 +51,7 @@ public class JdbcTenantClientAdapter implements TenantClientPort {
 
     if (rows > 0) {
       log.info("Set tenant '{}' for client '{}'", tenantId, clientId);
+      eventPublisher.publishEvent(new ClientRegistrationsChangedEvent(clientId));
     } else {
       log.warn("Client '{}' not found, cannot set tenant", clientId);
     }
@@ -59,6 +65,7 @@ public class JdbcTenantClientAdapter implements TenantClientPort {
 
     if (rows > 0) {
       log.info("Removed tenant '{}' from client '{}'", tenantId, clientId);
+      eventPublisher.publishEvent(new ClientRegistrationsChangedEvent(clientId));
     } else {
       log.warn("No client '{}' found with tenant '{}'", clientId, tenantId);
     }
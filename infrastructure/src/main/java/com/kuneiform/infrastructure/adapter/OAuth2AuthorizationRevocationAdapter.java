@@ -75,16 +75,14 @@ public class OAuth2AuthorizationRevocationAdapter implements AuthorizationRevoca
 
   /**
    * Find all authorizations for a user. This method handles different OAuth2AuthorizationService
-   * implementations. Note: Current implementations return a single authorization per user.
+   * implementations. Note: The Redis implementation currently returns a single authorization per
+   * user.
    */
   private List<OAuth2Authorization> findAuthorizationsByUserId(String userId) {
     List<OAuth2Authorization> result = new ArrayList<>();
 
     if (authorizationService instanceof InMemoryOAuth2AuthorizationServiceAdapter inMemoryAdapter) {
-      OAuth2Authorization auth = inMemoryAdapter.findByUserId(userId);
-      if (auth != null) {
-        result.add(auth);
-      }
+      result.addAll(inMemoryAdapter.findAllByUserId(userId));
     } else if (authorizationService
         instanceof RedisOAuth2AuthorizationServiceAdapter redisAdapter) {
       OAuth2Authorization auth = redisAdapter.findByUserId(userId);
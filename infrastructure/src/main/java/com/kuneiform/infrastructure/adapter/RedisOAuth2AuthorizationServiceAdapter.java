@@ -3,14 +3,31 @@ package com.kuneiform.infrastructure.adapter;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.util.TokenDigest;
+import com.kuneiform.infrastructure.util.TokenIndexKeys;
 import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
 import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationService;
@@ -27,6 +44,27 @@ import org.springframework.stereotype.Component;
  *   <li><b>L2 (Remote):</b> Redis for persistence and distributed state.
  * </ul>
  *
+ * <p>Every save is a single atomic Lua script: the authorization, its token indexes and the
+ * principal index are written together, and indexes of rotated tokens are deleted using a
+ * per-authorization registry set ({@code auth-indexes:<id>}) instead of reading back the previous
+ * authorization. Only authorizations saved before the registry existed are read back, once.
+ *
+ * <p>A token lookup only returns an authorization that still holds the presented token, so an
+ * index key that outlived a rotation can never resolve the rotated token.
+ *
+ * <p>Token index keys hold a digest of the token value ({@link TokenIndexKeys}) rather than the
+ * token itself. While {@code legacy-index-read} is enabled, lookups that miss fall back to the
+ * pre-digest {@code index:<type>:<token>} keys so authorizations saved before the switch keep
+ * resolving until they are re-saved or expire. The first save after the switch deletes the legacy
+ * keys of the previous version.
+ *
+ * <p>L1 entries are kept consistent across nodes through a pub/sub invalidation channel: every
+ * save/remove increments a sequence counter and publishes the changed authorization ID, principal
+ * and token index keys from the same Lua script. Nodes evict those entries, and flush their whole
+ * L1 when they detect a sequence gap (missed messages, e.g. across a reconnect) or a counter reset.
+ * Alternatively, with {@code client-side-caching} enabled, Redis server-assisted tracking pushes
+ * the invalidations instead (see {@link RedisTokenCacheTracker}).
+ *
  * <p>Active when {@code wedge.token-storage.type=redis}.
  */
 @Slf4j
@@ -42,7 +80,6 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
   private Cache<String, String> localIndexCache;
   private Cache<String, String> principalIndexCache; // userId -> auth ID
 
-  // L2 Templates (Redis)
   // L2 Templates (Redis)
   private final RedisTemplate<String, OAuth2Authorization> redisAuthTemplate;
   private final RedisTemplate<String, String> redisIndexTemplate;
@@ -50,6 +87,120 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
   private String namespace;
   private static final String AUTH_KEY_PREFIX = "auth:";
   private static final String INDEX_KEY_PREFIX = "index:";
+  private static final String AUTH_INDEXES_KEY_PREFIX = "auth-indexes:";
+  private static final String PRINCIPAL_INDEX_KEY_PREFIX = INDEX_KEY_PREFIX + "principal:";
+  private static final String INVALIDATION_CHANNEL_SUFFIX = "l1-invalidation";
+  private static final String INVALIDATION_SEQUENCE_SUFFIX = "l1-invalidation:seq";
+  private static final long DEFAULT_LOCAL_TTL_SECONDS = 300;
+  private static final Duration SELF_WRITE_TTL = Duration.ofSeconds(5);
+
+  // Cross-node L1 invalidation
+  private final String nodeId = UUID.randomUUID().toString();
+  private boolean invalidationEnabled;
+  private boolean clientSideCaching;
+  private boolean legacyIndexRead;
+  // Bumped on every remote invalidation; an L2 read only populates L1 if no invalidation ran
+  // meanwhile, otherwise a value read just before a concurrent write could stay cached
+  private final AtomicLong invalidationGeneration = new AtomicLong();
+  // Client tracking reports this node's own saves back; tracked key -> invalidations still expected
+  // for it. Entries expire in case a push never arrives.
+  private final Cache<String, Integer> pendingSelfInvalidations =
+      Caffeine.newBuilder().expireAfterWrite(SELF_WRITE_TTL).build();
+  private long lastSequence = -1; // last sequence applied, -1 until the first message or check
+  private long observedSequence = -1; // sequence read from Redis at the previous check
+
+  /**
+   * Writes an authorization with all of its indexes in one round trip.
+   *
+   * <p>KEYS: [auth, auth-indexes registry, invalidation sequence, new index keys..., previous index
+   * keys..., principal index (only if ARGV[5] is "1")]. ARGV: [serialized authorization, ttl
+   * seconds, auth ID, number of new index keys, "1" if the principal index must be written, "1" if
+   * the invalidation must be published, invalidation channel, invalidation message, index key
+   * prefix length]. Previous index keys (from the registry and from the caller) that are no longer
+   * current and still point to this authorization are deleted. Returns the deleted keys.
+   *
+   * <p>The registry members are index keys read inside the script rather than declared in KEYS, so
+   * like the connection factory it requires a standalone Redis, not Redis Cluster.
+   */
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> SAVE_SCRIPT =
+      RedisScript.of(
+          """
+          local ttl = tonumber(ARGV[2])
+          local authId = ARGV[3]
+          local newCount = tonumber(ARGV[4])
+          local lastPrevious = #KEYS
+          local principalKey = nil
+          if ARGV[5] == '1' then
+            principalKey = KEYS[#KEYS]
+            lastPrevious = lastPrevious - 1
+          end
+          local current = {}
+          for i = 4, 3 + newCount do
+            current[KEYS[i]] = true
+          end
+          local candidates = redis.call('SMEMBERS', KEYS[2])
+          for i = 4 + newCount, lastPrevious do
+            table.insert(candidates, KEYS[i])
+          end
+          local removed = {}
+          for _, key in ipairs(candidates) do
+            if not current[key] and redis.call('GET', key) == authId then
+              redis.call('DEL', key)
+              table.insert(removed, key)
+              current[key] = true
+            end
+          end
+          redis.call('SET', KEYS[1], ARGV[1], 'EX', ttl)
+          redis.call('DEL', KEYS[2])
+          for i = 4, 3 + newCount do
+            redis.call('SET', KEYS[i], authId, 'EX', ttl)
+            redis.call('SADD', KEYS[2], KEYS[i])
+          end
+          if newCount > 0 then
+            redis.call('EXPIRE', KEYS[2], ttl)
+          end
+          if principalKey then
+            redis.call('SET', principalKey, authId, 'EX', ttl)
+          end
+          if ARGV[6] == '1' then
+            local prefixLength = tonumber(ARGV[9])
+            local message = redis.call('INCR', KEYS[3]) .. '\\n' .. ARGV[8]
+            for _, key in ipairs(removed) do
+              message = message .. '\\n' .. string.sub(key, prefixLength + 1)
+            end
+            redis.call('PUBLISH', ARGV[7], message)
+          end
+          return removed
+          """,
+          List.class);
+
+  /**
+   * Deletes an authorization with all of its keys and publishes the invalidation.
+   *
+   * <p>KEYS: [invalidation sequence, keys to delete...]. ARGV: [invalidation channel, invalidation
+   * message].
+   */
+  private static final RedisScript<Long> REMOVE_SCRIPT =
+      RedisScript.of(
+          """
+          redis.call('DEL', unpack(KEYS, 2))
+          local seq = redis.call('INCR', KEYS[1])
+          redis.call('PUBLISH', ARGV[1], seq .. '\\n' .. ARGV[2])
+          return seq
+          """,
+          Long.class);
+
+  /** Deletes KEYS[1] only if it still holds ARGV[1], so a concurrent re-index is never lost. */
+  private static final RedisScript<Long> COMPARE_AND_DELETE_SCRIPT =
+      RedisScript.of(
+          """
+          if redis.call('GET', KEYS[1]) == ARGV[1] then
+            return redis.call('DEL', KEYS[1])
+          end
+          return 0
+          """,
+          Long.class);
 
   @PostConstruct
   public void init() {
@@ -60,11 +211,18 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     this.namespace = configNamespace.endsWith(":") ? configNamespace : configNamespace + ":";
 
     // Initialize L1 Caffeine Caches
-    // We set a short TTL for L1 to ensure we eventually fetch fresh data from Redis
-    // effectively mitigating consistency issues in a distributed setup.
-    // 5 minutes or 1/10th of maxTtl, whichever is smaller, is a reasonable default
-    // for L1.
-    long localTtl = Math.min(300, maxTtl > 0 ? maxTtl : 300);
+    // Without cross-node invalidation the L1 TTL bounds how long another node can serve a revoked
+    // or rotated token, so it stays short (5 minutes by default). With invalidation enabled it can
+    // be raised safely through local-cache-ttl. Never longer than maxTtl.
+    long configuredLocalTtl = config.getTokenStorage().getRedis().getLocalCacheTtl();
+    long localTtl = configuredLocalTtl > 0 ? configuredLocalTtl : DEFAULT_LOCAL_TTL_SECONDS;
+    if (maxTtl > 0) {
+      localTtl = Math.min(localTtl, maxTtl);
+    }
+    this.clientSideCaching = config.getTokenStorage().getRedis().isClientSideCaching();
+    this.legacyIndexRead = config.getTokenStorage().getRedis().isLegacyIndexRead();
+    this.invalidationEnabled =
+        !clientSideCaching && config.getTokenStorage().getRedis().isLocalCacheInvalidation();
 
     this.localAuthCache =
         Caffeine.newBuilder()
@@ -94,39 +252,104 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
         this.namespace,
         localTtl,
         maxTtl);
+    log.info(
+        "L1 cross-node invalidation: {} (channel: {}, node: {})",
+        clientSideCaching ? "client tracking" : invalidationEnabled ? "pub/sub" : "disabled",
+        getInvalidationChannel(),
+        nodeId);
   }
 
   @Override
   public void save(OAuth2Authorization authorization) {
     String id = authorization.getId();
     Duration ttl = Duration.ofSeconds(config.getTokenStorage().getMaxTtl());
+    String principalName = authorization.getPrincipalName();
 
-    // 1. Check for updates (Stale Index Cleanup Logic)
-    // We check L1 first, then L2
+    List<String> newSuffixes = collectIndexSuffixes(authorization);
+
+    // Previous index keys not covered by the registry set. L1 may still hold the previous version;
+    // otherwise, during the upgrade window, an authorization written before the registry existed
+    // is read back from L2 once, so its first rotation does not leave the old token indexed. Once
+    // legacy reads are off, every live authorization has a registry and saves skip both reads.
+    List<String> previousSuffixes = new ArrayList<>();
     OAuth2Authorization existingAuth = localAuthCache.getIfPresent(id);
-    if (existingAuth == null) {
+    if (existingAuth == null
+        && legacyIndexRead
+        && !Boolean.TRUE.equals(redisIndexTemplate.hasKey(buildAuthIndexesKey(id)))) {
       existingAuth = redisAuthTemplate.opsForValue().get(buildAuthKey(id));
     }
-
+    List<String> legacySuffixes = List.of();
     if (existingAuth != null) {
-      removeStaleIndexes(existingAuth, authorization);
+      previousSuffixes.addAll(collectIndexSuffixes(existingAuth));
+      previousSuffixes.removeAll(newSuffixes);
+      if (legacyIndexRead) {
+        // Current tokens are re-indexed under their digest key by the same script
+        legacySuffixes = collectLegacyIndexSuffixes(existingAuth);
+      }
     }
 
-    // 2. Write to L2 (Redis)
-    redisAuthTemplate.opsForValue().set(buildAuthKey(id), authorization, ttl);
+    List<String> keys =
+        new ArrayList<>(4 + newSuffixes.size() + previousSuffixes.size() + legacySuffixes.size());
+    keys.add(buildAuthKey(id));
+    keys.add(buildAuthIndexesKey(id));
+    keys.add(buildInvalidationSequenceKey());
+    newSuffixes.forEach(suffix -> keys.add(buildIndexKey(suffix)));
+    previousSuffixes.forEach(suffix -> keys.add(buildIndexKey(suffix)));
+    legacySuffixes.forEach(suffix -> keys.add(buildIndexKey(suffix)));
+    if (principalName != null) {
+      keys.add(buildPrincipalIndexKey(principalName));
+    }
 
-    // 3. Write to L1 (Local)
-    localAuthCache.put(id, authorization);
+    @SuppressWarnings("unchecked")
+    byte[] serializedAuth =
+        ((RedisSerializer<OAuth2Authorization>) redisAuthTemplate.getValueSerializer())
+            .serialize(authorization);
+
+    // Registered before the write: the tracking push can arrive before the script returns
+    List<String> writtenKeys = List.of();
+    if (clientSideCaching) {
+      writtenKeys = new ArrayList<>(keys.subList(3, 3 + newSuffixes.size()));
+      writtenKeys.add(keys.getFirst());
+      if (principalName != null) {
+        writtenKeys.add(keys.getLast());
+      }
+      writtenKeys.forEach(key -> pendingSelfInvalidations.asMap().merge(key, 1, Integer::sum));
+    }
 
-    // 4. Update Indexes (L1 + L2)
-    updateIndexes(authorization, ttl);
+    // 1. Write to L2 (Redis): authorization, indexes, stale index cleanup and the cross-node
+    // invalidation in one round trip. Other nodes only need the previous index keys evicted (plus
+    // the ones the script removes), new tokens cannot be in their L1 yet.
+    List<String> removedKeys;
+    try {
+      removedKeys =
+          executeSaveScript(
+              keys,
+              serializedAuth,
+              toBytes(String.valueOf(ttl.getSeconds())),
+              toBytes(id),
+              toBytes(String.valueOf(newSuffixes.size())),
+              toBytes(principalName != null ? "1" : "0"),
+              toBytes(invalidationEnabled ? "1" : "0"),
+              toBytes(getInvalidationChannel()),
+              toBytes(buildInvalidationMessage(id, principalName, previousSuffixes)),
+              toBytes(String.valueOf(buildIndexKey("").length())));
+    } catch (RuntimeException e) {
+      writtenKeys.forEach(this::consumeSelfInvalidation);
+      throw e;
+    }
 
-    // New: Index by userId for logout support
-    // Note: getPrincipalName() returns the userId from the User object
-    if (authorization.getPrincipalName() != null) {
-      String principalKey = buildPrincipalIndexKey(authorization.getPrincipalName());
-      redisIndexTemplate.opsForValue().set(principalKey, id, ttl);
-      principalIndexCache.put(authorization.getPrincipalName(), id);
+    // 2. Write to L1 (Local)
+    localAuthCache.put(id, authorization);
+    newSuffixes.forEach(suffix -> localIndexCache.put(suffix, id));
+    if (principalName != null) {
+      principalIndexCache.put(principalName, id);
+    }
+
+    if (removedKeys != null && !removedKeys.isEmpty()) {
+      String indexKeyPrefix = buildIndexKey("");
+      removedKeys.forEach(
+          key -> localIndexCache.invalidate(key.substring(indexKeyPrefix.length())));
+      log.debug("Removed {} stale token indexes (Hybrid) for authId={}", removedKeys.size(), id);
     }
 
     log.debug("Saved authorization (Hybrid): id={}", id);
@@ -139,19 +362,34 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     }
     String id = authorization.getId();
 
-    // 1. Invalidates L2
-    redisAuthTemplate.delete(buildAuthKey(id));
+    // 1. Invalidates L2: authorization, its index registry, token indexes and principal index in
+    // a single DEL
+    List<String> suffixes = collectIndexSuffixes(authorization);
+    List<String> keys = new ArrayList<>(suffixes.size() + 3);
+    keys.add(buildAuthKey(id));
+    keys.add(buildAuthIndexesKey(id));
+    suffixes.forEach(suffix -> keys.add(buildIndexKey(suffix)));
+    if (authorization.getPrincipalName() != null) {
+      keys.add(buildPrincipalIndexKey(authorization.getPrincipalName()));
+    }
+    if (legacyIndexRead) {
+      collectLegacyIndexSuffixes(authorization).forEach(suffix -> keys.add(buildIndexKey(suffix)));
+    }
+    if (invalidationEnabled) {
+      keys.addFirst(buildInvalidationSequenceKey());
+      redisIndexTemplate.execute(
+          REMOVE_SCRIPT,
+          keys,
+          getInvalidationChannel(),
+          buildInvalidationMessage(id, authorization.getPrincipalName(), suffixes));
+    } else {
+      redisIndexTemplate.delete(keys);
+    }
 
     // 2. Invalidates L1
     localAuthCache.invalidate(id);
-
-    // 3. Remove Indexes
-    removeIndexes(authorization);
-
-    // New: Remove principal index
+    suffixes.forEach(localIndexCache::invalidate);
     if (authorization.getPrincipalName() != null) {
-      String principalKey = buildPrincipalIndexKey(authorization.getPrincipalName());
-      redisIndexTemplate.delete(principalKey);
       principalIndexCache.invalidate(authorization.getPrincipalName());
     }
 
@@ -167,8 +405,9 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     }
 
     // 2. Check L2
+    long generation = invalidationGeneration.get();
     auth = redisAuthTemplate.opsForValue().get(buildAuthKey(id));
-    if (auth != null) {
+    if (auth != null && generation == invalidationGeneration.get()) {
       // Populate L1
       localAuthCache.put(id, auth);
     }
@@ -182,8 +421,25 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
       return null;
     }
 
-    String partialToken = token.substring(0, Math.min(10, token.length()));
-    String indexKeySuffix = buildTokenIndexKeySuffix(tokenType, token);
+    if (tokenType != null) {
+      return findByTokenDigest(TokenIndexKeys.digestOf(tokenType.getValue(), token), token);
+    }
+
+    // No type hint (e.g. token introspection): the digest covers the token value only, so it is
+    // computed once and re-tagged per type
+    TokenDigest digest = null;
+    for (String type : TokenIndexKeys.UNTYPED_LOOKUP_ORDER) {
+      digest = digest == null ? TokenIndexKeys.digestOf(type, token) : digest.withTokenType(type);
+      OAuth2Authorization auth = findByTokenDigest(digest, token);
+      if (auth != null) {
+        return auth;
+      }
+    }
+    return null;
+  }
+
+  private OAuth2Authorization findByTokenDigest(TokenDigest digest, String token) {
+    String indexKeySuffix = digest.toIndexKey();
 
     // 1. Check L1 Index
     String authId = localIndexCache.getIfPresent(indexKeySuffix);
@@ -191,18 +447,21 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     // 2. If Miss, Check L2 Index
     if (authId == null) {
       String redisKey = buildIndexKey(indexKeySuffix);
+      long generation = invalidationGeneration.get();
       authId = redisIndexTemplate.opsForValue().get(redisKey);
-      if (authId != null) {
+      if (authId == null && legacyIndexRead) {
+        // Migration window: authorization indexed before token digests were introduced
+        authId = redisIndexTemplate.opsForValue().get(buildLegacyIndexKey(digest, token));
+      }
+      if (authId != null && generation == invalidationGeneration.get()) {
         // Populate L1 Index
         localIndexCache.put(indexKeySuffix, authId);
       }
     }
 
     if (authId == null) {
-      log.warn(
-          "Token not found in index (Hybrid): type={}, token={}...",
-          tokenType != null ? tokenType.getValue() : "null",
-          partialToken);
+      // Unknown, revoked or expired tokens are routine (introspection), so not a warning
+      log.debug("Token not found in index (Hybrid): type={}", digest.tokenType());
       return null;
     }
 
@@ -213,104 +472,261 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
       // Verify consistency: Index exists but Data missing?
       log.warn("Index valid but Authorization missing! authId={}", authId);
       // Clean up orphan index
-      redisIndexTemplate.delete(buildIndexKey(indexKeySuffix));
+      redisIndexTemplate.delete(lookupIndexKeys(digest, token));
       localIndexCache.invalidate(indexKeySuffix);
+    } else if (!holdsToken(auth, digest.tokenType(), token)) {
+      // Index of a rotated token that was never cleaned up: the token is no longer valid
+      log.debug(
+          "Discarding stale token index (Hybrid): type={}, authId={}", digest.tokenType(), authId);
+      for (String indexKey : lookupIndexKeys(digest, token)) {
+        redisIndexTemplate.execute(COMPARE_AND_DELETE_SCRIPT, List.of(indexKey), authId);
+      }
+      localIndexCache.invalidate(indexKeySuffix);
+      return null;
     } else {
-      log.debug("Found authorization (Hybrid) for token: {}...", partialToken);
+      log.debug(
+          "Found authorization (Hybrid) for token: type={}, authId={}",
+          digest.tokenType(),
+          authId);
     }
 
     return auth;
   }
 
-  // --- Helper Methods ---
-
-  private void updateIndexes(OAuth2Authorization authorization, Duration ttl) {
-    String authId = authorization.getId();
+  // --- Cross-node L1 invalidation ---
 
-    indexToken(authorization.getToken(OAuth2AccessToken.class), "access_token", authId, ttl);
-    indexToken(authorization.getToken(OAuth2RefreshToken.class), "refresh_token", authId, ttl);
-    indexToken(authorization.getToken("id_token"), "id_token", authId, ttl);
+  /** Pub/sub channel carrying L1 invalidations for this namespace. */
+  public String getInvalidationChannel() {
+    return this.namespace + INVALIDATION_CHANNEL_SUFFIX;
+  }
 
-    OAuth2Authorization.Token<OAuth2AuthorizationCode> codeToken =
-        authorization.getToken(OAuth2AuthorizationCode.class);
-    if (codeToken != null) {
-      indexTokenValue("code", codeToken.getToken().getTokenValue(), authId, ttl);
+  /**
+   * Applies an invalidation published by any node (including this one, which only advances the
+   * sequence). Message lines: sequence, origin node, auth ID, principal (may be empty), then token
+   * index key suffixes.
+   *
+   * <p>Messages must be delivered in order; a gap in the sequence means messages were lost and the
+   * whole L1 is flushed, as is a sequence going backwards (counter lost, e.g. Redis restarted
+   * without persistence).
+   */
+  public synchronized void handleInvalidation(String message) {
+    String[] lines = message.split("\n", -1);
+    long sequence;
+    try {
+      sequence = Long.parseLong(lines[0]);
+    } catch (NumberFormatException e) {
+      log.warn("Ignoring malformed L1 invalidation message");
+      return;
     }
 
-    // Index STATE token for consent flow (Spring Auth Server looks up by state)
-    String state = authorization.getAttribute("state");
-    if (state != null) {
-      indexTokenValue("state", state, authId, ttl);
+    if (lastSequence >= 0 && sequence != lastSequence + 1) {
+      flushLocalCaches(
+          sequence <= lastSequence
+              ? "invalidation sequence reset"
+              : "missed " + (sequence - lastSequence - 1) + " invalidation message(s)");
+    } else if (lines.length >= 4 && !nodeId.equals(lines[1])) {
+      invalidationGeneration.incrementAndGet();
+      localAuthCache.invalidate(lines[2]);
+      if (!lines[3].isEmpty()) {
+        principalIndexCache.invalidate(lines[3]);
+      }
+      for (int i = 4; i < lines.length; i++) {
+        localIndexCache.invalidate(lines[i]);
+      }
+      log.debug("Applied L1 invalidation #{} for authId={}", sequence, lines[2]);
     }
+
+    lastSequence = sequence;
   }
 
-  private void indexToken(
-      OAuth2Authorization.Token<?> token, String type, String authId, Duration ttl) {
-    if (token != null && token.getToken() != null) {
-      indexTokenValue(type, token.getToken().getTokenValue(), authId, ttl);
+  /**
+   * Detects invalidations that never arrived, e.g. published while the subscription was
+   * reconnecting and with no later message to reveal the gap. Every sequence value seen in Redis
+   * at the previous check must have been applied by now, otherwise L1 is flushed.
+   */
+  @Scheduled(
+      fixedDelayString = "${wedge.token-storage.redis.local-cache-invalidation-check-ms:10000}")
+  public void verifyInvalidationSequence() {
+    if (!invalidationEnabled) {
+      return;
     }
-  }
 
-  private void indexTokenValue(String type, String tokenValue, String authId, Duration ttl) {
-    String suffix = buildTokenIndexKeySuffix(type, tokenValue);
+    long current;
+    try {
+      String value = redisIndexTemplate.opsForValue().get(buildInvalidationSequenceKey());
+      current = value != null ? Long.parseLong(value) : 0;
+    } catch (RuntimeException e) {
+      log.warn("Could not read L1 invalidation sequence: {}", e.getMessage());
+      return;
+    }
 
-    // L2
-    redisIndexTemplate.opsForValue().set(buildIndexKey(suffix), authId, ttl);
+    synchronized (this) {
+      if (lastSequence < 0) {
+        lastSequence = current;
+      } else if (current < lastSequence) {
+        flushLocalCaches("invalidation sequence reset");
+        lastSequence = current;
+      } else if (observedSequence > lastSequence) {
+        flushLocalCaches("missed invalidation messages up to #" + observedSequence);
+        lastSequence = current;
+      }
+      observedSequence = current;
+    }
+  }
 
-    // L1
-    localIndexCache.put(suffix, authId);
+  /** Drops every L1 entry, used when invalidations may have been missed. */
+  public void flushLocalCaches(String reason) {
+    invalidationGeneration.incrementAndGet();
+    localAuthCache.invalidateAll();
+    localIndexCache.invalidateAll();
+    principalIndexCache.invalidateAll();
+    pendingSelfInvalidations.invalidateAll();
+    log.warn("Flushed L1 token caches: {}", reason);
   }
 
-  private void removeStaleIndexes(OAuth2Authorization oldAuth, OAuth2Authorization newAuth) {
-    // Check Refresh Token Rotation
-    var oldRefresh = oldAuth.getRefreshToken();
-    var newRefresh = newAuth.getRefreshToken();
-    if (oldRefresh != null && newRefresh != null) {
-      String oldVal = oldRefresh.getToken().getTokenValue();
-      String newVal = newRefresh.getToken().getTokenValue();
-      if (!oldVal.equals(newVal)) {
-        removeIndex("refresh_token", oldVal);
-        log.debug("🧹 Removed stale refresh token index (Hybrid): {}...", oldVal.substring(0, 10));
-      }
+  /**
+   * Evicts the L1 entry backing a Redis key of this namespace, as reported by client tracking.
+   * Keys outside the namespace or of other kinds (registries, counters) are ignored, and so is the
+   * invalidation caused by this node's own save of a key.
+   */
+  public void invalidateLocalKey(String redisKey) {
+    if (!redisKey.startsWith(this.namespace) || consumeSelfInvalidation(redisKey)) {
+      return;
     }
+    invalidationGeneration.incrementAndGet();
+
+    String key = redisKey.substring(this.namespace.length());
+    if (key.startsWith(PRINCIPAL_INDEX_KEY_PREFIX)) {
+      principalIndexCache.invalidate(key.substring(PRINCIPAL_INDEX_KEY_PREFIX.length()));
+    } else if (key.startsWith(INDEX_KEY_PREFIX)) {
+      localIndexCache.invalidate(key.substring(INDEX_KEY_PREFIX.length()));
+    } else if (key.startsWith(AUTH_KEY_PREFIX)) {
+      localAuthCache.invalidate(key.substring(AUTH_KEY_PREFIX.length()));
+    }
+  }
 
-    // Check Access Token
-    var oldAccess = oldAuth.getAccessToken();
-    var newAccess = newAuth.getAccessToken();
-    if (oldAccess != null && newAccess != null) {
-      String oldVal = oldAccess.getToken().getTokenValue();
-      String newVal = newAccess.getToken().getTokenValue();
-      if (!oldVal.equals(newVal)) {
-        removeIndex("access_token", oldVal);
+  /** Returns true if an invalidation of this key was expected from a save of this node. */
+  private boolean consumeSelfInvalidation(String redisKey) {
+    ConcurrentMap<String, Integer> pending = pendingSelfInvalidations.asMap();
+    while (true) {
+      Integer count = pending.get(redisKey);
+      if (count == null) {
+        return false;
+      }
+      boolean consumed =
+          count > 1 ? pending.replace(redisKey, count, count - 1) : pending.remove(redisKey, count);
+      if (consumed) {
+        return true;
       }
     }
   }
 
-  private void removeIndexes(OAuth2Authorization authorization) {
-    if (authorization.getAccessToken() != null) {
-      removeIndex("access_token", authorization.getAccessToken().getToken().getTokenValue());
-    }
-    if (authorization.getRefreshToken() != null) {
-      removeIndex("refresh_token", authorization.getRefreshToken().getToken().getTokenValue());
-    }
-    if (authorization.getToken("id_token") != null) {
-      removeIndex("id_token", authorization.getToken("id_token").getToken().getTokenValue());
+  /** Key prefixes whose changes must invalidate L1, for server-assisted client tracking. */
+  public List<String> getTrackedKeyPrefixes() {
+    return List.of(this.namespace + AUTH_KEY_PREFIX, this.namespace + INDEX_KEY_PREFIX);
+  }
+
+  private String buildInvalidationMessage(
+      String authId, String principalName, List<String> indexSuffixes) {
+    StringBuilder message = new StringBuilder(128);
+    message.append(nodeId).append('\n').append(authId).append('\n');
+    if (principalName != null) {
+      message.append(principalName);
     }
-    if (authorization.getToken(OAuth2AuthorizationCode.class) != null) {
-      removeIndex(
-          "code", authorization.getToken(OAuth2AuthorizationCode.class).getToken().getTokenValue());
+    indexSuffixes.forEach(suffix -> message.append('\n').append(suffix));
+    return message.toString();
+  }
+
+  private String buildInvalidationSequenceKey() {
+    return this.namespace + INVALIDATION_SEQUENCE_SUFFIX;
+  }
+
+  // --- Helper Methods ---
+
+  /** Returns the index key suffixes of every token held by the authorization. */
+  private List<String> collectIndexSuffixes(OAuth2Authorization authorization) {
+    Set<String> suffixes = new LinkedHashSet<>();
+
+    addIndexSuffix(suffixes, authorization.getToken(OAuth2AccessToken.class), "access_token");
+    addIndexSuffix(suffixes, authorization.getToken(OAuth2RefreshToken.class), "refresh_token");
+    addIndexSuffix(suffixes, authorization.getToken(OidcIdToken.class), "id_token");
+    addIndexSuffix(suffixes, authorization.getToken(OAuth2AuthorizationCode.class), "code");
+
+    // Index STATE token for consent flow (Spring Auth Server looks up by state)
+    String state = authorization.getAttribute("state");
+    if (state != null) {
+      suffixes.add(buildTokenIndexKeySuffix("state", state));
     }
-    // Remove state index
+
+    return new ArrayList<>(suffixes);
+  }
+
+  /**
+   * Returns the pre-digest index key suffixes, deleted on save and remove during the migration
+   * window.
+   */
+  private List<String> collectLegacyIndexSuffixes(OAuth2Authorization authorization) {
+    List<String> suffixes = new ArrayList<>();
+    addLegacyIndexSuffix(suffixes, authorization.getToken(OAuth2AccessToken.class), "access_token");
+    addLegacyIndexSuffix(
+        suffixes, authorization.getToken(OAuth2RefreshToken.class), "refresh_token");
+    addLegacyIndexSuffix(suffixes, authorization.getToken(OidcIdToken.class), "id_token");
+    addLegacyIndexSuffix(suffixes, authorization.getToken(OAuth2AuthorizationCode.class), "code");
     String state = authorization.getAttribute("state");
     if (state != null) {
-      removeIndex("state", state);
+      suffixes.add(TokenIndexKeys.legacy("state", state));
+    }
+    return suffixes;
+  }
+
+  private void addLegacyIndexSuffix(
+      List<String> suffixes, OAuth2Authorization.Token<?> token, String type) {
+    if (token != null && token.getToken() != null) {
+      suffixes.add(TokenIndexKeys.legacy(type, token.getToken().getTokenValue()));
     }
   }
 
-  private void removeIndex(String type, String tokenValue) {
-    String suffix = buildTokenIndexKeySuffix(type, tokenValue);
-    redisIndexTemplate.delete(buildIndexKey(suffix));
-    localIndexCache.invalidate(suffix);
+  private void addIndexSuffix(
+      Set<String> suffixes, OAuth2Authorization.Token<?> token, String type) {
+    if (token != null && token.getToken() != null) {
+      suffixes.add(buildTokenIndexKeySuffix(type, token.getToken().getTokenValue()));
+    }
+  }
+
+  /** Whether the authorization still holds the given token as its current token of that type. */
+  private static boolean holdsToken(
+      OAuth2Authorization authorization, String tokenType, String tokenValue) {
+    if ("state".equals(tokenType)) {
+      return tokenValue.equals(authorization.getAttribute("state"));
+    }
+    OAuth2Authorization.Token<?> current =
+        switch (tokenType) {
+          case "access_token" -> authorization.getToken(OAuth2AccessToken.class);
+          case "refresh_token" -> authorization.getToken(OAuth2RefreshToken.class);
+          case "id_token" -> authorization.getToken(OidcIdToken.class);
+          case "code" -> authorization.getToken(OAuth2AuthorizationCode.class);
+          default -> null;
+        };
+    return current != null
+        && current.getToken() != null
+        && tokenValue.equals(current.getToken().getTokenValue());
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private List<String> executeSaveScript(List<String> keys, byte[]... args) {
+    // Arguments are pre-serialized (the authorization uses the auth template's serializer), the
+    // returned keys are plain strings.
+    return (List<String>)
+        redisIndexTemplate.execute(
+            SAVE_SCRIPT,
+            RedisSerializer.byteArray(),
+            (RedisSerializer) RedisSerializer.string(),
+            keys,
+            (Object[]) args);
+  }
+
+  private static byte[] toBytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
   }
 
   private String buildAuthKey(String id) {
@@ -321,12 +737,28 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     return this.namespace + INDEX_KEY_PREFIX + suffix;
   }
 
+  private String buildLegacyIndexKey(TokenDigest digest, String token) {
+    return buildIndexKey(TokenIndexKeys.legacy(digest.tokenType(), token));
+  }
+
+  /** Index keys a token lookup can resolve through: the digest key, then the legacy key. */
+  private List<String> lookupIndexKeys(TokenDigest digest, String token) {
+    String indexKey = buildIndexKey(digest.toIndexKey());
+    return legacyIndexRead
+        ? List.of(indexKey, buildLegacyIndexKey(digest, token))
+        : List.of(indexKey);
+  }
+
+  private String buildAuthIndexesKey(String id) {
+    return this.namespace + AUTH_INDEXES_KEY_PREFIX + id;
+  }
+
   private String buildTokenIndexKeySuffix(OAuth2TokenType type, String value) {
     return buildTokenIndexKeySuffix(type.getValue(), value);
   }
 
   private String buildTokenIndexKeySuffix(String typeValue, String value) {
-    return typeValue + ":" + value;
+    return TokenIndexKeys.hashed(typeValue, value);
   }
 
   /** Used during logout to find and revoke authorizations for a specific user. */
@@ -341,9 +773,10 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     // If not in L1, check Redis
     if (authId == null) {
       String principalKey = buildPrincipalIndexKey(userId);
+      long generation = invalidationGeneration.get();
       authId = redisIndexTemplate.opsForValue().get(principalKey);
 
-      if (authId != null) {
+      if (authId != null && generation == invalidationGeneration.get()) {
         // Populate L1 cache
         principalIndexCache.put(userId, authId);
       }
@@ -357,7 +790,57 @@ public class RedisOAuth2AuthorizationServiceAdapter implements OAuth2Authorizati
     return findById(authId);
   }
 
+  /** Incrementally iterates the principal index keys ({@code SCAN}, never {@code KEYS}). */
+  public Cursor<String> scanPrincipalIndexKeys(int count) {
+    return redisIndexTemplate.scan(
+        ScanOptions.scanOptions()
+            .match(this.namespace + PRINCIPAL_INDEX_KEY_PREFIX + "*")
+            .count(count)
+            .build());
+  }
+
+  /**
+   * Deletes principal index keys whose authorization no longer exists (one {@code MGET} and one
+   * pipelined {@code EXISTS} per batch).
+   *
+   * @return number of removed keys
+   */
+  public int removeStalePrincipalIndexes(List<String> principalKeys) {
+    List<String> authIds = redisIndexTemplate.opsForValue().multiGet(principalKeys);
+    if (authIds == null) {
+      return 0;
+    }
+
+    List<Object> exists =
+        redisIndexTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  for (String authId : authIds) {
+                    // A key that vanished between SCAN and MGET is checked against "" and skipped
+                    String authKey = buildAuthKey(authId != null ? authId : "");
+                    connection.keyCommands().exists(toBytes(authKey));
+                  }
+                  return null;
+                });
+
+    int prefixLength = (this.namespace + PRINCIPAL_INDEX_KEY_PREFIX).length();
+    int removed = 0;
+    for (int i = 0; i < principalKeys.size(); i++) {
+      String principalKey = principalKeys.get(i);
+      String authId = authIds.get(i);
+      if (authId != null && Boolean.FALSE.equals(exists.get(i))) {
+        Long deleted =
+            redisIndexTemplate.execute(COMPARE_AND_DELETE_SCRIPT, List.of(principalKey), authId);
+        if (deleted != null && deleted > 0) {
+          principalIndexCache.invalidate(principalKey.substring(prefixLength));
+          removed++;
+        }
+      }
+    }
+    return removed;
+  }
+
   private String buildPrincipalIndexKey(String userId) {
-    return buildIndexKey("principal:" + userId);
+    return this.namespace + PRINCIPAL_INDEX_KEY_PREFIX + userId;
   }
 }
@@ -4,19 +4,34 @@ import com.kuneiform.domain.model.AuthorizationSession;
 import com.kuneiform.domain.port.SessionStorage;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 
 /**
  * Redis implementation of SessionStorage using Spring Data Redis.
  *
+ * <p>The delete, consume and delete-by-user scripts build keys from stored data (the user index
+ * key from the session's user ID, session keys from the user index members). Those keys cannot be
+ * declared in KEYS before the script runs, so the scripts require a standalone Redis, the only mode
+ * {@link com.kuneiform.infrastructure.config.RedisConfig} configures. Redis Cluster would need the
+ * user index and sessions to share a hash slot.
+ *
  * <p>Active when {@code wedge.session.storage-type=redis}.
  */
 @Slf4j
@@ -25,8 +40,88 @@ import org.springframework.stereotype.Component;
 @ConditionalOnProperty(name = "wedge.session.storage-type", havingValue = "redis")
 public class RedisSessionStorageAdapter implements SessionStorage {
 
+  /**
+   * Writes a session and adds it to its user index in one round trip.
+   *
+   * <p>KEYS: [session, user index]. ARGV: [serialized session, ttl seconds, authorization code].
+   */
+  private static final RedisScript<Long> SAVE_SCRIPT =
+      RedisScript.of(
+          """
+          local ttl = tonumber(ARGV[2])
+          redis.call('SET', KEYS[1], ARGV[1], 'EX', ttl)
+          redis.call('SADD', KEYS[2], ARGV[3])
+          redis.call('EXPIRE', KEYS[2], ttl)
+          return 1
+          """,
+          Long.class);
+
+  /**
+   * Deletes a session and removes it from the index of the user it belongs to.
+   *
+   * <p>KEYS: [session]. ARGV: [user index key prefix, authorization code]. The user is read from
+   * the stored session, so the user index key is not declared (standalone Redis only); a value
+   * that cannot be decoded is still deleted. Returns 1 if a session was deleted.
+   */
+  private static final RedisScript<Long> DELETE_SCRIPT =
+      RedisScript.of(
+          """
+          local value = redis.call('GET', KEYS[1])
+          if not value then
+            return 0
+          end
+          redis.call('DEL', KEYS[1])
+          local ok, session = pcall(cjson.decode, value)
+          if ok and type(session) == 'table' and type(session.userId) == 'string' then
+            redis.call('SREM', ARGV[1] .. session.userId, ARGV[2])
+          end
+          return 1
+          """,
+          Long.class);
+
+  /**
+   * Returns and deletes a session ({@code GETDEL}) and removes it from its user index.
+   *
+   * <p>KEYS: [session]. ARGV: [user index key prefix, authorization code]. As in {@link
+   * #DELETE_SCRIPT}, the user index key is built from the stored session. Returns the serialized
+   * session, or nil if there was none.
+   */
+  private static final RedisScript<AuthorizationSession> CONSUME_SCRIPT =
+      RedisScript.of(
+          """
+          local value = redis.call('GETDEL', KEYS[1])
+          if not value then
+            return false
+          end
+          local ok, session = pcall(cjson.decode, value)
+          if ok and type(session) == 'table' and type(session.userId) == 'string' then
+            redis.call('SREM', ARGV[1] .. session.userId, ARGV[2])
+          end
+          return value
+          """,
+          AuthorizationSession.class);
+
+  /**
+   * Deletes every session listed in a user index together with the index itself.
+   *
+   * <p>KEYS: [user index]. ARGV: [session key prefix]. The session keys come from the index
+   * members (standalone Redis only). Returns the number of deleted sessions.
+   */
+  private static final RedisScript<Long> DELETE_USER_SCRIPT =
+      RedisScript.of(
+          """
+          local codes = redis.call('SMEMBERS', KEYS[1])
+          local deleted = 0
+          for _, code in ipairs(codes) do
+            deleted = deleted + redis.call('DEL', ARGV[1] .. code)
+          end
+          redis.call('DEL', KEYS[1])
+          return deleted
+          """,
+          Long.class);
+
   private final RedisTemplate<String, AuthorizationSession> redisTemplate;
-  private final org.springframework.data.redis.core.StringRedisTemplate stringRedisTemplate;
+  private final StringRedisTemplate stringRedisTemplate;
   private final WedgeConfigProperties properties;
 
   @PostConstruct
@@ -54,19 +149,23 @@ public class RedisSessionStorageAdapter implements SessionStorage {
   }
 
   @Override
+  @SuppressWarnings({"unchecked", "rawtypes"})
   public void save(AuthorizationSession session) {
     try {
       String sessionKey = getSessionKey(session.getAuthorizationCode());
       String userIndexKey = getUserIndexKey(session.getUserId());
       Duration ttl = getTtl();
 
-      // Save the session
-      redisTemplate.opsForValue().set(sessionKey, session, ttl);
-
-      // Add authorization code to user's session index set
-      stringRedisTemplate.opsForSet().add(userIndexKey, session.getAuthorizationCode());
-      // Set TTL on user index (refresh on each save to keep it alive while user has sessions)
-      stringRedisTemplate.expire(userIndexKey, ttl);
+      // Session, index membership and index TTL (refreshed on each save to keep it alive while
+      // the user has sessions) are written in one round trip
+      stringRedisTemplate.execute(
+          SAVE_SCRIPT,
+          RedisSerializer.byteArray(),
+          (RedisSerializer) RedisSerializer.string(),
+          List.of(sessionKey, userIndexKey),
+          redisTemplate.getValueSerializer().serialize(session),
+          toBytes(String.valueOf(ttl.getSeconds())),
+          toBytes(session.getAuthorizationCode()));
 
       log.debug(
           "Saved session to Redis: code={}, userId={}, ttl={}s",
@@ -103,6 +202,32 @@ public class RedisSessionStorageAdapter implements SessionStorage {
     }
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public Optional<AuthorizationSession> consume(String authorizationCode) {
+    try {
+      // One atomic round trip: concurrent exchanges of the same code cannot both get the session
+      AuthorizationSession session =
+          redisTemplate.execute(
+              CONSUME_SCRIPT,
+              RedisSerializer.string(),
+              (RedisSerializer<AuthorizationSession>) redisTemplate.getValueSerializer(),
+              List.of(getSessionKey(authorizationCode)),
+              getKeyPrefix() + "user:",
+              authorizationCode);
+
+      if (session == null || session.isExpired()) {
+        return Optional.empty();
+      }
+
+      log.debug("Consumed session from Redis: code={}", authorizationCode);
+      return Optional.of(session);
+    } catch (Exception e) {
+      log.error("Failed to consume session from Redis: code={}", authorizationCode, e);
+      return Optional.empty();
+    }
+  }
+
   @Override
   public List<AuthorizationSession> findByUserId(String userId) {
     try {
@@ -111,62 +236,147 @@ public class RedisSessionStorageAdapter implements SessionStorage {
 
       if (authCodes == null || authCodes.isEmpty()) {
         log.debug("No sessions found for user: {}", userId);
-        return java.util.Collections.emptyList();
+        return Collections.emptyList();
       }
 
-      java.util.List<AuthorizationSession> userSessions = new java.util.ArrayList<>();
-      java.util.List<String> expiredCodes = new java.util.ArrayList<>();
+      List<String> codes = new ArrayList<>(authCodes);
+      List<String> sessionKeys = new ArrayList<>(codes.size());
+      for (String code : codes) {
+        sessionKeys.add(getSessionKey(code));
+      }
+      List<AuthorizationSession> sessions = redisTemplate.opsForValue().multiGet(sessionKeys);
+      if (sessions == null) {
+        return Collections.emptyList();
+      }
+
+      List<AuthorizationSession> userSessions = new ArrayList<>();
+      List<String> staleCodes = new ArrayList<>();
+      List<String> expiredKeys = new ArrayList<>();
 
-      for (String code : authCodes) {
-        AuthorizationSession session = redisTemplate.opsForValue().get(getSessionKey(code));
+      for (int i = 0; i < codes.size(); i++) {
+        AuthorizationSession session = sessions.get(i);
 
         if (session == null) {
           // Session expired via TTL, mark for cleanup from index
-          expiredCodes.add(code);
+          staleCodes.add(codes.get(i));
         } else if (session.isExpired()) {
-          // Session marked as expired, clean it up
-          expiredCodes.add(code);
-          deleteByAuthorizationCode(code);
+          // Session marked as expired, clean it up together with its index entry
+          staleCodes.add(codes.get(i));
+          expiredKeys.add(sessionKeys.get(i));
         } else if (session.getUserId().equals(userId)) {
           userSessions.add(session);
         }
       }
 
       // Clean up stale entries from the user index
-      if (!expiredCodes.isEmpty()) {
-        stringRedisTemplate.opsForSet().remove(userIndexKey, expiredCodes.toArray());
-        log.debug("Cleaned {} stale entries from user index: {}", expiredCodes.size(), userId);
+      if (!staleCodes.isEmpty()) {
+        if (!expiredKeys.isEmpty()) {
+          redisTemplate.delete(expiredKeys);
+        }
+        stringRedisTemplate.opsForSet().remove(userIndexKey, staleCodes.toArray());
+        log.debug("Cleaned {} stale entries from user index: {}", staleCodes.size(), userId);
       }
 
       log.debug("Found {} sessions for user: {}", userSessions.size(), userId);
       return userSessions;
     } catch (Exception e) {
       log.error("Failed to find sessions by user ID in Redis: userId={}", userId, e);
-      return java.util.Collections.emptyList();
+      return Collections.emptyList();
     }
   }
 
   @Override
   public void deleteByAuthorizationCode(String authorizationCode) {
     try {
-      String sessionKey = getSessionKey(authorizationCode);
+      // The script reads the owning user from the stored session, so the session and its index
+      // entry go away in one atomic round trip
+      stringRedisTemplate.execute(
+          DELETE_SCRIPT,
+          List.of(getSessionKey(authorizationCode)),
+          getKeyPrefix() + "user:",
+          authorizationCode);
 
-      // Get the session first to find userId for index cleanup
-      AuthorizationSession session = redisTemplate.opsForValue().get(sessionKey);
+      log.debug("Deleted session from Redis: code={}", authorizationCode);
+    } catch (Exception e) {
+      log.error("Failed to delete session from Redis: code={}", authorizationCode, e);
+    }
+  }
+
+  @Override
+  public void deleteByUserId(String userId) {
+    try {
+      Long deleted =
+          stringRedisTemplate.execute(
+              DELETE_USER_SCRIPT, List.of(getUserIndexKey(userId)), getKeyPrefix() + "session:");
 
-      // Delete the session
-      redisTemplate.delete(sessionKey);
+      log.debug("Deleted {} session(s) from Redis for user: {}", deleted, userId);
+    } catch (Exception e) {
+      log.error("Failed to delete sessions from Redis: userId={}", userId, e);
+    }
+  }
 
-      // Remove from user index if we have the session info
-      if (session != null) {
-        String userIndexKey = getUserIndexKey(session.getUserId());
-        stringRedisTemplate.opsForSet().remove(userIndexKey, authorizationCode);
+  /** Incrementally iterates the user index keys ({@code SCAN}, never {@code KEYS}). */
+  public Cursor<String> scanUserIndexKeys(int count) {
+    return stringRedisTemplate.scan(
+        ScanOptions.scanOptions().match(getKeyPrefix() + "user:*").count(count).build());
+  }
+
+  /**
+   * Removes members of the given user index sets whose session key no longer exists. Members are
+   * walked with {@code SSCAN} and checked with pipelined {@code EXISTS}, {@code batchSize} at a
+   * time, so large sets never block Redis.
+   *
+   * @return number of removed members
+   */
+  public int removeStaleUserIndexMembers(List<String> userIndexKeys, int batchSize) {
+    int removed = 0;
+    for (String userIndexKey : userIndexKeys) {
+      try (Cursor<String> members =
+          stringRedisTemplate
+              .opsForSet()
+              .scan(userIndexKey, ScanOptions.scanOptions().count(batchSize).build())) {
+        List<String> codes = new ArrayList<>(batchSize);
+        while (members.hasNext()) {
+          codes.add(members.next());
+          if (codes.size() >= batchSize || !members.hasNext()) {
+            removed += removeMissingSessions(userIndexKey, codes);
+            codes.clear();
+          }
+        }
       }
+    }
+    return removed;
+  }
 
-      log.debug("Deleted session from Redis: code={}", authorizationCode);
-    } catch (Exception e) {
-      log.error("Failed to delete session from Redis: code={}", authorizationCode, e);
+  private int removeMissingSessions(String userIndexKey, List<String> codes) {
+    List<Object> exists =
+        stringRedisTemplate.executePipelined(
+            (RedisCallback<Object>)
+                connection -> {
+                  for (String code : codes) {
+                    connection
+                        .keyCommands()
+                        .exists(getSessionKey(code).getBytes(StandardCharsets.UTF_8));
+                  }
+                  return null;
+                });
+
+    List<String> stale = new ArrayList<>();
+    for (int i = 0; i < codes.size(); i++) {
+      if (Boolean.FALSE.equals(exists.get(i))) {
+        stale.add(codes.get(i));
+      }
+    }
+
+    if (!stale.isEmpty()) {
+      stringRedisTemplate.opsForSet().remove(userIndexKey, stale.toArray());
+      log.debug("Swept {} stale entries from user index: {}", stale.size(), userIndexKey);
     }
+    return stale.size();
+  }
+
+  private static byte[] toBytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
   }
 
   @Override
@@ -0,0 +1,158 @@
+package com.kuneiform.infrastructure.adapter;
+
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+/**
+ * Server-assisted client-side caching for {@link RedisOAuth2AuthorizationServiceAdapter}.
+ *
+ * <p>Opens a dedicated RESP3 connection with {@code CLIENT TRACKING ON BCAST} on the token store's
+ * {@code auth:} and {@code index:} prefixes. Redis pushes an invalidation for every write to those
+ * keys, from any node, and the matching L1 entries are evicted. A flush push (null key list) or a
+ * lost connection flushes the whole L1, since invalidations may have been missed; tracking is
+ * re-enabled after a reconnect.
+ *
+ * <p>{@code NOLOOP} would not help here: it only skips writes made on the tracking connection
+ * itself, while saves go through the shared template connections. Instead the adapter ignores the
+ * one invalidation it expects for each key its own save wrote, so a save does not evict the entries
+ * it just cached.
+ *
+ * <p>Active when {@code wedge.token-storage.redis.client-side-caching=true}; replaces the pub/sub
+ * invalidation channel.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnExpression(
+    "'${wedge.token-storage.type:in-memory}'.equals('redis')"
+        + " and ${wedge.token-storage.redis.client-side-caching:false}")
+public class RedisTokenCacheTracker {
+
+  private static final String INVALIDATE_PUSH_TYPE = "invalidate";
+
+  private final WedgeConfigProperties config;
+  private final RedisOAuth2AuthorizationServiceAdapter authorizationService;
+
+  private final AtomicBoolean connectedOnce = new AtomicBoolean(false);
+  private RedisClient client;
+  private StatefulRedisConnection<String, String> connection;
+
+  @PostConstruct
+  public void start() {
+    WedgeConfigProperties.RedisConfig redisConfig = config.getSession().getRedis();
+
+    client = RedisClient.create(buildRedisUri(redisConfig));
+    // Push messages (invalidations) require RESP3
+    client.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP3).build());
+    client.addListener(
+        new RedisConnectionStateListener() {
+          @Override
+          public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+            if (connectedOnce.getAndSet(true)) {
+              // Tracking state does not survive a reconnect, and anything cached while it was
+              // off may be stale
+              enableTracking()
+                  .thenRun(
+                      () -> authorizationService.flushLocalCaches("client tracking re-enabled"));
+            }
+          }
+
+          @Override
+          public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+            authorizationService.flushLocalCaches("client tracking connection lost");
+          }
+        });
+
+    connection = client.connect();
+    connection.addListener(this::onPushMessage);
+    enableTracking().toCompletableFuture().join();
+
+    log.info(
+        "Redis client-side caching enabled for token store (BCAST prefixes: {})",
+        authorizationService.getTrackedKeyPrefixes());
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (connection != null) {
+      connection.close();
+    }
+    if (client != null) {
+      client.shutdown();
+    }
+  }
+
+  void onPushMessage(PushMessage message) {
+    if (!INVALIDATE_PUSH_TYPE.equals(message.getType())) {
+      return;
+    }
+
+    List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+    Object keys = content.size() > 1 ? content.get(1) : null;
+    if (!(keys instanceof List<?> keyList)) {
+      // Null key list: the server flushed its tracking table (FLUSHALL/FLUSHDB)
+      authorizationService.flushLocalCaches("tracking flush received");
+      return;
+    }
+
+    for (Object key : keyList) {
+      if (key != null) {
+        authorizationService.invalidateLocalKey(key.toString());
+      }
+    }
+  }
+
+  private CompletionStage<String> enableTracking() {
+    List<String> prefixes = authorizationService.getTrackedKeyPrefixes();
+    TrackingArgs args =
+        TrackingArgs.Builder.enabled().bcast().prefixes(prefixes.toArray(String[]::new));
+
+    return connection
+        .async()
+        .clientTracking(args)
+        .whenComplete(
+            (result, error) -> {
+              if (error != null) {
+                log.error("Failed to enable Redis client tracking: {}", error.getMessage());
+              }
+            });
+  }
+
+  private static RedisURI buildRedisUri(WedgeConfigProperties.RedisConfig redisConfig) {
+    RedisURI.Builder uri =
+        RedisURI.builder()
+            .withHost(redisConfig.getHost())
+            .withPort(redisConfig.getPort())
+            .withDatabase(redisConfig.getDatabase())
+            .withSsl(redisConfig.getSsl().isEnabled());
+
+    boolean hasPassword = redisConfig.getPassword() != null && !redisConfig.getPassword().isEmpty();
+    if (redisConfig.getUsername() != null && !redisConfig.getUsername().isEmpty()) {
+      uri.withAuthentication(
+          redisConfig.getUsername(), hasPassword ? redisConfig.getPassword() : "");
+    } else if (hasPassword) {
+      uri.withPassword(redisConfig.getPassword().toCharArray());
+    }
+
+    return uri.build();
+  }
+}
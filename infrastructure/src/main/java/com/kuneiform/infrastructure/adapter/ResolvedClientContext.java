@@ -0,0 +1,8 @@
+package com.kuneiform.infrastructure.adapter;
+
+import com.kuneiform.domain.model.OAuthClient;
+import com.kuneiform.domain.model.Tenant;
+import com.kuneiform.domain.model.UserProvider;
+
+/** A client together with the tenant and user provider that serve its logins. */
+public record ResolvedClientContext(OAuthClient client, Tenant tenant, UserProvider userProvider) {}
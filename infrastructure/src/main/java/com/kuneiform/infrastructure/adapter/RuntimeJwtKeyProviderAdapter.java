@@ -1,20 +1,23 @@
 package com.kuneiform.infrastructure.adapter;
 
 import com.kuneiform.domain.model.JwtKeyPair;
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
 import com.kuneiform.domain.port.JwtKeyProvider;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Adapter that generates RSA key pairs at runtime.
+ * Adapter that generates JWT key pairs at runtime.
  *
  * <p>This implementation is suitable for development and testing environments where keys can be
- * regenerated on each application restart. The generated key pair is cached and reused for the
- * lifetime of the application.
+ * regenerated on each application restart. One key pair is generated per supported signing
+ * algorithm (RSA for RS256, P-256 for ES256), so clients can be configured with either algorithm.
+ * The generated key pairs are cached and reused for the lifetime of the application.
  *
  * <p><strong>Warning:</strong> Not recommended for production use as keys will change on restart,
  * invalidating all existing JWTs.
@@ -23,39 +26,66 @@ import lombok.extern.slf4j.Slf4j;
 public class RuntimeJwtKeyProviderAdapter implements JwtKeyProvider {
 
   private final int keySize;
-  private final JwtKeyPair cachedKeyPair;
+  private final List<JwtKeyPair> cachedKeyPairs;
 
   /**
-   * Creates a new runtime key provider and generates the key pair immediately.
+   * Creates a new runtime key provider with an RSA primary key and generates the key pairs
+   * immediately.
    *
    * @param keySize the RSA key size in bits (e.g., 2048, 4096)
    * @throws IllegalStateException if key generation fails
    */
   public RuntimeJwtKeyProviderAdapter(int keySize) {
+    this(keySize, JwtSigningAlgorithm.RS256);
+  }
+
+  /**
+   * Creates a new runtime key provider and generates the key pairs immediately.
+   *
+   * @param keySize the RSA key size in bits (e.g., 2048, 4096)
+   * @param primaryAlgorithm the algorithm of the key pair returned by {@link #getKeyPair()}
+   * @throws IllegalStateException if key generation fails
+   */
+  public RuntimeJwtKeyProviderAdapter(int keySize, JwtSigningAlgorithm primaryAlgorithm) {
     this.keySize = keySize;
-    this.cachedKeyPair = generateKeyPair();
+    List<JwtKeyPair> keyPairs = new ArrayList<>();
+    keyPairs.add(generateKeyPair(primaryAlgorithm));
+    for (JwtSigningAlgorithm algorithm : JwtSigningAlgorithm.values()) {
+      if (algorithm != primaryAlgorithm) {
+        keyPairs.add(generateKeyPair(algorithm));
+      }
+    }
+    this.cachedKeyPairs = List.copyOf(keyPairs);
   }
 
   @Override
   public JwtKeyPair getKeyPair() {
-    return cachedKeyPair;
+    return cachedKeyPairs.getFirst();
+  }
+
+  @Override
+  public List<JwtKeyPair> getKeyPairs() {
+    return cachedKeyPairs;
   }
 
-  private JwtKeyPair generateKeyPair() {
+  private JwtKeyPair generateKeyPair(JwtSigningAlgorithm algorithm) {
     try {
-      log.info("Generating RSA key pair for JWT signing (key size: {} bits)", keySize);
-      KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-      keyPairGenerator.initialize(keySize);
+      KeyPairGenerator keyPairGenerator =
+          KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+      if (algorithm == JwtSigningAlgorithm.ES256) {
+        log.info("Generating P-256 EC key pair for JWT signing");
+        keyPairGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+      } else {
+        log.info("Generating RSA key pair for JWT signing (key size: {} bits)", keySize);
+        keyPairGenerator.initialize(keySize);
+      }
       KeyPair keyPair = keyPairGenerator.generateKeyPair();
-
-      RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
-      RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
       String keyId = UUID.randomUUID().toString();
 
-      log.info("Successfully generated RSA key pair with key ID: {}", keyId);
-      return new JwtKeyPair(publicKey, privateKey, keyId);
+      log.info("Successfully generated {} key pair with key ID: {}", algorithm, keyId);
+      return new JwtKeyPair(keyPair.getPublic(), keyPair.getPrivate(), keyId);
     } catch (Exception ex) {
-      throw new IllegalStateException("Failed to generate RSA key pair", ex);
+      throw new IllegalStateException("Failed to generate " + algorithm + " key pair", ex);
     }
   }
 }
@@ -0,0 +1,254 @@
+package com.kuneiform.infrastructure.adapter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.kuneiform.domain.model.User;
+import com.kuneiform.infrastructure.adapter.restclients.ScopeDecision;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived, per-tenant cache of user provider answers.
+ *
+ * <p>Every authorize request validates scopes with the user provider, even when the same user
+ * authorized the same client and scopes seconds ago (silent renew, SSO bounces). When enabled, this
+ * cache keeps user lookups by username and scope validation results keyed by (tenant, userId,
+ * sorted scopes) for {@code ttl-seconds}. Scope rejections (HTTP 403) are cached for {@code
+ * negative-ttl-seconds}. Errors are never cached.
+ *
+ * <p>Batch scope decisions are kept per (tenant, userId) as the evaluated and allowed scope sets,
+ * so a request for any subset of the evaluated scopes is answered without a call. They live for
+ * the provider's {@code Cache-Control} max-age, capped at {@code ttl-seconds}.
+ *
+ * <p>Entries of a user are dropped on logout and after MFA registration, so a changed user is not
+ * served stale data for the rest of the TTL.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProviderCache {
+
+  private final WedgeConfigProperties properties;
+
+  private final Map<String, TenantCache> tenants = new ConcurrentHashMap<>();
+
+  private boolean enabled;
+
+  @PostConstruct
+  public void init() {
+    WedgeConfigProperties.UserProviderCacheConfig config = properties.getUserProviderCache();
+    enabled = config.isEnabled();
+    if (!enabled) {
+      return;
+    }
+
+    if (config.getTtlSeconds() <= 0) {
+      throw new IllegalArgumentException(
+          "User provider cache TTL must be positive, got: " + config.getTtlSeconds());
+    }
+    if (config.getNegativeTtlSeconds() < 0) {
+      throw new IllegalArgumentException(
+          "User provider cache negative TTL must not be negative, got: "
+              + config.getNegativeTtlSeconds());
+    }
+    if (config.getMaxSize() <= 0) {
+      throw new IllegalArgumentException(
+          "User provider cache max size must be positive, got: " + config.getMaxSize());
+    }
+
+    log.info(
+        "User provider cache enabled: ttl={}s, negativeTtl={}s, maxSize={} per tenant",
+        config.getTtlSeconds(),
+        config.getNegativeTtlSeconds(),
+        config.getMaxSize());
+  }
+
+  /** Returns the cached user, or loads it; only found users are cached. */
+  public Optional<User> findByUsername(
+      String tenantId, String username, Supplier<Optional<User>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    Cache<String, User> users = tenantCache(tenantId).users();
+    User cached = users.getIfPresent(username);
+    if (cached != null) {
+      log.debug("User provider cache hit for username: {} (tenant: {})", username, tenantId);
+      return Optional.of(cached);
+    }
+
+    Optional<User> loaded = loader.get();
+    loaded.ifPresent(user -> users.put(username, user));
+    return loaded;
+  }
+
+  /**
+   * Returns the cached scope validation result, or loads it. The loader must throw on errors so
+   * they are not cached; a {@code false} result (403) is cached for the negative TTL.
+   */
+  public boolean validateScopes(
+      String tenantId, String userId, Set<String> scopes, BooleanSupplier loader) {
+    if (!enabled) {
+      return loader.getAsBoolean();
+    }
+
+    Cache<ScopeKey, Boolean> results = tenantCache(tenantId).scopes();
+    ScopeKey key = new ScopeKey(userId, String.join(" ", scopes.stream().sorted().toList()));
+    Boolean cached = results.getIfPresent(key);
+    if (cached != null) {
+      log.debug("User provider cache hit for scopes of user: {} (tenant: {})", userId, tenantId);
+      return cached;
+    }
+
+    boolean allowed = loader.getAsBoolean();
+    if (allowed || properties.getUserProviderCache().getNegativeTtlSeconds() > 0) {
+      results.put(key, allowed);
+    }
+    return allowed;
+  }
+
+  /**
+   * Answers from the user's cached scope decision when it covers the scopes, or loads a new one.
+   * On a miss the loader is asked for the scopes together with the ones already evaluated, so the
+   * new decision keeps covering them. The loader must throw on errors so they are not cached.
+   */
+  public boolean decideScopes(
+      String tenantId,
+      String userId,
+      Set<String> scopes,
+      Function<Set<String>, ScopeDecision> loader) {
+    if (!enabled) {
+      return loader.apply(scopes).allows(scopes);
+    }
+
+    Cache<String, ScopeGrant> grants = tenantCache(tenantId).scopeGrants();
+    ScopeGrant cached = grants.getIfPresent(userId);
+    if (cached != null && cached.evaluatedScopes().containsAll(scopes)) {
+      log.debug(
+          "User provider cache hit for scope decision of user: {} (tenant: {})", userId, tenantId);
+      return cached.allowedScopes().containsAll(scopes);
+    }
+
+    Set<String> evaluated = scopes;
+    if (cached != null) {
+      evaluated = new HashSet<>(cached.evaluatedScopes());
+      evaluated.addAll(scopes);
+    }
+
+    ScopeDecision decision = loader.apply(evaluated);
+    long ttlNanos = Duration.ofSeconds(properties.getUserProviderCache().getTtlSeconds()).toNanos();
+    if (decision.maxAge() != null) {
+      ttlNanos = Math.min(ttlNanos, decision.maxAge().toNanos());
+    }
+    if (ttlNanos > 0) {
+      grants.put(userId, new ScopeGrant(Set.copyOf(evaluated), decision.allowedScopes(), ttlNanos));
+    } else {
+      grants.invalidate(userId);
+    }
+    return decision.allows(scopes);
+  }
+
+  /** Drops every cached entry of the user, in all tenants. */
+  public void invalidateUser(String userId) {
+    if (!enabled || userId == null) {
+      return;
+    }
+
+    for (TenantCache cache : tenants.values()) {
+      cache.users().asMap().values().removeIf(user -> userId.equals(user.getUserId()));
+      cache.scopes().asMap().keySet().removeIf(key -> userId.equals(key.userId()));
+      cache.scopeGrants().invalidate(userId);
+    }
+    log.debug("Invalidated user provider cache for user: {}", userId);
+  }
+
+  private TenantCache tenantCache(String tenantId) {
+    return tenants.computeIfAbsent(tenantId, id -> createTenantCache());
+  }
+
+  private TenantCache createTenantCache() {
+    WedgeConfigProperties.UserProviderCacheConfig config = properties.getUserProviderCache();
+    Duration ttl = Duration.ofSeconds(config.getTtlSeconds());
+    Duration negativeTtl = Duration.ofSeconds(config.getNegativeTtlSeconds());
+
+    Cache<String, User> users =
+        Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(config.getMaxSize()).build();
+    Cache<ScopeKey, Boolean> scopes =
+        Caffeine.newBuilder()
+            .expireAfter(new ScopeResultExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+            .maximumSize(config.getMaxSize())
+            .build();
+    Cache<String, ScopeGrant> scopeGrants =
+        Caffeine.newBuilder()
+            .expireAfter(new ScopeGrantExpiry())
+            .maximumSize(config.getMaxSize())
+            .build();
+    return new TenantCache(users, scopes, scopeGrants);
+  }
+
+  private record ScopeKey(String userId, String sortedScopes) {}
+
+  /** Allowed results live for the TTL, rejections for the (usually shorter) negative TTL. */
+  private record ScopeResultExpiry(long ttlNanos, long negativeTtlNanos)
+      implements Expiry<ScopeKey, Boolean> {
+
+    @Override
+    public long expireAfterCreate(ScopeKey key, Boolean allowed, long currentTime) {
+      return allowed ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        ScopeKey key, Boolean allowed, long currentTime, long currentDuration) {
+      return allowed ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterRead(
+        ScopeKey key, Boolean allowed, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+  private record ScopeGrant(
+      Set<String> evaluatedScopes, Set<String> allowedScopes, long ttlNanos) {}
+
+  /** Each scope decision lives for the TTL it was stored with. */
+  private static final class ScopeGrantExpiry implements Expiry<String, ScopeGrant> {
+
+    @Override
+    public long expireAfterCreate(String userId, ScopeGrant grant, long currentTime) {
+      return grant.ttlNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        String userId, ScopeGrant grant, long currentTime, long currentDuration) {
+      return grant.ttlNanos();
+    }
+
+    @Override
+    public long expireAfterRead(
+        String userId, ScopeGrant grant, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+
+  private record TenantCache(
+      Cache<String, User> users,
+      Cache<ScopeKey, Boolean> scopes,
+      Cache<String, ScopeGrant> scopeGrants) {}
+}
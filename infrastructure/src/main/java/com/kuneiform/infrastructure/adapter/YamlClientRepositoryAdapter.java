@@ -54,6 +54,7 @@ public class YamlClientRepositoryAdapter implements ClientRepository {
                       .requireAuthorizationConsent(clientConfig.isRequireAuthorizationConsent())
                       .requirePkce(clientConfig.isRequirePkce())
                       .tenantId(clientConfig.getTenantId())
+                      .tokenSigningAlgorithm(clientConfig.getTokenSigningAlgorithm())
                       .imageUrl(clientConfig.getImageUrl())
                       .accessUrl(clientConfig.getAccessUrl())
                       .build();
@@ -124,4 +125,9 @@ public class YamlClientRepositoryAdapter implements ClientRepository {
 
     return passwordEncoder.matches(clientSecret, client.getClientSecret());
   }
+
+  @Override
+  public List<OAuthClient> findAll() {
+    return List.copyOf(clients.values());
+  }
 }
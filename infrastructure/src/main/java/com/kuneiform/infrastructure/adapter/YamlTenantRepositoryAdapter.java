@@ -32,6 +32,10 @@ public class YamlTenantRepositoryAdapter implements TenantRepository {
                       .timeout(tenantConfig.getUserProvider().getTimeout())
                       .mfaRegistrationEndpoint(
                           tenantConfig.getUserProvider().getMfaRegistrationEndpoint())
+                      .scopesValidationEndpoint(
+                          tenantConfig.getUserProvider().getScopesValidationEndpoint())
+                      .scopesBatchValidationEndpoint(
+                          tenantConfig.getUserProvider().getScopesBatchValidationEndpoint())
                       .build();
 
               Tenant tenant =
@@ -0,0 +1,21 @@
+package com.kuneiform.infrastructure.adapter.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Response model for the batch credential validation endpoint: one result per request, in request
+ * order.
+ */
+public record CredentialBatchResponse(
+    @JsonProperty("results") List<CredentialBatchResult> results) {
+
+  /**
+   * Outcome of one credential check: the HTTP status the single-check endpoint would have returned,
+   * with the user on success or the provider error otherwise.
+   */
+  public record CredentialBatchResult(
+      @JsonProperty("status") int status,
+      @JsonProperty("user") UserResponse user,
+      @JsonProperty("error") UserProviderErrorResponse error) {}
+}
@@ -0,0 +1,7 @@
+package com.kuneiform.infrastructure.adapter.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Set;
+
+/** Response model for the batch scope validation endpoint: the allowed subset of the scopes. */
+public record ScopeDecisionResponse(@JsonProperty("allowedScopes") Set<String> allowedScopes) {}
@@ -1,5 +1,6 @@
 package com.kuneiform.infrastructure.adapter.models;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.Instant;
 import java.util.List;
@@ -23,4 +24,14 @@ public class UserProviderErrorResponse {
 
   @JsonProperty("errorDate")
   Instant errorDate;
+
+  @JsonCreator
+  public UserProviderErrorResponse(
+      @JsonProperty("errorCodes") List<String> errorCodes,
+      @JsonProperty("messages") List<String> messages,
+      @JsonProperty("errorDate") Instant errorDate) {
+    this.errorCodes = errorCodes;
+    this.messages = messages;
+    this.errorDate = errorDate;
+  }
 }
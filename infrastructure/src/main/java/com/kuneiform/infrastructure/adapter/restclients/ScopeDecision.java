@@ -0,0 +1,22 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Answer of the batch scope validation endpoint.
+ *
+ * @param allowedScopes the allowed subset of the evaluated scopes
+ * @param maxAge how long the provider lets the decision be cached, or null if it did not say
+ */
+public record ScopeDecision(Set<String> allowedScopes, Duration maxAge) {
+
+  public ScopeDecision {
+    allowedScopes = allowedScopes != null ? Set.copyOf(allowedScopes) : Set.of();
+  }
+
+  /** Whether every one of the scopes is allowed. */
+  public boolean allows(Set<String> scopes) {
+    return allowedScopes.containsAll(scopes);
+  }
+}
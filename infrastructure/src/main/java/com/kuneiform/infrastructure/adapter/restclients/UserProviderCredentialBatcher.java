@@ -0,0 +1,177 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micro-batching of credential checks for login bursts.
+ *
+ * <p>When enabled, the first credential check for a (tenant, endpoint) opens a batch; checks
+ * arriving within {@code max-wait-ms} join it. The batch is sent as one call when it reaches
+ * {@code max-batch-size} (on the thread of the check that filled it) or when the wait is over (on a
+ * background thread), and each waiting caller gets its own result back. A failure of the batch
+ * call fails every check in it.
+ *
+ * <p>Batch sizes are recorded as {@code wedge.user-provider.credential-batch.size}.
+ */
+@Slf4j
+@Component
+public class UserProviderCredentialBatcher {
+
+  static final String METRIC_NAME = "wedge.user-provider.credential-batch.size";
+
+  private final WedgeConfigProperties config;
+  private final DistributionSummary batchSizes;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService executor;
+
+  private final Map<BatchKey, Batch<?, ?>> open = new ConcurrentHashMap<>();
+
+  public UserProviderCredentialBatcher(
+      WedgeConfigProperties config, MeterRegistry meterRegistry, Environment environment) {
+    this.config = config;
+    this.batchSizes = meterRegistry.summary(METRIC_NAME);
+    this.timer =
+        Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("user-provider-batch-timer").daemon(true).factory());
+    this.executor =
+        environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+            ? Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("user-provider-batch-", 0).factory())
+            : Executors.newCachedThreadPool(
+                Thread.ofPlatform().name("user-provider-batch-", 0).daemon(true).factory());
+  }
+
+  public boolean isEnabled() {
+    return config.getUserProviderBatching().isEnabled();
+  }
+
+  /**
+   * Adds the request to the open batch of the tenant and endpoint and waits for its result.
+   *
+   * @param sender sends a batch and returns one result per request, in request order; it is taken
+   *     from the check that opens the batch
+   */
+  @SuppressWarnings("unchecked")
+  public <Q, R> R submit(
+      String tenantId, String endpoint, Q request, Function<List<Q>, List<R>> sender) {
+    WedgeConfigProperties.UserProviderBatchingConfig batching = config.getUserProviderBatching();
+    BatchKey key = new BatchKey(tenantId, endpoint);
+    CompletableFuture<R> result = new CompletableFuture<>();
+    Batch<Q, R>[] full = new Batch[1];
+
+    open.compute(
+        key,
+        (k, current) -> {
+          Batch<Q, R> batch = (Batch<Q, R>) current;
+          if (batch == null) {
+            batch = new Batch<>(sender);
+            Batch<Q, R> scheduled = batch;
+            batch.timeout =
+                timer.schedule(
+                    () -> flush(key, scheduled), batching.getMaxWaitMs(), TimeUnit.MILLISECONDS);
+          }
+          batch.requests.add(request);
+          batch.results.add(result);
+          if (batch.requests.size() >= batching.getMaxBatchSize()) {
+            full[0] = batch;
+            return null;
+          }
+          return batch;
+        });
+
+    if (full[0] != null) {
+      send(full[0]);
+    }
+    return join(result);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timer.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  /** Closes the batch once its wait is over, unless it was already sent because it was full. */
+  private void flush(BatchKey key, Batch<?, ?> batch) {
+    if (open.remove(key, batch)) {
+      executor.execute(() -> send(batch));
+    }
+  }
+
+  private <Q, R> void send(Batch<Q, R> batch) {
+    if (!batch.sent.compareAndSet(false, true)) {
+      return;
+    }
+    batch.timeout.cancel(false);
+    batchSizes.record(batch.requests.size());
+    log.debug("Sending batch of {} credential checks", batch.requests.size());
+
+    try {
+      List<R> results = batch.sender.apply(batch.requests);
+      if (results == null || results.size() != batch.requests.size()) {
+        throw UserProviderResponseReader.serviceDown(
+            new IllegalStateException(
+                "User provider answered a batch of "
+                    + batch.requests.size()
+                    + " credential checks with "
+                    + (results == null ? 0 : results.size())
+                    + " results"));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        batch.results.get(i).complete(results.get(i));
+      }
+    } catch (Throwable t) {
+      batch.results.forEach(result -> result.completeExceptionally(t));
+    }
+  }
+
+  /** Rethrows the batch exception as is, so callers see the same error type as unbatched calls. */
+  private static <R> R join(CompletableFuture<R> result) {
+    try {
+      return result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+
+  private record BatchKey(String tenantId, String endpoint) {}
+
+  /** Requests and results are only touched inside {@code open.compute} until the batch is sent. */
+  private static final class Batch<Q, R> {
+
+    private final Function<List<Q>, List<R>> sender;
+    private final List<Q> requests = new ArrayList<>();
+    private final List<CompletableFuture<R>> results = new ArrayList<>();
+    private final AtomicBoolean sent = new AtomicBoolean();
+    private volatile ScheduledFuture<?> timeout;
+
+    private Batch(Function<List<Q>, List<R>> sender) {
+      this.sender = sender;
+    }
+  }
+}
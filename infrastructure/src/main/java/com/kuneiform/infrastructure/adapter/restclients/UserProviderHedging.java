@@ -0,0 +1,309 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import com.kuneiform.domain.exception.UserProviderClientException;
+import com.kuneiform.domain.exception.UserProviderException;
+import com.kuneiform.infrastructure.config.CircuitBreakerProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hedged requests and adaptive timeouts for idempotent user provider calls.
+ *
+ * <p>Each tenant keeps a rolling latency histogram of its user provider calls (see {@link
+ * UserProviderLatencyHistogram}). Once it has enough samples:
+ *
+ * <ul>
+ *   <li>Hedging: if the call has not answered by the observed {@code hedging.percentile} latency,
+ *       a second identical request is sent and whichever answers first wins. The hedge needs its
+ *       own slot in the tenant's bulkhead and is skipped when the bulkhead is full. The losing
+ *       request is left to finish within the tenant's read timeout, so its latency still counts.
+ *       The caller's slot is released when the call returns, possibly while the loser is still
+ *       running, so the hedge's slot is only released once both requests have finished.
+ *   <li>Adaptive timeout: the call fails after {@code adaptive-timeout.percentile} latency times
+ *       {@code multiplier} (at least {@code min-timeout-ms}) instead of waiting for the tenant's
+ *       fixed read timeout. Timed-out requests are cancelled.
+ * </ul>
+ *
+ * <p>With both disabled, or before enough samples were recorded, the call runs directly on the
+ * caller's thread. Counted as {@code wedge.user-provider.hedging.requests} (tag {@code
+ * result=sent|won|skipped}) and {@code wedge.user-provider.adaptive-timeout.timeouts}.
+ */
+@Slf4j
+@Component
+public class UserProviderHedging {
+
+  static final String HEDGING_METRIC = "wedge.user-provider.hedging.requests";
+  static final String TIMEOUT_METRIC = "wedge.user-provider.adaptive-timeout.timeouts";
+
+  private final CircuitBreakerProperties properties;
+  private final UserProviderResilience resilience;
+  private final MeterRegistry meterRegistry;
+  private final ExecutorService executor;
+
+  private final Map<String, UserProviderLatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  public UserProviderHedging(
+      CircuitBreakerProperties properties,
+      UserProviderResilience resilience,
+      MeterRegistry meterRegistry,
+      Environment environment) {
+    this.properties = properties;
+    this.resilience = resilience;
+    this.meterRegistry = meterRegistry;
+    this.executor =
+        environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)
+            ? Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("user-provider-hedge-", 0).factory())
+            : Executors.newCachedThreadPool(
+                Thread.ofPlatform().name("user-provider-hedge-", 0).daemon(true).factory());
+  }
+
+  /** Runs an idempotent user provider call for the tenant, hedged and timed out as configured. */
+  public <T> T execute(String tenantId, Supplier<T> call) {
+    UserProviderLatencyHistogram histogram =
+        histograms.computeIfAbsent(
+            tenantId, id -> new UserProviderLatencyHistogram(properties.getLatencyWindowMs()));
+
+    long hedgeDelayMs = hedgeDelayMs(histogram);
+    long timeoutMs = adaptiveTimeoutMs(histogram);
+    if (hedgeDelayMs < 0 && timeoutMs < 0) {
+      return timed(histogram, call);
+    }
+    return race(tenantId, histogram, call, hedgeDelayMs, timeoutMs);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /** Returns the delay before a hedge is sent, or -1 when calls are not hedged. */
+  private long hedgeDelayMs(UserProviderLatencyHistogram histogram) {
+    CircuitBreakerProperties.HedgingProperties hedging = properties.getHedging();
+    if (!hedging.isEnabled()) {
+      return -1;
+    }
+    OptionalLong percentile =
+        histogram.percentileMs(hedging.getPercentile(), hedging.getMinSamples());
+    return percentile.isPresent() ? Math.max(hedging.getMinDelayMs(), percentile.getAsLong()) : -1;
+  }
+
+  /** Returns the adaptive timeout, or -1 when the tenant's read timeout applies. */
+  private long adaptiveTimeoutMs(UserProviderLatencyHistogram histogram) {
+    CircuitBreakerProperties.AdaptiveTimeoutProperties timeout = properties.getAdaptiveTimeout();
+    if (!timeout.isEnabled()) {
+      return -1;
+    }
+    OptionalLong percentile =
+        histogram.percentileMs(timeout.getPercentile(), timeout.getMinSamples());
+    return percentile.isPresent()
+        ? Math.max(
+            timeout.getMinTimeoutMs(), (long) (percentile.getAsLong() * timeout.getMultiplier()))
+        : -1;
+  }
+
+  private <T> T race(
+      String tenantId,
+      UserProviderLatencyHistogram histogram,
+      Supplier<T> call,
+      long hedgeDelayMs,
+      long timeoutMs) {
+    long deadline = timeoutMs < 0 ? Long.MAX_VALUE : nanosFromNow(timeoutMs);
+    ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+    List<Future<T>> attempts = new ArrayList<>(2);
+    HedgePermit hedgePermit = new HedgePermit();
+    attempts.add(completion.submit(() -> hedgePermit.run(() -> timed(histogram, call))));
+    boolean cancelAttempts = false;
+
+    try {
+      if (hedgeDelayMs >= 0) {
+        Future<T> first = poll(completion, Math.min(deadline, nanosFromNow(hedgeDelayMs)));
+        if (first != null) {
+          // Errors are not tail latency: a fast failure is returned without hedging
+          return result(first);
+        }
+        if (System.nanoTime() < deadline) {
+          sendHedge(tenantId, histogram, call, completion, attempts, hedgePermit);
+        }
+      }
+
+      RuntimeException failure = null;
+      for (int pending = attempts.size(); pending > 0; pending--) {
+        Future<T> done = poll(completion, deadline);
+        if (done == null) {
+          break;
+        }
+        try {
+          T result = result(done);
+          if (done != attempts.get(0)) {
+            meterRegistry.counter(HEDGING_METRIC, "result", "won").increment();
+          }
+          return result;
+        } catch (RuntimeException e) {
+          failure = failure != null ? failure : e;
+        }
+      }
+      if (failure != null && attempts.stream().allMatch(Future::isDone)) {
+        throw failure;
+      }
+
+      cancelAttempts = true;
+      meterRegistry.counter(TIMEOUT_METRIC).increment();
+      log.warn("User provider call for tenant {} timed out after {}ms", tenantId, timeoutMs);
+      throw new UserProviderException(
+          List.of("error.code.user-provider.timeout"),
+          List.of("User provider did not respond within " + timeoutMs + "ms"),
+          Instant.now());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancelAttempts = true;
+      throw new UserProviderException(
+          List.of("error.code.user-provider.service-down"),
+          List.of("Interrupted waiting for the user provider"),
+          Instant.now(),
+          e);
+    } finally {
+      if (cancelAttempts) {
+        attempts.forEach(attempt -> attempt.cancel(true));
+        hedgePermit.cancel();
+      }
+    }
+  }
+
+  private <T> void sendHedge(
+      String tenantId,
+      UserProviderLatencyHistogram histogram,
+      Supplier<T> call,
+      ExecutorCompletionService<T> completion,
+      List<Future<T>> attempts,
+      HedgePermit hedgePermit) {
+    Bulkhead bulkhead = resilience.bulkhead(tenantId);
+    if (bulkhead != null && !bulkhead.tryAcquirePermission()) {
+      meterRegistry.counter(HEDGING_METRIC, "result", "skipped").increment();
+      log.debug("Bulkhead full, not hedging user provider call for tenant {}", tenantId);
+      return;
+    }
+
+    meterRegistry.counter(HEDGING_METRIC, "result", "sent").increment();
+    hedgePermit.acquired(bulkhead);
+    attempts.add(completion.submit(() -> hedgePermit.run(() -> timed(histogram, call))));
+  }
+
+  /** Runs the call and records its latency when the provider answered (2xx or 4xx). */
+  private static <T> T timed(UserProviderLatencyHistogram histogram, Supplier<T> call) {
+    long start = System.nanoTime();
+    try {
+      T result = call.get();
+      histogram.record(System.nanoTime() - start);
+      return result;
+    } catch (UserProviderClientException e) {
+      histogram.record(System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  private static <T> Future<T> poll(ExecutorCompletionService<T> completion, long deadline)
+      throws InterruptedException {
+    if (deadline == Long.MAX_VALUE) {
+      return completion.take();
+    }
+    return completion.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+  }
+
+  private static <T> T result(Future<T> done) throws InterruptedException {
+    try {
+      return done.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static long nanosFromNow(long millis) {
+    return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  /**
+   * Bulkhead slot taken by a hedge, released when the last attempt of the call finishes, whichever
+   * attempt won. Attempts cancelled before they started never run and are not waited for.
+   */
+  private static final class HedgePermit {
+
+    private int pending = 1; // submitted attempts that have not finished
+    private int running;
+    private boolean cancelled;
+    private Bulkhead bulkhead;
+
+    /** Counts the hedge before it is submitted, so the first attempt cannot release its slot. */
+    synchronized void acquired(Bulkhead bulkhead) {
+      pending++;
+      this.bulkhead = bulkhead;
+    }
+
+    <T> T run(Supplier<T> attempt) {
+      if (!started()) {
+        throw new CancellationException();
+      }
+      try {
+        return attempt.get();
+      } finally {
+        release(finished());
+      }
+    }
+
+    /** Called once the attempts were cancelled: those that have not started are not waited for. */
+    void cancel() {
+      Bulkhead permit;
+      synchronized (this) {
+        cancelled = true;
+        boolean wasPending = pending > 0;
+        pending = running;
+        permit = wasPending && pending == 0 ? bulkhead : null;
+      }
+      release(permit);
+    }
+
+    private synchronized boolean started() {
+      if (cancelled) {
+        return false;
+      }
+      running++;
+      return true;
+    }
+
+    /** Returns the slot to release when the last attempt finished, otherwise null. */
+    private synchronized Bulkhead finished() {
+      running--;
+      return --pending == 0 ? bulkhead : null;
+    }
+
+    private static void release(Bulkhead permit) {
+      if (permit != null) {
+        permit.onComplete();
+      }
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import com.kuneiform.domain.model.Tenant;
+import com.kuneiform.domain.port.TenantRepository;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Per-tenant HTTP clients for user provider calls.
+ *
+ * <p>Each tenant gets its own JDK {@link HttpClient}, built lazily on first use:
+ *
+ * <ul>
+ *   <li>The read timeout is the tenant's {@code user-provider.timeout}; the connect timeout is the
+ *       same, capped at {@code wedge.user-provider-http.connect-timeout-ms}. Login latency during a
+ *       provider slowdown is bounded per tenant instead of by a global 5s.
+ *   <li>HTTP/2 is preferred (ALPN over TLS, upgrade over cleartext) so concurrent calls multiplex
+ *       over one connection; providers that only speak HTTP/1.1 are used as such.
+ *   <li>At most {@code max-connections} requests are in flight per tenant, which bounds the
+ *       connections the JDK client opens for HTTP/1.1 providers. A request that cannot get a slot
+ *       within the connect timeout fails instead of queueing behind a stuck provider.
+ *   <li>The client runs on its own executor: virtual threads when {@code
+ *       spring.threads.virtual.enabled} is set, a named cached pool otherwise.
+ * </ul>
+ *
+ * <p>A changed tenant timeout (e.g. database tenants) replaces the client; the old one finishes its
+ * in-flight requests and shuts down.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProviderHttpClients {
+
+  private static final int DEFAULT_TIMEOUT_MS = 5000;
+
+  private final TenantRepository tenantRepository;
+  private final WedgeConfigProperties config;
+  private final Environment environment;
+
+  private final Map<String, TenantHttpClient> clients = new ConcurrentHashMap<>();
+
+  /** Returns the REST client for the tenant's user provider. */
+  public RestClient forTenant(String tenantId) {
+    Objects.requireNonNull(tenantId, "tenantId must not be null");
+    int timeoutMs = resolveTimeoutMs(tenantId);
+
+    TenantHttpClient current = clients.get(tenantId);
+    if (current != null && current.timeoutMs() == timeoutMs) {
+      return current.restClient();
+    }
+
+    return clients
+        .compute(
+            tenantId,
+            (id, existing) -> {
+              if (existing != null && existing.timeoutMs() == timeoutMs) {
+                return existing;
+              }
+              if (existing != null) {
+                log.info(
+                    "User provider timeout changed for tenant {}: {}ms -> {}ms",
+                    id,
+                    existing.timeoutMs(),
+                    timeoutMs);
+                existing.shutdown();
+              }
+              return create(id, timeoutMs);
+            })
+        .restClient();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    clients.values().forEach(TenantHttpClient::shutdown);
+    clients.clear();
+  }
+
+  private int resolveTimeoutMs(String tenantId) {
+    return tenantRepository
+        .findById(tenantId)
+        .map(Tenant::getUserProvider)
+        .map(provider -> provider.getTimeout())
+        .filter(timeout -> timeout > 0)
+        .orElse(DEFAULT_TIMEOUT_MS);
+  }
+
+  private TenantHttpClient create(String tenantId, int timeoutMs) {
+    WedgeConfigProperties.UserProviderHttpConfig httpConfig = config.getUserProviderHttp();
+    Duration timeout = Duration.ofMillis(timeoutMs);
+    Duration connectTimeout =
+        Duration.ofMillis(Math.min(timeoutMs, httpConfig.getConnectTimeoutMs()));
+
+    ExecutorService executor = newExecutor(tenantId);
+    HttpClient httpClient =
+        HttpClient.newBuilder()
+            .version(httpConfig.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(connectTimeout)
+            .executor(executor)
+            .build();
+
+    JdkClientHttpRequestFactory requestFactory =
+        new JdkClientHttpRequestFactory(httpClient, executor);
+    requestFactory.setReadTimeout(timeout);
+
+    RestClient restClient =
+        RestClient.builder()
+            .requestFactory(requestFactory)
+            .requestInterceptor(
+                new ConnectionLimitInterceptor(
+                    tenantId, new Semaphore(httpConfig.getMaxConnections()), connectTimeout))
+            .build();
+
+    log.info(
+        "Created user provider HTTP client for tenant {}: timeout={}ms, connectTimeout={}ms,"
+            + " http2={}, maxConnections={}",
+        tenantId,
+        timeoutMs,
+        connectTimeout.toMillis(),
+        httpConfig.isHttp2(),
+        httpConfig.getMaxConnections());
+
+    return new TenantHttpClient(timeoutMs, httpClient, executor, restClient);
+  }
+
+  private ExecutorService newExecutor(String tenantId) {
+    String threadPrefix = "user-provider-" + tenantId + "-";
+    if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+      return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+    }
+    return Executors.newCachedThreadPool(
+        Thread.ofPlatform().name(threadPrefix, 0).daemon(true).factory());
+  }
+
+  private record TenantHttpClient(
+      int timeoutMs, HttpClient httpClient, ExecutorService executor, RestClient restClient) {
+
+    /** Lets in-flight requests complete, then releases connections and threads. */
+    void shutdown() {
+      httpClient.shutdown();
+      executor.shutdown();
+    }
+  }
+
+  /** Caps in-flight requests per tenant; the slot is held until the response is closed. */
+  private record ConnectionLimitInterceptor(
+      String tenantId, Semaphore permits, Duration acquireTimeout)
+      implements ClientHttpRequestInterceptor {
+
+    @Override
+    public ClientHttpResponse intercept(
+        HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+        throws IOException {
+      try {
+        if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+          throw new IOException(
+              "User provider connection limit reached for tenant " + tenantId);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for a user provider connection");
+      }
+
+      try {
+        return new PermitReleasingResponse(execution.execute(request, body), permits);
+      } catch (IOException | RuntimeException e) {
+        permits.release();
+        throw e;
+      }
+    }
+  }
+
+  private static final class PermitReleasingResponse implements ClientHttpResponse {
+
+    private final ClientHttpResponse delegate;
+    private final Semaphore permits;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private PermitReleasingResponse(ClientHttpResponse delegate, Semaphore permits) {
+      this.delegate = delegate;
+      this.permits = permits;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return delegate.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      return delegate.getBody();
+    }
+
+    @Override
+    public void close() {
+      try {
+        delegate.close();
+      } finally {
+        if (released.compareAndSet(false, true)) {
+          permits.release();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolling latency histogram of one tenant's user provider calls.
+ *
+ * <p>Latencies are counted in fixed buckets (about 25% apart, 1ms to 60s), so recording is a
+ * single atomic increment and a percentile is a walk over a few dozen counters. Samples are kept in
+ * two half-windows: when the current half is older than {@code windowMs / 2} it becomes the
+ * previous one and the oldest half is dropped, so percentiles cover the last {@code windowMs / 2}
+ * to {@code windowMs}.
+ */
+final class UserProviderLatencyHistogram {
+
+  /** Bucket upper bounds in milliseconds; the last bucket catches everything above. */
+  private static final long[] BOUNDS_MS = {
+    1, 2, 3, 4, 5, 6, 8, 10, 12, 15, 20, 25, 30, 40, 50, 60, 80, 100, 120, 150, 200, 250, 300, 400,
+    500, 600, 800, 1000, 1200, 1500, 2000, 2500, 3000, 4000, 5000, 6000, 8000, 10000, 15000, 20000,
+    30000, 60000
+  };
+
+  private final long halfWindowNanos;
+  private final LongSupplier nanoClock;
+
+  private volatile Window current;
+  private volatile Window previous;
+
+  UserProviderLatencyHistogram(long windowMs) {
+    this(windowMs, System::nanoTime);
+  }
+
+  UserProviderLatencyHistogram(long windowMs, LongSupplier nanoClock) {
+    this.halfWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(2, windowMs)) / 2;
+    this.nanoClock = nanoClock;
+    this.current = new Window(nanoClock.getAsLong());
+    this.previous = new Window(nanoClock.getAsLong());
+  }
+
+  void record(long latencyNanos) {
+    rotateIfNeeded().counts.incrementAndGet(bucketOf(latencyNanos));
+  }
+
+  /**
+   * Returns the latency (bucket upper bound, in ms) below which {@code percentile}% of the recent
+   * calls completed, or empty when fewer than {@code minSamples} calls were recorded.
+   */
+  OptionalLong percentileMs(double percentile, int minSamples) {
+    Window newest = rotateIfNeeded();
+    Window oldest = previous;
+
+    long[] counts = new long[BOUNDS_MS.length + 1];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = newest.counts.get(i) + oldest.counts.get(i);
+      total += counts[i];
+    }
+    if (total == 0 || total < minSamples) {
+      return OptionalLong.empty();
+    }
+
+    long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+    long seen = 0;
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return OptionalLong.of(BOUNDS_MS[i]);
+      }
+    }
+    return OptionalLong.of(BOUNDS_MS[BOUNDS_MS.length - 1]);
+  }
+
+  private Window rotateIfNeeded() {
+    Window window = current;
+    long now = nanoClock.getAsLong();
+    if (now - window.startNanos < halfWindowNanos) {
+      return window;
+    }
+
+    synchronized (this) {
+      window = current;
+      if (now - window.startNanos >= halfWindowNanos) {
+        // A whole window without calls drops both halves
+        previous = now - window.startNanos >= 2 * halfWindowNanos ? new Window(now) : window;
+        current = new Window(now);
+      }
+      return current;
+    }
+  }
+
+  private static int bucketOf(long latencyNanos) {
+    long latencyMs = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+    for (int i = 0; i < BOUNDS_MS.length; i++) {
+      if (latencyMs < BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+    return BOUNDS_MS.length;
+  }
+
+  private static final class Window {
+
+    private final long startNanos;
+    private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MS.length + 1);
+
+    private Window(long startNanos) {
+      this.startNanos = startNanos;
+    }
+  }
+}
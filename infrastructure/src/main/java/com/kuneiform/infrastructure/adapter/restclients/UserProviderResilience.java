@@ -0,0 +1,174 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import com.kuneiform.domain.exception.UserProviderClientException;
+import com.kuneiform.infrastructure.config.CircuitBreakerProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker, bulkhead and rate limiter per tenant for user provider calls.
+ *
+ * <p>A single shared breaker let one tenant's failing provider open the circuit for every tenant.
+ * Each tenant now gets its own {@code userProvider-<tenantId>} instances, created on first use from
+ * the {@code wedge.circuit-breaker.user-provider} defaults merged with that tenant's overrides.
+ *
+ * <p>Calls pass the rate limiter first, then the semaphore bulkhead, then the circuit breaker, so
+ * calls rejected locally for overload are not recorded as provider failures.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProviderResilience {
+
+  static final String NAME_PREFIX = "userProvider-";
+
+  private static final CircuitBreakerProperties.TenantOverrides NO_OVERRIDES =
+      new CircuitBreakerProperties.TenantOverrides();
+
+  private final CircuitBreakerProperties properties;
+  private final CircuitBreakerRegistry circuitBreakerRegistry;
+  private final BulkheadRegistry bulkheadRegistry;
+  private final RateLimiterRegistry rateLimiterRegistry;
+
+  private final Map<String, TenantGuards> guards = new ConcurrentHashMap<>();
+
+  /**
+   * Runs a user provider call for the tenant. If the tenant's rate limiter, bulkhead or open
+   * circuit breaker rejects it, {@code onRejected} supplies the result instead. Exceptions thrown
+   * by the call itself propagate unchanged.
+   */
+  public <T> T call(String tenantId, Supplier<T> call, Function<RuntimeException, T> onRejected) {
+    Objects.requireNonNull(tenantId, "tenantId must not be null");
+    try {
+      return guards.computeIfAbsent(tenantId, this::createGuards).decorate(call).get();
+    } catch (CallNotPermittedException | BulkheadFullException | RequestNotPermitted e) {
+      log.debug("User provider call for tenant {} rejected: {}", tenantId, e.getMessage());
+      return onRejected.apply(e);
+    }
+  }
+
+  /** Returns the tenant's circuit breaker, or null when circuit breaking is disabled. */
+  CircuitBreaker circuitBreaker(String tenantId) {
+    return guards.computeIfAbsent(tenantId, this::createGuards).circuitBreaker();
+  }
+
+  /** Returns the tenant's bulkhead, or null when the bulkhead is disabled. */
+  Bulkhead bulkhead(String tenantId) {
+    return guards.computeIfAbsent(tenantId, this::createGuards).bulkhead();
+  }
+
+  private TenantGuards createGuards(String tenantId) {
+    String name = NAME_PREFIX + tenantId;
+    CircuitBreakerProperties.TenantOverrides overrides =
+        properties.getTenants().getOrDefault(tenantId, NO_OVERRIDES);
+
+    CircuitBreaker circuitBreaker =
+        properties.isEnabled()
+            ? circuitBreakerRegistry.circuitBreaker(name, () -> circuitBreakerConfig(overrides))
+            : null;
+    Bulkhead bulkhead =
+        properties.getBulkhead().isEnabled()
+            ? bulkheadRegistry.bulkhead(name, () -> bulkheadConfig(overrides))
+            : null;
+    RateLimiter rateLimiter =
+        properties.getRateLimiter().isEnabled()
+            ? rateLimiterRegistry.rateLimiter(name, () -> rateLimiterConfig(overrides))
+            : null;
+
+    log.info(
+        "Created user provider resilience for tenant {}: circuitBreaker={}, bulkhead={},"
+            + " rateLimiter={}",
+        tenantId,
+        circuitBreaker != null,
+        bulkhead != null,
+        rateLimiter != null);
+    return new TenantGuards(circuitBreaker, bulkhead, rateLimiter);
+  }
+
+  private CircuitBreakerConfig circuitBreakerConfig(
+      CircuitBreakerProperties.TenantOverrides overrides) {
+    return CircuitBreakerConfig.custom()
+        .failureRateThreshold(
+            valueOr(overrides.getFailureRateThreshold(), properties.getFailureRateThreshold()))
+        .waitDurationInOpenState(
+            Duration.ofMillis(
+                valueOr(
+                    overrides.getWaitDurationInOpenStateMs(),
+                    properties.getWaitDurationInOpenStateMs())))
+        .slidingWindowSize((int) properties.getSlidingWindowSize())
+        .minimumNumberOfCalls(
+            valueOr(overrides.getMinimumNumberOfCalls(), properties.getMinimumNumberOfCalls()))
+        .permittedNumberOfCallsInHalfOpenState(
+            properties.getPermittedNumberOfCallsInHalfOpenState())
+        .automaticTransitionFromOpenToHalfOpenEnabled(
+            properties.isAutomaticTransitionFromOpenToHalfOpenEnabled())
+        .slidingWindowType(convertWindowType(properties.getSlidingWindowType()))
+        .ignoreExceptions(UserProviderClientException.class)
+        .build();
+  }
+
+  private BulkheadConfig bulkheadConfig(CircuitBreakerProperties.TenantOverrides overrides) {
+    CircuitBreakerProperties.BulkheadProperties bulkhead = properties.getBulkhead();
+    return BulkheadConfig.custom()
+        .maxConcurrentCalls(
+            valueOr(overrides.getMaxConcurrentCalls(), bulkhead.getMaxConcurrentCalls()))
+        .maxWaitDuration(Duration.ofMillis(bulkhead.getMaxWaitDurationMs()))
+        .build();
+  }
+
+  private RateLimiterConfig rateLimiterConfig(CircuitBreakerProperties.TenantOverrides overrides) {
+    CircuitBreakerProperties.RateLimiterProperties rateLimiter = properties.getRateLimiter();
+    return RateLimiterConfig.custom()
+        .limitForPeriod(valueOr(overrides.getLimitForPeriod(), rateLimiter.getLimitForPeriod()))
+        .limitRefreshPeriod(Duration.ofMillis(rateLimiter.getLimitRefreshPeriodMs()))
+        .timeoutDuration(Duration.ofMillis(rateLimiter.getTimeoutMs()))
+        .build();
+  }
+
+  private static CircuitBreakerConfig.SlidingWindowType convertWindowType(String windowType) {
+    return "time_based".equalsIgnoreCase(windowType)
+        ? CircuitBreakerConfig.SlidingWindowType.TIME_BASED
+        : CircuitBreakerConfig.SlidingWindowType.COUNT_BASED;
+  }
+
+  private static <V> V valueOr(V override, V defaultValue) {
+    return override != null ? override : defaultValue;
+  }
+
+  private record TenantGuards(
+      CircuitBreaker circuitBreaker, Bulkhead bulkhead, RateLimiter rateLimiter) {
+
+    <T> Supplier<T> decorate(Supplier<T> call) {
+      Supplier<T> decorated = call;
+      if (circuitBreaker != null) {
+        decorated = CircuitBreaker.decorateSupplier(circuitBreaker, decorated);
+      }
+      if (bulkhead != null) {
+        decorated = Bulkhead.decorateSupplier(bulkhead, decorated);
+      }
+      if (rateLimiter != null) {
+        decorated = RateLimiter.decorateSupplier(rateLimiter, decorated);
+      }
+      return decorated;
+    }
+  }
+}
@@ -0,0 +1,244 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import com.kuneiform.domain.exception.UserProviderClientException;
+import com.kuneiform.domain.exception.UserProviderException;
+import com.kuneiform.infrastructure.adapter.models.CredentialBatchResponse;
+import com.kuneiform.infrastructure.adapter.models.CredentialBatchResponse.CredentialBatchResult;
+import com.kuneiform.infrastructure.adapter.models.ScopeDecisionResponse;
+import com.kuneiform.infrastructure.adapter.models.UserProviderErrorResponse;
+import com.kuneiform.infrastructure.adapter.models.UserResponse;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+/**
+ * Decodes user provider responses straight from the response stream.
+ *
+ * <p>Bodies are read with {@link ObjectReader}s built once per type, without going through the
+ * message converters or an intermediate {@code String}, and at most {@code
+ * wedge.user-provider-http.max-response-bytes} are read: a larger {@code Content-Length} is
+ * rejected up front and a longer stream fails once it crosses the limit. An oversized or
+ * unreadable success body fails the call like any other I/O error.
+ */
+@Slf4j
+@Component
+public class UserProviderResponseReader {
+
+  private final ObjectReader userReader;
+  private final ObjectReader errorReader;
+  private final ObjectReader scopeDecisionReader;
+  private final ObjectReader credentialBatchReader;
+  private final WedgeConfigProperties config;
+
+  public UserProviderResponseReader(ObjectMapper objectMapper, WedgeConfigProperties config) {
+    this.userReader = objectMapper.readerFor(UserResponse.class);
+    this.errorReader = objectMapper.readerFor(UserProviderErrorResponse.class);
+    this.scopeDecisionReader = objectMapper.readerFor(ScopeDecisionResponse.class);
+    this.credentialBatchReader = objectMapper.readerFor(CredentialBatchResponse.class);
+    this.config = config;
+  }
+
+  /** Decodes a successful user response; an empty body or JSON {@code null} is empty. */
+  public Optional<UserResponse> readUser(ClientHttpResponse response) throws IOException {
+    try (InputStream body = body(response)) {
+      if (body == null) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(userReader.readValue(body));
+    } catch (JacksonException e) {
+      throw new IOException("Invalid user response from User Provider API", e);
+    }
+  }
+
+  /**
+   * Decodes a successful batch scope validation response together with its {@code Cache-Control}
+   * max-age. An empty body allows no scope.
+   */
+  public ScopeDecision readScopeDecision(ClientHttpResponse response) throws IOException {
+    Duration maxAge = maxAge(response.getHeaders());
+    try (InputStream body = body(response)) {
+      ScopeDecisionResponse decision = body != null ? scopeDecisionReader.readValue(body) : null;
+      return new ScopeDecision(decision != null ? decision.allowedScopes() : Set.of(), maxAge);
+    } catch (JacksonException e) {
+      throw new IOException("Invalid scope decision response from User Provider API", e);
+    }
+  }
+
+  /** Decodes a successful batch credential validation response; an empty body has no results. */
+  public List<CredentialBatchResult> readCredentialBatch(ClientHttpResponse response)
+      throws IOException {
+    try (InputStream body = body(response)) {
+      CredentialBatchResponse batch = body != null ? credentialBatchReader.readValue(body) : null;
+      return batch != null && batch.results() != null ? batch.results() : List.of();
+    } catch (JacksonException e) {
+      throw new IOException("Invalid credential batch response from User Provider API", e);
+    }
+  }
+
+  /**
+   * Maps one batched credential check to what the single-check call would have returned or thrown:
+   * the user on 2xx, otherwise the provider error as in {@link #readError}.
+   */
+  public Optional<UserResponse> readCredentialResult(CredentialBatchResult result) {
+    if (result.status() >= 200 && result.status() < 300) {
+      return Optional.ofNullable(result.user());
+    }
+
+    UserProviderErrorResponse error = result.error();
+    if (error != null && result.status() >= 400 && result.status() < 500) {
+      throw new UserProviderClientException(
+          error.getErrorCodes(), error.getMessages(), error.getErrorDate());
+    }
+    throw serviceDown(
+        new IllegalStateException(
+            "User provider returned HTTP " + result.status() + " for a batched check"));
+  }
+
+  /**
+   * Returns the {@code Cache-Control} max-age, zero for {@code no-store} or {@code no-cache}, or
+   * null when the header does not say.
+   */
+  static Duration maxAge(HttpHeaders headers) {
+    String cacheControl = headers.getCacheControl();
+    if (cacheControl == null) {
+      return null;
+    }
+
+    Duration maxAge = null;
+    for (String directive : cacheControl.split(",")) {
+      String value = directive.trim().toLowerCase(Locale.ROOT);
+      if (value.equals("no-store") || value.equals("no-cache")) {
+        return Duration.ZERO;
+      }
+      if (value.startsWith("max-age=")) {
+        try {
+          maxAge = Duration.ofSeconds(Math.max(0, Long.parseLong(value.substring(8).trim())));
+        } catch (NumberFormatException e) {
+          log.debug("Ignoring invalid Cache-Control max-age from User Provider API: {}", value);
+        }
+      }
+    }
+    return maxAge;
+  }
+
+  /**
+   * Decodes an error response into the exception to throw. A 4xx body in the provider error format
+   * becomes a {@link UserProviderClientException}; any other error, including every 5xx, is a
+   * generic service-down error. The HTTP error is chained as the cause.
+   */
+  public UserProviderException readError(ClientHttpResponse response) throws IOException {
+    HttpStatusCode status = response.getStatusCode();
+    if (!status.is4xxClientError()) {
+      return serviceDown(
+          HttpServerErrorException.create(
+              status, response.getStatusText(), response.getHeaders(), null, null));
+    }
+
+    HttpClientErrorException cause =
+        HttpClientErrorException.create(
+            status, response.getStatusText(), response.getHeaders(), null, null);
+    try (InputStream body = body(response)) {
+      UserProviderErrorResponse error = body != null ? errorReader.readValue(body) : null;
+      if (error != null) {
+        return new UserProviderClientException(
+            error.getErrorCodes(), error.getMessages(), error.getErrorDate(), cause);
+      }
+    } catch (JacksonException | IOException e) {
+      log.warn("Failed to parse error response from User Provider API", e);
+    }
+    return serviceDown(cause);
+  }
+
+  static UserProviderException serviceDown(Throwable cause) {
+    return new UserProviderException(
+        List.of("error.code.user-provider.service-down"),
+        List.of("User provider service is temporarily unavailable"),
+        Instant.now(),
+        cause);
+  }
+
+  /** Returns the size-limited body, or null when the response has none. */
+  private InputStream body(ClientHttpResponse response) throws IOException {
+    long maxBytes = config.getUserProviderHttp().getMaxResponseBytes();
+    long contentLength = response.getHeaders().getContentLength();
+    if (contentLength > maxBytes) {
+      throw new IOException(
+          "User provider response of " + contentLength + " bytes exceeds limit of " + maxBytes);
+    }
+    if (contentLength == 0) {
+      return null;
+    }
+
+    PushbackInputStream body =
+        new PushbackInputStream(new LimitedInputStream(response.getBody(), maxBytes));
+    int first = body.read();
+    if (first == -1) {
+      return null;
+    }
+    body.unread(first);
+    return body;
+  }
+
+  /** Fails the read once more than {@code maxBytes} were read. */
+  private static final class LimitedInputStream extends FilterInputStream {
+
+    private final long maxBytes;
+    private long remaining;
+
+    private LimitedInputStream(InputStream in, long maxBytes) {
+      super(in);
+      this.maxBytes = maxBytes;
+      this.remaining = maxBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) {
+        consumed(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int read = super.read(buffer, offset, length);
+      if (read > 0) {
+        consumed(read);
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      consumed(skipped);
+      return skipped;
+    }
+
+    private void consumed(long bytes) throws IOException {
+      remaining -= bytes;
+      if (remaining < 0) {
+        throw new IOException("User provider response exceeds limit of " + maxBytes + " bytes");
+      }
+    }
+  }
+}
@@ -1,12 +1,11 @@
 package com.kuneiform.infrastructure.adapter.restclients;
 
-import com.kuneiform.domain.exception.UserProviderClientException;
 import com.kuneiform.domain.exception.UserProviderException;
-import com.kuneiform.infrastructure.adapter.models.UserProviderErrorResponse;
+import com.kuneiform.infrastructure.adapter.models.CredentialBatchResponse.CredentialBatchResult;
 import com.kuneiform.infrastructure.adapter.models.UserResponse;
 import com.kuneiform.infrastructure.config.UserProviderApiKeyProperties;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -15,11 +14,9 @@ import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
-import tools.jackson.databind.ObjectMapper;
 
 /**
  * REST client for communicating with the external user provider API.
@@ -27,40 +24,136 @@ import tools.jackson.databind.ObjectMapper;
  * <p>Uses circuit breaker pattern to prevent cascading failures when the user provider service
  * becomes unavailable, as authentication failures should not bring down the entire authorization
  * server.
+ *
+ * <p>Every call takes the tenant ID so it runs on that tenant's HTTP client (see {@link
+ * UserProviderHttpClients}) with the tenant's user provider timeout, and behind that tenant's
+ * circuit breaker, bulkhead and rate limiter (see {@link UserProviderResilience}).
+ *
+ * <p>Concurrent identical lookups ({@code findByUsername}, {@code validateScopes}, {@code
+ * decideScopes}) share one request (see {@link UserProviderSingleFlight}), and may be hedged or cut
+ * short by an adaptive timeout (see {@link UserProviderHedging}). Credential checks and MFA
+ * registration are never shared or hedged; with {@code wedge.user-provider-batching.enabled} they
+ * are grouped into batch calls instead (see {@link UserProviderCredentialBatcher}).
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class UserProviderRestClient {
 
-  private final RestClient restClient;
-  private final ObjectMapper objectMapper;
+  private final UserProviderHttpClients httpClients;
+  private final UserProviderResilience resilience;
+  private final UserProviderSingleFlight singleFlight;
+  private final UserProviderHedging hedging;
+  private final UserProviderResponseReader responseReader;
+  private final UserProviderCredentialBatcher credentialBatcher;
   private final UserProviderApiKeyProperties apiKeyProperties;
 
-  @CircuitBreaker(name = "userProvider", fallbackMethod = "findByUsernameFallback")
-  public Optional<UserResponse> findByUsername(String endpoint, String username) {
+  public Optional<UserResponse> findByUsername(String tenantId, String endpoint, String username) {
+    return singleFlight.execute(
+        "findByUsername",
+        tenantId,
+        endpoint,
+        username,
+        () ->
+            resilience.call(
+                tenantId,
+                () ->
+                    hedging.execute(
+                        tenantId, () -> doFindByUsername(tenantId, endpoint, username)),
+                rejection -> findByUsernameFallback(tenantId, endpoint, username, rejection)));
+  }
+
+  public Optional<UserResponse> validateCredentials(
+      String tenantId, String endpoint, String username, String password, Set<String> scopes) {
+    if (credentialBatcher.isEnabled()) {
+      CredentialBatchResult result =
+          credentialBatcher.submit(
+              tenantId,
+              endpoint,
+              new CredentialCheck(username, password, scopes),
+              checks -> validateCredentialsBatch(tenantId, endpoint, checks));
+      if (result.status() == HttpStatus.UNAUTHORIZED.value()) {
+        log.debug("Invalid credentials for user: {}", username);
+      }
+      return responseReader.readCredentialResult(result);
+    }
+
+    return resilience.call(
+        tenantId,
+        () -> doValidateCredentials(tenantId, endpoint, username, password, scopes),
+        rejection ->
+            validateCredentialsFallback(tenantId, endpoint, username, password, scopes, rejection));
+  }
+
+  public boolean validateScopes(String tenantId, String endpoint, Set<String> scopes) {
+    return singleFlight.execute(
+        "validateScopes",
+        tenantId,
+        endpoint,
+        scopes,
+        () ->
+            resilience.call(
+                tenantId,
+                () -> hedging.execute(tenantId, () -> doValidateScopes(tenantId, endpoint, scopes)),
+                rejection -> validateScopesFallback(tenantId, endpoint, scopes, rejection)));
+  }
+
+  /**
+   * Asks the batch scope validation endpoint which of the scopes are allowed. The endpoint URL must
+   * have the {userId} placeholder already replaced.
+   */
+  public ScopeDecision decideScopes(String tenantId, String endpoint, Set<String> scopes) {
+    return singleFlight.execute(
+        "decideScopes",
+        tenantId,
+        endpoint,
+        scopes,
+        () ->
+            resilience.call(
+                tenantId,
+                () -> hedging.execute(tenantId, () -> doDecideScopes(tenantId, endpoint, scopes)),
+                rejection -> decideScopesFallback(tenantId, endpoint, scopes, rejection)));
+  }
+
+  /** The endpoint URL must have the {userId} placeholder already replaced. */
+  public boolean registerMfa(
+      String tenantId, String mfaEndpoint, String mfaSecret, String mfaKeyId) {
+    return resilience.call(
+        tenantId,
+        () -> doRegisterMfa(tenantId, mfaEndpoint, mfaSecret, mfaKeyId),
+        rejection -> registerMfaFallback(tenantId, mfaEndpoint, mfaSecret, mfaKeyId, rejection));
+  }
+
+  private Optional<UserResponse> doFindByUsername(
+      String tenantId, String endpoint, String username) {
     try {
 
-      var requestBuilder = restClient.get().uri(endpoint + "/find?username={username}", username);
+      var requestBuilder =
+          httpClients
+              .forTenant(tenantId)
+              .get()
+              .uri(endpoint + "/find?username={username}", username);
 
       requestBuilder = setUpHeaders(requestBuilder);
 
-      ResponseEntity<UserResponse> response =
-          requestBuilder.retrieve().toEntity(UserResponse.class);
-
-      return Optional.ofNullable(response.getBody());
+      return requestBuilder.exchange(
+          (request, response) -> {
+            if (response.getStatusCode().isError()) {
+              throw responseReader.readError(response);
+            }
+            return responseReader.readUser(response);
+          });
     } catch (Exception e) {
       log.error("Error finding user: {}", username, e);
       throw handleException(e);
     }
   }
 
-  @CircuitBreaker(name = "userProvider", fallbackMethod = "validateCredentialsFallback")
-  public Optional<UserResponse> validateCredentials(
-      String endpoint, String username, String password, Set<String> scopes) {
+  private Optional<UserResponse> doValidateCredentials(
+      String tenantId, String endpoint, String username, String password, Set<String> scopes) {
     try {
 
-      var requestBuilder = restClient.post().uri(endpoint);
+      var requestBuilder = httpClients.forTenant(tenantId).post().uri(endpoint);
 
       requestBuilder = setUpHeaders(requestBuilder);
 
@@ -69,64 +162,122 @@ public class UserProviderRestClient {
       body.put("password", password);
       body.put("scopes", scopes != null ? scopes : Collections.emptySet());
 
-      ResponseEntity<UserResponse> response =
-          requestBuilder
-              .body(body)
-              .retrieve()
-              .onStatus(
-                  status -> status.value() == HttpStatus.UNAUTHORIZED.value(),
-                  (request, responseEntity) -> {
-                    log.debug("Invalid credentials for user: {}", username);
-                  })
-              .toEntity(UserResponse.class);
-
-      return Optional.ofNullable(response.getBody());
+      return requestBuilder
+          .body(body)
+          .exchange(
+              (request, response) -> {
+                if (response.getStatusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+                  log.debug("Invalid credentials for user: {}", username);
+                }
+                if (response.getStatusCode().isError()) {
+                  throw responseReader.readError(response);
+                }
+                return responseReader.readUser(response);
+              });
     } catch (Exception e) {
       log.error("Error validating credentials for user: {}", username, e);
       throw handleException(e);
     }
   }
 
-  @CircuitBreaker(name = "userProvider", fallbackMethod = "validateScopesFallback")
-  public boolean validateScopes(String endpoint, Set<String> scopes) {
+  /** Sends a batch of credential checks to {@code {endpoint}/batch} as one protected call. */
+  private List<CredentialBatchResult> validateCredentialsBatch(
+      String tenantId, String endpoint, List<CredentialCheck> checks) {
+    return resilience.call(
+        tenantId,
+        () -> doValidateCredentialsBatch(tenantId, endpoint, checks),
+        rejection -> validateCredentialsBatchFallback(tenantId, endpoint, checks, rejection));
+  }
+
+  private List<CredentialBatchResult> doValidateCredentialsBatch(
+      String tenantId, String endpoint, List<CredentialCheck> checks) {
     try {
-      var requestBuilder = restClient.post().uri(endpoint);
 
-      requestBuilder = setUpHeaders(requestBuilder);
+      var requestBuilder = httpClients.forTenant(tenantId).post().uri(endpoint + "/batch");
 
-      requestBuilder
-          .body(Map.of("scopes", scopes != null ? scopes : Collections.emptySet()))
-          .retrieve()
-          .onStatus(
-              status -> status.value() == HttpStatus.FORBIDDEN.value(),
-              (request, response) -> {
-                log.debug("Scopes validation rejected (403 Forbidden)");
-              })
-          .onStatus(
-              status -> status.isError() && status.value() != HttpStatus.FORBIDDEN.value(),
-              (request, response) -> {
-                log.error("Error validating scopes: HTTP {}", response.getStatusCode());
-              })
-          .toBodilessEntity();
+      requestBuilder = setUpHeaders(requestBuilder);
 
-      return true;
-    } catch (HttpClientErrorException e) {
-      if (e.getStatusCode() == HttpStatus.FORBIDDEN) {
-        return false;
+      List<Map<String, Object>> requests = new ArrayList<>(checks.size());
+      for (CredentialCheck check : checks) {
+        Map<String, Object> request = new java.util.HashMap<>();
+        request.put("username", check.username());
+        request.put("password", check.password());
+        request.put("scopes", check.scopes() != null ? check.scopes() : Collections.emptySet());
+        requests.add(request);
       }
+
+      return requestBuilder
+          .body(Map.of("requests", requests))
+          .exchange(
+              (request, response) -> {
+                if (response.getStatusCode().isError()) {
+                  throw responseReader.readError(response);
+                }
+                return responseReader.readCredentialBatch(response);
+              });
+    } catch (Exception e) {
+      log.error("Error validating a batch of {} credential checks", checks.size(), e);
       throw handleException(e);
+    }
+  }
+
+  private boolean doValidateScopes(String tenantId, String endpoint, Set<String> scopes) {
+    try {
+      var requestBuilder = httpClients.forTenant(tenantId).post().uri(endpoint);
+
+      requestBuilder = setUpHeaders(requestBuilder);
+
+      return requestBuilder
+          .body(Map.of("scopes", scopes != null ? scopes : Collections.emptySet()))
+          .exchange(
+              (request, response) -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (status.value() == HttpStatus.FORBIDDEN.value()) {
+                  log.debug("Scopes validation rejected (403 Forbidden)");
+                  return false;
+                }
+                if (status.isError()) {
+                  log.error("Error validating scopes: HTTP {}", status);
+                  throw responseReader.readError(response);
+                }
+                return true;
+              });
     } catch (Exception e) {
       log.error("Error validating scopes", e);
       throw handleException(e);
     }
   }
 
-  /**
-   * The endpoint URL must have the {userId} placeholder already replaced since we cannot make the
-   * user ID available in the circuit breaker fallback method signature.
-   */
-  @CircuitBreaker(name = "userProvider", fallbackMethod = "registerMfaFallback")
-  public boolean registerMfa(String mfaEndpoint, String mfaSecret, String mfaKeyId) {
+  private ScopeDecision doDecideScopes(String tenantId, String endpoint, Set<String> scopes) {
+    try {
+      var requestBuilder = httpClients.forTenant(tenantId).post().uri(endpoint);
+
+      requestBuilder = setUpHeaders(requestBuilder);
+
+      return requestBuilder
+          .body(Map.of("scopes", scopes != null ? scopes : Collections.emptySet()))
+          .exchange(
+              (request, response) -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (status.value() == HttpStatus.FORBIDDEN.value()) {
+                  log.debug("Scopes decision rejected every scope (403 Forbidden)");
+                  return new ScopeDecision(
+                      Set.of(), UserProviderResponseReader.maxAge(response.getHeaders()));
+                }
+                if (status.isError()) {
+                  log.error("Error deciding scopes: HTTP {}", status);
+                  throw responseReader.readError(response);
+                }
+                return responseReader.readScopeDecision(response);
+              });
+    } catch (Exception e) {
+      log.error("Error deciding scopes", e);
+      throw handleException(e);
+    }
+  }
+
+  private boolean doRegisterMfa(
+      String tenantId, String mfaEndpoint, String mfaSecret, String mfaKeyId) {
     try {
       Map<String, Object> requestBody =
           Map.of(
@@ -134,23 +285,25 @@ public class UserProviderRestClient {
               "twoFaRegistered", true,
               "mfaKeyId", mfaKeyId);
 
-      var requestBuilder = restClient.patch().uri(mfaEndpoint).body(requestBody);
+      var requestBuilder =
+          httpClients.forTenant(tenantId).patch().uri(mfaEndpoint).body(requestBody);
 
       requestBuilder = setUpHeaders(requestBuilder);
 
-      requestBuilder
-          .retrieve()
-          .onStatus(
-              status -> status.value() != HttpStatus.NO_CONTENT.value(),
-              (request, response) -> {
-                String errorMsg =
-                    String.format(
-                        "Failed to register MFA with user provider: HTTP %s",
-                        response.getStatusCode());
-                log.error(errorMsg);
-                throw new RuntimeException(errorMsg);
-              })
-          .toBodilessEntity();
+      requestBuilder.exchange(
+          (request, response) -> {
+            HttpStatusCode status = response.getStatusCode();
+            if (status.isError()) {
+              throw responseReader.readError(response);
+            }
+            if (status.value() != HttpStatus.NO_CONTENT.value()) {
+              String errorMsg =
+                  String.format("Failed to register MFA with user provider: HTTP %s", status);
+              log.error(errorMsg);
+              throw new RuntimeException(errorMsg);
+            }
+            return null;
+          });
 
       log.info("Successfully registered MFA with user provider");
       return true;
@@ -166,8 +319,8 @@ public class UserProviderRestClient {
    * authentication failed due to service unavailability, not invalid credentials.
    */
   Optional<UserResponse> findByUsernameFallback(
-      String endpoint, String username, Exception exception) {
-    log.warn("Circuit breaker activated for findByUsername - user provider service unavailable");
+      String tenantId, String endpoint, String username, Exception exception) {
+    log.warn("Circuit breaker activated for findByUsername (tenant: {})", tenantId);
     throw new UserProviderException(
         List.of("error.code.circuit-breaker.open"),
         List.of("User provider service temporarily unavailable - circuit breaker activated"),
@@ -180,9 +333,27 @@ public class UserProviderRestClient {
    * validation failed due to service unavailability, not invalid credentials.
    */
   Optional<UserResponse> validateCredentialsFallback(
-      String endpoint, String username, String password, Set<String> scopes, Exception exception) {
+      String tenantId,
+      String endpoint,
+      String username,
+      String password,
+      Set<String> scopes,
+      Exception exception) {
+    log.warn("Circuit breaker activated for validateCredentials (tenant: {})", tenantId);
+    throw new UserProviderException(
+        List.of("error.code.circuit-breaker.open"),
+        List.of("User provider service temporarily unavailable - circuit breaker activated"),
+        Instant.now(),
+        exception);
+  }
+
+  /** Fails every check of the batch, as {@link #validateCredentialsFallback} does for one. */
+  List<CredentialBatchResult> validateCredentialsBatchFallback(
+      String tenantId, String endpoint, List<CredentialCheck> checks, Exception exception) {
     log.warn(
-        "Circuit breaker activated for validateCredentials - user provider service unavailable");
+        "Circuit breaker activated for a batch of {} credential checks (tenant: {})",
+        checks.size(),
+        tenantId);
     throw new UserProviderException(
         List.of("error.code.circuit-breaker.open"),
         List.of("User provider service temporarily unavailable - circuit breaker activated"),
@@ -190,9 +361,21 @@ public class UserProviderRestClient {
         exception);
   }
 
-  boolean validateScopesFallback(String endpoint, Set<String> scopes, Exception exception)
+  boolean validateScopesFallback(
+      String tenantId, String endpoint, Set<String> scopes, Exception exception)
       throws UserProviderException {
-    log.warn("Circuit breaker activated for validateScopes - user provider service unavailable");
+    log.warn("Circuit breaker activated for validateScopes (tenant: {})", tenantId);
+    throw new UserProviderException(
+        List.of("error.code.circuit-breaker.open"),
+        List.of("User provider service temporarily unavailable - circuit breaker activated"),
+        Instant.now(),
+        exception);
+  }
+
+  ScopeDecision decideScopesFallback(
+      String tenantId, String endpoint, Set<String> scopes, Exception exception)
+      throws UserProviderException {
+    log.warn("Circuit breaker activated for decideScopes (tenant: {})", tenantId);
     throw new UserProviderException(
         List.of("error.code.circuit-breaker.open"),
         List.of("User provider service temporarily unavailable - circuit breaker activated"),
@@ -205,8 +388,8 @@ public class UserProviderRestClient {
    * incomplete security configurations.
    */
   boolean registerMfaFallback(
-      String mfaEndpoint, String mfaSecret, String mfaKeyId, Exception exception) {
-    log.warn("Circuit breaker activated for registerMfa - user provider service unavailable");
+      String tenantId, String mfaEndpoint, String mfaSecret, String mfaKeyId, Exception exception) {
+    log.warn("Circuit breaker activated for registerMfa (tenant: {})", tenantId);
     throw new UserProviderException(
         List.of("error.code.circuit-breaker.open"),
         List.of("User provider service temporarily unavailable - circuit breaker activated"),
@@ -214,44 +397,12 @@ public class UserProviderRestClient {
         exception);
   }
 
+  /** Provider errors decoded from the response pass through; anything else is service-down. */
   private UserProviderException handleException(Exception exception) {
-    try {
-      if (exception instanceof HttpClientErrorException httpClientException) {
-        // Try to parse the error response body
-        String errorBody = httpClientException.getResponseBodyAsString();
-        if (errorBody != null && !errorBody.isEmpty()) {
-          try {
-            UserProviderErrorResponse errorResponse =
-                objectMapper.readValue(errorBody, UserProviderErrorResponse.class);
-
-            if (httpClientException.getStatusCode().is4xxClientError()) {
-              return new UserProviderClientException(
-                  errorResponse.getErrorCodes(),
-                  errorResponse.getMessages(),
-                  errorResponse.getErrorDate(),
-                  exception);
-            }
-
-            return new UserProviderException(
-                errorResponse.getErrorCodes(),
-                errorResponse.getMessages(),
-                errorResponse.getErrorDate(),
-                exception);
-          } catch (Exception parsingException) {
-            log.warn("Failed to parse error response from User Provider API", parsingException);
-          }
-        }
-      }
-    } catch (Exception e) {
-      log.warn("Error handling exception for User Provider API", e);
+    if (exception instanceof UserProviderException userProviderException) {
+      return userProviderException;
     }
-
-    // Fallback to generic error
-    return new UserProviderException(
-        List.of("error.code.user-provider.service-down"),
-        List.of("User provider service is temporarily unavailable"),
-        Instant.now(),
-        exception);
+    return UserProviderResponseReader.serviceDown(exception);
   }
 
   @SuppressWarnings("unchecked")
@@ -263,4 +414,13 @@ public class UserProviderRestClient {
     }
     return (T) requestBuilder;
   }
+
+  /** One queued credential check. */
+  record CredentialCheck(String username, String password, Set<String> scopes) {
+
+    @Override
+    public String toString() {
+      return "CredentialCheck[username=" + username + ", scopes=" + scopes + "]";
+    }
+  }
 }
@@ -0,0 +1,86 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-flight layer for user provider lookups.
+ *
+ * <p>SPAs fire parallel silent-renew and authorize requests, so several threads often ask the user
+ * provider the same question at the same moment. The first caller for a key runs the call on its
+ * own thread; callers arriving while it is in flight wait on the same {@link CompletableFuture} and
+ * get its result (or its exception) instead of issuing their own HTTP request. The key is dropped
+ * as soon as the call completes, so nothing is cached beyond the in-flight window.
+ *
+ * <p>Calls are counted as {@code wedge.user-provider.single-flight.calls} (tags {@code operation},
+ * {@code result=executed|coalesced}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserProviderSingleFlight {
+
+  static final String METRIC_NAME = "wedge.user-provider.single-flight.calls";
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<FlightKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Runs the call, or joins an identical one already in flight.
+   *
+   * @param operation user provider operation, used for the key and the metric tag
+   * @param tenantId tenant whose user provider is called
+   * @param endpoint resolved endpoint URL
+   * @param argument the remaining call argument (username, scopes); must implement equals
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T execute(
+      String operation, String tenantId, String endpoint, Object argument, Supplier<T> call) {
+    FlightKey key = new FlightKey(operation, tenantId, endpoint, argument);
+    CompletableFuture<Object> flight = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+
+    if (existing != null) {
+      meterRegistry.counter(METRIC_NAME, "operation", operation, "result", "coalesced").increment();
+      log.debug("Joined in-flight user provider {} call (tenant: {})", operation, tenantId);
+      return (T) join(existing);
+    }
+
+    meterRegistry.counter(METRIC_NAME, "operation", operation, "result", "executed").increment();
+    try {
+      T result = call.get();
+      inFlight.remove(key, flight);
+      flight.complete(result);
+      return result;
+    } catch (Throwable t) {
+      inFlight.remove(key, flight);
+      flight.completeExceptionally(t);
+      throw t;
+    }
+  }
+
+  /** Rethrows the leader's exception as is, so callers see the same error type either way. */
+  private static Object join(CompletableFuture<Object> flight) {
+    try {
+      return flight.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw e;
+    }
+  }
+
+  private record FlightKey(String operation, String tenantId, String endpoint, Object argument) {}
+}
@@ -9,12 +9,14 @@ import com.kuneiform.domain.port.UserProviderPort;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.web.client.RestClient;
 
+// Scheduled tasks (Redis index sweeper, L1 invalidation check) are beans conditional on the session
+// and token storage types, so scheduling is enabled once here rather than on each Redis config
 @Configuration
+@EnableScheduling
 public class ApplicationConfig {
 
   @Bean
@@ -22,14 +24,6 @@ public class ApplicationConfig {
     return new BCryptPasswordEncoder();
   }
 
-  @Bean
-  public RestClient restClient() {
-    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory();
-    requestFactory.setReadTimeout(java.time.Duration.ofMillis(5000));
-
-    return RestClient.builder().requestFactory(requestFactory).build();
-  }
-
   @Bean
   public AuthenticateUserUseCase authenticateUserUseCase(UserProviderPort userProviderPort) {
     return new AuthenticateUserUseCase(userProviderPort);
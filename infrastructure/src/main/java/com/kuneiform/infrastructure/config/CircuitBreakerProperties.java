@@ -1,5 +1,7 @@
 package com.kuneiform.infrastructure.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
@@ -24,4 +26,82 @@ public class CircuitBreakerProperties {
   private String slidingWindowType = "count_based";
 
   private boolean automaticTransitionFromOpenToHalfOpenEnabled = true;
+
+  private BulkheadProperties bulkhead = new BulkheadProperties();
+
+  private RateLimiterProperties rateLimiter = new RateLimiterProperties();
+
+  /** Rolling window of the per-tenant latency histogram used by hedging and adaptive timeouts. */
+  private long latencyWindowMs = 60000L;
+
+  private HedgingProperties hedging = new HedgingProperties();
+
+  private AdaptiveTimeoutProperties adaptiveTimeout = new AdaptiveTimeoutProperties();
+
+  /** Per-tenant overrides keyed by tenant ID; unset values use the defaults above. */
+  private Map<String, TenantOverrides> tenants = new HashMap<>();
+
+  @Data
+  public static class BulkheadProperties {
+
+    private boolean enabled = true;
+
+    private int maxConcurrentCalls = 100;
+
+    private long maxWaitDurationMs = 0L;
+  }
+
+  @Data
+  public static class RateLimiterProperties {
+
+    private boolean enabled = false;
+
+    private int limitForPeriod = 100;
+
+    private long limitRefreshPeriodMs = 1000L;
+
+    private long timeoutMs = 0L;
+  }
+
+  @Data
+  public static class HedgingProperties {
+
+    private boolean enabled = false;
+
+    /** A second request is sent when the first has not answered by this latency percentile. */
+    private double percentile = 95.0;
+
+    private long minDelayMs = 20L;
+
+    private int minSamples = 50;
+  }
+
+  @Data
+  public static class AdaptiveTimeoutProperties {
+
+    private boolean enabled = false;
+
+    /** The timeout is this latency percentile times the multiplier. */
+    private double percentile = 99.0;
+
+    private double multiplier = 3.0;
+
+    private long minTimeoutMs = 250L;
+
+    private int minSamples = 50;
+  }
+
+  @Data
+  public static class TenantOverrides {
+
+    private Float failureRateThreshold;
+
+    private Integer minimumNumberOfCalls;
+
+    private Long waitDurationInOpenStateMs;
+
+    private Integer maxConcurrentCalls;
+
+    private Integer limitForPeriod;
+  }
 }
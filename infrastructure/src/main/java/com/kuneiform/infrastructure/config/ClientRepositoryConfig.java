@@ -20,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
@@ -140,12 +141,13 @@ public class ClientRepositoryConfig {
       PasswordEncoder passwordEncoder,
       TenantClientPort tenantClientPort,
       WedgeConfigProperties config,
+      ApplicationEventPublisher eventPublisher,
       @Autowired(required = false) Flyway flyway) {
     log.info(
         "Configuring database-backed client repository with storage type: {}",
         properties.getClientStorage().getType());
     return new DatabaseClientRepositoryAdapter(
-        repository, passwordEncoder, tenantClientPort, config);
+        repository, passwordEncoder, tenantClientPort, config, eventPublisher);
   }
 
   /**
@@ -1,19 +1,27 @@
 package com.kuneiform.infrastructure.config;
 
-import java.nio.charset.StandardCharsets;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
 
+/**
+ * Redis serializer writing values as UTF-8 JSON with Jackson 3.
+ *
+ * <p>The reader and writer for the type are built once and work on {@code byte[]} directly, so no
+ * intermediate {@code String} copy is made. Values stay plain JSON because the session storage Lua
+ * scripts decode them to find the owning user.
+ */
 public class Jackson3RedisSerializer<T> implements RedisSerializer<T> {
 
-  private final ObjectMapper mapper;
-  private final Class<T> type;
+  private final ObjectWriter writer;
+  private final ObjectReader reader;
 
   public Jackson3RedisSerializer(ObjectMapper mapper, Class<T> type) {
-    this.mapper = mapper;
-    this.type = type;
+    this.writer = mapper.writerFor(type);
+    this.reader = mapper.readerFor(type);
   }
 
   @Override
@@ -22,7 +30,7 @@ public class Jackson3RedisSerializer<T> implements RedisSerializer<T> {
       return new byte[0];
     }
     try {
-      return mapper.writeValueAsString(t).getBytes(StandardCharsets.UTF_8);
+      return writer.writeValueAsBytes(t);
     } catch (JacksonException e) {
       throw new SerializationException("Error serializing object via Jackson 3", e);
     }
@@ -34,8 +42,7 @@ public class Jackson3RedisSerializer<T> implements RedisSerializer<T> {
       return null;
     }
     try {
-      String json = new String(bytes, StandardCharsets.UTF_8);
-      return mapper.readValue(json, type);
+      return reader.readValue(bytes);
     } catch (JacksonException e) {
       throw new SerializationException("Error deserializing object via Jackson 3", e);
     }
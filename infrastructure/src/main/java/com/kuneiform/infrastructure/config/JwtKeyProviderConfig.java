@@ -1,9 +1,12 @@
 package com.kuneiform.infrastructure.config;
 
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
 import com.kuneiform.domain.port.JwtKeyProvider;
 import com.kuneiform.infrastructure.adapter.FileJwtKeyProviderAdapter;
 import com.kuneiform.infrastructure.adapter.RuntimeJwtKeyProviderAdapter;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -22,6 +25,9 @@ import org.springframework.util.StringUtils;
  *   <li><strong>file</strong>: Uses {@link FileJwtKeyProviderAdapter} to load keys from external
  *       PEM files (suitable for production)
  * </ul>
+ *
+ * <p>The provider must hold a key for {@code wedge.jwt.signing-algorithm}, the algorithm used for
+ * clients that do not configure their own.
  */
 @Slf4j
 @Configuration
@@ -42,20 +48,40 @@ public class JwtKeyProviderConfig {
 
     log.info("Configuring JWT key provider with key-type: {}", keyType);
 
+    JwtSigningAlgorithm signingAlgorithm =
+        JwtSigningAlgorithm.from(config.getJwt().getSigningAlgorithm());
+
+    JwtKeyProvider provider;
     if ("test".equalsIgnoreCase(keyType)) {
-      return createRuntimeKeyProvider();
+      provider = createRuntimeKeyProvider(signingAlgorithm);
     } else if ("file".equalsIgnoreCase(keyType)) {
-      return createFileKeyProvider();
+      provider = createFileKeyProvider();
     } else {
       throw new IllegalArgumentException(
           "Invalid JWT key-type: '" + keyType + "'. Supported values are: 'test', 'file'");
     }
+
+    boolean hasSigningKey =
+        provider.getKeyPairs().stream()
+            .anyMatch(keyPair -> keyPair.getAlgorithm() == signingAlgorithm);
+    if (!hasSigningKey) {
+      throw new IllegalArgumentException(
+          "No JWT key for signing-algorithm "
+              + signingAlgorithm
+              + ". Add a "
+              + signingAlgorithm.getKeyAlgorithm()
+              + " key pair through wedge.jwt.additional-keys or change wedge.jwt.signing-algorithm.");
+    }
+    return provider;
   }
 
-  private JwtKeyProvider createRuntimeKeyProvider() {
+  private JwtKeyProvider createRuntimeKeyProvider(JwtSigningAlgorithm signingAlgorithm) {
     int keySize = config.getJwt().getKeySize();
-    log.info("Creating runtime JWT key provider (key size: {} bits)", keySize);
-    return new RuntimeJwtKeyProviderAdapter(keySize);
+    log.info(
+        "Creating runtime JWT key provider (primary: {}, RSA key size: {} bits)",
+        signingAlgorithm,
+        keySize);
+    return new RuntimeJwtKeyProviderAdapter(keySize, signingAlgorithm);
   }
 
   private JwtKeyProvider createFileKeyProvider() {
@@ -82,11 +108,29 @@ public class JwtKeyProviderConfig {
               + "Set the JWT_KEY_ID environment variable or wedge.jwt.key-id property.");
     }
 
+    List<FileJwtKeyProviderAdapter.KeyFiles> keyFiles = new ArrayList<>();
+    keyFiles.add(new FileJwtKeyProviderAdapter.KeyFiles(privateKeyPath, publicKeyPath, keyId));
+    for (WedgeConfigProperties.JwtConfig.KeyFileConfig additionalKey :
+        config.getJwt().getAdditionalKeys()) {
+      if (!StringUtils.hasText(additionalKey.getPrivateKeyPath())
+          || !StringUtils.hasText(additionalKey.getPublicKeyPath())
+          || !StringUtils.hasText(additionalKey.getKeyId())) {
+        throw new IllegalArgumentException(
+            "Every wedge.jwt.additional-keys entry needs private-key-path, public-key-path and key-id.");
+      }
+      keyFiles.add(
+          new FileJwtKeyProviderAdapter.KeyFiles(
+              additionalKey.getPrivateKeyPath(),
+              additionalKey.getPublicKeyPath(),
+              additionalKey.getKeyId()));
+    }
+
     log.info("Creating file-based JWT key provider");
     log.info("  Private key path: {}", privateKeyPath);
     log.info("  Public key path: {}", publicKeyPath);
     log.info("  Key ID: {}", keyId);
+    log.info("  Additional key pairs: {}", keyFiles.size() - 1);
 
-    return new FileJwtKeyProviderAdapter(privateKeyPath, publicKeyPath, keyId);
+    return new FileJwtKeyProviderAdapter(keyFiles);
   }
 }
@@ -0,0 +1,652 @@
+package com.kuneiform.infrastructure.config;
+
+import com.kuneiform.domain.model.MfaData;
+import com.kuneiform.domain.model.User;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+/**
+ * Compact, versioned binary {@link RedisSerializer} for {@link OAuth2Authorization}.
+ *
+ * <p>Layout: magic byte, format version, flags, then the body. Bodies larger than the compression
+ * threshold are Deflate-compressed. Tokens, metadata, attributes and the {@link User} principal
+ * have dedicated encodings; any other attribute value falls back to inline JDK serialization.
+ *
+ * <p>Values written by {@link JdkSerializationRedisSerializer} are still readable, so existing
+ * Redis data keeps working while it is rewritten on the next save or expires.
+ */
+public class OAuth2AuthorizationRedisSerializer implements RedisSerializer<OAuth2Authorization> {
+
+  static final byte MAGIC = 0x57; // 'W', never the first byte of a JDK stream (0xACED)
+  static final byte VERSION = 1;
+  static final byte FLAG_DEFLATE = 0x01;
+  private static final int HEADER_LENGTH = 3;
+
+  // Token kinds
+  private static final byte TOKEN_AUTHORIZATION_CODE = 1;
+  private static final byte TOKEN_ACCESS = 2;
+  private static final byte TOKEN_REFRESH = 3;
+  private static final byte TOKEN_ID = 4;
+
+  // Value tags
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte TRUE = 2;
+  private static final byte FALSE = 3;
+  private static final byte INT = 4;
+  private static final byte LONG = 5;
+  private static final byte DOUBLE = 6;
+  private static final byte INSTANT = 7;
+  private static final byte LIST = 8;
+  private static final byte SET = 9;
+  private static final byte MAP = 10;
+  private static final byte URL_VALUE = 11;
+  private static final byte USER = 12;
+  private static final byte AUTHENTICATION = 13;
+  private static final byte SIMPLE_AUTHORITY = 14;
+  private static final byte AUTHORIZATION_REQUEST = 15;
+  private static final byte WEB_DETAILS = 16;
+  private static final byte JAVA_SERIALIZED = 127;
+
+  private final boolean writeJdk;
+  private final int compressionThreshold;
+  private final JdkSerializationRedisSerializer legacySerializer =
+      new JdkSerializationRedisSerializer();
+
+  /**
+   * @param compressionThreshold body size in bytes from which Deflate is applied, 0 or less
+   *     disables compression
+   */
+  public OAuth2AuthorizationRedisSerializer(int compressionThreshold) {
+    this(false, compressionThreshold);
+  }
+
+  /**
+   * @param writeJdk write JDK serialization instead of the binary format (both are still read),
+   *     used to roll back without losing stored authorizations
+   * @param compressionThreshold body size in bytes from which Deflate is applied, 0 or less
+   *     disables compression
+   */
+  public OAuth2AuthorizationRedisSerializer(boolean writeJdk, int compressionThreshold) {
+    this.writeJdk = writeJdk;
+    this.compressionThreshold = compressionThreshold;
+  }
+
+  @Override
+  public byte[] serialize(OAuth2Authorization authorization) throws SerializationException {
+    if (authorization == null) {
+      return new byte[0];
+    }
+    if (writeJdk) {
+      return legacySerializer.serialize(authorization);
+    }
+    try {
+      ByteArrayOutputStream body = new ByteArrayOutputStream(512);
+      DataOutputStream out = new DataOutputStream(body);
+      writeAuthorization(out, authorization);
+      out.flush();
+
+      boolean compress = compressionThreshold > 0 && body.size() >= compressionThreshold;
+
+      ByteArrayOutputStream result = new ByteArrayOutputStream(HEADER_LENGTH + body.size());
+      result.write(MAGIC);
+      result.write(VERSION);
+      result.write(compress ? FLAG_DEFLATE : 0);
+
+      if (compress) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream deflating = new DeflaterOutputStream(result, deflater)) {
+          body.writeTo(deflating);
+        } finally {
+          deflater.end();
+        }
+      } else {
+        body.writeTo(result);
+      }
+
+      return result.toByteArray();
+    } catch (IOException e) {
+      throw new SerializationException("Error serializing OAuth2Authorization", e);
+    }
+  }
+
+  @Override
+  public OAuth2Authorization deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+
+    if (isJdkSerialized(bytes)) {
+      return (OAuth2Authorization) legacySerializer.deserialize(bytes);
+    }
+
+    if (bytes.length < HEADER_LENGTH || bytes[0] != MAGIC) {
+      throw new SerializationException("Unknown OAuth2Authorization encoding");
+    }
+    if (bytes[1] != VERSION) {
+      throw new SerializationException(
+          "Unsupported OAuth2Authorization encoding version: " + bytes[1]);
+    }
+
+    InputStream body = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+    if ((bytes[2] & FLAG_DEFLATE) != 0) {
+      body = new InflaterInputStream(body);
+    }
+
+    try (DataInputStream in = new DataInputStream(body)) {
+      return readAuthorization(in);
+    } catch (IOException | RuntimeException e) {
+      throw new SerializationException("Error deserializing OAuth2Authorization", e);
+    }
+  }
+
+  static boolean isJdkSerialized(byte[] bytes) {
+    return bytes.length >= 2 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+  }
+
+  // --- Authorization ---
+
+  private void writeAuthorization(DataOutputStream out, OAuth2Authorization authorization)
+      throws IOException {
+    writeString(out, authorization.getId());
+    writeString(out, authorization.getRegisteredClientId());
+    writeString(out, authorization.getPrincipalName());
+    writeString(out, authorization.getAuthorizationGrantType().getValue());
+    writeStrings(out, authorization.getAuthorizedScopes());
+
+    List<OAuth2Authorization.Token<?>> tokens = new ArrayList<>(4);
+    addToken(tokens, authorization.getToken(OAuth2AuthorizationCode.class));
+    addToken(tokens, authorization.getToken(OAuth2AccessToken.class));
+    addToken(tokens, authorization.getToken(OAuth2RefreshToken.class));
+    addToken(tokens, authorization.getToken(OidcIdToken.class));
+
+    out.writeByte(tokens.size());
+    for (OAuth2Authorization.Token<?> token : tokens) {
+      writeToken(out, token);
+    }
+
+    writeMap(out, authorization.getAttributes());
+  }
+
+  private OAuth2Authorization readAuthorization(DataInputStream in) throws IOException {
+    String id = readString(in);
+    String registeredClientId = readString(in);
+
+    OAuth2Authorization.Builder builder =
+        new AuthorizationBuilder(registeredClientId)
+            .id(id)
+            .principalName(readString(in))
+            .authorizationGrantType(new AuthorizationGrantType(readString(in)))
+            .authorizedScopes(readStrings(in));
+
+    int tokenCount = in.readUnsignedByte();
+    for (int i = 0; i < tokenCount; i++) {
+      readToken(in, builder);
+    }
+
+    Map<Object, Object> attributes = readMap(in);
+    builder.attributes(target -> attributes.forEach((k, v) -> target.put((String) k, v)));
+
+    return builder.build();
+  }
+
+  private static void addToken(
+      List<OAuth2Authorization.Token<?>> tokens, OAuth2Authorization.Token<?> token) {
+    if (token != null) {
+      tokens.add(token);
+    }
+  }
+
+  private void writeToken(DataOutputStream out, OAuth2Authorization.Token<?> token)
+      throws IOException {
+    OAuth2Token value = token.getToken();
+
+    if (value instanceof OAuth2AccessToken accessToken) {
+      out.writeByte(TOKEN_ACCESS);
+      writeCommonTokenFields(out, value);
+      writeString(out, accessToken.getTokenType().getValue());
+      writeStrings(out, accessToken.getScopes());
+    } else if (value instanceof OAuth2RefreshToken) {
+      out.writeByte(TOKEN_REFRESH);
+      writeCommonTokenFields(out, value);
+    } else if (value instanceof OidcIdToken idToken) {
+      out.writeByte(TOKEN_ID);
+      writeCommonTokenFields(out, value);
+      writeMap(out, idToken.getClaims());
+    } else if (value instanceof OAuth2AuthorizationCode) {
+      out.writeByte(TOKEN_AUTHORIZATION_CODE);
+      writeCommonTokenFields(out, value);
+    } else {
+      throw new IOException("Unsupported token type: " + value.getClass().getName());
+    }
+
+    writeMap(out, token.getMetadata());
+  }
+
+  private void readToken(DataInputStream in, OAuth2Authorization.Builder builder)
+      throws IOException {
+    byte kind = in.readByte();
+    String tokenValue = readString(in);
+    Instant issuedAt = readInstant(in);
+    Instant expiresAt = readInstant(in);
+
+    OAuth2Token token =
+        switch (kind) {
+          case TOKEN_ACCESS -> {
+            String tokenType = readString(in);
+            Set<String> scopes = readStrings(in);
+            yield new OAuth2AccessToken(
+                resolveAccessTokenType(tokenType), tokenValue, issuedAt, expiresAt, scopes);
+          }
+          case TOKEN_REFRESH -> new OAuth2RefreshToken(tokenValue, issuedAt, expiresAt);
+          case TOKEN_ID -> {
+            Map<String, Object> claims = new LinkedHashMap<>();
+            readMap(in).forEach((k, v) -> claims.put((String) k, v));
+            yield new OidcIdToken(tokenValue, issuedAt, expiresAt, claims);
+          }
+          case TOKEN_AUTHORIZATION_CODE ->
+              new OAuth2AuthorizationCode(tokenValue, issuedAt, expiresAt);
+          default -> throw new IOException("Unknown token kind: " + kind);
+        };
+
+    Map<Object, Object> metadata = readMap(in);
+    builder.token(token, target -> metadata.forEach((k, v) -> target.put((String) k, v)));
+  }
+
+  private void writeCommonTokenFields(DataOutputStream out, OAuth2Token token)
+      throws IOException {
+    writeString(out, token.getTokenValue());
+    writeInstant(out, token.getIssuedAt());
+    writeInstant(out, token.getExpiresAt());
+  }
+
+  private static OAuth2AccessToken.TokenType resolveAccessTokenType(String value) {
+    if (OAuth2AccessToken.TokenType.DPOP.getValue().equalsIgnoreCase(value)) {
+      return OAuth2AccessToken.TokenType.DPOP;
+    }
+    return OAuth2AccessToken.TokenType.BEARER;
+  }
+
+  // --- Generic values ---
+
+  private void writeValue(DataOutputStream out, Object value) throws IOException {
+    switch (value) {
+      case null -> out.writeByte(NULL);
+      case String s -> {
+        out.writeByte(STRING);
+        writeString(out, s);
+      }
+      case Boolean b -> out.writeByte(b ? TRUE : FALSE);
+      case Integer i -> {
+        out.writeByte(INT);
+        out.writeInt(i);
+      }
+      case Long l -> {
+        out.writeByte(LONG);
+        out.writeLong(l);
+      }
+      case Double d -> {
+        out.writeByte(DOUBLE);
+        out.writeDouble(d);
+      }
+      case Instant instant -> {
+        out.writeByte(INSTANT);
+        writeInstant(out, instant);
+      }
+      case URL url -> {
+        out.writeByte(URL_VALUE);
+        writeString(out, url.toExternalForm());
+      }
+      case List<?> list -> {
+        out.writeByte(LIST);
+        writeCollection(out, list);
+      }
+      case Set<?> set -> {
+        out.writeByte(SET);
+        writeCollection(out, set);
+      }
+      case Map<?, ?> map -> {
+        out.writeByte(MAP);
+        writeMap(out, map);
+      }
+      case User user -> {
+        out.writeByte(USER);
+        writeUser(out, user);
+      }
+      case SimpleGrantedAuthority authority -> {
+        out.writeByte(SIMPLE_AUTHORITY);
+        writeString(out, authority.getAuthority());
+      }
+      case UsernamePasswordAuthenticationToken authentication
+          when authentication.getClass() == UsernamePasswordAuthenticationToken.class -> {
+        out.writeByte(AUTHENTICATION);
+        writeAuthentication(out, authentication);
+      }
+      case OAuth2AuthorizationRequest request
+          when AuthorizationGrantType.AUTHORIZATION_CODE.equals(request.getGrantType()) -> {
+        out.writeByte(AUTHORIZATION_REQUEST);
+        writeAuthorizationRequest(out, request);
+      }
+      case WebAuthenticationDetails details
+          when details.getClass() == WebAuthenticationDetails.class -> {
+        out.writeByte(WEB_DETAILS);
+        writeString(out, details.getRemoteAddress());
+        writeString(out, details.getSessionId());
+      }
+      case Serializable serializable -> {
+        out.writeByte(JAVA_SERIALIZED);
+        writeJavaSerialized(out, serializable);
+      }
+      default ->
+          throw new IOException(
+              "Attribute value is not serializable: " + value.getClass().getName());
+    }
+  }
+
+  private Object readValue(DataInputStream in) throws IOException {
+    byte tag = in.readByte();
+    return switch (tag) {
+      case NULL -> null;
+      case STRING -> readString(in);
+      case TRUE -> Boolean.TRUE;
+      case FALSE -> Boolean.FALSE;
+      case INT -> in.readInt();
+      case LONG -> in.readLong();
+      case DOUBLE -> in.readDouble();
+      case INSTANT -> readInstant(in);
+      case URL_VALUE -> URI.create(readString(in)).toURL();
+      case LIST -> readCollection(in, new ArrayList<>());
+      case SET -> readCollection(in, new LinkedHashSet<>());
+      case MAP -> readMap(in);
+      case USER -> readUser(in);
+      case SIMPLE_AUTHORITY -> new SimpleGrantedAuthority(readString(in));
+      case AUTHENTICATION -> readAuthentication(in);
+      case AUTHORIZATION_REQUEST -> readAuthorizationRequest(in);
+      case WEB_DETAILS -> new WebAuthenticationDetails(readString(in), readString(in));
+      case JAVA_SERIALIZED -> readJavaSerialized(in);
+      default -> throw new IOException("Unknown value tag: " + tag);
+    };
+  }
+
+  private void writeCollection(DataOutputStream out, Collection<?> values) throws IOException {
+    writeVarInt(out, values.size());
+    for (Object value : values) {
+      writeValue(out, value);
+    }
+  }
+
+  private <C extends Collection<Object>> C readCollection(DataInputStream in, C target)
+      throws IOException {
+    int size = readVarInt(in);
+    for (int i = 0; i < size; i++) {
+      target.add(readValue(in));
+    }
+    return target;
+  }
+
+  private void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+    if (map == null) {
+      writeVarInt(out, 0);
+      return;
+    }
+    writeVarInt(out, map.size());
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      writeValue(out, entry.getKey());
+      writeValue(out, entry.getValue());
+    }
+  }
+
+  private Map<Object, Object> readMap(DataInputStream in) throws IOException {
+    int size = readVarInt(in);
+    Map<Object, Object> map = new LinkedHashMap<>(Math.max(4, size * 2));
+    for (int i = 0; i < size; i++) {
+      map.put(readValue(in), readValue(in));
+    }
+    return map;
+  }
+
+  // --- Principal and request attributes ---
+
+  private void writeUser(DataOutputStream out, User user) throws IOException {
+    writeString(out, user.getUserId());
+    writeString(out, user.getUsername());
+    writeString(out, user.getEmail());
+    writeMap(out, user.getMetadata());
+    writeValue(out, user.getMfaEnabled());
+
+    MfaData mfaData = user.getMfaData();
+    out.writeBoolean(mfaData != null);
+    if (mfaData != null) {
+      out.writeBoolean(mfaData.isTwoFaRegistered());
+      writeString(out, mfaData.getMfaKeyId());
+      writeString(out, mfaData.getMfaSecret());
+    }
+  }
+
+  private User readUser(DataInputStream in) throws IOException {
+    User.UserBuilder builder =
+        User.builder().userId(readString(in)).username(readString(in)).email(readString(in));
+
+    Map<String, Object> metadata = new LinkedHashMap<>();
+    readMap(in).forEach((k, v) -> metadata.put((String) k, v));
+    builder.metadata(metadata).mfaEnabled((Boolean) readValue(in));
+
+    if (in.readBoolean()) {
+      builder.mfaData(
+          MfaData.builder()
+              .twoFaRegistered(in.readBoolean())
+              .mfaKeyId(readString(in))
+              .mfaSecret(readString(in))
+              .build());
+    }
+
+    return builder.build();
+  }
+
+  /** Credentials are intentionally not persisted; they are erased after authentication anyway. */
+  private void writeAuthentication(
+      DataOutputStream out, UsernamePasswordAuthenticationToken authentication)
+      throws IOException {
+    out.writeBoolean(authentication.isAuthenticated());
+    writeValue(out, authentication.getPrincipal());
+    writeCollection(out, authentication.getAuthorities());
+    writeValue(out, authentication.getDetails());
+  }
+
+  private UsernamePasswordAuthenticationToken readAuthentication(DataInputStream in)
+      throws IOException {
+    boolean authenticated = in.readBoolean();
+    Object principal = readValue(in);
+    List<GrantedAuthority> authorities = new ArrayList<>();
+    for (Object authority : readCollection(in, new ArrayList<>())) {
+      authorities.add((GrantedAuthority) authority);
+    }
+    Object details = readValue(in);
+
+    UsernamePasswordAuthenticationToken authentication =
+        authenticated
+            ? UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities)
+            : UsernamePasswordAuthenticationToken.unauthenticated(principal, null);
+    authentication.setDetails(details);
+    return authentication;
+  }
+
+  private void writeAuthorizationRequest(DataOutputStream out, OAuth2AuthorizationRequest request)
+      throws IOException {
+    writeString(out, request.getAuthorizationUri());
+    writeString(out, request.getClientId());
+    writeString(out, request.getRedirectUri());
+    writeStrings(out, request.getScopes());
+    writeString(out, request.getState());
+    writeMap(out, request.getAdditionalParameters());
+    writeMap(out, request.getAttributes());
+    writeString(out, request.getAuthorizationRequestUri());
+  }
+
+  private OAuth2AuthorizationRequest readAuthorizationRequest(DataInputStream in)
+      throws IOException {
+    String authorizationUri = readString(in);
+    String clientId = readString(in);
+    String redirectUri = readString(in);
+    Set<String> scopes = readStrings(in);
+    String state = readString(in);
+    Map<String, Object> additionalParameters = new LinkedHashMap<>();
+    readMap(in).forEach((k, v) -> additionalParameters.put((String) k, v));
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    readMap(in).forEach((k, v) -> attributes.put((String) k, v));
+    String authorizationRequestUri = readString(in);
+
+    return OAuth2AuthorizationRequest.authorizationCode()
+        .authorizationUri(authorizationUri)
+        .clientId(clientId)
+        .redirectUri(redirectUri)
+        .scopes(scopes)
+        .state(state)
+        .additionalParameters(additionalParameters)
+        .attributes(attributes)
+        .authorizationRequestUri(authorizationRequestUri)
+        .build();
+  }
+
+  // --- Primitives ---
+
+  private void writeJavaSerialized(DataOutputStream out, Serializable value) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    try (ObjectOutputStream objectOut = new ObjectOutputStream(buffer)) {
+      objectOut.writeObject(value);
+    }
+    writeVarInt(out, buffer.size());
+    buffer.writeTo(out);
+  }
+
+  private Object readJavaSerialized(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[readVarInt(in)];
+    in.readFully(bytes);
+    try (ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      return objectIn.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Cannot deserialize attribute value", e);
+    }
+  }
+
+  private static void writeStrings(DataOutputStream out, Collection<String> values)
+      throws IOException {
+    if (values == null) {
+      writeVarInt(out, 0);
+      return;
+    }
+    writeVarInt(out, values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static Set<String> readStrings(DataInputStream in) throws IOException {
+    int size = readVarInt(in);
+    Set<String> values = new LinkedHashSet<>(Math.max(4, size * 2));
+    for (int i = 0; i < size; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+
+  /** Length-prefixed UTF-8 where a length of 0 encodes null, so no separate presence flag. */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      writeVarInt(out, 0);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length + 1);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = readVarInt(in);
+    if (length == 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length - 1];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+    out.writeBoolean(instant != null);
+    if (instant != null) {
+      out.writeLong(instant.getEpochSecond());
+      out.writeInt(instant.getNano());
+    }
+  }
+
+  private static Instant readInstant(DataInputStream in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    return Instant.ofEpochSecond(in.readLong(), in.readInt());
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  /** Exposes the builder constructor so authorizations rebuild without a RegisteredClient. */
+  private static final class AuthorizationBuilder extends OAuth2Authorization.Builder {
+
+    private AuthorizationBuilder(String registeredClientId) {
+      super(registeredClientId);
+    }
+  }
+}
@@ -1,8 +1,11 @@
 package com.kuneiform.infrastructure.config;
 
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
 import com.kuneiform.domain.model.OAuthClient;
 import com.kuneiform.domain.port.ClientRepository;
+import com.kuneiform.domain.port.JwtKeyProvider;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import jakarta.annotation.PostConstruct;
 import java.time.Duration;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
@@ -11,10 +14,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.ClientAuthenticationMethod;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClientRepository;
 import org.springframework.security.oauth2.server.authorization.settings.ClientSettings;
 import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.util.StringUtils;
 
 @Slf4j
 @Configuration
@@ -23,6 +28,16 @@ public class OAuth2ClientConfig {
 
   private final ClientRepository clientRepository;
   private final WedgeConfigProperties properties;
+  private final JwtKeyProvider jwtKeyProvider;
+
+  /**
+   * Fails startup when a client's token signing algorithm is unsupported or has no key, instead of
+   * failing that client's first token request.
+   */
+  @PostConstruct
+  void validateClientSigningAlgorithms() {
+    clientRepository.findAll().forEach(this::resolveSigningAlgorithm);
+  }
 
   /** RegisteredClientRepository that bridges our domain model to Spring's RegisteredClient. */
   @Bean
@@ -111,6 +126,8 @@ public class OAuth2ClientConfig {
             .refreshTokenTimeToLive(
                 Duration.ofSeconds(properties.getOauth2().getTokens().getRefreshTokenTtl()))
             .reuseRefreshTokens(false) // Enable OAuth 2.1 refresh token rotation
+            // Used for ID tokens by Spring and for access tokens by OAuth2TokenGeneratorConfig
+            .idTokenSignatureAlgorithm(resolveSigningAlgorithm(client))
             .build();
 
     builder.tokenSettings(tokenSettings);
@@ -127,4 +144,39 @@ public class OAuth2ClientConfig {
 
     return registeredClient;
   }
+
+  /**
+   * The client's token signing algorithm, falling back to {@code wedge.jwt.signing-algorithm}.
+   *
+   * @throws IllegalArgumentException if the algorithm is unsupported or no key signs with it
+   */
+  private SignatureAlgorithm resolveSigningAlgorithm(OAuthClient client) {
+    String configured =
+        StringUtils.hasText(client.getTokenSigningAlgorithm())
+            ? client.getTokenSigningAlgorithm()
+            : properties.getJwt().getSigningAlgorithm();
+
+    JwtSigningAlgorithm algorithm;
+    try {
+      algorithm = JwtSigningAlgorithm.from(configured);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Client '" + client.getClientId() + "': " + e.getMessage(), e);
+    }
+
+    boolean hasSigningKey =
+        jwtKeyProvider.getKeyPairs().stream()
+            .anyMatch(keyPair -> keyPair.getAlgorithm() == algorithm);
+    if (!hasSigningKey) {
+      throw new IllegalArgumentException(
+          "No JWT key for token-signing-algorithm "
+              + algorithm
+              + " of client '"
+              + client.getClientId()
+              + "'. Add a "
+              + algorithm.getKeyAlgorithm()
+              + " key pair through wedge.jwt.additional-keys.");
+    }
+    return SignatureAlgorithm.from(algorithm.name());
+  }
 }
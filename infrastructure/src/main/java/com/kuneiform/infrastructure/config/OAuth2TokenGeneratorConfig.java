@@ -14,6 +14,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.OAuth2RefreshToken;
 import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
 import org.springframework.security.oauth2.server.authorization.token.DelegatingOAuth2TokenGenerator;
@@ -47,7 +48,11 @@ public class OAuth2TokenGeneratorConfig {
         "    Refresh tokens enabled: {}", config.getOauth2().getTokens().isRefreshTokenEnabled());
 
     JwtGenerator jwtGenerator = new JwtGenerator(new NimbusJwtEncoder(jwkSource));
-    jwtGenerator.setJwtCustomizer(tokenCustomizer);
+    jwtGenerator.setJwtCustomizer(
+        context -> {
+          applyClientSigningAlgorithm(context);
+          tokenCustomizer.customize(context);
+        });
 
     OAuth2AccessTokenGenerator accessTokenGenerator = new OAuth2AccessTokenGenerator();
 
@@ -70,6 +75,19 @@ public class OAuth2TokenGeneratorConfig {
     return tokenGenerator;
   }
 
+  /**
+   * Signs access tokens with the client's signing algorithm. JwtGenerator applies the client's
+   * algorithm to ID tokens only and always starts access tokens with RS256; the JWK source then
+   * picks the key matching the algorithm.
+   */
+  static void applyClientSigningAlgorithm(JwtEncodingContext context) {
+    SignatureAlgorithm algorithm =
+        context.getRegisteredClient().getTokenSettings().getIdTokenSignatureAlgorithm();
+    if (algorithm != null && OAuth2TokenType.ACCESS_TOKEN.equals(context.getTokenType())) {
+      context.getJwsHeader().algorithm(algorithm);
+    }
+  }
+
   /**
    * Custom Refresh Token Generator that allows public clients with PKCE to receive refresh tokens.
    *
@@ -1,19 +1,32 @@
 package com.kuneiform.infrastructure.config;
 
+import com.kuneiform.domain.model.JwtKeyPair;
 import com.kuneiform.domain.port.JwtKeyProvider;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.security.AuthorizationSessionLogoutHandler;
 import com.kuneiform.infrastructure.security.HttpUserAuthenticationProvider;
 import com.kuneiform.infrastructure.security.MfaAwareAuthenticationFailureHandler;
 import com.kuneiform.infrastructure.security.OAuth2AuthorizationRevocationLogoutHandler;
 import com.kuneiform.infrastructure.security.PublicClientRefreshTokenAuthenticationProvider;
+import com.kuneiform.infrastructure.security.UserProviderCacheLogoutHandler;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
 import com.nimbusds.jose.jwk.source.JWKSource;
 import com.nimbusds.jose.proc.SecurityContext;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
@@ -136,7 +149,19 @@ public class SecurityConfig {
                     .authorizationEndpoint(
                         authEndpoint -> authEndpoint.consentPage("/oauth2/consent"))
                     .tokenEndpoint(Customizer.withDefaults())
-                    .oidc(Customizer.withDefaults()))
+                    .oidc(
+                        oidc ->
+                            oidc.providerConfigurationEndpoint(
+                                providerConfiguration ->
+                                    providerConfiguration.providerConfigurationCustomizer(
+                                        metadata ->
+                                            metadata.idTokenSigningAlgorithms(
+                                                algorithms -> {
+                                                  // Advertise every key, not only the RS256
+                                                  // default, so clients accept ES256 ID tokens
+                                                  algorithms.clear();
+                                                  algorithms.addAll(signingAlgorithms());
+                                                })))))
         .exceptionHandling(
             exceptions ->
                 exceptions.defaultAuthenticationEntryPointFor(
@@ -152,6 +177,8 @@ public class SecurityConfig {
       HttpSecurity http,
       HttpUserAuthenticationProvider authenticationProvider,
       OAuth2AuthorizationRevocationLogoutHandler logoutHandler,
+      UserProviderCacheLogoutHandler userProviderCacheLogoutHandler,
+      AuthorizationSessionLogoutHandler authorizationSessionLogoutHandler,
       MfaAwareAuthenticationFailureHandler mfaFailureHandler)
       throws Exception {
     http.authorizeHttpRequests(
@@ -174,6 +201,8 @@ public class SecurityConfig {
                     .addLogoutHandler(logoutHandler) // Revoke OAuth2
                     // authorizations on
                     // logout
+                    .addLogoutHandler(userProviderCacheLogoutHandler)
+                    .addLogoutHandler(authorizationSessionLogoutHandler)
                     .logoutSuccessUrl("/login?logout=true")
                     .permitAll())
         .authenticationProvider(authenticationProvider);
@@ -181,19 +210,47 @@ public class SecurityConfig {
     return http.build();
   }
 
-  // JWK source for JWT signing
+  // JWK source for JWT signing. Holds at most one key per algorithm, so the JWS algorithm of a
+  // token selects its signing key.
   @Bean
   public JWKSource<SecurityContext> jwkSource() {
-    var keyPair = jwtKeyProvider.getKeyPair();
+    Map<String, JwtKeyPair> keyPairs = new LinkedHashMap<>();
+    JwtKeyPair primary = jwtKeyProvider.getKeyPair();
+    keyPairs.put(primary.getKeyId(), primary);
+    for (JwtKeyPair keyPair : jwtKeyProvider.getKeyPairs()) {
+      keyPairs.putIfAbsent(keyPair.getKeyId(), keyPair);
+    }
 
-    RSAKey rsaKey =
-        new RSAKey.Builder(keyPair.getPublicKey())
-            .privateKey(keyPair.getPrivateKey())
-            .keyID(keyPair.getKeyId())
-            .build();
+    List<JWK> keys = new ArrayList<>();
+    for (JwtKeyPair keyPair : keyPairs.values()) {
+      keys.add(toJwk(keyPair));
+    }
+    return new ImmutableJWKSet<>(new JWKSet(keys));
+  }
+
+  /** JWS algorithm names of the signing keys, the primary key's first. */
+  private List<String> signingAlgorithms() {
+    Set<String> algorithms = new LinkedHashSet<>();
+    algorithms.add(jwtKeyProvider.getKeyPair().getAlgorithm().name());
+    for (JwtKeyPair keyPair : jwtKeyProvider.getKeyPairs()) {
+      algorithms.add(keyPair.getAlgorithm().name());
+    }
+    return new ArrayList<>(algorithms);
+  }
 
-    JWKSet jwkSet = new JWKSet(rsaKey);
-    return new ImmutableJWKSet<>(jwkSet);
+  private static JWK toJwk(JwtKeyPair keyPair) {
+    return switch (keyPair.getAlgorithm()) {
+      case RS256 ->
+          new RSAKey.Builder((RSAPublicKey) keyPair.getPublicKey())
+              .privateKey(keyPair.getPrivateKey())
+              .keyID(keyPair.getKeyId())
+              .build();
+      case ES256 ->
+          new ECKey.Builder(Curve.P_256, (ECPublicKey) keyPair.getPublicKey())
+              .privateKey(keyPair.getPrivateKey())
+              .keyID(keyPair.getKeyId())
+              .build();
+    };
   }
 
   // JWT decoder for validating tokens
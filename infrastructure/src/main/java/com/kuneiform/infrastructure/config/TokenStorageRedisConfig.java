@@ -1,12 +1,18 @@
 package com.kuneiform.infrastructure.config;
 
+import com.kuneiform.infrastructure.adapter.RedisOAuth2AuthorizationServiceAdapter;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.nio.charset.StandardCharsets;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
 
@@ -17,12 +23,20 @@ public class TokenStorageRedisConfig {
 
   @Bean
   public RedisTemplate<String, OAuth2Authorization> redisAuthTemplate(
-      RedisConnectionFactory connectionFactory) {
+      RedisConnectionFactory connectionFactory, WedgeConfigProperties properties) {
+    WedgeConfigProperties.TokenRedisConfig redisConfig = properties.getTokenStorage().getRedis();
+    boolean writeJdk = "jdk".equalsIgnoreCase(redisConfig.getSerializer());
+    log.info(
+        "Redis token storage serializer: {} (compression threshold: {} bytes)",
+        writeJdk ? "jdk" : "binary",
+        redisConfig.getCompressionThreshold());
+
     RedisTemplate<String, OAuth2Authorization> template = new RedisTemplate<>();
     template.setConnectionFactory(connectionFactory);
     template.setKeySerializer(new StringRedisSerializer());
-    // Use JDK Serialization for OAuth2Authorization to handle exact object state safely
-    template.setValueSerializer(new JdkSerializationRedisSerializer());
+    // Compact binary codec; legacy JDK-serialized values remain readable during migration
+    template.setValueSerializer(
+        new OAuth2AuthorizationRedisSerializer(writeJdk, redisConfig.getCompressionThreshold()));
     template.afterPropertiesSet();
     return template;
   }
@@ -37,4 +51,27 @@ public class TokenStorageRedisConfig {
     template.afterPropertiesSet();
     return template;
   }
+
+  /** Subscribes the token store to the cross-node L1 invalidation channel. */
+  @Bean
+  @ConditionalOnExpression(
+      "${wedge.token-storage.redis.local-cache-invalidation:true}"
+          + " and !${wedge.token-storage.redis.client-side-caching:false}")
+  public RedisMessageListenerContainer tokenCacheInvalidationListenerContainer(
+      RedisConnectionFactory connectionFactory,
+      RedisOAuth2AuthorizationServiceAdapter authorizationService) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    // Apply messages on the subscription thread, in publish order, so sequence gaps are real
+    container.setTaskExecutor(new SyncTaskExecutor());
+    container.addMessageListener(
+        (message, pattern) ->
+            authorizationService.handleInvalidation(
+                new String(message.getBody(), StandardCharsets.UTF_8)),
+        new ChannelTopic(authorizationService.getInvalidationChannel()));
+    log.info(
+        "Subscribed to token L1 invalidation channel: {}",
+        authorizationService.getInvalidationChannel());
+    return container;
+  }
 }
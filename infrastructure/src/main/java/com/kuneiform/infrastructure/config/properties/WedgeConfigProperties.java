@@ -18,6 +18,10 @@ public class WedgeConfigProperties {
   private SessionConfig session = new SessionConfig();
   private OAuth2Config oauth2 = new OAuth2Config();
   private TokenStorageConfig tokenStorage = new TokenStorageConfig();
+  private RedisIndexSweeperConfig redisIndexSweeper = new RedisIndexSweeperConfig();
+  private UserProviderHttpConfig userProviderHttp = new UserProviderHttpConfig();
+  private UserProviderCacheConfig userProviderCache = new UserProviderCacheConfig();
+  private UserProviderBatchingConfig userProviderBatching = new UserProviderBatchingConfig();
   private JwtConfig jwt = new JwtConfig();
   private List<String> scopes =
       new ArrayList<>(
@@ -40,6 +44,7 @@ public class WedgeConfigProperties {
     private int timeout = 5000;
     private String mfaRegistrationEndpoint;
     private String scopesValidationEndpoint;
+    private String scopesBatchValidationEndpoint;
   }
 
   @Data
@@ -74,6 +79,8 @@ public class WedgeConfigProperties {
     private boolean requireAuthorizationConsent;
     private boolean requirePkce;
     private String tenantId;
+    // Token signing algorithm (RS256 or ES256); null uses wedge.jwt.signing-algorithm
+    private String tokenSigningAlgorithm;
 
     // Account page display metadata
     private String imageUrl;
@@ -115,6 +122,17 @@ public class WedgeConfigProperties {
     private String privateKeyPath;
     private String publicKeyPath;
     private String keyId;
+    // Default token signing algorithm (RS256 or ES256); clients can override it
+    private String signingAlgorithm = "RS256";
+    // Further key pairs loaded when key-type is 'file', at most one per signing algorithm
+    private List<KeyFileConfig> additionalKeys = new ArrayList<>();
+
+    @Data
+    public static class KeyFileConfig {
+      private String privateKeyPath;
+      private String publicKeyPath;
+      private String keyId;
+    }
   }
 
   @Data
@@ -134,7 +152,53 @@ public class WedgeConfigProperties {
     private String type = "in-memory";
     private long maxTtl = 2592000; // Max 30 days
     private int maxSize = 50000;
-    private RedisConfig redis = new RedisConfig();
+    private int maxAuthorizationsPerUser = 50; // devices/clients tracked per user for logout
+    private String indexMode = "on-heap"; // on-heap or off-heap token index (in-memory storage)
+    private TokenRedisConfig redis = new TokenRedisConfig();
+  }
+
+  /** Redis token storage settings; the connection is shared with {@code wedge.session.redis}. */
+  @Data
+  public static class TokenRedisConfig {
+    private String namespace = "wedge:oauth2:auth";
+    private String serializer = "binary"; // binary or jdk
+    private int compressionThreshold = 1024; // bytes, <= 0 disables
+    private long localCacheTtl = 300; // L1 TTL in seconds
+    private boolean localCacheInvalidation = true; // cross-node L1 pub/sub
+    private long localCacheInvalidationCheckMs = 10000; // missed-message check
+    private boolean clientSideCaching = false; // RESP3 CLIENT TRACKING instead of pub/sub
+    private boolean legacyIndexRead = true; // read pre-digest/pre-registry entries
+  }
+
+  @Data
+  public static class RedisIndexSweeperConfig {
+    private boolean enabled = true;
+    private long intervalMs = 300000; // 5 minutes between runs
+    private int batchSize = 200; // Keys per SCAN/SSCAN batch
+    private int maxKeysPerSecond = 1000; // Rate limit, pauses between batches
+  }
+
+  @Data
+  public static class UserProviderHttpConfig {
+    private boolean http2 = true; // Falls back to HTTP/1.1 if the provider does not support it
+    private int connectTimeoutMs = 2000; // Capped at the tenant's user provider timeout
+    private int maxConnections = 50; // Concurrent requests per tenant
+    private int maxResponseBytes = 1048576; // Larger response bodies are rejected
+  }
+
+  @Data
+  public static class UserProviderCacheConfig {
+    private boolean enabled = false;
+    private long ttlSeconds = 60; // User lookups and allowed scope validations
+    private long negativeTtlSeconds = 15; // Rejected (403) scope validations, 0 = not cached
+    private int maxSize = 10000; // Entries per tenant and cache
+  }
+
+  @Data
+  public static class UserProviderBatchingConfig {
+    private boolean enabled = false; // Credential checks go to {endpoint}/batch
+    private long maxWaitMs = 3; // How long the first check of a batch waits for others
+    private int maxBatchSize = 50; // A full batch is sent without waiting
   }
 
   @Data
@@ -50,6 +50,9 @@ public class OAuthClientEntity {
   @Column("tenant_id")
   private String tenantId;
 
+  @Column("token_signing_algorithm")
+  private String tokenSigningAlgorithm;
+
   // Account page display metadata
   @Column("image_url")
   private String imageUrl;
@@ -164,6 +167,14 @@ public class OAuthClientEntity {
     this.tenantId = tenantId;
   }
 
+  public String getTokenSigningAlgorithm() {
+    return tokenSigningAlgorithm;
+  }
+
+  public void setTokenSigningAlgorithm(String tokenSigningAlgorithm) {
+    this.tokenSigningAlgorithm = tokenSigningAlgorithm;
+  }
+
   public LocalDateTime getCreatedAt() {
     return createdAt;
   }
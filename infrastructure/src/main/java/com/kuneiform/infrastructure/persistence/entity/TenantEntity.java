@@ -29,6 +29,12 @@ public class TenantEntity implements Persistable<String> {
   @Column("mfa_registration_endpoint")
   private String mfaRegistrationEndpoint;
 
+  @Column("scopes_validation_endpoint")
+  private String scopesValidationEndpoint;
+
+  @Column("scopes_batch_validation_endpoint")
+  private String scopesBatchValidationEndpoint;
+
   @Column("created_at")
   private LocalDateTime createdAt;
 
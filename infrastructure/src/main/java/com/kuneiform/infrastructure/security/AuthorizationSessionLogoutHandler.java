@@ -0,0 +1,30 @@
+package com.kuneiform.infrastructure.security;
+
+import com.kuneiform.domain.port.SessionStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes the user's authorization sessions on logout, so codes issued during the session cannot
+ * be redeemed afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthorizationSessionLogoutHandler implements LogoutHandler {
+
+  private final SessionStorage sessionStorage;
+
+  @Override
+  public void logout(
+      HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+    String userId = LogoutPrincipals.userIdOf(authentication);
+    if (userId == null) {
+      return;
+    }
+    sessionStorage.deleteByUserId(userId);
+  }
+}
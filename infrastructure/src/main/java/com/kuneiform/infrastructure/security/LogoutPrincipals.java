@@ -0,0 +1,25 @@
+package com.kuneiform.infrastructure.security;
+
+import com.kuneiform.domain.model.User;
+import org.springframework.security.core.Authentication;
+
+/** Resolves whose state the logout handlers clean up. */
+final class LogoutPrincipals {
+
+  private LogoutPrincipals() {
+    // Utility class - prevent instantiation
+  }
+
+  /**
+   * Returns the user ID of the authenticated principal, or {@code null} when there is no
+   * authenticated principal to log out.
+   */
+  static String userIdOf(Authentication authentication) {
+    if (authentication == null || authentication.getPrincipal() == null) {
+      return null;
+    }
+    return authentication.getPrincipal() instanceof User user
+        ? user.getUserId()
+        : authentication.getName();
+  }
+}
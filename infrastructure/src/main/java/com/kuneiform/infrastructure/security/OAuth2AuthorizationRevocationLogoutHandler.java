@@ -65,6 +65,22 @@ public class OAuth2AuthorizationRevocationLogoutHandler implements LogoutHandler
 
     int revokedCount = 0;
 
+    // The in-memory store indexes every authorization of the user, so one lookup is enough
+    if (authorizationService instanceof InMemoryOAuth2AuthorizationServiceAdapter inMemoryService) {
+      for (OAuth2Authorization authorization : inMemoryService.findAllByUserId(userId)) {
+        log.debug(
+            "Revoking authorization: id={}, clientId={}",
+            authorization.getId(),
+            authorization.getRegisteredClientId());
+
+        authorizationService.remove(authorization);
+        revokedCount++;
+      }
+
+      logRevocationResult(revokedCount, userId);
+      return;
+    }
+
     // Find and revoke all authorizations for this user
     // Note: We loop to handle multiple authorizations per user (e.g., multiple
     // devices/clients)
@@ -83,6 +99,10 @@ public class OAuth2AuthorizationRevocationLogoutHandler implements LogoutHandler
       authorization = findAuthorizationByUserId(userId);
     }
 
+    logRevocationResult(revokedCount, userId);
+  }
+
+  private void logRevocationResult(int revokedCount, String userId) {
     if (revokedCount > 0) {
       log.info(
           "Successfully revoked {} OAuth2 authorization(s) for userId: {}", revokedCount, userId);
@@ -93,10 +113,7 @@ public class OAuth2AuthorizationRevocationLogoutHandler implements LogoutHandler
 
   /** Uses the custom findByUserId method available in our authorization service adapters. */
   private OAuth2Authorization findAuthorizationByUserId(String userId) {
-    if (authorizationService instanceof InMemoryOAuth2AuthorizationServiceAdapter) {
-      return ((InMemoryOAuth2AuthorizationServiceAdapter) authorizationService)
-          .findByUserId(userId);
-    } else if (authorizationService instanceof RedisOAuth2AuthorizationServiceAdapter) {
+    if (authorizationService instanceof RedisOAuth2AuthorizationServiceAdapter) {
       return ((RedisOAuth2AuthorizationServiceAdapter) authorizationService).findByUserId(userId);
     }
 
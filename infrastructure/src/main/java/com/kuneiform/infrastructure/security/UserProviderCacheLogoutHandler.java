@@ -0,0 +1,30 @@
+package com.kuneiform.infrastructure.security;
+
+import com.kuneiform.infrastructure.adapter.UserProviderCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the user's cached user provider answers on logout, so the next login sees the provider's
+ * current view of the user instead of one cached during the previous session.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserProviderCacheLogoutHandler implements LogoutHandler {
+
+  private final UserProviderCache userProviderCache;
+
+  @Override
+  public void logout(
+      HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+    String userId = LogoutPrincipals.userIdOf(authentication);
+    if (userId == null) {
+      return;
+    }
+    userProviderCache.invalidateUser(userId);
+  }
+}
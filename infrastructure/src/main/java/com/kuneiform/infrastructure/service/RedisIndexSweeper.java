@@ -0,0 +1,154 @@
+package com.kuneiform.infrastructure.service;
+
+import com.kuneiform.infrastructure.adapter.RedisOAuth2AuthorizationServiceAdapter;
+import com.kuneiform.infrastructure.adapter.RedisSessionStorageAdapter;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background sweeper for Redis secondary indexes that only expire as a whole.
+ *
+ * <p>Session {@code user:<userId>} sets keep authorization codes whose session key already expired
+ * (they are otherwise only pruned when the user lists sessions), and token store {@code
+ * index:principal:<userId>} keys can outlive their authorization. Each run walks the index keys
+ * with {@code SCAN} cursors in batches of {@code batch-size}, removes entries whose backing key is
+ * gone, and pauses between batches to stay under {@code max-keys-per-second}. It runs on the
+ * scheduler thread, never on request threads, and never uses {@code KEYS}.
+ *
+ * <p>Progress is exposed as {@code wedge.redis.index.sweep.keys} (tags {@code index}, {@code
+ * result=scanned|removed}), {@code wedge.redis.index.sweep.duration} and {@code
+ * wedge.redis.index.sweep.last.completed} (epoch seconds).
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression(
+    "${wedge.redis-index-sweeper.enabled:true}"
+        + " and ('${wedge.session.storage-type:in-memory}'.equals('redis')"
+        + " or '${wedge.token-storage.type:in-memory}'.equals('redis'))")
+public class RedisIndexSweeper {
+
+  static final String SESSION_USER_INDEX = "session-user";
+  static final String TOKEN_PRINCIPAL_INDEX = "token-principal";
+
+  private final WedgeConfigProperties config;
+  private final MeterRegistry meterRegistry;
+  private final ObjectProvider<RedisSessionStorageAdapter> sessionStorage;
+  private final ObjectProvider<RedisOAuth2AuthorizationServiceAdapter> authorizationService;
+  private final AtomicLong lastCompletedEpochSeconds = new AtomicLong();
+
+  public RedisIndexSweeper(
+      WedgeConfigProperties config,
+      MeterRegistry meterRegistry,
+      ObjectProvider<RedisSessionStorageAdapter> sessionStorage,
+      ObjectProvider<RedisOAuth2AuthorizationServiceAdapter> authorizationService) {
+    this.config = config;
+    this.meterRegistry = meterRegistry;
+    this.sessionStorage = sessionStorage;
+    this.authorizationService = authorizationService;
+    meterRegistry.gauge(
+        "wedge.redis.index.sweep.last.completed", lastCompletedEpochSeconds, AtomicLong::get);
+  }
+
+  @Scheduled(
+      initialDelayString = "${wedge.redis-index-sweeper.interval-ms:300000}",
+      fixedDelayString = "${wedge.redis-index-sweeper.interval-ms:300000}")
+  public void sweep() {
+    int batchSize = config.getRedisIndexSweeper().getBatchSize();
+
+    RedisSessionStorageAdapter sessions = sessionStorage.getIfAvailable();
+    if (sessions != null) {
+      sweepIndex(
+          SESSION_USER_INDEX,
+          sessions::scanUserIndexKeys,
+          keys -> sessions.removeStaleUserIndexMembers(keys, batchSize));
+    }
+
+    RedisOAuth2AuthorizationServiceAdapter authorizations = authorizationService.getIfAvailable();
+    if (authorizations != null) {
+      sweepIndex(
+          TOKEN_PRINCIPAL_INDEX,
+          authorizations::scanPrincipalIndexKeys,
+          authorizations::removeStalePrincipalIndexes);
+    }
+
+    lastCompletedEpochSeconds.set(System.currentTimeMillis() / 1000);
+  }
+
+  void sweepIndex(
+      String index, IntFunction<Cursor<String>> scanner, ToIntFunction<List<String>> cleaner) {
+    WedgeConfigProperties.RedisIndexSweeperConfig sweeperConfig = config.getRedisIndexSweeper();
+    int batchSize = sweeperConfig.getBatchSize();
+    long pauseMillis = batchSize * 1000L / Math.max(1, sweeperConfig.getMaxKeysPerSecond());
+
+    Counter scannedCounter = counter(index, "scanned");
+    Counter removedCounter = counter(index, "removed");
+    Timer.Sample sample = Timer.start(meterRegistry);
+    long scanned = 0;
+    long removed = 0;
+
+    try (Cursor<String> cursor = scanner.apply(batchSize)) {
+      List<String> batch = new ArrayList<>(batchSize);
+      while (cursor.hasNext()) {
+        batch.add(cursor.next());
+        if (batch.size() >= batchSize || !cursor.hasNext()) {
+          int batchRemoved = cleaner.applyAsInt(batch);
+          scanned += batch.size();
+          removed += batchRemoved;
+          scannedCounter.increment(batch.size());
+          removedCounter.increment(batchRemoved);
+          batch.clear();
+
+          if (cursor.hasNext() && !pause(pauseMillis)) {
+            break;
+          }
+        }
+      }
+      log.debug("Swept Redis index {}: scanned={}, removed={}", index, scanned, removed);
+    } catch (RuntimeException e) {
+      log.warn(
+          "Redis index sweep of {} failed after scanning {} keys: {}",
+          index,
+          scanned,
+          e.getMessage());
+    } finally {
+      sample.stop(
+          Timer.builder("wedge.redis.index.sweep.duration")
+              .tag("index", index)
+              .register(meterRegistry));
+    }
+  }
+
+  private Counter counter(String index, String result) {
+    return Counter.builder("wedge.redis.index.sweep.keys")
+        .tag("index", index)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /** Rate limit between batches; returns false if the thread was interrupted (shutdown). */
+  private static boolean pause(long millis) {
+    if (millis <= 0) {
+      return true;
+    }
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,247 @@
+package com.kuneiform.infrastructure.util;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link TokenIndex} whose hash table lives outside the Java heap, for single nodes holding
+ * millions of live tokens.
+ *
+ * <p>The table uses open addressing with linear probing in a {@link MemorySegment}. Each 24-byte
+ * entry holds the 128-bit token digest, the hash of the token type and a slot ID. Values sit in a
+ * flat slot array, so apart from that array the index adds no objects for the GC to trace, where
+ * the on-heap index keeps a key object and a map node per token.
+ *
+ * <p>Writers take an exclusive lock. Readers use an optimistic read and only fall back to a shared
+ * lock when they race a writer. Tables come from an automatic arena and are released by the GC
+ * after a resize replaces them, so a racing optimistic reader never touches freed memory.
+ */
+public final class OffHeapTokenIndex<V> implements TokenIndex<V> {
+
+  private static final long ENTRY_BYTES = 24;
+  private static final long DIGEST_HIGH_OFFSET = 0;
+  private static final long DIGEST_LOW_OFFSET = 8;
+  private static final long SLOT_OFFSET = 16;
+  private static final long TYPE_OFFSET = 20;
+
+  // Slot field: 0 = never used, -1 = removed, n > 0 = value in slot n - 1
+  private static final int EMPTY = 0;
+  private static final int TOMBSTONE = -1;
+
+  private static final double MAX_LOAD = 0.7;
+  private static final int MIN_CAPACITY = 16;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private final StampedLock lock = new StampedLock();
+  private final int initialCapacity;
+
+  private MemorySegment table;
+  private int occupied; // live entries + tombstones
+  private int size;
+
+  private Object[] values = new Object[MIN_CAPACITY];
+  private int[] freeSlots = new int[MIN_CAPACITY];
+  private int freeCount;
+  private int nextSlot;
+
+  /** Creates an index sized to hold {@code expectedEntries} without resizing. */
+  public OffHeapTokenIndex(int expectedEntries) {
+    this.initialCapacity = capacityFor(expectedEntries);
+    this.table = allocateTable(initialCapacity);
+  }
+
+  @Override
+  public void put(TokenDigest key, V value) {
+    long stamp = lock.writeLock();
+    try {
+      int index = find(table, key);
+      if (index >= 0) {
+        values[slotAt(table, index)] = value;
+        return;
+      }
+
+      if (occupied + 1 > capacityOf(table) * MAX_LOAD) {
+        rehash(size + 1);
+      }
+
+      int slot = allocateSlot();
+      values[slot] = value;
+      if (insert(table, key.high(), key.low(), key.tokenType().hashCode(), slot + 1)) {
+        occupied++;
+      }
+      size++;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public V get(TokenDigest key) {
+    long stamp = lock.tryOptimisticRead();
+    V value = lookup(key);
+    if (lock.validate(stamp)) {
+      return value;
+    }
+
+    stamp = lock.readLock();
+    try {
+      return lookup(key);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public void remove(TokenDigest key, V value) {
+    long stamp = lock.writeLock();
+    try {
+      int index = find(table, key);
+      if (index < 0) {
+        return;
+      }
+
+      int slot = slotAt(table, index);
+      if (values[slot] != value) {
+        return;
+      }
+
+      table.set(ValueLayout.JAVA_INT, index * ENTRY_BYTES + SLOT_OFFSET, TOMBSTONE);
+      values[slot] = null;
+      freeSlots[freeCount++] = slot;
+      size--;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public long size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private V lookup(TokenDigest key) {
+    // Read every field once: in optimistic mode they may change underneath, and a torn combination
+    // must stay in bounds until the stamp is validated
+    MemorySegment current = table;
+    Object[] currentValues = values;
+
+    int index = find(current, key);
+    if (index < 0) {
+      return null;
+    }
+    int slot = slotAt(current, index);
+    return slot >= 0 && slot < currentValues.length ? (V) currentValues[slot] : null;
+  }
+
+  /** Returns the entry index holding the key, or -1 if it is absent. */
+  private static int find(MemorySegment table, TokenDigest key) {
+    int mask = capacityOf(table) - 1;
+    int type = key.tokenType().hashCode();
+    int index = bucket(key.low(), type) & mask;
+    for (int probes = 0; probes <= mask; probes++) {
+      long offset = index * ENTRY_BYTES;
+      int slotField = table.get(ValueLayout.JAVA_INT, offset + SLOT_OFFSET);
+      if (slotField == EMPTY) {
+        return -1;
+      }
+      if (slotField != TOMBSTONE
+          && table.get(ValueLayout.JAVA_LONG, offset + DIGEST_LOW_OFFSET) == key.low()
+          && table.get(ValueLayout.JAVA_LONG, offset + DIGEST_HIGH_OFFSET) == key.high()
+          && table.get(ValueLayout.JAVA_INT, offset + TYPE_OFFSET) == type) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  /** Writes an entry into the first free position; returns true if it was never used before. */
+  private static boolean insert(
+      MemorySegment table, long high, long low, int type, int slotField) {
+    int mask = capacityOf(table) - 1;
+    int index = bucket(low, type) & mask;
+    while (true) {
+      long offset = index * ENTRY_BYTES;
+      int current = table.get(ValueLayout.JAVA_INT, offset + SLOT_OFFSET);
+      if (current == EMPTY || current == TOMBSTONE) {
+        table.set(ValueLayout.JAVA_LONG, offset + DIGEST_HIGH_OFFSET, high);
+        table.set(ValueLayout.JAVA_LONG, offset + DIGEST_LOW_OFFSET, low);
+        table.set(ValueLayout.JAVA_INT, offset + TYPE_OFFSET, type);
+        table.set(ValueLayout.JAVA_INT, offset + SLOT_OFFSET, slotField);
+        return current == EMPTY;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /** Moves live entries into a fresh table sized for {@code required} entries. */
+  private void rehash(int required) {
+    MemorySegment resized = allocateTable(Math.max(initialCapacity, capacityFor(required)));
+    int capacity = capacityOf(table);
+    for (int index = 0; index < capacity; index++) {
+      long offset = index * ENTRY_BYTES;
+      int slotField = table.get(ValueLayout.JAVA_INT, offset + SLOT_OFFSET);
+      if (slotField > 0) {
+        insert(
+            resized,
+            table.get(ValueLayout.JAVA_LONG, offset + DIGEST_HIGH_OFFSET),
+            table.get(ValueLayout.JAVA_LONG, offset + DIGEST_LOW_OFFSET),
+            table.get(ValueLayout.JAVA_INT, offset + TYPE_OFFSET),
+            slotField);
+      }
+    }
+    table = resized;
+    occupied = size;
+  }
+
+  private int allocateSlot() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    if (nextSlot == values.length) {
+      int grown = values.length * 2;
+      values = Arrays.copyOf(values, grown);
+      freeSlots = Arrays.copyOf(freeSlots, grown);
+    }
+    return nextSlot++;
+  }
+
+  private static int slotAt(MemorySegment table, int index) {
+    return table.get(ValueLayout.JAVA_INT, index * ENTRY_BYTES + SLOT_OFFSET) - 1;
+  }
+
+  private static int capacityOf(MemorySegment table) {
+    return (int) (table.byteSize() / ENTRY_BYTES);
+  }
+
+  private static int capacityFor(int entries) {
+    long needed = (long) Math.ceil(Math.max(entries, 1) / MAX_LOAD);
+    if (needed > MAX_CAPACITY) {
+      throw new IllegalStateException("Off-heap token index cannot hold " + entries + " entries");
+    }
+    int capacity = MIN_CAPACITY;
+    while (capacity < needed) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static MemorySegment allocateTable(int capacity) {
+    // Zero-filled, so every entry starts EMPTY
+    return Arena.ofAuto().allocate(capacity * ENTRY_BYTES, Long.BYTES);
+  }
+
+  private static int bucket(long low, int type) {
+    // Digest bits are already uniformly distributed
+    return Long.hashCode(low) ^ type;
+  }
+}
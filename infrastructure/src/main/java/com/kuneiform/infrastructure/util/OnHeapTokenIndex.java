@@ -0,0 +1,30 @@
+package com.kuneiform.infrastructure.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** {@link TokenIndex} backed by a {@link ConcurrentHashMap}. The default index mode. */
+public final class OnHeapTokenIndex<V> implements TokenIndex<V> {
+
+  private final Map<TokenDigest, V> entries = new ConcurrentHashMap<>();
+
+  @Override
+  public void put(TokenDigest key, V value) {
+    entries.put(key, value);
+  }
+
+  @Override
+  public V get(TokenDigest key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public void remove(TokenDigest key, V value) {
+    entries.computeIfPresent(key, (k, current) -> current == value ? null : current);
+  }
+
+  @Override
+  public long size() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,57 @@
+package com.kuneiform.infrastructure.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A token index key in binary form: the token type and the 128-bit truncated SHA-256 digest of the
+ * token value, as two longs.
+ *
+ * <p>Lookups against local indexes use this directly, with no key string to build. {@link
+ * #toIndexKey()} renders the same key as {@link TokenIndexKeys#hashed} for stores that need a
+ * string (Redis).
+ */
+public record TokenDigest(String tokenType, long high, long low) {
+
+  private static final byte[] BASE64_URL =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+          .getBytes(StandardCharsets.US_ASCII);
+  private static final int DIGEST_BYTES = 16;
+  private static final int ENCODED_CHARS = 22; // Base64url of 16 bytes, no padding
+
+  /** Returns the same digest tagged with another token type (the digest covers the value only). */
+  public TokenDigest withTokenType(String otherTokenType) {
+    return new TokenDigest(otherTokenType, high, low);
+  }
+
+  /** Returns {@code <token type>:<Base64url digest>}, built in a single buffer. */
+  public String toIndexKey() {
+    int typeLength = tokenType.length();
+    byte[] key = new byte[typeLength + 1 + ENCODED_CHARS];
+    for (int i = 0; i < typeLength; i++) {
+      key[i] = (byte) tokenType.charAt(i); // token types are ASCII
+    }
+    key[typeLength] = ':';
+
+    int out = typeLength + 1;
+    int in = 0;
+    // Five full 3-byte groups, then the 16th byte on its own (2 characters, no padding)
+    while (in + 3 <= DIGEST_BYTES) {
+      int group = (byteAt(in) << 16) | (byteAt(in + 1) << 8) | byteAt(in + 2);
+      key[out++] = BASE64_URL[(group >>> 18) & 0x3f];
+      key[out++] = BASE64_URL[(group >>> 12) & 0x3f];
+      key[out++] = BASE64_URL[(group >>> 6) & 0x3f];
+      key[out++] = BASE64_URL[group & 0x3f];
+      in += 3;
+    }
+    int last = byteAt(in);
+    key[out++] = BASE64_URL[last >>> 2];
+    key[out] = BASE64_URL[(last << 4) & 0x3f];
+
+    return new String(key, StandardCharsets.ISO_8859_1);
+  }
+
+  private int byteAt(int index) {
+    long word = index < 8 ? high : low;
+    return (int) (word >>> (56 - 8 * (index & 7))) & 0xff;
+  }
+}
@@ -0,0 +1,22 @@
+package com.kuneiform.infrastructure.util;
+
+/**
+ * Token index of the in-memory token store: maps a {@link TokenDigest} to the value that owns it.
+ *
+ * <p>Implementations are thread-safe. Removal is conditional on identity so an owner can only
+ * remove entries that still point to it, never entries a newer owner has taken over.
+ */
+public interface TokenIndex<V> {
+
+  /** Maps the key to the value, replacing any current mapping. */
+  void put(TokenDigest key, V value);
+
+  /** Returns the value mapped to the key, or null if there is none. */
+  V get(TokenDigest key);
+
+  /** Removes the mapping only if the key is still mapped to this exact value. */
+  void remove(TokenDigest key, V value);
+
+  /** Returns the number of live mappings. */
+  long size();
+}
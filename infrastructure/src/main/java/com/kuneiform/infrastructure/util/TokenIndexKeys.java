@@ -0,0 +1,74 @@
+package com.kuneiform.infrastructure.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Builds token index keys from a fixed-size digest of the token value instead of the value itself.
+ *
+ * <p>A self-contained access token can be 1-2 KB; indexing it verbatim stores the whole JWT as a
+ * map/Redis key. The key is {@code <token type>:<digest>} where the digest is SHA-256 truncated to
+ * 16 bytes and Base64url-encoded (22 characters). 128 bits keep accidental collisions negligible
+ * for any realistic number of live tokens.
+ *
+ * <p>{@link #digestOf} returns the key as a {@link TokenDigest} for lookups that do not need the
+ * string form.
+ */
+public final class TokenIndexKeys {
+
+  /**
+   * Token types probed, most frequent first, when a lookup comes without a type hint (token
+   * introspection always does).
+   */
+  public static final List<String> UNTYPED_LOOKUP_ORDER =
+      List.of("access_token", "refresh_token", "code", "state");
+
+  private static final MessageDigest SHA_256_PROTOTYPE = createDigest();
+
+  private TokenIndexKeys() {
+    // Utility class - prevent instantiation
+  }
+
+  /** Returns the hashed index key for a token of the given type. */
+  public static String hashed(String tokenTypeValue, String tokenValue) {
+    return digestOf(tokenTypeValue, tokenValue).toIndexKey();
+  }
+
+  /** Returns the index key of a token of the given type in binary form. */
+  public static TokenDigest digestOf(String tokenTypeValue, String tokenValue) {
+    byte[] hash = newDigest().digest(tokenValue.getBytes(StandardCharsets.UTF_8));
+    return new TokenDigest(tokenTypeValue, readLong(hash, 0), readLong(hash, 8));
+  }
+
+  /** Returns the pre-digest index key, which stores the full token value. */
+  public static String legacy(String tokenTypeValue, String tokenValue) {
+    return tokenTypeValue + ":" + tokenValue;
+  }
+
+  private static long readLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      value = (value << 8) | (bytes[offset + i] & 0xff);
+    }
+    return value;
+  }
+
+  private static MessageDigest newDigest() {
+    // Cloning skips the provider lookup of MessageDigest.getInstance on every call
+    try {
+      return (MessageDigest) SHA_256_PROTOTYPE.clone();
+    } catch (CloneNotSupportedException e) {
+      return createDigest();
+    }
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,7 @@
+-- MySQL Migration: Add batch scopes validation endpoint to tenants table
+-- When set, the authorization server calls this endpoint instead of the scopes validation
+-- endpoint and receives the allowed subset of the requested scopes.
+
+ALTER TABLE tenants 
+ADD COLUMN scopes_batch_validation_endpoint VARCHAR(500) COMMENT 
+'URL template for batch scopes validation endpoint. Placeholder {userId} will be replaced with actual user ID. Example: http://localhost:8080/api/v1/users/{userId}/scopes/decision';
@@ -0,0 +1,3 @@
+-- Add token_signing_algorithm to oauth_clients table (RS256 or ES256, NULL uses the server default)
+ALTER TABLE oauth_clients
+ADD COLUMN token_signing_algorithm VARCHAR(10);
@@ -0,0 +1,13 @@
+-- SQL Server Migration: Add batch scopes validation endpoint to tenants table
+-- When set, the authorization server calls this endpoint instead of the scopes validation
+-- endpoint and receives the allowed subset of the requested scopes.
+
+ALTER TABLE tenants 
+ADD scopes_batch_validation_endpoint VARCHAR(500);
+
+EXEC sp_addextendedproperty 
+    @name = N'MS_Description', 
+    @value = N'URL template for batch scopes validation endpoint. Placeholder {userId} will be replaced with actual user ID. Example: http://localhost:8080/api/v1/users/{userId}/scopes/decision',
+    @level0type = N'SCHEMA', @level0name = N'dbo',
+    @level1type = N'TABLE',  @level1name = N'tenants',
+    @level2type = N'COLUMN', @level2name = N'scopes_batch_validation_endpoint';
@@ -0,0 +1,122 @@
+package com.kuneiform.infrastructure.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.kuneiform.domain.model.OAuthClient;
+import com.kuneiform.domain.model.Tenant;
+import com.kuneiform.domain.model.UserProvider;
+import com.kuneiform.domain.port.ClientRepository;
+import com.kuneiform.domain.port.TenantRepository;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.security.TenantContext;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ClientContextResolverTest {
+
+  @Mock private ClientRepository clientRepository;
+  @Mock private TenantRepository tenantRepository;
+
+  private WedgeConfigProperties config;
+  private ClientContextResolver resolver;
+
+  private final UserProvider userProvider =
+      UserProvider.builder().endpoint("http://localhost:8081/api/users").timeout(5000).build();
+  private final Tenant tenant =
+      Tenant.builder().id("tenant-a").name("Tenant A").userProvider(userProvider).build();
+  private final OAuthClient client =
+      OAuthClient.builder().clientId("client-a").tenantId("tenant-a").build();
+
+  @BeforeEach
+  void setUp() {
+    config = new WedgeConfigProperties();
+    resolver = new ClientContextResolver(clientRepository, tenantRepository, config);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TenantContext.clear();
+  }
+
+  @Test
+  void shouldResolveFromSnapshotWithoutRepositoryCalls() {
+    when(tenantRepository.findAll()).thenReturn(List.of(tenant));
+    when(clientRepository.findAll()).thenReturn(List.of(client));
+    resolver.refresh();
+
+    Optional<ResolvedClientContext> context = resolver.resolve("client-a");
+    Optional<Tenant> byTenantId = resolver.resolveTenant("client-a", "tenant-a");
+
+    assertThat(context).isPresent();
+    assertThat(context.get().client()).isEqualTo(client);
+    assertThat(context.get().tenant()).isEqualTo(tenant);
+    assertThat(context.get().userProvider()).isEqualTo(userProvider);
+    assertThat(byTenantId).contains(tenant);
+    verify(tenantRepository).findAll();
+    verify(clientRepository).findAll();
+    verifyNoMoreInteractions(clientRepository, tenantRepository);
+  }
+
+  @Test
+  void shouldFallBackToRepositoriesForUnknownClient() {
+    when(tenantRepository.findAll()).thenReturn(List.of());
+    when(clientRepository.findAll()).thenReturn(List.of());
+    resolver.refresh();
+    when(clientRepository.findByClientId("client-a")).thenReturn(Optional.of(client));
+    when(tenantRepository.findById("tenant-a")).thenReturn(Optional.of(tenant));
+
+    Optional<ResolvedClientContext> context = resolver.resolve("client-a");
+
+    assertThat(context).isPresent();
+    assertThat(context.get().tenant()).isEqualTo(tenant);
+  }
+
+  @Test
+  void shouldSkipTenantsWithoutUserProvider() {
+    Tenant bare = Tenant.builder().id("tenant-a").name("Tenant A").build();
+    when(tenantRepository.findAll()).thenReturn(List.of(bare));
+    when(clientRepository.findAll()).thenReturn(List.of(client));
+    resolver.refresh();
+    when(clientRepository.findByClientId("client-a")).thenReturn(Optional.of(client));
+    when(tenantRepository.findById("tenant-a")).thenReturn(Optional.of(bare));
+
+    assertThat(resolver.resolve("client-a")).isEmpty();
+  }
+
+  @Test
+  void shouldHideClientOutsideCurrentTenant() {
+    config.getMultiTenancy().setEnabled(true);
+    when(tenantRepository.findAll()).thenReturn(List.of(tenant));
+    when(clientRepository.findAll()).thenReturn(List.of(client));
+    resolver.refresh();
+
+    TenantContext.setCurrentTenant("tenant-b");
+    assertThat(resolver.resolve("client-a")).isEmpty();
+
+    TenantContext.setCurrentTenant("tenant-a");
+    assertThat(resolver.resolve("client-a")).isPresent();
+  }
+
+  @Test
+  void shouldRebuildOnClientRegistrationsChanged() {
+    when(tenantRepository.findAll()).thenReturn(List.of(tenant));
+    when(clientRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(client));
+    resolver.refresh();
+
+    resolver.onClientRegistrationsChanged(new ClientRegistrationsChangedEvent("client-a"));
+
+    assertThat(resolver.resolve("client-a")).isPresent();
+    verify(clientRepository, times(2)).findAll();
+  }
+}
@@ -18,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +29,7 @@ class DatabaseClientRepositoryAdapterTest {
   @Mock private TenantClientPort tenantClientPort;
   @Mock private WedgeConfigProperties properties;
   @Mock private WedgeConfigProperties.MultiTenancyConfig multiTenancyConfig;
+  @Mock private ApplicationEventPublisher eventPublisher;
 
   private DatabaseClientRepositoryAdapter adapter;
   private MockedStatic<TenantContext> tenantContextMock;
@@ -45,7 +47,7 @@ class DatabaseClientRepositoryAdapterTest {
 
     adapter =
         new DatabaseClientRepositoryAdapter(
-            repository, passwordEncoder, tenantClientPort, properties);
+            repository, passwordEncoder, tenantClientPort, properties, eventPublisher);
   }
 
   @AfterEach
@@ -61,7 +63,7 @@ class DatabaseClientRepositoryAdapterTest {
 
     adapter =
         new DatabaseClientRepositoryAdapter(
-            repository, passwordEncoder, tenantClientPort, properties);
+            repository, passwordEncoder, tenantClientPort, properties, eventPublisher);
 
     // When
     Optional<OAuthClient> result = adapter.findByClientId("client-1");
@@ -197,13 +199,14 @@ class DatabaseClientRepositoryAdapterTest {
     // Re-init to load cache
     adapter =
         new DatabaseClientRepositoryAdapter(
-            repository, passwordEncoder, tenantClientPort, properties);
+            repository, passwordEncoder, tenantClientPort, properties, eventPublisher);
 
     // When
     adapter.deleteByClientId("client-to-delete");
 
     // Then
     verify(repository).deleteByClientId("client-to-delete");
+    verify(eventPublisher).publishEvent(new ClientRegistrationsChangedEvent("client-to-delete"));
 
     // Verify removed from cache (should fallback to DB, mock DB empty)
     when(repository.findByClientId("client-to-delete")).thenReturn(Optional.empty());
@@ -219,7 +222,7 @@ class DatabaseClientRepositoryAdapterTest {
     when(repository.findAll()).thenReturn(Collections.emptyList());
     adapter =
         new DatabaseClientRepositoryAdapter(
-            repository, passwordEncoder, tenantClientPort, properties);
+            repository, passwordEncoder, tenantClientPort, properties, eventPublisher);
 
     // Setup Context
     tenantContextMock.when(TenantContext::hasTenant).thenReturn(true);
@@ -3,13 +3,16 @@ package com.kuneiform.infrastructure.adapter;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.kuneiform.domain.model.JwtKeyPair;
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.security.spec.ECGenParameterSpec;
 import java.util.Base64;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -181,4 +184,87 @@ class FileJwtKeyProviderAdapterTest {
         exception.getMessage().contains("Failed to load JWT key pair from files"),
         "Exception message should indicate failure to load keys");
   }
+
+  @Test
+  void shouldLoadEcKeyPairAsEs256() throws Exception {
+    // Given
+    KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+    keyGen.initialize(new ECGenParameterSpec("secp256r1"));
+    KeyPair ecKeyPair = keyGen.generateKeyPair();
+    Path ecPrivateKeyFile = writePem(tempDir.resolve("ec_private.pem"), "PRIVATE", ecKeyPair);
+    Path ecPublicKeyFile = writePem(tempDir.resolve("ec_public.pem"), "PUBLIC", ecKeyPair);
+
+    try {
+      // When
+      FileJwtKeyProviderAdapter adapter =
+          new FileJwtKeyProviderAdapter(
+              ecPrivateKeyFile.toString(), ecPublicKeyFile.toString(), "ec-key");
+
+      // Then
+      assertEquals(JwtSigningAlgorithm.ES256, adapter.getKeyPair().getAlgorithm());
+      assertEquals(ecKeyPair.getPublic(), adapter.getKeyPair().getPublicKey());
+    } finally {
+      Files.delete(ecPrivateKeyFile);
+      Files.delete(ecPublicKeyFile);
+    }
+  }
+
+  @Test
+  void shouldLoadAdditionalKeyPairsAfterPrimary() throws Exception {
+    // Given
+    KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EC");
+    keyGen.initialize(new ECGenParameterSpec("secp256r1"));
+    KeyPair ecKeyPair = keyGen.generateKeyPair();
+    Path ecPrivateKeyFile = writePem(tempDir.resolve("ec_private.pem"), "PRIVATE", ecKeyPair);
+    Path ecPublicKeyFile = writePem(tempDir.resolve("ec_public.pem"), "PUBLIC", ecKeyPair);
+
+    try {
+      // When
+      FileJwtKeyProviderAdapter adapter =
+          new FileJwtKeyProviderAdapter(
+              List.of(
+                  new FileJwtKeyProviderAdapter.KeyFiles(
+                      privateKeyFile.toString(), publicKeyFile.toString(), "rsa-key"),
+                  new FileJwtKeyProviderAdapter.KeyFiles(
+                      ecPrivateKeyFile.toString(), ecPublicKeyFile.toString(), "ec-key")));
+
+      // Then
+      List<JwtKeyPair> keyPairs = adapter.getKeyPairs();
+      assertEquals(2, keyPairs.size());
+      assertEquals("rsa-key", adapter.getKeyPair().getKeyId());
+      assertEquals(JwtSigningAlgorithm.RS256, keyPairs.get(0).getAlgorithm());
+      assertEquals(JwtSigningAlgorithm.ES256, keyPairs.get(1).getAlgorithm());
+    } finally {
+      Files.delete(ecPrivateKeyFile);
+      Files.delete(ecPublicKeyFile);
+    }
+  }
+
+  @Test
+  void shouldRejectTwoKeyPairsWithSameAlgorithm() {
+    FileJwtKeyProviderAdapter.KeyFiles rsaKey =
+        new FileJwtKeyProviderAdapter.KeyFiles(
+            privateKeyFile.toString(), publicKeyFile.toString(), "rsa-key");
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> new FileJwtKeyProviderAdapter(List.of(rsaKey, rsaKey)));
+  }
+
+  private Path writePem(Path file, String type, KeyPair keyPair) throws IOException {
+    byte[] encoded =
+        "PRIVATE".equals(type)
+            ? keyPair.getPrivate().getEncoded()
+            : keyPair.getPublic().getEncoded();
+    Files.writeString(
+        file,
+        "-----BEGIN "
+            + type
+            + " KEY-----\n"
+            + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(encoded)
+            + "\n-----END "
+            + type
+            + " KEY-----\n");
+    return file;
+  }
 }
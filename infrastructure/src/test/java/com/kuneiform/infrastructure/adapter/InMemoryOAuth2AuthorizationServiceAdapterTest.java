@@ -1,6 +1,7 @@
 package com.kuneiform.infrastructure.adapter;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -8,10 +9,12 @@ import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties.TokenStorageConfig;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
 import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
 import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
@@ -20,16 +23,19 @@ class InMemoryOAuth2AuthorizationServiceAdapterTest {
 
   private InMemoryOAuth2AuthorizationServiceAdapter service;
   private WedgeConfigProperties config;
+  private TokenStorageConfig tokenStorageConfig;
   private RegisteredClient registeredClient;
 
   @BeforeEach
   void setUp() {
     config = mock(WedgeConfigProperties.class);
-    TokenStorageConfig tokenStorageConfig = mock(TokenStorageConfig.class);
+    tokenStorageConfig = mock(TokenStorageConfig.class);
 
     when(config.getTokenStorage()).thenReturn(tokenStorageConfig);
     when(tokenStorageConfig.getMaxTtl()).thenReturn(3600L); // 1 hour
     when(tokenStorageConfig.getMaxSize()).thenReturn(100);
+    when(tokenStorageConfig.getMaxAuthorizationsPerUser()).thenReturn(3);
+    when(tokenStorageConfig.getIndexMode()).thenReturn("on-heap");
 
     service = new InMemoryOAuth2AuthorizationServiceAdapter(config);
     service.init();
@@ -84,6 +90,20 @@ class InMemoryOAuth2AuthorizationServiceAdapterTest {
     assertThat(result.getId()).isEqualTo("auth-1");
   }
 
+  @Test
+  void findByToken_shouldProbeEveryTypeWithoutTypeHint() {
+    service.save(
+        OAuth2Authorization.from(authorizationFor("user-1", "auth-1"))
+            .refreshToken(refreshToken("refresh-1"))
+            .build());
+
+    OAuth2Authorization result = service.findByToken("refresh-1", null);
+
+    assertThat(result).isNotNull();
+    assertThat(result.getId()).isEqualTo("auth-1");
+    assertThat(service.findByToken("unknown", null)).isNull();
+  }
+
   @Test
   void remove() {
     OAuth2Authorization authorization =
@@ -149,4 +169,161 @@ class InMemoryOAuth2AuthorizationServiceAdapterTest {
     // Verify it's no longer findable by userId
     assertThat(service.findByUserId("user-456")).isNull();
   }
+
+  @Test
+  void findAllByUserId_shouldReturnEveryAuthorizationOfUser() {
+    service.save(authorizationFor("user-multi", "auth-phone"));
+    service.save(authorizationFor("user-multi", "auth-laptop"));
+    service.save(authorizationFor("other-user", "auth-other"));
+
+    List<OAuth2Authorization> result = service.findAllByUserId("user-multi");
+
+    assertThat(result)
+        .extracting(OAuth2Authorization::getId)
+        .containsExactly("auth-phone", "auth-laptop");
+    assertThat(service.findByUserId("user-multi").getId()).isEqualTo("auth-laptop");
+  }
+
+  @Test
+  void remove_shouldOnlyUnindexRemovedAuthorization() {
+    OAuth2Authorization phone = authorizationFor("user-multi", "auth-phone");
+    service.save(phone);
+    service.save(authorizationFor("user-multi", "auth-laptop"));
+
+    service.remove(phone);
+
+    assertThat(service.findAllByUserId("user-multi"))
+        .extracting(OAuth2Authorization::getId)
+        .containsExactly("auth-laptop");
+  }
+
+  @Test
+  void save_shouldBoundAuthorizationsPerUser() {
+    service.save(authorizationFor("user-busy", "auth-1"));
+    service.save(authorizationFor("user-busy", "auth-2"));
+    service.save(authorizationFor("user-busy", "auth-3"));
+    service.save(authorizationFor("user-busy", "auth-4"));
+
+    assertThat(service.findAllByUserId("user-busy"))
+        .extracting(OAuth2Authorization::getId)
+        .containsExactly("auth-2", "auth-3", "auth-4");
+  }
+
+  @Test
+  void findAllByUserId_shouldSkipExpiredAuthorizations() {
+    OAuth2AccessToken expiredToken =
+        new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER,
+            "expired-token",
+            Instant.now().minus(2, ChronoUnit.HOURS),
+            Instant.now().minus(1, ChronoUnit.HOURS));
+
+    service.save(
+        OAuth2Authorization.withRegisteredClient(registeredClient)
+            .principalName("user-expired")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .id("auth-expired")
+            .token(expiredToken)
+            .build());
+    service.save(authorizationFor("user-expired", "auth-valid"));
+
+    assertThat(service.findAllByUserId("user-expired"))
+        .extracting(OAuth2Authorization::getId)
+        .containsExactly("auth-valid");
+  }
+
+  @Test
+  void save_shouldDropIndexOfRotatedRefreshToken() {
+    OAuth2Authorization original =
+        OAuth2Authorization.from(authorizationFor("user-1", "auth-1"))
+            .refreshToken(refreshToken("refresh-old"))
+            .build();
+    service.save(original);
+
+    service.save(
+        OAuth2Authorization.from(original).refreshToken(refreshToken("refresh-new")).build());
+
+    assertThat(service.findByToken("refresh-old", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+    assertThat(service.findByToken("refresh-new", OAuth2TokenType.REFRESH_TOKEN))
+        .extracting(OAuth2Authorization::getId)
+        .isEqualTo("auth-1");
+  }
+
+  @Test
+  void remove_shouldClearTokenIndex() {
+    OAuth2Authorization authorization =
+        OAuth2Authorization.from(authorizationFor("user-1", "auth-1"))
+            .refreshToken(refreshToken("refresh-1"))
+            .build();
+    service.save(authorization);
+
+    service.remove(authorization);
+
+    assertThat(service.findByToken("refresh-1", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+    assertThat(service.getStats()).endsWith("Indexes: 0");
+  }
+
+  @Test
+  void findByToken_shouldNotReturnExpiredAuthorization() {
+    OAuth2AccessToken expiredToken =
+        new OAuth2AccessToken(
+            OAuth2AccessToken.TokenType.BEARER,
+            "expired-token",
+            Instant.now().minus(2, ChronoUnit.HOURS),
+            Instant.now().minus(1, ChronoUnit.HOURS));
+
+    service.save(
+        OAuth2Authorization.from(authorizationFor("user-1", "auth-expired"))
+            .token(expiredToken)
+            .build());
+
+    assertThat(service.findByToken("expired-token", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+  }
+
+  @Test
+  void offHeapIndexMode_shouldFindAndRotateTokens() {
+    when(tokenStorageConfig.getIndexMode()).thenReturn("off-heap");
+    service = new InMemoryOAuth2AuthorizationServiceAdapter(config);
+    service.init();
+
+    OAuth2Authorization original =
+        OAuth2Authorization.from(authorizationFor("user-1", "auth-1"))
+            .refreshToken(refreshToken("refresh-old"))
+            .build();
+    service.save(original);
+    service.save(
+        OAuth2Authorization.from(original).refreshToken(refreshToken("refresh-new")).build());
+
+    assertThat(service.findByToken("refresh-old", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+    assertThat(service.findByToken("refresh-new", OAuth2TokenType.REFRESH_TOKEN))
+        .extracting(OAuth2Authorization::getId)
+        .isEqualTo("auth-1");
+
+    service.remove(service.findById("auth-1"));
+
+    assertThat(service.findByToken("refresh-new", OAuth2TokenType.REFRESH_TOKEN)).isNull();
+  }
+
+  @Test
+  void init_shouldRejectUnknownIndexMode() {
+    when(tokenStorageConfig.getIndexMode()).thenReturn("disk");
+    InMemoryOAuth2AuthorizationServiceAdapter adapter =
+        new InMemoryOAuth2AuthorizationServiceAdapter(config);
+
+    assertThatThrownBy(adapter::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("index-mode");
+  }
+
+  private OAuth2RefreshToken refreshToken(String value) {
+    return new OAuth2RefreshToken(value, Instant.now(), Instant.now().plus(1, ChronoUnit.DAYS));
+  }
+
+  private OAuth2Authorization authorizationFor(String userId, String authId) {
+    return OAuth2Authorization.withRegisteredClient(registeredClient)
+        .principalName(userId)
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .id(authId)
+        .build();
+  }
 }
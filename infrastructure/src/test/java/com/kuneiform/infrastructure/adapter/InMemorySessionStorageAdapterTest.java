@@ -1,11 +1,13 @@
 package com.kuneiform.infrastructure.adapter;
 
+import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.kuneiform.domain.model.AuthorizationSession;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
@@ -203,4 +205,86 @@ class InMemorySessionStorageAdapterTest {
     // Session should be cleaned up
     assertTrue(shortTtlAdapter.findByAuthorizationCode("code-cleanup").isEmpty());
   }
+
+  @Test
+  void shouldFindSessionsByUserIdFromIndex() {
+    adapter.save(createSession("code-1", "user-a"));
+    adapter.save(createSession("code-2", "user-a"));
+    adapter.save(createSession("code-3", "user-b"));
+
+    List<AuthorizationSession> sessions = adapter.findByUserId("user-a");
+
+    assertEquals(
+        Set.of("code-1", "code-2"),
+        sessions.stream().map(AuthorizationSession::getAuthorizationCode).collect(toSet()));
+    assertTrue(adapter.findByUserId("user-c").isEmpty());
+  }
+
+  @Test
+  void shouldDropCodeFromUserIndexOnDelete() {
+    adapter.save(createSession("code-1", "user-a"));
+    adapter.save(createSession("code-2", "user-a"));
+
+    adapter.deleteByAuthorizationCode("code-1");
+
+    List<AuthorizationSession> sessions = adapter.findByUserId("user-a");
+    assertEquals(1, sessions.size());
+    assertEquals("code-2", sessions.get(0).getAuthorizationCode());
+  }
+
+  @Test
+  void shouldKeepIndexEntryWhenSessionIsReplacedBySameUser() {
+    adapter.save(createSession("code-1", "user-a"));
+    adapter.save(createSession("code-1", "user-a"));
+
+    assertEquals(1, adapter.findByUserId("user-a").size());
+  }
+
+  @Test
+  void shouldMoveIndexEntryWhenCodeIsReusedByAnotherUser() {
+    adapter.save(createSession("code-1", "user-a"));
+    adapter.save(createSession("code-1", "user-b"));
+
+    assertTrue(adapter.findByUserId("user-a").isEmpty());
+    assertEquals(1, adapter.findByUserId("user-b").size());
+  }
+
+  @Test
+  void shouldDeleteAllSessionsOfUser() {
+    adapter.save(createSession("code-1", "user-a"));
+    adapter.save(createSession("code-2", "user-a"));
+    adapter.save(createSession("code-3", "user-b"));
+
+    adapter.deleteByUserId("user-a");
+
+    assertTrue(adapter.findByAuthorizationCode("code-1").isEmpty());
+    assertTrue(adapter.findByAuthorizationCode("code-2").isEmpty());
+    assertTrue(adapter.findByUserId("user-a").isEmpty());
+    assertTrue(adapter.findByAuthorizationCode("code-3").isPresent());
+  }
+
+  @Test
+  void shouldConsumeSessionOnlyOnce() {
+    adapter.save(createSession("code-1", "user-a"));
+
+    Optional<AuthorizationSession> first = adapter.consume("code-1");
+    Optional<AuthorizationSession> second = adapter.consume("code-1");
+
+    assertTrue(first.isPresent());
+    assertTrue(second.isEmpty());
+    assertTrue(adapter.findByAuthorizationCode("code-1").isEmpty());
+    assertTrue(adapter.findByUserId("user-a").isEmpty());
+  }
+
+  private AuthorizationSession createSession(String authorizationCode, String userId) {
+    return AuthorizationSession.builder()
+        .authorizationCode(authorizationCode)
+        .userId(userId)
+        .clientId("client-123")
+        .authorizedScopes(Set.of("openid"))
+        .redirectUri("http://localhost:3000/callback")
+        .createdAt(Instant.now())
+        .expiresAt(Instant.now().plusSeconds(600))
+        .build();
+  }
 }
@@ -2,6 +2,8 @@ package com.kuneiform.infrastructure.adapter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
@@ -12,17 +14,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 class InMemoryTenantClientAdapterTest {
 
   @Mock private WedgeConfigProperties wedgeConfig;
+  @Mock private ApplicationEventPublisher eventPublisher;
 
   private InMemoryTenantClientAdapter adapter;
 
   @BeforeEach
   void setUp() {
-    adapter = new InMemoryTenantClientAdapter(wedgeConfig);
+    adapter = new InMemoryTenantClientAdapter(wedgeConfig, eventPublisher);
   }
 
   @Test
@@ -69,5 +73,8 @@ class InMemoryTenantClientAdapterTest {
     adapter.removeClientFromTenant(tenantId, clientId);
     assertThat(adapter.isClientInTenant(tenantId, clientId)).isFalse();
     assertThat(adapter.getClientIdsForTenant(tenantId)).isEmpty();
+
+    // Both changes rebuild the resolved client contexts
+    verify(eventPublisher, times(2)).publishEvent(new ClientRegistrationsChangedEvent(clientId));
   }
 }
@@ -2,10 +2,12 @@ package com.kuneiform.infrastructure.adapter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -47,24 +49,16 @@ class OAuth2AuthorizationRevocationAdapterTest {
   void shouldRevokeByUserId() {
     String userId = "user-1";
     OAuth2Authorization auth1 = mock(OAuth2Authorization.class);
-    OAuth2Authorization auth2 =
-        mock(
-            OAuth2Authorization
-                .class); // Mock expects only one per findByUserId in current impl but list handling
-    // is generic
+    OAuth2Authorization auth2 = mock(OAuth2Authorization.class);
 
-    // The adapter calls findByUserId which currently returns a SINGLE authorization in InMemory
-    // adapter
-    // But the Revocation adapter handles it as a list if findAuthorizationsByUserId is called
-    // Wait, let's check the adapter code again.
-    // findAuthorizationsByUserId calls authorizationService.findByUserId(userId) and adds to list.
-
-    when(authorizationService.findByUserId(userId)).thenReturn(auth1);
+    // The in-memory adapter returns every authorization of the user in one lookup
+    when(authorizationService.findAllByUserId(userId)).thenReturn(List.of(auth1, auth2));
 
     int count = adapter.revokeByUserId(userId);
 
-    assertThat(count).isEqualTo(1);
+    assertThat(count).isEqualTo(2);
     verify(authorizationService).remove(auth1);
+    verify(authorizationService).remove(auth2);
   }
 
   @Test
@@ -76,12 +70,15 @@ class OAuth2AuthorizationRevocationAdapterTest {
     when(auth1.getId()).thenReturn("auth1");
     when(auth1.getRegisteredClientId()).thenReturn(clientId);
 
-    // In current InMemory implementation, it returns only one auth.
-    when(authorizationService.findByUserId(userId)).thenReturn(auth1);
+    OAuth2Authorization auth2 = mock(OAuth2Authorization.class);
+    when(auth2.getRegisteredClientId()).thenReturn("client-B");
+
+    when(authorizationService.findAllByUserId(userId)).thenReturn(List.of(auth1, auth2));
 
     int count = adapter.revokeByUserAndClient(userId, clientId);
 
     assertThat(count).isEqualTo(1);
     verify(authorizationService).remove(auth1);
+    verify(authorizationService, never()).remove(auth2);
   }
 }
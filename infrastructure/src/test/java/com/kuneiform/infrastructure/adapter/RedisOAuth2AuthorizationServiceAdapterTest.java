@@ -2,38 +2,58 @@ package com.kuneiform.infrastructure.adapter;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
-import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties.RedisConfig;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties.TokenRedisConfig;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties.TokenStorageConfig;
-import java.time.Duration;
+import com.kuneiform.infrastructure.util.TokenIndexKeys;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
 import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
 import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
 
 @ExtendWith(MockitoExtension.class)
 class RedisOAuth2AuthorizationServiceAdapterTest {
 
+  private static final String ACCESS_TOKEN_INDEX =
+      TokenIndexKeys.hashed("access_token", "access-token-val");
+
   @Mock private WedgeConfigProperties config;
   @Mock private RedisConnectionFactory redisConnectionFactory;
   @Mock private RedisTemplate<String, OAuth2Authorization> redisAuthTemplate;
   @Mock private RedisTemplate<String, String> redisIndexTemplate;
   @Mock private ValueOperations<String, OAuth2Authorization> authValueOps;
   @Mock private ValueOperations<String, String> indexValueOps;
+  @Mock private RedisSerializer<OAuth2Authorization> authSerializer;
+  @Mock private TokenRedisConfig redisConfig;
+  @Captor private ArgumentCaptor<List<String>> scriptKeysCaptor;
+  @Captor private ArgumentCaptor<Collection<String>> deletedKeysCaptor;
 
   private RedisOAuth2AuthorizationServiceAdapter adapter;
 
@@ -41,7 +61,6 @@ class RedisOAuth2AuthorizationServiceAdapterTest {
   void setUp() {
     // Setup generic config mocks
     TokenStorageConfig tokenStorageConfig = mock(TokenStorageConfig.class);
-    RedisConfig redisConfig = mock(RedisConfig.class);
     when(config.getTokenStorage()).thenReturn(tokenStorageConfig);
     when(tokenStorageConfig.getMaxTtl()).thenReturn(3600L);
     when(tokenStorageConfig.getMaxSize()).thenReturn(100);
@@ -49,8 +68,11 @@ class RedisOAuth2AuthorizationServiceAdapterTest {
     when(redisConfig.getNamespace()).thenReturn("wedge:test");
 
     // Mock Redis ops
-    org.mockito.Mockito.lenient().doReturn(authValueOps).when(redisAuthTemplate).opsForValue();
-    org.mockito.Mockito.lenient().doReturn(indexValueOps).when(redisIndexTemplate).opsForValue();
+    lenient().doReturn(authValueOps).when(redisAuthTemplate).opsForValue();
+    lenient().doReturn(indexValueOps).when(redisIndexTemplate).opsForValue();
+    lenient().doReturn(authSerializer).when(redisAuthTemplate).getValueSerializer();
+    // Authorizations written by this version have an index registry
+    lenient().doReturn(true).when(redisIndexTemplate).hasKey(any());
 
     // Use constructor injection directly, which matches the @RequiredArgsConstructor with final
     // fields
@@ -89,17 +111,33 @@ class RedisOAuth2AuthorizationServiceAdapterTest {
             .id("auth-1")
             .build();
 
+    when(authSerializer.serialize(authorization)).thenReturn(new byte[] {1, 2, 3});
+
     adapter.save(authorization);
 
-    // Verify L2 write
-    verify(authValueOps).set(eq("wedge:test:auth:auth-1"), eq(authorization), any(Duration.class));
+    // Verify a single L2 round trip writes the authorization, its index registry, the principal
+    // index and the access token index
+    verify(redisIndexTemplate)
+        .execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            scriptKeysCaptor.capture(),
+            any(Object[].class));
+    assertThat(scriptKeysCaptor.getValue())
+        .containsExactly(
+            "wedge:test:auth:auth-1",
+            "wedge:test:auth-indexes:auth-1",
+            "wedge:test:l1-invalidation:seq",
+            "wedge:test:index:" + ACCESS_TOKEN_INDEX,
+            "wedge:test:index:principal:user-1");
+    verify(authValueOps, never()).get(any());
 
-    // Verify Index write (access token)
-    verify(indexValueOps)
-        .set(
-            eq("wedge:test:index:access_token:access-token-val"),
-            eq("auth-1"),
-            any(Duration.class));
+    // Verify L1 is populated (no further Redis reads)
+    assertThat(adapter.findById("auth-1")).isEqualTo(authorization);
+    assertThat(adapter.findByToken("access-token-val", OAuth2TokenType.ACCESS_TOKEN))
+        .isEqualTo(authorization);
+    verify(indexValueOps, never()).get(any());
   }
 
   @Test
@@ -122,7 +160,9 @@ class RedisOAuth2AuthorizationServiceAdapterTest {
 
     adapter.remove(authorization);
 
-    verify(redisAuthTemplate).delete("wedge:test:auth:" + id);
+    verify(redisIndexTemplate).delete(deletedKeysCaptor.capture());
+    assertThat(deletedKeysCaptor.getValue())
+        .contains("wedge:test:auth:" + id, "wedge:test:auth-indexes:" + id);
   }
 
   @Test
@@ -130,10 +170,11 @@ class RedisOAuth2AuthorizationServiceAdapterTest {
     String tokenValue = "some-token";
     OAuth2TokenType tokenType = OAuth2TokenType.ACCESS_TOKEN;
     String authId = "found-auth-id";
-    OAuth2Authorization authorization = mock(OAuth2Authorization.class);
+    OAuth2Authorization authorization = authorization(authId, tokenValue);
 
     // Index lookup stub
-    when(indexValueOps.get("wedge:test:index:access_token:" + tokenValue)).thenReturn(authId);
+    when(indexValueOps.get("wedge:test:index:" + TokenIndexKeys.hashed("access_token", tokenValue)))
+        .thenReturn(authId);
 
     // Auth lookup stub
     when(authValueOps.get("wedge:test:auth:" + authId)).thenReturn(authorization);
@@ -142,4 +183,320 @@ class RedisOAuth2AuthorizationServiceAdapterTest {
 
     assertThat(result).isEqualTo(authorization);
   }
+
+  @Test
+  void shouldFindByTokenWithoutTypeHint() {
+    OAuth2Authorization authorization =
+        OAuth2Authorization.from(authorization("auth-untyped", "at-val"))
+            .refreshToken(new OAuth2RefreshToken("rt-val", java.time.Instant.now()))
+            .build();
+    when(indexValueOps.get("wedge:test:index:" + TokenIndexKeys.hashed("access_token", "rt-val")))
+        .thenReturn(null);
+    when(indexValueOps.get("wedge:test:index:" + TokenIndexKeys.hashed("refresh_token", "rt-val")))
+        .thenReturn("auth-untyped");
+    when(authValueOps.get("wedge:test:auth:auth-untyped")).thenReturn(authorization);
+
+    assertThat(adapter.findByToken("rt-val", null)).isEqualTo(authorization);
+  }
+
+  @Test
+  void shouldFindByIdTokenAfterSave() {
+    OidcIdToken idToken =
+        OidcIdToken.withTokenValue("id-token-val")
+            .subject("user-1")
+            .issuedAt(java.time.Instant.now())
+            .expiresAt(java.time.Instant.now().plusSeconds(300))
+            .build();
+    OAuth2Authorization authorization =
+        OAuth2Authorization.from(authorization("auth-oidc", "at-val")).token(idToken).build();
+    String idTokenIndex = TokenIndexKeys.hashed("id_token", "id-token-val");
+
+    adapter.save(authorization);
+
+    verify(redisIndexTemplate)
+        .execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            scriptKeysCaptor.capture(),
+            any(Object[].class));
+    assertThat(scriptKeysCaptor.getValue()).contains("wedge:test:index:" + idTokenIndex);
+    assertThat(
+            adapter.findByToken("id-token-val", new OAuth2TokenType(OidcParameterNames.ID_TOKEN)))
+        .isEqualTo(authorization);
+  }
+
+  @Test
+  void shouldHashTokenValuesInIndexKeys() {
+    String jwt = "eyJhbGciOiJSUzI1NiJ9." + "x".repeat(1500) + ".signature";
+
+    String indexKey = TokenIndexKeys.hashed("access_token", jwt);
+
+    assertThat(indexKey).startsWith("access_token:").hasSize("access_token:".length() + 22);
+    assertThat(indexKey).isEqualTo(TokenIndexKeys.hashed("access_token", jwt));
+    assertThat(indexKey).isNotEqualTo(TokenIndexKeys.hashed("refresh_token", jwt));
+  }
+
+  @Test
+  void shouldFallBackToLegacyIndexKeyDuringMigration() {
+    when(redisConfig.isLegacyIndexRead()).thenReturn(true);
+    adapter.init();
+    OAuth2Authorization authorization = authorization("auth-legacy", "legacy-token");
+    when(indexValueOps.get("wedge:test:index:access_token:legacy-token")).thenReturn("auth-legacy");
+    when(authValueOps.get("wedge:test:auth:auth-legacy")).thenReturn(authorization);
+
+    OAuth2Authorization result =
+        adapter.findByToken("legacy-token", OAuth2TokenType.ACCESS_TOKEN);
+
+    assertThat(result).isEqualTo(authorization);
+    verify(indexValueOps)
+        .get("wedge:test:index:" + TokenIndexKeys.hashed("access_token", "legacy-token"));
+
+    // Cached in L1 under the hashed key
+    assertThat(adapter.findByToken("legacy-token", OAuth2TokenType.ACCESS_TOKEN))
+        .isEqualTo(authorization);
+    verify(indexValueOps).get("wedge:test:index:access_token:legacy-token");
+  }
+
+  @Test
+  void shouldNotResolveRotatedTokenThroughStaleIndex() {
+    String staleIndexKey = "wedge:test:index:" + TokenIndexKeys.hashed("access_token", "old-token");
+    when(indexValueOps.get(staleIndexKey)).thenReturn("auth-1");
+    when(authValueOps.get("wedge:test:auth:auth-1"))
+        .thenReturn(authorization("auth-1", "new-token"));
+
+    assertThat(adapter.findByToken("old-token", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    verify(redisIndexTemplate)
+        .execute(any(RedisScript.class), eq(List.of(staleIndexKey)), eq("auth-1"));
+  }
+
+  @Test
+  void shouldReadBackAuthorizationSavedBeforeIndexRegistryExisted() {
+    when(redisConfig.isLegacyIndexRead()).thenReturn(true);
+    adapter.init();
+    when(redisIndexTemplate.hasKey("wedge:test:auth-indexes:auth-1")).thenReturn(false);
+    when(authValueOps.get("wedge:test:auth:auth-1"))
+        .thenReturn(authorization("auth-1", "old-token"));
+
+    adapter.save(authorization("auth-1", "new-token"));
+
+    verify(redisIndexTemplate)
+        .execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            scriptKeysCaptor.capture(),
+            any(Object[].class));
+    assertThat(scriptKeysCaptor.getValue())
+        .containsExactly(
+            "wedge:test:auth:auth-1",
+            "wedge:test:auth-indexes:auth-1",
+            "wedge:test:l1-invalidation:seq",
+            "wedge:test:index:" + TokenIndexKeys.hashed("access_token", "new-token"),
+            "wedge:test:index:" + TokenIndexKeys.hashed("access_token", "old-token"),
+            "wedge:test:index:access_token:old-token",
+            "wedge:test:index:principal:user-1");
+  }
+
+  @Test
+  void shouldNotReadBackPreviousVersionOnSaveAfterUpgradeWindow() {
+    adapter.save(authorization("auth-1", "new-token"));
+
+    verify(redisIndexTemplate, never()).hasKey(any());
+    verify(authValueOps, never()).get(any());
+  }
+
+  @Test
+  void shouldSkipPrincipalIndexWithoutPrincipalName() {
+    OAuth2Authorization authorization = mock(OAuth2Authorization.class);
+    when(authorization.getId()).thenReturn("auth-anonymous");
+
+    adapter.save(authorization);
+
+    verify(redisIndexTemplate)
+        .execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            scriptKeysCaptor.capture(),
+            any(Object[].class));
+    assertThat(scriptKeysCaptor.getValue())
+        .containsExactly(
+            "wedge:test:auth:auth-anonymous",
+            "wedge:test:auth-indexes:auth-anonymous",
+            "wedge:test:l1-invalidation:seq");
+  }
+
+  @Test
+  void shouldNotResolveRotatedTokenThroughLegacyIndex() {
+    when(redisConfig.isLegacyIndexRead()).thenReturn(true);
+    adapter.init();
+    String hashedIndexKey =
+        "wedge:test:index:" + TokenIndexKeys.hashed("access_token", "old-token");
+    String legacyIndexKey = "wedge:test:index:access_token:old-token";
+    when(indexValueOps.get(legacyIndexKey)).thenReturn("auth-legacy");
+    when(authValueOps.get("wedge:test:auth:auth-legacy"))
+        .thenReturn(authorization("auth-legacy", "new-token"));
+
+    assertThat(adapter.findByToken("old-token", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    verify(redisIndexTemplate)
+        .execute(any(RedisScript.class), eq(List.of(hashedIndexKey)), eq("auth-legacy"));
+    verify(redisIndexTemplate)
+        .execute(any(RedisScript.class), eq(List.of(legacyIndexKey)), eq("auth-legacy"));
+  }
+
+  @Test
+  void shouldDeleteLegacyIndexesOfPreviousVersionOnSave() {
+    when(redisConfig.isLegacyIndexRead()).thenReturn(true);
+    adapter.init();
+    when(redisIndexTemplate.hasKey("wedge:test:auth-indexes:auth-1")).thenReturn(false);
+    when(authValueOps.get("wedge:test:auth:auth-1"))
+        .thenReturn(authorization("auth-1", "old-token"));
+
+    adapter.save(authorization("auth-1", "new-token"));
+
+    verify(redisIndexTemplate)
+        .execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            scriptKeysCaptor.capture(),
+            any(Object[].class));
+    assertThat(scriptKeysCaptor.getValue()).contains("wedge:test:index:access_token:old-token");
+  }
+
+  @Test
+  void shouldPublishInvalidationOnRemoveWhenEnabled() {
+    enableInvalidation();
+    OAuth2Authorization authorization = mock(OAuth2Authorization.class);
+    when(authorization.getId()).thenReturn("auth-remove");
+
+    adapter.remove(authorization);
+
+    verify(redisIndexTemplate)
+        .execute(
+            any(RedisScript.class),
+            scriptKeysCaptor.capture(),
+            eq("wedge:test:l1-invalidation"),
+            any());
+    assertThat(scriptKeysCaptor.getValue())
+        .startsWith("wedge:test:l1-invalidation:seq")
+        .contains("wedge:test:auth:auth-remove", "wedge:test:auth-indexes:auth-remove");
+    verify(redisIndexTemplate, never()).delete(anyCollection());
+  }
+
+  @Test
+  void shouldEvictL1OnInvalidationFromAnotherNode() {
+    OAuth2Authorization authorization = authorization("auth-1", "access-token-val");
+    adapter.save(authorization);
+
+    adapter.handleInvalidation("1\nother-node\nauth-1\nuser-1\n" + ACCESS_TOKEN_INDEX);
+
+    assertThat(adapter.findById("auth-1")).isNull();
+    assertThat(adapter.findByToken("access-token-val", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    verify(authValueOps).get("wedge:test:auth:auth-1");
+    verify(indexValueOps).get("wedge:test:index:" + ACCESS_TOKEN_INDEX);
+  }
+
+  @Test
+  void shouldFlushL1WhenInvalidationSequenceHasGap() {
+    adapter.save(authorization("auth-1", "access-token-val"));
+
+    adapter.handleInvalidation("1\nother-node\nauth-other\n");
+    assertThat(adapter.findById("auth-1")).isNotNull();
+
+    adapter.handleInvalidation("5\nother-node\nauth-other\n");
+
+    assertThat(adapter.findById("auth-1")).isNull();
+    verify(authValueOps).get("wedge:test:auth:auth-1");
+  }
+
+  @Test
+  void shouldFlushL1WhenInvalidationsAreMissedWithoutLaterMessages() {
+    enableInvalidation();
+    adapter.save(authorization("auth-1", "access-token-val"));
+    when(indexValueOps.get("wedge:test:l1-invalidation:seq")).thenReturn("3", "7", "7");
+
+    adapter.verifyInvalidationSequence(); // baseline
+    adapter.verifyInvalidationSequence(); // #4-#7 published, may still be in flight
+    assertThat(adapter.findById("auth-1")).isNotNull();
+
+    adapter.verifyInvalidationSequence(); // never delivered
+
+    assertThat(adapter.findById("auth-1")).isNull();
+    verify(indexValueOps, times(3)).get("wedge:test:l1-invalidation:seq");
+  }
+
+  @Test
+  void shouldEvictL1ForTrackedRedisKeys() {
+    adapter.save(authorization("auth-1", "access-token-val"));
+
+    adapter.invalidateLocalKey("wedge:test:index:" + ACCESS_TOKEN_INDEX);
+    assertThat(adapter.findById("auth-1")).isNotNull();
+
+    adapter.invalidateLocalKey("wedge:test:auth:auth-1");
+
+    assertThat(adapter.findById("auth-1")).isNull();
+    assertThat(adapter.findByToken("access-token-val", OAuth2TokenType.ACCESS_TOKEN)).isNull();
+    verify(indexValueOps).get("wedge:test:index:" + ACCESS_TOKEN_INDEX);
+    assertThat(adapter.getTrackedKeyPrefixes())
+        .containsExactly("wedge:test:auth:", "wedge:test:index:");
+  }
+
+  @Test
+  void shouldIgnoreTrackingInvalidationOfOwnSave() {
+    when(redisConfig.isClientSideCaching()).thenReturn(true);
+    adapter.init();
+    adapter.save(authorization("auth-1", "access-token-val"));
+
+    // Pushed back by Redis for this node's own write
+    adapter.invalidateLocalKey("wedge:test:auth:auth-1");
+    assertThat(adapter.findById("auth-1")).isNotNull();
+    verify(authValueOps, never()).get("wedge:test:auth:auth-1");
+
+    // Any later write comes from elsewhere
+    adapter.invalidateLocalKey("wedge:test:auth:auth-1");
+    assertThat(adapter.findById("auth-1")).isNull();
+  }
+
+  @Test
+  void shouldNotPublishOverPubSubWhenClientSideCachingIsEnabled() {
+    when(redisConfig.isClientSideCaching()).thenReturn(true);
+    adapter.init();
+    OAuth2Authorization authorization = mock(OAuth2Authorization.class);
+    when(authorization.getId()).thenReturn("auth-remove");
+
+    adapter.remove(authorization);
+
+    verify(redisIndexTemplate).delete(anyCollection());
+  }
+
+  private void enableInvalidation() {
+    when(redisConfig.isLocalCacheInvalidation()).thenReturn(true);
+    adapter.init();
+  }
+
+  private OAuth2Authorization authorization(String id, String accessTokenValue) {
+    org.springframework.security.oauth2.server.authorization.client.RegisteredClient
+        registeredClient =
+            org.springframework.security.oauth2.server.authorization.client.RegisteredClient.withId(
+                    "client-1")
+                .clientId("client-1")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("http://localhost")
+                .build();
+
+    return OAuth2Authorization.withRegisteredClient(registeredClient)
+        .principalName("user-1")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .accessToken(
+            new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER,
+                accessTokenValue,
+                java.time.Instant.now(),
+                java.time.Instant.now().plusSeconds(300)))
+        .authorizedScopes(Collections.emptySet())
+        .id(id)
+        .build();
+  }
 }
@@ -201,6 +201,43 @@ class RedisSessionStorageAdapterIT extends AbstractRedisIntegrationTest {
         .isFalse();
   }
 
+  @Test
+  void shouldDeleteAllSessionsOfUser() {
+    // Given
+    adapter.save(createSession("code-user-1", "user-logout"));
+    adapter.save(createSession("code-user-2", "user-logout"));
+    adapter.save(createSession("code-other", "user-other"));
+
+    // When
+    adapter.deleteByUserId("user-logout");
+
+    // Then - the user's sessions and index are gone, other users are untouched
+    assertThat(adapter.findByAuthorizationCode("code-user-1")).isEmpty();
+    assertThat(adapter.findByAuthorizationCode("code-user-2")).isEmpty();
+    assertThat(stringRedisTemplate.hasKey(getUserIndexKey("user-logout"))).isFalse();
+    assertThat(adapter.findByAuthorizationCode("code-other")).isPresent();
+  }
+
+  @Test
+  void shouldConsumeSessionOnlyOnce() {
+    // Given
+    adapter.save(createSession("code-consume", "user-consume"));
+
+    // When
+    Optional<AuthorizationSession> first = adapter.consume("code-consume");
+    Optional<AuthorizationSession> second = adapter.consume("code-consume");
+
+    // Then - the session and its index entry are gone after the first consume
+    assertThat(first).isPresent();
+    assertThat(first.get().getUserId()).isEqualTo("user-consume");
+    assertThat(second).isEmpty();
+    assertThat(
+            stringRedisTemplate
+                .opsForSet()
+                .isMember(getUserIndexKey("user-consume"), "code-consume"))
+        .isFalse();
+  }
+
   // ==================== TTL Verification ====================
 
   @Test
@@ -7,6 +7,10 @@ import static org.mockito.Mockito.*;
 import com.kuneiform.domain.model.AuthorizationSession;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,10 +18,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @ExtendWith(MockitoExtension.class)
 class RedisSessionStorageAdapterTest {
@@ -30,6 +39,7 @@ class RedisSessionStorageAdapterTest {
 
   @Mock private ValueOperations<String, AuthorizationSession> valueOps;
   @Mock private SetOperations<String, String> setOps;
+  @Mock private RedisSerializer<AuthorizationSession> valueSerializer;
 
   private RedisSessionStorageAdapter adapter;
 
@@ -43,12 +53,14 @@ class RedisSessionStorageAdapterTest {
     // Mock Redis ops
     lenient().when(redisTemplate.opsForValue()).thenReturn(valueOps);
     lenient().when(stringRedisTemplate.opsForSet()).thenReturn(setOps);
+    lenient().doReturn(valueSerializer).when(redisTemplate).getValueSerializer();
 
     adapter = new RedisSessionStorageAdapter(redisTemplate, stringRedisTemplate, properties);
     adapter.init();
   }
 
   @Test
+  @SuppressWarnings("unchecked")
   void shouldSaveSessionAndAddToUserIndex() {
     // Given
     AuthorizationSession session = createSession("code-123", "user-123");
@@ -56,10 +68,16 @@ class RedisSessionStorageAdapterTest {
     // When
     adapter.save(session);
 
-    // Then
-    verify(valueOps).set(eq("wedge:session:code-123"), eq(session), any());
-    verify(setOps).add(eq("wedge:user:user-123"), eq("code-123"));
-    verify(stringRedisTemplate).expire(eq("wedge:user:user-123"), any(java.time.Duration.class));
+    // Then - session, index entry and index TTL are written in a single script call
+    verify(stringRedisTemplate)
+        .execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            eq(List.of("wedge:session:code-123", "wedge:user:user-123")),
+            any(Object[].class));
+    verify(valueSerializer).serialize(session);
+    verifyNoInteractions(valueOps, setOps);
   }
 
   @Test
@@ -106,40 +124,50 @@ class RedisSessionStorageAdapterTest {
 
     // Then
     assertTrue(result.isEmpty());
-    verify(redisTemplate).delete("wedge:session:code-expired");
-    // Should also clean from user index
-    verify(setOps).remove("wedge:user:user-123", "code-expired");
+    // Session and user index entry are removed by the delete script
+    verify(stringRedisTemplate)
+        .execute(
+            any(RedisScript.class),
+            eq(List.of("wedge:session:code-expired")),
+            eq("wedge:user:"),
+            eq("code-expired"));
   }
 
   @Test
   void shouldFindSessionsByUserId() {
     // Given
     String userId = "user-123";
-    Set<String> authCodes = Set.of("code-1", "code-2");
+    Set<String> authCodes = new LinkedHashSet<>(List.of("code-1", "code-2"));
     when(setOps.members("wedge:user:user-123")).thenReturn(authCodes);
 
     AuthorizationSession session1 = createSession("code-1", userId);
     AuthorizationSession session2 = createSession("code-2", userId);
 
-    when(valueOps.get("wedge:session:code-1")).thenReturn(session1);
-    when(valueOps.get("wedge:session:code-2")).thenReturn(session2);
+    when(valueOps.multiGet(List.of("wedge:session:code-1", "wedge:session:code-2")))
+        .thenReturn(List.of(session1, session2));
 
     // When
     var sessions = adapter.findByUserId(userId);
 
-    // Then
+    // Then - one SMEMBERS and one MGET, no per-code reads
     assertEquals(2, sessions.size());
     assertTrue(sessions.contains(session1));
     assertTrue(sessions.contains(session2));
+    verify(valueOps, never()).get(any());
   }
 
   @Test
+  @SuppressWarnings("unchecked")
   void shouldHandleRedisExceptionsGracefully() {
     // Given
     AuthorizationSession session = createSession("code-error", "user-123");
-    doThrow(new RuntimeException("Redis down"))
-        .when(valueOps)
-        .set(any(), any(), any(java.time.Duration.class));
+    when(stringRedisTemplate.execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            anyList(),
+            any(Object[].class)))
+        .thenThrow(new RuntimeException("Redis down"));
 
     // When & Then
     assertThrows(RuntimeException.class, () -> adapter.save(session));
@@ -149,15 +177,14 @@ class RedisSessionStorageAdapterTest {
   void shouldCleanupStaleIndexEntries() {
     // Given - User index has 2 codes, but one is missing/expired in Redis
     String userId = "user-stale";
-    Set<String> authCodes = Set.of("code-active", "code-stale");
+    Set<String> authCodes = new LinkedHashSet<>(List.of("code-active", "code-stale"));
     when(setOps.members("wedge:user:user-stale")).thenReturn(authCodes);
 
     AuthorizationSession activeSession = createSession("code-active", userId);
 
-    // code-active exists
-    when(valueOps.get("wedge:session:code-active")).thenReturn(activeSession);
-    // code-stale returns null (TTL expired)
-    when(valueOps.get("wedge:session:code-stale")).thenReturn(null);
+    // code-active exists, code-stale returns null (TTL expired)
+    when(valueOps.multiGet(List.of("wedge:session:code-active", "wedge:session:code-stale")))
+        .thenReturn(Arrays.asList(activeSession, null));
 
     // When
     var sessions = adapter.findByUserId(userId);
@@ -165,21 +192,100 @@ class RedisSessionStorageAdapterTest {
     // Then
     assertEquals(1, sessions.size());
     // Should remove stale code from index
-    verify(setOps).remove(eq("wedge:user:user-stale"), any(Object[].class));
+    verify(setOps).remove("wedge:user:user-stale", "code-stale");
+    verify(redisTemplate, never()).delete(anyCollection());
+  }
+
+  @Test
+  void shouldDeleteExpiredSessionsFoundByUserIdInOneCall() {
+    // Given - both sessions are still stored but past their expiry
+    String userId = "user-expired";
+    Set<String> authCodes = new LinkedHashSet<>(List.of("code-1", "code-2"));
+    when(setOps.members("wedge:user:user-expired")).thenReturn(authCodes);
+    AuthorizationSession expired1 = createExpiredSession("code-1", userId);
+    AuthorizationSession expired2 = createExpiredSession("code-2", userId);
+    when(valueOps.multiGet(List.of("wedge:session:code-1", "wedge:session:code-2")))
+        .thenReturn(List.of(expired1, expired2));
+
+    // When
+    var sessions = adapter.findByUserId(userId);
+
+    // Then
+    assertTrue(sessions.isEmpty());
+    verify(redisTemplate).delete(List.of("wedge:session:code-1", "wedge:session:code-2"));
+    verify(setOps).remove("wedge:user:user-expired", "code-1", "code-2");
   }
 
   @Test
   void shouldDeleteSession() {
     // Given
-    AuthorizationSession session = createSession("code-del", "user-del");
-    when(valueOps.get("wedge:session:code-del")).thenReturn(session);
-
     // When
     adapter.deleteByAuthorizationCode("code-del");
 
+    // Then - a single script call, no read before the delete
+    verify(stringRedisTemplate)
+        .execute(
+            any(RedisScript.class),
+            eq(List.of("wedge:session:code-del")),
+            eq("wedge:user:"),
+            eq("code-del"));
+    verifyNoInteractions(valueOps, setOps);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldConsumeSessionInOneCall() {
+    // Given
+    AuthorizationSession session = createSession("code-use", "user-use");
+    when(redisTemplate.execute(
+            any(RedisScript.class),
+            any(RedisSerializer.class),
+            any(RedisSerializer.class),
+            eq(List.of("wedge:session:code-use")),
+            eq("wedge:user:"),
+            eq("code-use")))
+        .thenReturn(session, (AuthorizationSession) null);
+
+    // When
+    Optional<AuthorizationSession> first = adapter.consume("code-use");
+    Optional<AuthorizationSession> second = adapter.consume("code-use");
+
+    // Then - no separate read or delete
+    assertEquals(Optional.of(session), first);
+    assertTrue(second.isEmpty());
+    verifyNoInteractions(valueOps, setOps);
+  }
+
+  @Test
+  void shouldDeleteAllSessionsOfUserInOneCall() {
+    // When
+    adapter.deleteByUserId("user-del");
+
     // Then
-    verify(redisTemplate).delete("wedge:session:code-del");
-    verify(setOps).remove("wedge:user:user-del", "code-del");
+    verify(stringRedisTemplate)
+        .execute(any(RedisScript.class), eq(List.of("wedge:user:user-del")), eq("wedge:session:"));
+    verifyNoInteractions(valueOps, setOps);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void shouldSweepUserIndexMembersWithoutSession() {
+    // Given
+    Cursor<String> members = mock(Cursor.class);
+    List<String> remaining = new ArrayList<>(List.of("code-live", "code-gone", "code-live-2"));
+    when(members.hasNext()).thenAnswer(invocation -> !remaining.isEmpty());
+    when(members.next()).thenAnswer(invocation -> remaining.removeFirst());
+    when(setOps.scan(eq("wedge:user:user-1"), any(ScanOptions.class))).thenReturn(members);
+    when(stringRedisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenReturn(List.of(true, false), List.of(true));
+
+    // When
+    int removed = adapter.removeStaleUserIndexMembers(List.of("wedge:user:user-1"), 2);
+
+    // Then
+    assertEquals(1, removed);
+    verify(setOps).remove("wedge:user:user-1", "code-gone");
+    verify(members).close();
   }
 
   private AuthorizationSession createSession(String authorizationCode, String userId) {
@@ -190,4 +296,13 @@ class RedisSessionStorageAdapterTest {
         .expiresAt(Instant.now().plusSeconds(600))
         .build();
   }
+
+  private AuthorizationSession createExpiredSession(String authorizationCode, String userId) {
+    return AuthorizationSession.builder()
+        .sessionId("sess-" + authorizationCode)
+        .authorizationCode(authorizationCode)
+        .userId(userId)
+        .expiresAt(Instant.now().minusSeconds(100))
+        .build();
+  }
 }
@@ -0,0 +1,68 @@
+package com.kuneiform.infrastructure.adapter;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.lettuce.core.api.push.PushMessage;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RedisTokenCacheTrackerTest {
+
+  @Mock private WedgeConfigProperties config;
+  @Mock private RedisOAuth2AuthorizationServiceAdapter authorizationService;
+  @Mock private PushMessage pushMessage;
+
+  private RedisTokenCacheTracker tracker;
+
+  @BeforeEach
+  void setUp() {
+    tracker = new RedisTokenCacheTracker(config, authorizationService);
+  }
+
+  @Test
+  void shouldEvictEveryInvalidatedKey() {
+    when(pushMessage.getType()).thenReturn("invalidate");
+    when(pushMessage.getContent(any()))
+        .thenReturn(
+            List.of(
+                "invalidate",
+                List.of("wedge:test:auth:auth-1", "wedge:test:index:access_token:abc")));
+
+    tracker.onPushMessage(pushMessage);
+
+    verify(authorizationService).invalidateLocalKey("wedge:test:auth:auth-1");
+    verify(authorizationService).invalidateLocalKey("wedge:test:index:access_token:abc");
+    verify(authorizationService, never()).flushLocalCaches(anyString());
+  }
+
+  @Test
+  void shouldFlushOnNullKeyList() {
+    when(pushMessage.getType()).thenReturn("invalidate");
+    when(pushMessage.getContent(any())).thenReturn(Arrays.asList("invalidate", null));
+
+    tracker.onPushMessage(pushMessage);
+
+    verify(authorizationService).flushLocalCaches(anyString());
+  }
+
+  @Test
+  void shouldIgnoreOtherPushMessages() {
+    when(pushMessage.getType()).thenReturn("message");
+
+    tracker.onPushMessage(pushMessage);
+
+    verify(authorizationService, never()).invalidateLocalKey(anyString());
+    verify(authorizationService, never()).flushLocalCaches(anyString());
+  }
+}
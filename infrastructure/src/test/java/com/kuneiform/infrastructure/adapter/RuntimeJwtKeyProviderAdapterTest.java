@@ -3,6 +3,9 @@ package com.kuneiform.infrastructure.adapter;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.kuneiform.domain.model.JwtKeyPair;
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
+import java.security.interfaces.RSAPublicKey;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class RuntimeJwtKeyProviderAdapterTest {
@@ -21,7 +24,25 @@ class RuntimeJwtKeyProviderAdapterTest {
     assertNotNull(keyPair.getPublicKey());
     assertNotNull(keyPair.getPrivateKey());
     assertNotNull(keyPair.getKeyId());
-    assertEquals(keySize, keyPair.getPublicKey().getModulus().bitLength());
+    assertEquals(keySize, ((RSAPublicKey) keyPair.getPublicKey()).getModulus().bitLength());
+    assertEquals(JwtSigningAlgorithm.RS256, keyPair.getAlgorithm());
+  }
+
+  @Test
+  void shouldGenerateOneKeyPairPerAlgorithmWithConfiguredPrimary() {
+    // Given
+    RuntimeJwtKeyProviderAdapter adapter =
+        new RuntimeJwtKeyProviderAdapter(2048, JwtSigningAlgorithm.ES256);
+
+    // When
+    List<JwtKeyPair> keyPairs = adapter.getKeyPairs();
+
+    // Then
+    assertEquals(2, keyPairs.size());
+    assertSame(adapter.getKeyPair(), keyPairs.get(0));
+    assertEquals(JwtSigningAlgorithm.ES256, keyPairs.get(0).getAlgorithm());
+    assertEquals(JwtSigningAlgorithm.RS256, keyPairs.get(1).getAlgorithm());
+    assertNotEquals(keyPairs.get(0).getKeyId(), keyPairs.get(1).getKeyId());
   }
 
   @Test
@@ -0,0 +1,185 @@
+package com.kuneiform.infrastructure.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.kuneiform.domain.model.User;
+import com.kuneiform.infrastructure.adapter.restclients.ScopeDecision;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserProviderCacheTest {
+
+  private WedgeConfigProperties properties;
+  private UserProviderCache cache;
+  private AtomicInteger calls;
+
+  @BeforeEach
+  void setUp() {
+    properties = new WedgeConfigProperties();
+    properties.getUserProviderCache().setEnabled(true);
+    cache = new UserProviderCache(properties);
+    cache.init();
+    calls = new AtomicInteger();
+  }
+
+  @Test
+  void findByUsername_shouldCacheFoundUsersPerTenant() {
+    User user = User.builder().userId("user-1").username("alice").build();
+
+    cache.findByUsername("tenant-a", "alice", () -> load(Optional.of(user)));
+    Optional<User> cached = cache.findByUsername("tenant-a", "alice", () -> load(Optional.empty()));
+    cache.findByUsername("tenant-b", "alice", () -> load(Optional.of(user)));
+
+    assertThat(cached).contains(user);
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void findByUsername_shouldNotCacheMissingUsers() {
+    cache.findByUsername("tenant-a", "alice", () -> load(Optional.empty()));
+    cache.findByUsername("tenant-a", "alice", () -> load(Optional.empty()));
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void validateScopes_shouldCacheAllowedAndRejectedResults() {
+    cache.validateScopes("tenant-a", "user-1", Set.of("openid", "profile"), () -> allow(true));
+    cache.validateScopes("tenant-a", "user-1", Set.of("admin"), () -> allow(false));
+
+    assertThat(cache.validateScopes("tenant-a", "user-1", Set.of("profile", "openid"), () -> false))
+        .isTrue();
+    assertThat(cache.validateScopes("tenant-a", "user-1", Set.of("admin"), () -> true)).isFalse();
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void validateScopes_shouldNotCacheRejectionsWhenNegativeTtlIsZero() {
+    properties.getUserProviderCache().setNegativeTtlSeconds(0);
+
+    cache.validateScopes("tenant-a", "user-1", Set.of("admin"), () -> allow(false));
+    cache.validateScopes("tenant-a", "user-1", Set.of("admin"), () -> allow(false));
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void validateScopes_shouldNotCacheErrors() {
+    assertThatThrownBy(
+            () ->
+                cache.validateScopes(
+                    "tenant-a",
+                    "user-1",
+                    Set.of("openid"),
+                    () -> {
+                      throw new IllegalStateException("provider down");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    assertThat(cache.validateScopes("tenant-a", "user-1", Set.of("openid"), () -> allow(true)))
+        .isTrue();
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void decideScopes_shouldAnswerSubsetsOfEvaluatedScopesFromCache() {
+    ScopeDecision decision = new ScopeDecision(Set.of("openid", "profile"), null);
+    cache.decideScopes(
+        "tenant-a", "user-1", Set.of("openid", "profile", "admin"), scopes -> decide(decision));
+
+    assertThat(cache.decideScopes("tenant-a", "user-1", Set.of("openid"), scopes -> null))
+        .isTrue();
+    assertThat(cache.decideScopes("tenant-a", "user-1", Set.of("openid", "admin"), scopes -> null))
+        .isFalse();
+    assertThat(calls).hasValue(1);
+  }
+
+  @Test
+  void decideScopes_shouldEvaluateNewScopesTogetherWithCachedOnes() {
+    cache.decideScopes(
+        "tenant-a", "user-1", Set.of("openid"), scopes -> decide(new ScopeDecision(scopes, null)));
+
+    Set<String> asked = new HashSet<>();
+    cache.decideScopes(
+        "tenant-a",
+        "user-1",
+        Set.of("email"),
+        scopes -> {
+          asked.addAll(scopes);
+          return decide(new ScopeDecision(scopes, null));
+        });
+
+    assertThat(asked).containsExactlyInAnyOrder("openid", "email");
+    assertThat(cache.decideScopes("tenant-a", "user-1", Set.of("openid", "email"), scopes -> null))
+        .isTrue();
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void decideScopes_shouldNotCacheWhenProviderSendsZeroMaxAge() {
+    ScopeDecision decision = new ScopeDecision(Set.of("openid"), Duration.ZERO);
+
+    cache.decideScopes("tenant-a", "user-1", Set.of("openid"), scopes -> decide(decision));
+    cache.decideScopes("tenant-a", "user-1", Set.of("openid"), scopes -> decide(decision));
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void invalidateUser_shouldDropEntriesOfUserOnly() {
+    User alice = User.builder().userId("user-1").username("alice").build();
+    User bob = User.builder().userId("user-2").username("bob").build();
+    cache.findByUsername("tenant-a", "alice", () -> Optional.of(alice));
+    cache.findByUsername("tenant-a", "bob", () -> Optional.of(bob));
+    cache.validateScopes("tenant-b", "user-1", Set.of("openid"), () -> true);
+
+    cache.invalidateUser("user-1");
+
+    cache.findByUsername("tenant-a", "alice", () -> load(Optional.of(alice)));
+    cache.findByUsername("tenant-a", "bob", () -> load(Optional.of(bob)));
+    cache.validateScopes("tenant-b", "user-1", Set.of("openid"), () -> allow(true));
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void disabledCache_shouldAlwaysCallLoader() {
+    UserProviderCache disabled = new UserProviderCache(new WedgeConfigProperties());
+    disabled.init();
+
+    disabled.validateScopes("tenant-a", "user-1", Set.of("openid"), () -> allow(true));
+    disabled.validateScopes("tenant-a", "user-1", Set.of("openid"), () -> allow(true));
+
+    assertThat(calls).hasValue(2);
+  }
+
+  @Test
+  void init_shouldRejectNonPositiveTtl() {
+    properties.getUserProviderCache().setTtlSeconds(0);
+
+    assertThatThrownBy(() -> new UserProviderCache(properties).init())
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("TTL must be positive");
+  }
+
+  private Optional<User> load(Optional<User> user) {
+    calls.incrementAndGet();
+    return user;
+  }
+
+  private ScopeDecision decide(ScopeDecision decision) {
+    calls.incrementAndGet();
+    return decision;
+  }
+
+  private boolean allow(boolean allowed) {
+    calls.incrementAndGet();
+    return allowed;
+  }
+}
@@ -70,6 +70,16 @@ class YamlClientRepositoryAdapterTest {
     assertEquals("test-client", client.get().getClientId());
   }
 
+  @Test
+  void shouldFindAllClients() {
+    // When
+    List<OAuthClient> clients = adapter.findAll();
+
+    // Then
+    assertEquals(1, clients.size());
+    assertEquals("test-client", clients.get(0).getClientId());
+  }
+
   @Test
   void shouldReturnEmptyWhenClientNotFound() {
     // When
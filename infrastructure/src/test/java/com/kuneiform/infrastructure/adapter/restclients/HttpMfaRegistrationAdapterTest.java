@@ -13,7 +13,10 @@ import com.kuneiform.domain.model.Tenant;
 import com.kuneiform.domain.model.UserProvider;
 import com.kuneiform.domain.port.ClientRepository;
 import com.kuneiform.domain.port.TenantRepository;
+import com.kuneiform.infrastructure.adapter.ClientContextResolver;
 import com.kuneiform.infrastructure.adapter.HttpMfaRegistrationAdapter;
+import com.kuneiform.infrastructure.adapter.UserProviderCache;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,11 +37,19 @@ class HttpMfaRegistrationAdapterTest {
   @Mock private ClientRepository clientRepository;
   @Mock private TenantRepository tenantRepository;
 
+  private ClientContextResolver clientContextResolver;
+  private UserProviderCache userProviderCache;
+
   private HttpMfaRegistrationAdapter adapter;
 
   @BeforeEach
   void setUp() {
-    adapter = new HttpMfaRegistrationAdapter(restClient, clientRepository, tenantRepository);
+    // Disabled (init() not called): every call reaches the user provider
+    userProviderCache = new UserProviderCache(new WedgeConfigProperties());
+    // Not refreshed: every lookup falls back to the repositories
+    clientContextResolver =
+        new ClientContextResolver(clientRepository, tenantRepository, new WedgeConfigProperties());
+    adapter = new HttpMfaRegistrationAdapter(restClient, clientContextResolver, userProviderCache);
   }
 
   @Test
@@ -64,7 +75,9 @@ class HttpMfaRegistrationAdapterTest {
 
     when(clientRepository.findByClientId(clientId)).thenReturn(Optional.of(client));
     when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(tenant));
-    doReturn(true).when(restClient).registerMfa(anyString(), eq(mfaSecret), eq(mfaKeyId));
+    doReturn(true)
+        .when(restClient)
+        .registerMfa(eq(tenantId), anyString(), eq(mfaSecret), eq(mfaKeyId));
 
     // When: Registering MFA
     boolean result = adapter.registerMfa(clientId, userId, mfaSecret, mfaKeyId);
@@ -74,7 +87,7 @@ class HttpMfaRegistrationAdapterTest {
 
     // Verify endpoint resolution (template with {userId} replaced)
     String expectedEndpoint = "http://localhost:8081/api/users/" + userId + "/mfa";
-    verify(restClient).registerMfa(expectedEndpoint, mfaSecret, mfaKeyId);
+    verify(restClient).registerMfa(tenantId, expectedEndpoint, mfaSecret, mfaKeyId);
   }
 
   @Test
@@ -100,14 +113,14 @@ class HttpMfaRegistrationAdapterTest {
 
     when(clientRepository.findByClientId(clientId)).thenReturn(Optional.of(client));
     when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(tenant));
-    doReturn(true).when(restClient).registerMfa(anyString(), anyString(), anyString());
+    doReturn(true).when(restClient).registerMfa(anyString(), anyString(), anyString(), anyString());
 
     // When: Registering MFA
     adapter.registerMfa(clientId, userId, mfaSecret, mfaKeyId);
 
     // Then: {userId} is replaced correctly
     String expectedEndpoint = "https://api.example.com/users/" + userId + "/2fa";
-    verify(restClient).registerMfa(expectedEndpoint, mfaSecret, mfaKeyId);
+    verify(restClient).registerMfa(tenantId, expectedEndpoint, mfaSecret, mfaKeyId);
   }
 
   @Test
@@ -135,7 +148,7 @@ class HttpMfaRegistrationAdapterTest {
     when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(tenant));
     doReturn(false)
         .when(restClient)
-        .registerMfa(anyString(), anyString(), anyString()); // Registration fails
+        .registerMfa(anyString(), anyString(), anyString(), anyString()); // Registration fails
 
     // When: Registering MFA
     boolean result = adapter.registerMfa(clientId, userId, mfaSecret, mfaKeyId);
@@ -271,7 +284,7 @@ class HttpMfaRegistrationAdapterTest {
 
     when(clientRepository.findByClientId(clientId)).thenReturn(Optional.of(client));
     when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(tenant));
-    doReturn(true).when(restClient).registerMfa(anyString(), anyString(), anyString());
+    doReturn(true).when(restClient).registerMfa(anyString(), anyString(), anyString(), anyString());
 
     // When: Registering MFA with complex user ID
     boolean result = adapter.registerMfa(clientId, userId, mfaSecret, mfaKeyId);
@@ -279,7 +292,7 @@ class HttpMfaRegistrationAdapterTest {
     // Then: User ID is correctly substituted
     assertThat(result).isTrue();
     String expectedEndpoint = "http://localhost:8081/api/users/" + userId + "/mfa-setup";
-    verify(restClient).registerMfa(expectedEndpoint, mfaSecret, mfaKeyId);
+    verify(restClient).registerMfa(tenantId, expectedEndpoint, mfaSecret, mfaKeyId);
   }
 
   @Test
@@ -305,13 +318,13 @@ class HttpMfaRegistrationAdapterTest {
 
     when(clientRepository.findByClientId(clientId)).thenReturn(Optional.of(client));
     when(tenantRepository.findById(tenantId)).thenReturn(Optional.of(tenant));
-    doReturn(true).when(restClient).registerMfa(anyString(), anyString(), anyString());
+    doReturn(true).when(restClient).registerMfa(anyString(), anyString(), anyString(), anyString());
 
     // When: Registering MFA
     adapter.registerMfa(clientId, userId, mfaSecret, mfaKeyId);
 
     // Then: All {userId} placeholders are replaced
     String expectedEndpoint = "http://localhost:8081/" + userId + "/mfa/" + userId + "/setup";
-    verify(restClient).registerMfa(expectedEndpoint, mfaSecret, mfaKeyId);
+    verify(restClient).registerMfa(tenantId, expectedEndpoint, mfaSecret, mfaKeyId);
   }
 }
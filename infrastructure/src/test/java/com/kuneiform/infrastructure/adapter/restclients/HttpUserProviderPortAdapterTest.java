@@ -16,14 +16,18 @@ import com.kuneiform.domain.model.User;
 import com.kuneiform.domain.model.UserProvider;
 import com.kuneiform.domain.port.ClientRepository;
 import com.kuneiform.domain.port.TenantRepository;
+import com.kuneiform.infrastructure.adapter.ClientContextResolver;
 import com.kuneiform.infrastructure.adapter.HttpUserProviderPortAdapter;
+import com.kuneiform.infrastructure.adapter.UserProviderCache;
 import com.kuneiform.infrastructure.adapter.models.MfaDataResponse;
 import com.kuneiform.infrastructure.adapter.models.UserResponse;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -43,11 +47,19 @@ class HttpUserProviderPortAdapterTest {
   @Mock private ClientRepository clientRepository;
   @Mock private TenantRepository tenantRepository;
 
+  private ClientContextResolver clientContextResolver;
+  private UserProviderCache userProviderCache;
+
   private HttpUserProviderPortAdapter adapter;
 
   @BeforeEach
   void setUp() {
-    adapter = new HttpUserProviderPortAdapter(restClient, clientRepository, tenantRepository);
+    // Disabled (init() not called): every call reaches the user provider
+    userProviderCache = new UserProviderCache(new WedgeConfigProperties());
+    // Not refreshed: every lookup falls back to the repositories
+    clientContextResolver =
+        new ClientContextResolver(clientRepository, tenantRepository, new WedgeConfigProperties());
+    adapter = new HttpUserProviderPortAdapter(restClient, clientContextResolver, userProviderCache);
   }
 
   @Test
@@ -68,7 +80,7 @@ class HttpUserProviderPortAdapterTest {
         new UserResponse("user-123", username, "user@example.com", Map.of(), false, null);
     doReturn(Optional.of(userResponse))
         .when(restClient)
-        .validateCredentials(eq(endpoint), eq(username), eq(password), any());
+        .validateCredentials(eq(tenantId), eq(endpoint), eq(username), eq(password), any());
 
     // When
     Optional<User> result =
@@ -102,7 +114,7 @@ class HttpUserProviderPortAdapterTest {
         new UserResponse("user-123", username, "user@example.com", Map.of(), false, null);
     doReturn(Optional.of(userResponse))
         .when(restClient)
-        .validateCredentials(eq(endpoint), eq(username), eq(password), any());
+        .validateCredentials(eq(resolvedTenantId), eq(endpoint), eq(username), eq(password), any());
 
     // When
     Optional<User> result =
@@ -142,7 +154,7 @@ class HttpUserProviderPortAdapterTest {
 
     doReturn(Optional.of(userResponse))
         .when(restClient)
-        .validateCredentials(eq(endpoint), eq(username), eq(password), any());
+        .validateCredentials(eq(resolvedTenantId), eq(endpoint), eq(username), eq(password), any());
 
     // When: Validating user credentials
     Optional<User> result =
@@ -170,7 +182,7 @@ class HttpUserProviderPortAdapterTest {
 
     doReturn(Optional.empty())
         .when(restClient)
-        .validateCredentials(eq(endpoint), eq(username), eq(password), any());
+        .validateCredentials(eq(resolvedTenantId), eq(endpoint), eq(username), eq(password), any());
 
     // When: Validating user credentials
     Optional<User> result =
@@ -235,7 +247,9 @@ class HttpUserProviderPortAdapterTest {
     UserResponse userResponse =
         new UserResponse("user-123", username, "user@example.com", Map.of(), false, null);
 
-    doReturn(Optional.of(userResponse)).when(restClient).findByUsername(endpoint, username);
+    doReturn(Optional.of(userResponse))
+        .when(restClient)
+        .findByUsername(resolvedTenantId, endpoint, username);
 
     // When: Finding user by username
     Optional<User> result = adapter.findByUsername(clientId, tenantId, username);
@@ -256,14 +270,14 @@ class HttpUserProviderPortAdapterTest {
 
     setupTenantWithMfaEndpoint(tenantId, mfaEndpoint);
 
-    when(restClient.registerMfa(mfaEndpoint, mfaSecret, mfaKeyId)).thenReturn(true);
+    when(restClient.registerMfa(tenantId, mfaEndpoint, mfaSecret, mfaKeyId)).thenReturn(true);
 
     // When: Registering MFA
     boolean result = adapter.registerMfa(clientId, tenantId, "user-123", mfaSecret, mfaKeyId);
 
     // Then: Registration succeeds
     assertThat(result).isTrue();
-    verify(restClient).registerMfa(mfaEndpoint, mfaSecret, mfaKeyId);
+    verify(restClient).registerMfa(tenantId, mfaEndpoint, mfaSecret, mfaKeyId);
   }
 
   @Test
@@ -277,7 +291,7 @@ class HttpUserProviderPortAdapterTest {
 
     setupTenantWithMfaEndpoint(tenantId, mfaEndpoint);
 
-    when(restClient.registerMfa(mfaEndpoint, mfaSecret, mfaKeyId)).thenReturn(true);
+    when(restClient.registerMfa(tenantId, mfaEndpoint, mfaSecret, mfaKeyId)).thenReturn(true);
 
     // When: Registering MFA
     boolean result = adapter.registerMfa(clientId, tenantId, "user-123", mfaSecret, mfaKeyId);
@@ -336,7 +350,7 @@ class HttpUserProviderPortAdapterTest {
                 java.time.Instant.now(),
                 new RuntimeException("Service unavailable")))
         .when(restClient)
-        .registerMfa(mfaEndpoint, mfaSecret, mfaKeyId);
+        .registerMfa(tenantId, mfaEndpoint, mfaSecret, mfaKeyId);
 
     // When: Attempting to register MFA
     boolean result = adapter.registerMfa(clientId, tenantId, "user-123", mfaSecret, mfaKeyId);
@@ -356,14 +370,14 @@ class HttpUserProviderPortAdapterTest {
 
     setupTenantWithScopesEndpoint(tenantId, scopesEndpoint);
 
-    when(restClient.validateScopes(scopesEndpoint, scopes)).thenReturn(true);
+    when(restClient.validateScopes(tenantId, scopesEndpoint, scopes)).thenReturn(true);
 
     // When
     boolean result = adapter.validateScopes(clientId, tenantId, userId, scopes);
 
     // Then
     assertThat(result).isTrue();
-    verify(restClient).validateScopes(scopesEndpoint, scopes);
+    verify(restClient).validateScopes(tenantId, scopesEndpoint, scopes);
   }
 
   @Test
@@ -377,7 +391,7 @@ class HttpUserProviderPortAdapterTest {
 
     setupTenantWithScopesEndpoint(tenantId, scopesEndpoint);
 
-    when(restClient.validateScopes(scopesEndpoint, scopes)).thenReturn(false);
+    when(restClient.validateScopes(tenantId, scopesEndpoint, scopes)).thenReturn(false);
 
     // When
     boolean result = adapter.validateScopes(clientId, tenantId, userId, scopes);
@@ -386,6 +400,33 @@ class HttpUserProviderPortAdapterTest {
     assertThat(result).isFalse();
   }
 
+  @Test
+  void validateScopes_shouldServeRepeatedValidationFromCacheWhenEnabled() {
+    // Given: Cache enabled
+    WedgeConfigProperties properties = new WedgeConfigProperties();
+    properties.getUserProviderCache().setEnabled(true);
+    UserProviderCache enabledCache = new UserProviderCache(properties);
+    enabledCache.init();
+    adapter = new HttpUserProviderPortAdapter(restClient, clientContextResolver, enabledCache);
+
+    String tenantId = "test-tenant";
+    Set<String> scopes = Set.of("openid", "profile");
+    String scopesEndpoint = "http://localhost:8081/api/users/user-123/scopes";
+    setupTenantWithScopesEndpoint(tenantId, scopesEndpoint);
+    when(restClient.validateScopes(tenantId, scopesEndpoint, scopes)).thenReturn(true);
+
+    // When: Same user and scopes validated twice, scopes in a different order
+    boolean first = adapter.validateScopes("test-client", tenantId, "user-123", scopes);
+    boolean second =
+        adapter.validateScopes(
+            "test-client", tenantId, "user-123", new TreeSet<>(scopes).descendingSet());
+
+    // Then: Only the first call reaches the user provider
+    assertThat(first).isTrue();
+    assertThat(second).isTrue();
+    verify(restClient).validateScopes(tenantId, scopesEndpoint, scopes);
+  }
+
   @Test
   void validateScopes_shouldReturnTrueWhenEndpointNotConfigured() throws UserProviderException {
     // Given
@@ -406,7 +447,7 @@ class HttpUserProviderPortAdapterTest {
 
     // Then
     assertThat(result).isTrue();
-    verify(restClient, never()).validateScopes(any(), any());
+    verify(restClient, never()).validateScopes(any(), any(), any());
   }
 
   // Helper method to set up client and tenant with user provider (for fallback
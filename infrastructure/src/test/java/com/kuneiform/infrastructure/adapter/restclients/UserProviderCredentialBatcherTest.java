@@ -0,0 +1,135 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.kuneiform.domain.exception.UserProviderException;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class UserProviderCredentialBatcherTest {
+
+  private static final String TENANT_ID = "tenant-1";
+  private static final String ENDPOINT = "http://localhost:8081/api/users/validate";
+
+  private WedgeConfigProperties config;
+  private SimpleMeterRegistry meterRegistry;
+  private UserProviderCredentialBatcher batcher;
+  private ExecutorService executor;
+  private List<List<String>> batches;
+
+  @BeforeEach
+  void setUp() {
+    config = new WedgeConfigProperties();
+    config.getUserProviderBatching().setEnabled(true);
+    meterRegistry = new SimpleMeterRegistry();
+    batcher = new UserProviderCredentialBatcher(config, meterRegistry, new MockEnvironment());
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    batches = new CopyOnWriteArrayList<>();
+  }
+
+  @AfterEach
+  void tearDown() {
+    batcher.shutdown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void submit_shouldSendFullBatchAtOnceAndFanOutResults() throws Exception {
+    config.getUserProviderBatching().setMaxWaitMs(60_000);
+    config.getUserProviderBatching().setMaxBatchSize(4);
+
+    List<CompletableFuture<String>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      String username = "user-" + i;
+      results.add(CompletableFuture.supplyAsync(() -> submit(username), executor));
+    }
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo("ok:user-" + i);
+    }
+    assertThat(batches).hasSize(1);
+    assertThat(batches.get(0)).hasSize(4);
+    assertThat(meterRegistry.summary(UserProviderCredentialBatcher.METRIC_NAME).count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void submit_shouldSendPartialBatchAfterMaxWait() throws Exception {
+    config.getUserProviderBatching().setMaxWaitMs(5);
+
+    CompletableFuture<String> result =
+        CompletableFuture.supplyAsync(() -> submit("alice"), executor);
+
+    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("ok:alice");
+    assertThat(batches).containsExactly(List.of("alice"));
+  }
+
+  @Test
+  void submit_shouldKeepTenantsInSeparateBatches() throws Exception {
+    config.getUserProviderBatching().setMaxWaitMs(20);
+
+    CompletableFuture<String> first =
+        CompletableFuture.supplyAsync(() -> submit(TENANT_ID, "alice"), executor);
+    CompletableFuture<String> second =
+        CompletableFuture.supplyAsync(() -> submit("tenant-2", "bob"), executor);
+
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("ok:alice");
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("ok:bob");
+    assertThat(batches).hasSize(2);
+  }
+
+  @Test
+  void submit_shouldFailEveryCheckWhenBatchCallFails() {
+    config.getUserProviderBatching().setMaxBatchSize(1);
+    UserProviderException failure =
+        new UserProviderException(List.of("error.code.test"), List.of("down"), Instant.now());
+
+    assertThatThrownBy(
+            () ->
+                batcher.submit(
+                    TENANT_ID,
+                    ENDPOINT,
+                    "alice",
+                    (List<String> checks) -> {
+                      throw failure;
+                    }))
+        .isSameAs(failure);
+  }
+
+  @Test
+  void submit_shouldFailWhenResultCountDoesNotMatch() {
+    config.getUserProviderBatching().setMaxBatchSize(1);
+
+    assertThatThrownBy(
+            () -> batcher.submit(TENANT_ID, ENDPOINT, "alice", (List<String> checks) -> List.of()))
+        .isInstanceOf(UserProviderException.class);
+  }
+
+  private String submit(String username) {
+    return submit(TENANT_ID, username);
+  }
+
+  private String submit(String tenantId, String username) {
+    return batcher.submit(
+        tenantId,
+        ENDPOINT,
+        username,
+        (List<String> checks) -> {
+          batches.add(List.copyOf(checks));
+          return checks.stream().map(check -> "ok:" + check).toList();
+        });
+  }
+}
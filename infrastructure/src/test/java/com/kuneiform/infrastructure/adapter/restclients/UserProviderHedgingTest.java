@@ -0,0 +1,226 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.kuneiform.domain.exception.UserProviderException;
+import com.kuneiform.infrastructure.config.CircuitBreakerProperties;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class UserProviderHedgingTest {
+
+  private static final String TENANT_ID = "tenant-1";
+
+  private CircuitBreakerProperties properties;
+  private UserProviderResilience resilience;
+  private SimpleMeterRegistry meterRegistry;
+  private UserProviderHedging hedging;
+
+  @BeforeEach
+  void setUp() {
+    properties = new CircuitBreakerProperties();
+    properties.getHedging().setMinSamples(5);
+    properties.getHedging().setMinDelayMs(10);
+    properties.getAdaptiveTimeout().setMinSamples(5);
+    properties.getAdaptiveTimeout().setMinTimeoutMs(50);
+    resilience =
+        new UserProviderResilience(
+            properties,
+            CircuitBreakerRegistry.ofDefaults(),
+            BulkheadRegistry.ofDefaults(),
+            RateLimiterRegistry.ofDefaults());
+    meterRegistry = new SimpleMeterRegistry();
+    hedging =
+        new UserProviderHedging(properties, resilience, meterRegistry, new MockEnvironment());
+  }
+
+  @AfterEach
+  void tearDown() {
+    hedging.shutdown();
+  }
+
+  @Test
+  void execute_shouldRunDirectlyWhenDisabled() {
+    Thread caller = Thread.currentThread();
+
+    Thread ran = hedging.execute(TENANT_ID, Thread::currentThread);
+
+    assertThat(ran).isSameAs(caller);
+  }
+
+  @Test
+  void execute_shouldReturnHedgeWhenFirstRequestIsSlow() {
+    warmUp();
+    properties.getHedging().setEnabled(true);
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    try {
+      String result =
+          hedging.execute(
+              TENANT_ID,
+              () -> {
+                if (attempts.incrementAndGet() == 1) {
+                  await(release);
+                  return "slow";
+                }
+                return "hedge";
+              });
+
+      assertThat(result).isEqualTo("hedge");
+      assertThat(attempts).hasValue(2);
+      assertThat(count(UserProviderHedging.HEDGING_METRIC, "won")).isEqualTo(1.0);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void execute_shouldHoldBulkheadSlotUntilLosingRequestFinishes() {
+    warmUp();
+    properties.getHedging().setEnabled(true);
+    Bulkhead bulkhead = resilience.bulkhead(TENANT_ID);
+    int maxConcurrentCalls = bulkhead.getMetrics().getMaxAllowedConcurrentCalls();
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    try {
+      String result =
+          hedging.execute(
+              TENANT_ID,
+              () -> {
+                if (attempts.incrementAndGet() == 1) {
+                  await(release);
+                  return "slow";
+                }
+                return "hedge";
+              });
+
+      // The hedge won, the first request still runs in the hedge's slot
+      assertThat(result).isEqualTo("hedge");
+      assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls())
+          .isEqualTo(maxConcurrentCalls - 1);
+    } finally {
+      release.countDown();
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (bulkhead.getMetrics().getAvailableConcurrentCalls() < maxConcurrentCalls
+        && System.nanoTime() < deadline) {
+      sleep(10);
+    }
+    assertThat(bulkhead.getMetrics().getAvailableConcurrentCalls()).isEqualTo(maxConcurrentCalls);
+  }
+
+  @Test
+  void execute_shouldNotHedgeWhenBulkheadIsFull() {
+    CircuitBreakerProperties.TenantOverrides overrides =
+        new CircuitBreakerProperties.TenantOverrides();
+    overrides.setMaxConcurrentCalls(1);
+    properties.getTenants().put(TENANT_ID, overrides);
+    warmUp();
+    properties.getHedging().setEnabled(true);
+    // The first request holds the only slot, as it does when called through the resilience guards
+    assertThat(resilience.bulkhead(TENANT_ID).tryAcquirePermission()).isTrue();
+    AtomicInteger attempts = new AtomicInteger();
+
+    try {
+      String result =
+          hedging.execute(
+              TENANT_ID,
+              () -> {
+                attempts.incrementAndGet();
+                sleep(100);
+                return "first";
+              });
+
+      assertThat(result).isEqualTo("first");
+      assertThat(attempts).hasValue(1);
+      assertThat(count(UserProviderHedging.HEDGING_METRIC, "skipped")).isEqualTo(1.0);
+    } finally {
+      resilience.bulkhead(TENANT_ID).onComplete();
+    }
+  }
+
+  @Test
+  void execute_shouldFailAfterAdaptiveTimeout() {
+    warmUp();
+    properties.getAdaptiveTimeout().setEnabled(true);
+    CountDownLatch release = new CountDownLatch(1);
+
+    try {
+      assertThatThrownBy(
+              () ->
+                  hedging.execute(
+                      TENANT_ID,
+                      () -> {
+                        await(release);
+                        return "late";
+                      }))
+          .isInstanceOf(UserProviderException.class)
+          .satisfies(
+              e ->
+                  assertThat(((UserProviderException) e).getErrorCodes())
+                      .containsExactly("error.code.user-provider.timeout"));
+      assertThat(meterRegistry.counter(UserProviderHedging.TIMEOUT_METRIC).count()).isEqualTo(1.0);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void execute_shouldPropagateFastFailuresWithoutHedging() {
+    warmUp();
+    properties.getHedging().setEnabled(true);
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                hedging.execute(
+                    TENANT_ID,
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw new IllegalStateException("provider down");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(attempts).hasValue(1);
+  }
+
+  /** Records fast calls while hedging and timeouts are still off. */
+  private void warmUp() {
+    for (int i = 0; i < 10; i++) {
+      hedging.execute(TENANT_ID, () -> "ok");
+    }
+  }
+
+  private double count(String metric, String result) {
+    return meterRegistry.counter(metric, "result", result).count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import com.kuneiform.domain.model.Tenant;
+import com.kuneiform.domain.model.UserProvider;
+import com.kuneiform.domain.port.TenantRepository;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.RestClient;
+
+@ExtendWith(MockitoExtension.class)
+class UserProviderHttpClientsTest {
+
+  @Mock private TenantRepository tenantRepository;
+
+  private UserProviderHttpClients httpClients;
+
+  @BeforeEach
+  void setUp() {
+    MockEnvironment environment =
+        new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+    httpClients =
+        new UserProviderHttpClients(tenantRepository, new WedgeConfigProperties(), environment);
+  }
+
+  @AfterEach
+  void tearDown() {
+    httpClients.shutdown();
+  }
+
+  @Test
+  void forTenant_shouldReuseClientOfSameTenant() {
+    when(tenantRepository.findById("tenant-1")).thenReturn(Optional.of(tenant("tenant-1", 3000)));
+
+    RestClient first = httpClients.forTenant("tenant-1");
+    RestClient second = httpClients.forTenant("tenant-1");
+
+    assertThat(second).isSameAs(first);
+  }
+
+  @Test
+  void forTenant_shouldUseSeparateClientPerTenant() {
+    when(tenantRepository.findById("tenant-1")).thenReturn(Optional.of(tenant("tenant-1", 3000)));
+    when(tenantRepository.findById("tenant-2")).thenReturn(Optional.of(tenant("tenant-2", 3000)));
+
+    assertThat(httpClients.forTenant("tenant-1")).isNotSameAs(httpClients.forTenant("tenant-2"));
+  }
+
+  @Test
+  void forTenant_shouldRebuildClientWhenTimeoutChanges() {
+    when(tenantRepository.findById("tenant-1"))
+        .thenReturn(Optional.of(tenant("tenant-1", 3000)))
+        .thenReturn(Optional.of(tenant("tenant-1", 800)));
+
+    RestClient before = httpClients.forTenant("tenant-1");
+    RestClient after = httpClients.forTenant("tenant-1");
+
+    assertThat(after).isNotSameAs(before);
+  }
+
+  @Test
+  void forTenant_shouldFallBackToDefaultTimeoutForUnknownTenant() {
+    when(tenantRepository.findById("unknown")).thenReturn(Optional.empty());
+
+    assertThat(httpClients.forTenant("unknown")).isNotNull();
+  }
+
+  @Test
+  void forTenant_shouldRejectNullTenant() {
+    assertThatThrownBy(() -> httpClients.forTenant(null)).isInstanceOf(NullPointerException.class);
+  }
+
+  private static Tenant tenant(String id, int timeout) {
+    return Tenant.builder()
+        .id(id)
+        .userProvider(
+            UserProvider.builder()
+                .endpoint("http://localhost:8081/api/users")
+                .timeout(timeout)
+                .build())
+        .build();
+  }
+}
@@ -0,0 +1,61 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class UserProviderLatencyHistogramTest {
+
+  private final AtomicLong clock = new AtomicLong();
+  private final UserProviderLatencyHistogram histogram =
+      new UserProviderLatencyHistogram(60000, clock::get);
+
+  @Test
+  void percentileMs_shouldBeEmptyBelowMinimumSamples() {
+    recordMs(10, 4);
+
+    assertThat(histogram.percentileMs(95, 5)).isEmpty();
+    assertThat(histogram.percentileMs(95, 4)).isPresent();
+  }
+
+  @Test
+  void percentileMs_shouldReturnBucketUpperBound() {
+    recordMs(10, 90);
+    recordMs(450, 10);
+
+    assertThat(histogram.percentileMs(50, 1)).hasValue(12);
+    assertThat(histogram.percentileMs(90, 1)).hasValue(12);
+    assertThat(histogram.percentileMs(95, 1)).hasValue(500);
+  }
+
+  @Test
+  void percentileMs_shouldDropSamplesOlderThanWindow() {
+    recordMs(450, 10);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    recordMs(10, 10);
+
+    // Both halves are still in the window
+    assertThat(histogram.percentileMs(99, 1)).hasValue(500);
+
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+    recordMs(10, 1);
+
+    assertThat(histogram.percentileMs(99, 1)).hasValue(12);
+  }
+
+  @Test
+  void percentileMs_shouldDropEverythingAfterIdleWindow() {
+    recordMs(10, 10);
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(120));
+
+    assertThat(histogram.percentileMs(50, 1)).isEmpty();
+  }
+
+  private void recordMs(long latencyMs, int times) {
+    for (int i = 0; i < times; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.kuneiform.domain.exception.UserProviderClientException;
+import com.kuneiform.infrastructure.config.CircuitBreakerProperties;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.github.resilience4j.ratelimiter.RequestNotPermitted;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserProviderResilienceTest {
+
+  private CircuitBreakerProperties properties;
+  private CircuitBreakerRegistry circuitBreakerRegistry;
+  private UserProviderResilience resilience;
+
+  @BeforeEach
+  void setUp() {
+    properties = new CircuitBreakerProperties();
+    properties.setMinimumNumberOfCalls(2);
+    properties.setSlidingWindowSize(2);
+    circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+    resilience =
+        new UserProviderResilience(
+            properties,
+            circuitBreakerRegistry,
+            BulkheadRegistry.ofDefaults(),
+            RateLimiterRegistry.ofDefaults());
+  }
+
+  @Test
+  void call_shouldOpenCircuitOnlyForFailingTenant() {
+    for (int i = 0; i < 2; i++) {
+      assertThatThrownBy(() -> resilience.call("tenant-a", this::fail, this::rejected))
+          .isInstanceOf(IllegalStateException.class);
+    }
+
+    assertThat(resilience.circuitBreaker("tenant-a").getState())
+        .isEqualTo(CircuitBreaker.State.OPEN);
+    assertThat(resilience.call("tenant-a", () -> "ok", this::rejected)).isEqualTo("rejected");
+    assertThat(resilience.call("tenant-b", () -> "ok", this::rejected)).isEqualTo("ok");
+  }
+
+  @Test
+  void call_shouldNotCountClientErrorsAsFailures() {
+    for (int i = 0; i < 4; i++) {
+      assertThatThrownBy(
+              () ->
+                  resilience.call(
+                      "tenant-a",
+                      () -> {
+                        throw new UserProviderClientException(
+                            List.of("INVALID_CREDENTIALS"), List.of("Invalid"), Instant.now());
+                      },
+                      this::rejected))
+          .isInstanceOf(UserProviderClientException.class);
+    }
+
+    assertThat(resilience.circuitBreaker("tenant-a").getState())
+        .isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  void call_shouldApplyTenantOverrides() {
+    CircuitBreakerProperties.TenantOverrides overrides =
+        new CircuitBreakerProperties.TenantOverrides();
+    overrides.setFailureRateThreshold(25.0f);
+    overrides.setWaitDurationInOpenStateMs(5000L);
+    properties.getTenants().put("tenant-a", overrides);
+
+    CircuitBreaker tenantA = resilience.circuitBreaker("tenant-a");
+    CircuitBreaker tenantB = resilience.circuitBreaker("tenant-b");
+
+    assertThat(tenantA.getName()).isEqualTo("userProvider-tenant-a");
+    assertThat(tenantA.getCircuitBreakerConfig().getFailureRateThreshold()).isEqualTo(25.0f);
+    assertThat(tenantB.getCircuitBreakerConfig().getFailureRateThreshold())
+        .isEqualTo(properties.getFailureRateThreshold());
+    assertThat(circuitBreakerRegistry.find("userProvider-tenant-b")).contains(tenantB);
+  }
+
+  @Test
+  void call_shouldRejectWhenTenantBulkheadIsFull() throws Exception {
+    CircuitBreakerProperties.TenantOverrides overrides =
+        new CircuitBreakerProperties.TenantOverrides();
+    overrides.setMaxConcurrentCalls(1);
+    properties.getTenants().put("tenant-a", overrides);
+
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Thread inFlight =
+        Thread.ofVirtual()
+            .start(
+                () ->
+                    resilience.call(
+                        "tenant-a",
+                        () -> {
+                          started.countDown();
+                          await(release);
+                          return "ok";
+                        },
+                        this::rejected));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    try {
+      assertThat(resilience.call("tenant-a", () -> "ok", this::rejected)).isEqualTo("rejected");
+      assertThat(resilience.call("tenant-b", () -> "ok", this::rejected)).isEqualTo("ok");
+    } finally {
+      release.countDown();
+      inFlight.join();
+    }
+  }
+
+  @Test
+  void call_shouldRejectWhenTenantRateLimitIsExceeded() {
+    properties.getRateLimiter().setEnabled(true);
+    properties.getRateLimiter().setLimitForPeriod(1);
+    properties.getRateLimiter().setLimitRefreshPeriodMs(60000L);
+
+    assertThat(resilience.call("tenant-a", () -> "ok", this::rejected)).isEqualTo("ok");
+    assertThat(resilience.call("tenant-a", () -> "ok", this::rejected)).isEqualTo("rejected");
+    assertThat(resilience.call("tenant-b", () -> "ok", this::rejected)).isEqualTo("ok");
+  }
+
+  private String fail() {
+    throw new IllegalStateException("provider down");
+  }
+
+  private String rejected(RuntimeException rejection) {
+    assertThat(rejection)
+        .isInstanceOfAny(
+            CallNotPermittedException.class,
+            BulkheadFullException.class,
+            RequestNotPermitted.class);
+    return "rejected";
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
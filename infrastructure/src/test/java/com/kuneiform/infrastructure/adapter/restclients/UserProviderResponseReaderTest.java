@@ -0,0 +1,120 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.kuneiform.domain.exception.UserProviderClientException;
+import com.kuneiform.domain.exception.UserProviderException;
+import com.kuneiform.infrastructure.adapter.models.UserResponse;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import tools.jackson.databind.json.JsonMapper;
+
+class UserProviderResponseReaderTest {
+
+  private WedgeConfigProperties config;
+  private UserProviderResponseReader reader;
+
+  @BeforeEach
+  void setUp() {
+    config = new WedgeConfigProperties();
+    reader = new UserProviderResponseReader(JsonMapper.builder().build(), config);
+  }
+
+  @Test
+  void readUser_shouldDecodeUserAndMfaData() throws IOException {
+    String body =
+        """
+        {"userId":"user-1","username":"alice","metadata":{"tier":"gold"},"mfaEnabled":true,
+         "mfaData":{"twoFaRegistered":true,"mfaKeyId":"Wedge:alice","mfaSecret":"SECRET"}}
+        """;
+
+    Optional<UserResponse> user = reader.readUser(response(HttpStatus.OK, body));
+
+    assertThat(user).isPresent();
+    assertThat(user.get().userId()).isEqualTo("user-1");
+    assertThat(user.get().metadata()).containsEntry("tier", "gold");
+    assertThat(user.get().mfaData().mfaKeyId()).isEqualTo("Wedge:alice");
+  }
+
+  @Test
+  void readUser_shouldReturnEmptyForEmptyOrNullBody() throws IOException {
+    assertThat(reader.readUser(response(HttpStatus.OK, ""))).isEmpty();
+    assertThat(reader.readUser(response(HttpStatus.OK, "null"))).isEmpty();
+  }
+
+  @Test
+  void readUser_shouldRejectDeclaredContentLengthAboveLimit() {
+    config.getUserProviderHttp().setMaxResponseBytes(16);
+    MockClientHttpResponse response = response(HttpStatus.OK, "{\"userId\":\"user-1\"}");
+    response.getHeaders().setContentLength(19);
+
+    assertThatThrownBy(() -> reader.readUser(response))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("exceeds limit");
+  }
+
+  @Test
+  void readUser_shouldRejectStreamLongerThanLimit() {
+    config.getUserProviderHttp().setMaxResponseBytes(16);
+
+    assertThatThrownBy(
+            () -> reader.readUser(response(HttpStatus.OK, "{\"userId\":\"user-1234567890\"}")))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void readError_shouldDecodeClientErrors() throws IOException {
+    String body =
+        """
+        {"errorCodes":["INVALID_CREDENTIALS"],"messages":["Invalid"],
+         "errorDate":"2026-01-22T17:58:14Z"}
+        """;
+
+    UserProviderException error = reader.readError(response(HttpStatus.UNAUTHORIZED, body));
+
+    assertThat(error).isInstanceOf(UserProviderClientException.class);
+    assertThat(error.getErrorCodes()).containsExactly("INVALID_CREDENTIALS");
+    assertThat(error.getErrorDate()).isEqualTo(Instant.parse("2026-01-22T17:58:14Z"));
+    assertThat(error.getCause())
+        .isInstanceOfSatisfying(
+            HttpClientErrorException.class,
+            cause -> assertThat(cause.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+  }
+
+  @Test
+  void readError_shouldTreatServerErrorsAsServiceDown() throws IOException {
+    String body =
+        """
+        {"errorCodes":["DATABASE_UNAVAILABLE"],"messages":["Down"],
+         "errorDate":"2026-01-22T17:58:14Z"}
+        """;
+
+    UserProviderException error = reader.readError(response(HttpStatus.SERVICE_UNAVAILABLE, body));
+
+    assertThat(error).isNotInstanceOf(UserProviderClientException.class);
+    assertThat(error.getErrorCodes()).containsExactly("error.code.user-provider.service-down");
+    assertThat(error.getCause()).isInstanceOf(HttpServerErrorException.class);
+  }
+
+  @Test
+  void readError_shouldFallBackToServiceDownForUnreadableBody() throws IOException {
+    UserProviderException error = reader.readError(response(HttpStatus.BAD_GATEWAY, "<html>"));
+
+    assertThat(error).isNotInstanceOf(UserProviderClientException.class);
+    assertThat(error.getErrorCodes()).containsExactly("error.code.user-provider.service-down");
+  }
+
+  private static MockClientHttpResponse response(HttpStatus status, String body) {
+    return new MockClientHttpResponse(body.getBytes(StandardCharsets.UTF_8), status);
+  }
+}
@@ -7,10 +7,17 @@ import static org.mockito.Mockito.*;
 import com.kuneiform.domain.exception.UserProviderClientException;
 import com.kuneiform.domain.exception.UserProviderException;
 import com.kuneiform.infrastructure.adapter.models.MfaDataResponse;
-import com.kuneiform.infrastructure.adapter.models.UserProviderErrorResponse;
 import com.kuneiform.infrastructure.adapter.models.UserResponse;
 import com.kuneiform.infrastructure.config.CircuitBreakerProperties;
 import com.kuneiform.infrastructure.config.UserProviderApiKeyProperties;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
@@ -22,16 +29,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClient.*;
+import org.springframework.web.client.RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse;
+import org.springframework.web.client.RestClient.RequestHeadersSpec.ExchangeFunction;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
 @ExtendWith(MockitoExtension.class)
 class UserProviderRestClientTest {
 
+  private static final String TENANT_ID = "tenant-1";
+
+  @Mock private UserProviderHttpClients httpClients;
+
   @Mock private RestClient restClient;
 
   @Mock private RequestHeadersUriSpec requestHeadersUriSpec;
@@ -40,28 +54,46 @@ class UserProviderRestClientTest {
 
   @Mock private RequestBodySpec requestBodySpec;
 
-  @Mock private ResponseSpec responseSpec;
-
   @Mock private RequestHeadersSpec<?> requestHeadersSpecAfterHeader;
 
-  @Mock private ObjectMapper objectMapper;
+  private final ObjectMapper objectMapper = JsonMapper.builder().build();
 
   @Mock private CircuitBreakerProperties circuitBreakerProperties;
 
   @Mock private UserProviderApiKeyProperties apiKeyProperties;
 
+  private UserProviderResilience resilience;
+
   private UserProviderRestClient userProviderRestClient;
 
   @BeforeEach
   void setUp() {
-    userProviderRestClient = new UserProviderRestClient(restClient, objectMapper, apiKeyProperties);
+    lenient().when(httpClients.forTenant(TENANT_ID)).thenReturn(restClient);
+    resilience =
+        new UserProviderResilience(
+            new CircuitBreakerProperties(),
+            CircuitBreakerRegistry.ofDefaults(),
+            BulkheadRegistry.ofDefaults(),
+            RateLimiterRegistry.ofDefaults());
+    userProviderRestClient =
+        new UserProviderRestClient(
+            httpClients,
+            resilience,
+            new UserProviderSingleFlight(new SimpleMeterRegistry()),
+            new UserProviderHedging(
+                new CircuitBreakerProperties(),
+                resilience,
+                new SimpleMeterRegistry(),
+                new MockEnvironment()),
+            new UserProviderResponseReader(objectMapper, new WedgeConfigProperties()),
+            new UserProviderCredentialBatcher(
+                new WedgeConfigProperties(), new SimpleMeterRegistry(), new MockEnvironment()),
+            apiKeyProperties);
     clearInvocations(restClient);
     clearInvocations(requestHeadersUriSpec);
     clearInvocations(requestBodyUriSpec);
     clearInvocations(requestBodySpec);
-    clearInvocations(responseSpec);
     clearInvocations(requestHeadersSpecAfterHeader);
-    clearInvocations(objectMapper);
     clearInvocations(circuitBreakerProperties);
     clearInvocations(apiKeyProperties);
   }
@@ -78,11 +110,11 @@ class UserProviderRestClientTest {
     when(requestHeadersUriSpec.uri(any(String.class), eq(username)))
         .thenReturn(requestHeadersUriSpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
-    when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.toEntity(UserResponse.class)).thenReturn(ResponseEntity.ok(expectedResponse));
+    respond(requestHeadersUriSpec, HttpStatus.OK, json(expectedResponse));
 
     // When
-    Optional<UserResponse> result = userProviderRestClient.findByUsername(endpoint, username);
+    Optional<UserResponse> result =
+        userProviderRestClient.findByUsername(TENANT_ID, endpoint, username);
 
     // Then
     assertTrue(result.isPresent());
@@ -99,11 +131,11 @@ class UserProviderRestClientTest {
     when(requestHeadersUriSpec.uri(any(String.class), eq(username)))
         .thenReturn(requestHeadersUriSpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
-    when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.toEntity(UserResponse.class)).thenReturn(ResponseEntity.ok().body(null));
+    respond(requestHeadersUriSpec, HttpStatus.OK, "");
 
     // When
-    Optional<UserResponse> result = userProviderRestClient.findByUsername(endpoint, username);
+    Optional<UserResponse> result =
+        userProviderRestClient.findByUsername(TENANT_ID, endpoint, username);
 
     // Then
     assertFalse(result.isPresent());
@@ -127,11 +159,11 @@ class UserProviderRestClientTest {
     when(apiKeyProperties.getValue()).thenReturn(apiKeyValue);
     when(requestHeadersUriSpec.header(apiKeyHeaderName, apiKeyValue))
         .thenReturn(requestHeadersSpecAfterHeader);
-    when(requestHeadersSpecAfterHeader.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.toEntity(UserResponse.class)).thenReturn(ResponseEntity.ok(expectedResponse));
+    respond(requestHeadersSpecAfterHeader, HttpStatus.OK, json(expectedResponse));
 
     // When
-    Optional<UserResponse> result = userProviderRestClient.findByUsername(endpoint, username);
+    Optional<UserResponse> result =
+        userProviderRestClient.findByUsername(TENANT_ID, endpoint, username);
 
     // Then
     assertTrue(result.isPresent());
@@ -152,11 +184,11 @@ class UserProviderRestClientTest {
     when(requestHeadersUriSpec.uri(any(String.class), eq(username)))
         .thenReturn(requestHeadersUriSpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
-    when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.toEntity(UserResponse.class)).thenReturn(ResponseEntity.ok(expectedResponse));
+    respond(requestHeadersUriSpec, HttpStatus.OK, json(expectedResponse));
 
     // When
-    Optional<UserResponse> result = userProviderRestClient.findByUsername(endpoint, username);
+    Optional<UserResponse> result =
+        userProviderRestClient.findByUsername(TENANT_ID, endpoint, username);
 
     // Then
     assertTrue(result.isPresent());
@@ -178,11 +210,11 @@ class UserProviderRestClientTest {
         .thenReturn(requestHeadersUriSpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(true);
     when(apiKeyProperties.getValue()).thenReturn(null);
-    when(requestHeadersUriSpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.toEntity(UserResponse.class)).thenReturn(ResponseEntity.ok(expectedResponse));
+    respond(requestHeadersUriSpec, HttpStatus.OK, json(expectedResponse));
 
     // When
-    Optional<UserResponse> result = userProviderRestClient.findByUsername(endpoint, username);
+    Optional<UserResponse> result =
+        userProviderRestClient.findByUsername(TENANT_ID, endpoint, username);
 
     // Then
     assertTrue(result.isPresent());
@@ -205,14 +237,12 @@ class UserProviderRestClientTest {
     when(requestBodyUriSpec.uri(endpoint)).thenReturn(requestBodySpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
     when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
-    when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
-    when(responseSpec.toEntity(UserResponse.class)).thenReturn(ResponseEntity.ok(expectedResponse));
+    respond(requestBodySpec, HttpStatus.OK, json(expectedResponse));
 
     // When
     Optional<UserResponse> result =
         userProviderRestClient.validateCredentials(
-            endpoint, username, password, Collections.emptySet());
+            TENANT_ID, endpoint, username, password, Collections.emptySet());
 
     // Then
     assertTrue(result.isPresent());
@@ -221,6 +251,51 @@ class UserProviderRestClientTest {
     assertNotNull(result.get().mfaData());
   }
 
+  @Test
+  void validateCredentials_shouldUseBatchEndpointWhenBatchingIsEnabled()
+      throws UserProviderException {
+    // Given
+    WedgeConfigProperties config = new WedgeConfigProperties();
+    config.getUserProviderBatching().setEnabled(true);
+    config.getUserProviderBatching().setMaxBatchSize(1);
+    UserProviderCredentialBatcher batcher =
+        new UserProviderCredentialBatcher(config, new SimpleMeterRegistry(), new MockEnvironment());
+    userProviderRestClient =
+        new UserProviderRestClient(
+            httpClients,
+            resilience,
+            new UserProviderSingleFlight(new SimpleMeterRegistry()),
+            new UserProviderHedging(
+                new CircuitBreakerProperties(),
+                resilience,
+                new SimpleMeterRegistry(),
+                new MockEnvironment()),
+            new UserProviderResponseReader(objectMapper, config),
+            batcher,
+            apiKeyProperties);
+    String endpoint = "http://localhost:8081/api/users/validate";
+
+    when(restClient.post()).thenReturn(requestBodyUriSpec);
+    when(requestBodyUriSpec.uri(endpoint + "/batch")).thenReturn(requestBodySpec);
+    when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
+    when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
+    respond(
+        requestBodySpec,
+        HttpStatus.OK,
+        "{\"results\":[{\"status\":401,\"error\":{\"errorCodes\":[\"invalid.credentials\"],"
+            + "\"messages\":[\"Invalid credentials\"],\"errorDate\":\"2026-01-01T00:00:00Z\"}}]}");
+
+    // When & Then
+    UserProviderClientException exception =
+        assertThrows(
+            UserProviderClientException.class,
+            () ->
+                userProviderRestClient.validateCredentials(
+                    TENANT_ID, endpoint, "testuser", "wrong", Collections.emptySet()));
+    assertEquals(List.of("invalid.credentials"), exception.getErrorCodes());
+    batcher.shutdown();
+  }
+
   @Test
   void registerMfa_shouldReturnTrueOnSuccess() throws UserProviderException {
     // Given
@@ -232,12 +307,11 @@ class UserProviderRestClientTest {
     when(requestBodyUriSpec.uri(mfaEndpoint)).thenReturn(requestBodySpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
     when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
-    when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
-    when(responseSpec.toBodilessEntity()).thenReturn(ResponseEntity.noContent().build());
+    respond(requestBodySpec, HttpStatus.NO_CONTENT, "");
 
     // When
-    boolean result = userProviderRestClient.registerMfa(mfaEndpoint, mfaSecret, mfaKeyId);
+    boolean result =
+        userProviderRestClient.registerMfa(TENANT_ID, mfaEndpoint, mfaSecret, mfaKeyId);
 
     // Then
     assertTrue(result);
@@ -257,7 +331,7 @@ class UserProviderRestClientTest {
     UserProviderException exception =
         assertThrows(
             UserProviderException.class,
-            () -> userProviderRestClient.registerMfa(mfaEndpoint, mfaSecret, mfaKeyId));
+            () -> userProviderRestClient.registerMfa(TENANT_ID, mfaEndpoint, mfaSecret, mfaKeyId));
 
     assertEquals("error.code.user-provider.service-down", exception.getErrorCodes().get(0));
     assertTrue(exception.getMessages().get(0).contains("unavailable"));
@@ -278,30 +352,18 @@ class UserProviderRestClientTest {
         }
         """;
 
-    HttpClientErrorException httpException =
-        HttpClientErrorException.create(
-            HttpStatus.NOT_FOUND, "Not Found", null, errorResponseJson.getBytes(), null);
-
-    UserProviderErrorResponse errorResponse =
-        UserProviderErrorResponse.builder()
-            .errorCodes(List.of("USER_NOT_FOUND"))
-            .messages(List.of("User not found"))
-            .errorDate(Instant.parse("2026-01-22T17:58:14Z"))
-            .build();
 
     when(restClient.get()).thenReturn(requestHeadersUriSpec);
     when(requestHeadersUriSpec.uri(any(String.class), eq(username)))
         .thenReturn(requestHeadersUriSpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
-    when(requestHeadersUriSpec.retrieve()).thenThrow(httpException);
-    when(objectMapper.readValue(eq(errorResponseJson), eq(UserProviderErrorResponse.class)))
-        .thenReturn(errorResponse);
+    respond(requestHeadersUriSpec, HttpStatus.NOT_FOUND, errorResponseJson);
 
     // When & Then
     UserProviderClientException exception =
         assertThrows(
             UserProviderClientException.class,
-            () -> userProviderRestClient.findByUsername(endpoint, username));
+            () -> userProviderRestClient.findByUsername(TENANT_ID, endpoint, username));
 
     assertEquals(List.of("USER_NOT_FOUND"), exception.getErrorCodes());
     assertEquals(List.of("User not found"), exception.getMessages());
@@ -324,24 +386,12 @@ class UserProviderRestClientTest {
         }
         """;
 
-    HttpClientErrorException httpException =
-        HttpClientErrorException.create(
-            HttpStatus.UNAUTHORIZED, "Unauthorized", null, errorResponseJson.getBytes(), null);
-
-    UserProviderErrorResponse errorResponse =
-        UserProviderErrorResponse.builder()
-            .errorCodes(List.of("INVALID_CREDENTIALS"))
-            .messages(List.of("Invalid username or password"))
-            .errorDate(Instant.parse("2026-01-22T17:58:14Z"))
-            .build();
 
     when(restClient.post()).thenReturn(requestBodyUriSpec);
     when(requestBodyUriSpec.uri(endpoint)).thenReturn(requestBodySpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
     when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
-    when(requestBodySpec.retrieve()).thenThrow(httpException);
-    when(objectMapper.readValue(eq(errorResponseJson), eq(UserProviderErrorResponse.class)))
-        .thenReturn(errorResponse);
+    respond(requestBodySpec, HttpStatus.UNAUTHORIZED, errorResponseJson);
 
     // When & Then
     UserProviderClientException exception =
@@ -349,7 +399,7 @@ class UserProviderRestClientTest {
             UserProviderClientException.class,
             () ->
                 userProviderRestClient.validateCredentials(
-                    endpoint, username, password, Collections.emptySet()));
+                    TENANT_ID, endpoint, username, password, Collections.emptySet()));
 
     assertEquals(List.of("INVALID_CREDENTIALS"), exception.getErrorCodes());
     assertEquals(List.of("Invalid username or password"), exception.getMessages());
@@ -372,30 +422,18 @@ class UserProviderRestClientTest {
         }
         """;
 
-    HttpClientErrorException httpException =
-        HttpClientErrorException.create(
-            HttpStatus.BAD_REQUEST, "Bad Request", null, errorResponseJson.getBytes(), null);
-
-    UserProviderErrorResponse errorResponse =
-        UserProviderErrorResponse.builder()
-            .errorCodes(List.of("MFA_REGISTRATION_FAILED"))
-            .messages(List.of("Failed to register MFA"))
-            .errorDate(Instant.parse("2026-01-22T17:58:14Z"))
-            .build();
 
     when(restClient.patch()).thenReturn(requestBodyUriSpec);
     when(requestBodyUriSpec.uri(mfaEndpoint)).thenReturn(requestBodySpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
     when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
-    when(requestBodySpec.retrieve()).thenThrow(httpException);
-    when(objectMapper.readValue(eq(errorResponseJson), eq(UserProviderErrorResponse.class)))
-        .thenReturn(errorResponse);
+    respond(requestBodySpec, HttpStatus.BAD_REQUEST, errorResponseJson);
 
     // When & Then
     UserProviderClientException exception =
         assertThrows(
             UserProviderClientException.class,
-            () -> userProviderRestClient.registerMfa(mfaEndpoint, mfaSecret, mfaKeyId));
+            () -> userProviderRestClient.registerMfa(TENANT_ID, mfaEndpoint, mfaSecret, mfaKeyId));
 
     assertEquals(List.of("MFA_REGISTRATION_FAILED"), exception.getErrorCodes());
     assertEquals(List.of("Failed to register MFA"), exception.getMessages());
@@ -415,7 +453,7 @@ class UserProviderRestClientTest {
             UserProviderException.class,
             () ->
                 userProviderRestClient.findByUsernameFallback(
-                    endpoint, username, fallbackException));
+                    TENANT_ID, endpoint, username, fallbackException));
 
     assertEquals(List.of("error.code.circuit-breaker.open"), exception.getErrorCodes());
     assertTrue(exception.getMessages().get(0).contains("circuit breaker activated"));
@@ -437,7 +475,12 @@ class UserProviderRestClientTest {
             UserProviderException.class,
             () ->
                 userProviderRestClient.validateCredentialsFallback(
-                    endpoint, username, password, Collections.emptySet(), fallbackException));
+                    TENANT_ID,
+                    endpoint,
+                    username,
+                    password,
+                    Collections.emptySet(),
+                    fallbackException));
 
     assertEquals(List.of("error.code.circuit-breaker.open"), exception.getErrorCodes());
     assertTrue(exception.getMessages().get(0).contains("circuit breaker activated"));
@@ -454,12 +497,10 @@ class UserProviderRestClientTest {
     when(requestBodyUriSpec.uri(endpoint)).thenReturn(requestBodySpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
     when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
-    when(requestBodySpec.retrieve()).thenReturn(responseSpec);
-    when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
-    when(responseSpec.toBodilessEntity()).thenReturn(ResponseEntity.ok().build());
+    respond(requestBodySpec, HttpStatus.OK, "");
 
     // When
-    boolean result = userProviderRestClient.validateScopes(endpoint, scopes);
+    boolean result = userProviderRestClient.validateScopes(TENANT_ID, endpoint, scopes);
 
     // Then
     assertTrue(result);
@@ -471,22 +512,42 @@ class UserProviderRestClientTest {
     String endpoint = "http://localhost:8081/api/users/user123/scopes";
     Set<String> scopes = Set.of("admin");
 
-    HttpClientErrorException forbiddenException =
-        HttpClientErrorException.create(HttpStatus.FORBIDDEN, "Forbidden", null, null, null);
-
     when(restClient.post()).thenReturn(requestBodyUriSpec);
     when(requestBodyUriSpec.uri(endpoint)).thenReturn(requestBodySpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
     when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
-    when(requestBodySpec.retrieve()).thenThrow(forbiddenException);
+    respond(requestBodySpec, HttpStatus.FORBIDDEN, "");
 
     // When
-    boolean result = userProviderRestClient.validateScopes(endpoint, scopes);
+    boolean result = userProviderRestClient.validateScopes(TENANT_ID, endpoint, scopes);
 
     // Then
     assertFalse(result);
   }
 
+  @Test
+  void decideScopes_shouldReturnAllowedScopesAndMaxAge() throws UserProviderException {
+    // Given
+    String endpoint = "http://localhost:8081/api/users/user123/scopes/decision";
+    Set<String> scopes = Set.of("openid", "admin");
+
+    when(restClient.post()).thenReturn(requestBodyUriSpec);
+    when(requestBodyUriSpec.uri(endpoint)).thenReturn(requestBodySpec);
+    when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
+    when(requestBodySpec.body(any(Map.class))).thenReturn(requestBodySpec);
+    HttpHeaders headers = new HttpHeaders();
+    headers.setCacheControl("private, max-age=30");
+    respond(requestBodySpec, HttpStatus.OK, "{\"allowedScopes\":[\"openid\"]}", headers);
+
+    // When
+    ScopeDecision decision = userProviderRestClient.decideScopes(TENANT_ID, endpoint, scopes);
+
+    // Then
+    assertEquals(Set.of("openid"), decision.allowedScopes());
+    assertEquals(Duration.ofSeconds(30), decision.maxAge());
+    assertFalse(decision.allows(scopes));
+  }
+
   @Test
   void validateScopesFallback_shouldThrowCircuitBreakerException() {
     // Given
@@ -499,7 +560,8 @@ class UserProviderRestClientTest {
         assertThrows(
             UserProviderException.class,
             () ->
-                userProviderRestClient.validateScopesFallback(endpoint, scopes, fallbackException));
+                userProviderRestClient.validateScopesFallback(
+                    TENANT_ID, endpoint, scopes, fallbackException));
 
     assertEquals(List.of("error.code.circuit-breaker.open"), exception.getErrorCodes());
     assertTrue(exception.getMessages().get(0).contains("circuit breaker activated"));
@@ -519,7 +581,7 @@ class UserProviderRestClientTest {
             UserProviderException.class,
             () ->
                 userProviderRestClient.registerMfaFallback(
-                    mfaEndpoint, mfaSecret, mfaKeyId, fallbackException));
+                    TENANT_ID, mfaEndpoint, mfaSecret, mfaKeyId, fallbackException));
 
     assertEquals(List.of("error.code.circuit-breaker.open"), exception.getErrorCodes());
     assertTrue(exception.getMessages().get(0).contains("circuit breaker activated"));
@@ -532,31 +594,84 @@ class UserProviderRestClientTest {
     String endpoint = "http://localhost:8081/api/users/validate";
     String username = "testuser";
 
-    HttpClientErrorException httpException =
-        HttpClientErrorException.create(
-            HttpStatus.INTERNAL_SERVER_ERROR,
-            "Internal Server Error",
-            null,
-            "Invalid JSON".getBytes(),
-            null);
-
     when(restClient.get()).thenReturn(requestHeadersUriSpec);
     when(requestHeadersUriSpec.uri(any(String.class), eq(username)))
         .thenReturn(requestHeadersUriSpec);
     when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
-    when(requestHeadersUriSpec.retrieve()).thenThrow(httpException);
-    when(objectMapper.readValue(eq("Invalid JSON"), eq(UserProviderErrorResponse.class)))
-        .thenThrow(new RuntimeException("Cannot parse JSON"));
+    respond(requestHeadersUriSpec, HttpStatus.INTERNAL_SERVER_ERROR, "Invalid JSON");
 
     // When & Then
     UserProviderException exception =
         assertThrows(
             UserProviderException.class,
-            () -> userProviderRestClient.findByUsername(endpoint, username));
+            () -> userProviderRestClient.findByUsername(TENANT_ID, endpoint, username));
 
     assertEquals(List.of("error.code.user-provider.service-down"), exception.getErrorCodes());
     assertEquals(
         List.of("User provider service is temporarily unavailable"), exception.getMessages());
     assertNotNull(exception.getErrorDate());
   }
+
+  @Test
+  void findByUsername_shouldUseFallbackWhenTenantCircuitIsOpen() {
+    resilience.circuitBreaker(TENANT_ID).transitionToOpenState();
+
+    UserProviderException exception =
+        assertThrows(
+            UserProviderException.class,
+            () -> userProviderRestClient.findByUsername(TENANT_ID, "http://localhost", "user"));
+
+    assertEquals(List.of("error.code.circuit-breaker.open"), exception.getErrorCodes());
+    verify(restClient, never()).get();
+  }
+
+  @Test
+  void findByUsername_shouldFailWhenResponseExceedsMaxSize() {
+    // Given
+    String endpoint = "http://localhost:8081/api/users/validate";
+    String username = "testuser";
+    String oversized = "{\"userId\":\"" + "x".repeat(2 * 1024 * 1024) + "\"}";
+
+    when(restClient.get()).thenReturn(requestHeadersUriSpec);
+    when(requestHeadersUriSpec.uri(any(String.class), eq(username)))
+        .thenReturn(requestHeadersUriSpec);
+    when(apiKeyProperties.isMustBeValidated()).thenReturn(false);
+    respond(requestHeadersUriSpec, HttpStatus.OK, oversized);
+
+    // When & Then
+    UserProviderException exception =
+        assertThrows(
+            UserProviderException.class,
+            () -> userProviderRestClient.findByUsername(TENANT_ID, endpoint, username));
+
+    assertEquals(List.of("error.code.user-provider.service-down"), exception.getErrorCodes());
+  }
+
+  /** Runs the client's exchange callback against a response with the given status and body. */
+  private void respond(RequestHeadersSpec<?> spec, HttpStatus status, String body) {
+    respond(spec, status, body, new HttpHeaders());
+  }
+
+  private void respond(
+      RequestHeadersSpec<?> spec, HttpStatus status, String body, HttpHeaders headers) {
+    try {
+      ConvertibleClientHttpResponse response = mock(ConvertibleClientHttpResponse.class);
+      lenient().when(response.getStatusCode()).thenReturn(status);
+      lenient().when(response.getStatusText()).thenReturn(status.getReasonPhrase());
+      lenient().when(response.getHeaders()).thenReturn(headers);
+      lenient()
+          .when(response.getBody())
+          .thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+      when(spec.exchange(any()))
+          .thenAnswer(
+              invocation ->
+                  invocation.<ExchangeFunction<?>>getArgument(0).exchange(null, response));
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String json(Object value) {
+    return objectMapper.writeValueAsString(value);
+  }
 }
@@ -0,0 +1,165 @@
+package com.kuneiform.infrastructure.adapter.restclients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class UserProviderSingleFlightTest {
+
+  private static final String TENANT_ID = "tenant-1";
+  private static final String ENDPOINT = "http://localhost:8081/api/users/u1/scopes";
+
+  private SimpleMeterRegistry meterRegistry;
+  private UserProviderSingleFlight singleFlight;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    singleFlight = new UserProviderSingleFlight(meterRegistry);
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void execute_shouldShareOneCallBetweenConcurrentIdenticalCallers() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Boolean> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                singleFlight.execute(
+                    "validateScopes",
+                    TENANT_ID,
+                    ENDPOINT,
+                    Set.of("openid", "profile"),
+                    () -> {
+                      calls.incrementAndGet();
+                      started.countDown();
+                      await(release);
+                      return true;
+                    }),
+            executor);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    List<CompletableFuture<Boolean>> followers = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      followers.add(
+          CompletableFuture.supplyAsync(
+              () ->
+                  singleFlight.execute(
+                      "validateScopes",
+                      TENANT_ID,
+                      ENDPOINT,
+                      Set.of("profile", "openid"),
+                      () -> {
+                        calls.incrementAndGet();
+                        return false;
+                      }),
+              executor));
+    }
+    awaitCoalesced(5);
+    release.countDown();
+
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isTrue();
+    for (CompletableFuture<Boolean> follower : followers) {
+      assertThat(follower.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+    assertThat(calls).hasValue(1);
+    assertThat(counter("executed")).isEqualTo(1.0);
+  }
+
+  @Test
+  void execute_shouldPropagateLeaderExceptionToFollowers() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Object> leader =
+        CompletableFuture.supplyAsync(
+            () ->
+                singleFlight.execute(
+                    "findByUsername",
+                    TENANT_ID,
+                    ENDPOINT,
+                    "alice",
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      throw new IllegalStateException("provider down");
+                    }),
+            executor);
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+    CompletableFuture<Object> follower =
+        CompletableFuture.supplyAsync(
+            () -> singleFlight.execute("findByUsername", TENANT_ID, ENDPOINT, "alice", () -> "ok"),
+            executor);
+    awaitCoalesced(1);
+    release.countDown();
+
+    assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void execute_shouldNotShareCallsWithDifferentKeysOrAfterCompletion() {
+    AtomicInteger calls = new AtomicInteger();
+
+    singleFlight.execute("findByUsername", TENANT_ID, ENDPOINT, "alice", calls::incrementAndGet);
+    singleFlight.execute("findByUsername", TENANT_ID, ENDPOINT, "alice", calls::incrementAndGet);
+    singleFlight.execute("findByUsername", "tenant-2", ENDPOINT, "alice", calls::incrementAndGet);
+    singleFlight.execute("findByUsername", TENANT_ID, ENDPOINT, "bob", calls::incrementAndGet);
+
+    assertThat(calls).hasValue(4);
+    assertThat(counter("executed")).isEqualTo(4.0);
+    assertThat(counter("coalesced")).isZero();
+  }
+
+  private double counter(String result) {
+    return meterRegistry
+        .find(UserProviderSingleFlight.METRIC_NAME)
+        .tag("result", result)
+        .counters()
+        .stream()
+        .mapToDouble(Counter::count)
+        .sum();
+  }
+
+  private void awaitCoalesced(int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (counter("coalesced") < expected && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(counter("coalesced")).isEqualTo(expected);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
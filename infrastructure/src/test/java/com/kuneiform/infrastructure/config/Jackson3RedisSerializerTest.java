@@ -69,6 +69,16 @@ class Jackson3RedisSerializerTest {
         .hasMessageContaining("Error deserializing");
   }
 
+  @Test
+  void shouldRoundTripNonAsciiValues() {
+    TestPojo pojo = new TestPojo("Zoë – 東京", 7);
+
+    TestPojo copy = serializer.deserialize(serializer.serialize(pojo));
+
+    assertThat(copy.getName()).isEqualTo("Zoë – 東京");
+    assertThat(copy.getValue()).isEqualTo(7);
+  }
+
   // Simple POJO for testing
   static class TestPojo {
     private String name;
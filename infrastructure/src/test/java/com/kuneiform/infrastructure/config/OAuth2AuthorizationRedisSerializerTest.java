@@ -0,0 +1,241 @@
+package com.kuneiform.infrastructure.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.kuneiform.domain.model.MfaData;
+import com.kuneiform.domain.model.User;
+import java.security.Principal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+
+class OAuth2AuthorizationRedisSerializerTest {
+
+  private static final Instant ISSUED_AT = Instant.parse("2026-01-01T10:00:00.123456789Z");
+  private static final Instant EXPIRES_AT = ISSUED_AT.plusSeconds(1800);
+
+  private OAuth2AuthorizationRedisSerializer serializer;
+
+  @BeforeEach
+  void setUp() {
+    serializer = new OAuth2AuthorizationRedisSerializer(1024);
+  }
+
+  @Test
+  void shouldRoundTripFullAuthorization() {
+    OAuth2Authorization authorization = fullAuthorization();
+
+    byte[] bytes = serializer.serialize(authorization);
+    OAuth2Authorization restored = serializer.deserialize(bytes);
+
+    assertThat(bytes[0]).isEqualTo(OAuth2AuthorizationRedisSerializer.MAGIC);
+    assertThat(restored.getId()).isEqualTo("auth-1");
+    assertThat(restored.getRegisteredClientId()).isEqualTo("client-1");
+    assertThat(restored.getPrincipalName()).isEqualTo("user-1");
+    assertThat(restored.getAuthorizationGrantType())
+        .isEqualTo(AuthorizationGrantType.AUTHORIZATION_CODE);
+    assertThat(restored.getAuthorizedScopes()).containsExactlyInAnyOrder("openid", "profile");
+
+    OAuth2AccessToken accessToken = restored.getAccessToken().getToken();
+    assertThat(accessToken.getTokenValue()).isEqualTo("access-token-val");
+    assertThat(accessToken.getTokenType()).isEqualTo(OAuth2AccessToken.TokenType.BEARER);
+    assertThat(accessToken.getIssuedAt()).isEqualTo(ISSUED_AT);
+    assertThat(accessToken.getExpiresAt()).isEqualTo(EXPIRES_AT);
+    assertThat(accessToken.getScopes()).containsExactlyInAnyOrder("openid", "profile");
+    assertThat(restored.getAccessToken().getClaims()).containsEntry("sub", "user-1");
+
+    assertThat(restored.getRefreshToken().getToken().getTokenValue())
+        .isEqualTo("refresh-token-val");
+    assertThat(restored.getToken(OAuth2AuthorizationCode.class).isInvalidated()).isTrue();
+
+    OidcIdToken idToken = restored.getToken(OidcIdToken.class).getToken();
+    assertThat(idToken.getTokenValue()).isEqualTo("id-token-val");
+    assertThat(idToken.getClaims()).containsEntry("aud", List.of("client-1"));
+
+    assertThat((String) restored.getAttribute("state")).isEqualTo("xyz");
+  }
+
+  @Test
+  void shouldRoundTripPrincipalAndAuthorizationRequestAttributes() {
+    OAuth2Authorization restored =
+        serializer.deserialize(serializer.serialize(fullAuthorization()));
+
+    UsernamePasswordAuthenticationToken principal =
+        restored.getAttribute(Principal.class.getName());
+    assertThat(principal.isAuthenticated()).isTrue();
+    assertThat(principal.getCredentials()).isNull();
+    assertThat(principal.getAuthorities())
+        .containsExactly(new SimpleGrantedAuthority("ROLE_USER"));
+
+    User user = (User) principal.getPrincipal();
+    assertThat(user.getUserId()).isEqualTo("user-1");
+    assertThat(user.getMetadata()).containsEntry("roles", List.of("admin"));
+    assertThat(user.getMfaEnabled()).isTrue();
+    assertThat(user.getMfaData().getMfaKeyId()).isEqualTo("Wedge:user@example.com");
+
+    OAuth2AuthorizationRequest request =
+        restored.getAttribute(OAuth2AuthorizationRequest.class.getName());
+    assertThat(request.getClientId()).isEqualTo("client-1");
+    assertThat(request.getRedirectUri()).isEqualTo("http://localhost/callback");
+    assertThat(request.getScopes()).containsExactlyInAnyOrder("openid", "profile");
+    assertThat(request.getAdditionalParameters()).containsEntry("code_challenge", "abc");
+  }
+
+  @Test
+  void shouldCompressLargePayloads() {
+    OAuth2AuthorizationRedisSerializer compressing = new OAuth2AuthorizationRedisSerializer(1);
+    OAuth2AuthorizationRedisSerializer plain = new OAuth2AuthorizationRedisSerializer(0);
+    OAuth2Authorization authorization = fullAuthorization();
+
+    byte[] compressed = compressing.serialize(authorization);
+    byte[] uncompressed = plain.serialize(authorization);
+
+    assertThat(compressed[2] & OAuth2AuthorizationRedisSerializer.FLAG_DEFLATE).isNotZero();
+    assertThat(uncompressed[2] & OAuth2AuthorizationRedisSerializer.FLAG_DEFLATE).isZero();
+    assertThat(plain.deserialize(compressed).getAccessToken().getToken().getTokenValue())
+        .isEqualTo("access-token-val");
+  }
+
+  @Test
+  void shouldBeSmallerThanJdkSerialization() {
+    OAuth2Authorization authorization = fullAuthorization();
+
+    byte[] binary = serializer.serialize(authorization);
+    byte[] jdk = new JdkSerializationRedisSerializer().serialize(authorization);
+
+    assertThat(binary.length).isLessThan(jdk.length);
+  }
+
+  @Test
+  void shouldReadLegacyJdkSerializedValues() {
+    byte[] legacy = new JdkSerializationRedisSerializer().serialize(fullAuthorization());
+
+    OAuth2Authorization restored = serializer.deserialize(legacy);
+
+    assertThat(restored.getId()).isEqualTo("auth-1");
+    assertThat(restored.getAccessToken().getToken().getTokenValue())
+        .isEqualTo("access-token-val");
+  }
+
+  @Test
+  void shouldWriteJdkWhenConfiguredAndStillReadBinary() {
+    OAuth2AuthorizationRedisSerializer jdkWriter = new OAuth2AuthorizationRedisSerializer(true, 0);
+
+    byte[] bytes = jdkWriter.serialize(fullAuthorization());
+
+    assertThat(OAuth2AuthorizationRedisSerializer.isJdkSerialized(bytes)).isTrue();
+    assertThat(jdkWriter.deserialize(serializer.serialize(fullAuthorization())).getId())
+        .isEqualTo("auth-1");
+  }
+
+  @Test
+  void shouldReturnEmptyBytesForNullSerialization() {
+    assertThat(serializer.serialize(null)).isEmpty();
+  }
+
+  @Test
+  void shouldReturnNullForEmptyBytesDeserialization() {
+    assertThat(serializer.deserialize(null)).isNull();
+    assertThat(serializer.deserialize(new byte[0])).isNull();
+  }
+
+  @Test
+  void shouldThrowExceptionForUnknownEncoding() {
+    assertThatThrownBy(() -> serializer.deserialize(new byte[] {1, 2, 3}))
+        .isInstanceOf(SerializationException.class);
+  }
+
+  @Test
+  void shouldThrowExceptionForUnsupportedVersion() {
+    byte[] bytes = serializer.serialize(fullAuthorization());
+    bytes[1] = 99;
+
+    assertThatThrownBy(() -> serializer.deserialize(bytes))
+        .isInstanceOf(SerializationException.class)
+        .hasMessageContaining("version");
+  }
+
+  private OAuth2Authorization fullAuthorization() {
+    RegisteredClient registeredClient =
+        RegisteredClient.withId("client-1")
+            .clientId("client-1")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost/callback")
+            .build();
+
+    User user =
+        User.builder()
+            .userId("user-1")
+            .username("user@example.com")
+            .email("user@example.com")
+            .metadata(Map.of("roles", List.of("admin")))
+            .mfaEnabled(true)
+            .mfaData(
+                MfaData.builder()
+                    .twoFaRegistered(true)
+                    .mfaKeyId("Wedge:user@example.com")
+                    .mfaSecret("SECRET")
+                    .build())
+            .build();
+    UsernamePasswordAuthenticationToken principal =
+        UsernamePasswordAuthenticationToken.authenticated(
+            user, "password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    OAuth2AuthorizationRequest request =
+        OAuth2AuthorizationRequest.authorizationCode()
+            .authorizationUri("http://localhost/oauth2/authorize")
+            .clientId("client-1")
+            .redirectUri("http://localhost/callback")
+            .scopes(Set.of("openid", "profile"))
+            .state("xyz")
+            .additionalParameters(Map.of("code_challenge", "abc"))
+            .build();
+
+    return OAuth2Authorization.withRegisteredClient(registeredClient)
+        .id("auth-1")
+        .principalName("user-1")
+        .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+        .authorizedScopes(Set.of("openid", "profile"))
+        .token(
+            new OAuth2AuthorizationCode("code-val", ISSUED_AT, ISSUED_AT.plusSeconds(300)),
+            metadata -> metadata.put(OAuth2Authorization.Token.INVALIDATED_METADATA_NAME, true))
+        .token(
+            new OAuth2AccessToken(
+                OAuth2AccessToken.TokenType.BEARER,
+                "access-token-val",
+                ISSUED_AT,
+                EXPIRES_AT,
+                Set.of("openid", "profile")),
+            metadata ->
+                metadata.put(
+                    OAuth2Authorization.Token.CLAIMS_METADATA_NAME,
+                    Map.of("sub", "user-1", "iat", ISSUED_AT)))
+        .refreshToken(new OAuth2RefreshToken("refresh-token-val", ISSUED_AT))
+        .token(
+            new OidcIdToken(
+                "id-token-val",
+                ISSUED_AT,
+                EXPIRES_AT,
+                Map.of("sub", "user-1", "aud", List.of("client-1"))))
+        .attribute("state", "xyz")
+        .attribute(Principal.class.getName(), principal)
+        .attribute(OAuth2AuthorizationRequest.class.getName(), request)
+        .build();
+  }
+}
@@ -0,0 +1,69 @@
+package com.kuneiform.infrastructure.config;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.kuneiform.domain.model.JwtKeyPair;
+import com.kuneiform.domain.model.JwtSigningAlgorithm;
+import com.kuneiform.domain.model.OAuthClient;
+import com.kuneiform.domain.port.ClientRepository;
+import com.kuneiform.domain.port.JwtKeyProvider;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OAuth2ClientConfigTest {
+
+  private final ClientRepository clientRepository = mock(ClientRepository.class);
+  private final WedgeConfigProperties properties = new WedgeConfigProperties();
+  private final JwtKeyProvider jwtKeyProvider = mock(JwtKeyProvider.class);
+
+  private OAuth2ClientConfig config;
+
+  @BeforeEach
+  void setUp() {
+    // Only an RSA key is available
+    JwtKeyPair rsaKeyPair = mock(JwtKeyPair.class);
+    when(rsaKeyPair.getAlgorithm()).thenReturn(JwtSigningAlgorithm.RS256);
+    when(jwtKeyProvider.getKeyPairs()).thenReturn(List.of(rsaKeyPair));
+    config = new OAuth2ClientConfig(clientRepository, properties, jwtKeyProvider);
+  }
+
+  @Test
+  void shouldAcceptClientsSigningWithAvailableKey() {
+    when(clientRepository.findAll())
+        .thenReturn(List.of(client("default-client", null), client("rsa-client", "rs256")));
+
+    assertThatCode(config::validateClientSigningAlgorithms).doesNotThrowAnyException();
+  }
+
+  @Test
+  void shouldFailFastWhenClientAlgorithmHasNoKey() {
+    when(clientRepository.findAll()).thenReturn(List.of(client("ec-client", "ES256")));
+
+    assertThatThrownBy(config::validateClientSigningAlgorithms)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("ES256")
+        .hasMessageContaining("ec-client");
+  }
+
+  @Test
+  void shouldFailFastWhenClientAlgorithmIsMisspelled() {
+    when(clientRepository.findAll()).thenReturn(List.of(client("typo-client", "ES265")));
+
+    assertThatThrownBy(config::validateClientSigningAlgorithms)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("typo-client")
+        .hasMessageContaining("ES265");
+  }
+
+  private OAuthClient client(String clientId, String tokenSigningAlgorithm) {
+    return OAuthClient.builder()
+        .clientId(clientId)
+        .tokenSigningAlgorithm(tokenSigningAlgorithm)
+        .build();
+  }
+}
@@ -0,0 +1,55 @@
+package com.kuneiform.infrastructure.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+import org.springframework.security.oauth2.server.authorization.client.RegisteredClient;
+import org.springframework.security.oauth2.server.authorization.settings.TokenSettings;
+import org.springframework.security.oauth2.server.authorization.token.JwtEncodingContext;
+
+class OAuth2TokenGeneratorConfigTest {
+
+  private final RegisteredClient client =
+      RegisteredClient.withId("client-1")
+          .clientId("client-1")
+          .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+          .tokenSettings(
+              TokenSettings.builder().idTokenSignatureAlgorithm(SignatureAlgorithm.ES256).build())
+          .build();
+
+  @Test
+  void shouldSignAccessTokenWithClientAlgorithm() {
+    JwsHeader.Builder header = JwsHeader.with(SignatureAlgorithm.RS256);
+    JwtEncodingContext context = mockContext(OAuth2TokenType.ACCESS_TOKEN, header);
+
+    OAuth2TokenGeneratorConfig.applyClientSigningAlgorithm(context);
+
+    assertThat(header.build().getAlgorithm()).isEqualTo(SignatureAlgorithm.ES256);
+  }
+
+  @Test
+  void shouldLeaveIdTokenHeaderToJwtGenerator() {
+    JwsHeader.Builder header = JwsHeader.with(SignatureAlgorithm.RS256);
+    JwtEncodingContext context =
+        mockContext(new OAuth2TokenType(OidcParameterNames.ID_TOKEN), header);
+
+    OAuth2TokenGeneratorConfig.applyClientSigningAlgorithm(context);
+
+    assertThat(header.build().getAlgorithm()).isEqualTo(SignatureAlgorithm.RS256);
+  }
+
+  private JwtEncodingContext mockContext(OAuth2TokenType tokenType, JwsHeader.Builder header) {
+    JwtEncodingContext context = mock(JwtEncodingContext.class);
+    when(context.getRegisteredClient()).thenReturn(client);
+    when(context.getTokenType()).thenReturn(tokenType);
+    when(context.getJwsHeader()).thenReturn(header);
+    return context;
+  }
+}
@@ -5,10 +5,12 @@ import static org.mockito.Mockito.when;
 
 import com.kuneiform.domain.port.JwtKeyProvider;
 import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import com.kuneiform.infrastructure.security.AuthorizationSessionLogoutHandler;
 import com.kuneiform.infrastructure.security.HttpUserAuthenticationProvider;
 import com.kuneiform.infrastructure.security.MfaAwareAuthenticationFailureHandler;
 import com.kuneiform.infrastructure.security.OAuth2AuthorizationRevocationLogoutHandler;
 import com.kuneiform.infrastructure.security.PublicClientRefreshTokenAuthenticationProvider;
+import com.kuneiform.infrastructure.security.UserProviderCacheLogoutHandler;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -79,6 +81,18 @@ class SecurityConfigIT {
       return mock(OAuth2AuthorizationRevocationLogoutHandler.class);
     }
 
+    @Bean
+    @Primary
+    UserProviderCacheLogoutHandler userProviderCacheLogoutHandler() {
+      return mock(UserProviderCacheLogoutHandler.class);
+    }
+
+    @Bean
+    @Primary
+    AuthorizationSessionLogoutHandler authorizationSessionLogoutHandler() {
+      return mock(AuthorizationSessionLogoutHandler.class);
+    }
+
     @Bean
     @Primary
     MfaAwareAuthenticationFailureHandler mfaFailureHandler() {
@@ -0,0 +1,68 @@
+package com.kuneiform.infrastructure.security;
+
+import static org.mockito.Mockito.*;
+
+import com.kuneiform.domain.model.User;
+import com.kuneiform.domain.port.SessionStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+
+@ExtendWith(MockitoExtension.class)
+class AuthorizationSessionLogoutHandlerTest {
+
+  @Mock private SessionStorage sessionStorage;
+
+  @Mock private HttpServletRequest request;
+
+  @Mock private HttpServletResponse response;
+
+  @Mock private Authentication authentication;
+
+  private AuthorizationSessionLogoutHandler handler;
+
+  @BeforeEach
+  void setUp() {
+    handler = new AuthorizationSessionLogoutHandler(sessionStorage);
+  }
+
+  @Test
+  void logout_shouldDoNothing_whenAuthenticationIsNull() {
+    // When
+    handler.logout(request, response, null);
+
+    // Then
+    verifyNoInteractions(sessionStorage);
+  }
+
+  @Test
+  void logout_shouldDeleteSessionsOfUserPrincipal() {
+    // Given
+    User user = User.builder().userId("user-123").username("john.doe").build();
+    when(authentication.getPrincipal()).thenReturn(user);
+
+    // When
+    handler.logout(request, response, authentication);
+
+    // Then
+    verify(sessionStorage).deleteByUserId("user-123");
+  }
+
+  @Test
+  void logout_shouldFallBackToAuthenticationName() {
+    // Given
+    when(authentication.getPrincipal()).thenReturn("user-456");
+    when(authentication.getName()).thenReturn("user-456");
+
+    // When
+    handler.logout(request, response, authentication);
+
+    // Then
+    verify(sessionStorage).deleteByUserId("user-456");
+  }
+}
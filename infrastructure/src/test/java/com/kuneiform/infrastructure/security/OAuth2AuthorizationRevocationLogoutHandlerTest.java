@@ -8,6 +8,7 @@ import com.kuneiform.infrastructure.adapter.RedisOAuth2AuthorizationServiceAdapt
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.HashMap;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -80,13 +81,13 @@ class OAuth2AuthorizationRevocationLogoutHandlerTest {
     OAuth2AuthorizationRevocationLogoutHandler handlerWithInMemory =
         new OAuth2AuthorizationRevocationLogoutHandler(inMemoryService);
 
-    when(inMemoryService.findByUserId("user-123")).thenReturn(null);
+    when(inMemoryService.findAllByUserId("user-123")).thenReturn(List.of());
 
     // When
     handlerWithInMemory.logout(request, response, authentication);
 
     // Then
-    verify(inMemoryService).findByUserId("user-123");
+    verify(inMemoryService).findAllByUserId("user-123");
   }
 
   @Test
@@ -105,12 +106,9 @@ class OAuth2AuthorizationRevocationLogoutHandlerTest {
     OAuth2AuthorizationRevocationLogoutHandler handlerWithInMemory =
         new OAuth2AuthorizationRevocationLogoutHandler(inMemoryService);
 
-    // First call returns authorization1, second call returns authorization2, third
-    // returns null
-    when(inMemoryService.findByUserId("user-456"))
-        .thenReturn(authorization1)
-        .thenReturn(authorization2)
-        .thenReturn(null);
+    // A single index lookup returns every authorization of the user
+    when(inMemoryService.findAllByUserId("user-456"))
+        .thenReturn(List.of(authorization1, authorization2));
 
     when(authorization1.getId()).thenReturn("auth-1");
     when(authorization1.getRegisteredClientId()).thenReturn("client-1");
@@ -121,7 +119,8 @@ class OAuth2AuthorizationRevocationLogoutHandlerTest {
     handlerWithInMemory.logout(request, response, authentication);
 
     // Then
-    verify(inMemoryService, times(3)).findByUserId("user-456");
+    verify(inMemoryService).findAllByUserId("user-456");
+    verify(inMemoryService, never()).findByUserId("user-456");
     verify(inMemoryService).remove(authorization1);
     verify(inMemoryService).remove(authorization2);
   }
@@ -165,14 +164,14 @@ class OAuth2AuthorizationRevocationLogoutHandlerTest {
     OAuth2AuthorizationRevocationLogoutHandler handlerWithInMemory =
         new OAuth2AuthorizationRevocationLogoutHandler(inMemoryService);
 
-    when(inMemoryService.findByUserId("fallback-user")).thenReturn(null);
+    when(inMemoryService.findAllByUserId("fallback-user")).thenReturn(List.of());
 
     // When
     handlerWithInMemory.logout(request, response, authentication);
 
     // Then
     verify(authentication).getName();
-    verify(inMemoryService).findByUserId("fallback-user");
+    verify(inMemoryService).findAllByUserId("fallback-user");
   }
 
   @Test
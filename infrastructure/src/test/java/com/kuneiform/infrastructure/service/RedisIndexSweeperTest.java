@@ -0,0 +1,116 @@
+package com.kuneiform.infrastructure.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.kuneiform.infrastructure.adapter.RedisOAuth2AuthorizationServiceAdapter;
+import com.kuneiform.infrastructure.adapter.RedisSessionStorageAdapter;
+import com.kuneiform.infrastructure.config.properties.WedgeConfigProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.Cursor;
+
+@ExtendWith(MockitoExtension.class)
+class RedisIndexSweeperTest {
+
+  @Mock private ObjectProvider<RedisSessionStorageAdapter> sessionStorageProvider;
+  @Mock private ObjectProvider<RedisOAuth2AuthorizationServiceAdapter> authorizationProvider;
+  @Mock private RedisSessionStorageAdapter sessionStorage;
+  @Mock private RedisOAuth2AuthorizationServiceAdapter authorizationService;
+
+  private SimpleMeterRegistry meterRegistry;
+  private RedisIndexSweeper sweeper;
+
+  @BeforeEach
+  void setUp() {
+    WedgeConfigProperties config = new WedgeConfigProperties();
+    config.getRedisIndexSweeper().setBatchSize(2);
+    config.getRedisIndexSweeper().setMaxKeysPerSecond(Integer.MAX_VALUE);
+    meterRegistry = new SimpleMeterRegistry();
+    sweeper =
+        new RedisIndexSweeper(config, meterRegistry, sessionStorageProvider, authorizationProvider);
+  }
+
+  @Test
+  void shouldSweepIndexKeysInBatchesAndRecordMetrics() {
+    when(sessionStorageProvider.getIfAvailable()).thenReturn(sessionStorage);
+    when(authorizationProvider.getIfAvailable()).thenReturn(null);
+    Cursor<String> cursor = cursorOf("wedge:user:a", "wedge:user:b", "wedge:user:c");
+    when(sessionStorage.scanUserIndexKeys(2)).thenReturn(cursor);
+    List<List<String>> batches = new ArrayList<>();
+    when(sessionStorage.removeStaleUserIndexMembers(anyList(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              batches.add(List.copyOf(invocation.getArgument(0)));
+              return 1;
+            });
+
+    sweeper.sweep();
+
+    assertThat(batches)
+        .containsExactly(List.of("wedge:user:a", "wedge:user:b"), List.of("wedge:user:c"));
+    assertThat(keysCounter(RedisIndexSweeper.SESSION_USER_INDEX, "scanned")).isEqualTo(3);
+    assertThat(keysCounter(RedisIndexSweeper.SESSION_USER_INDEX, "removed")).isEqualTo(2);
+    assertThat(meterRegistry.get("wedge.redis.index.sweep.last.completed").gauge().value())
+        .isPositive();
+    verify(cursor).close();
+  }
+
+  @Test
+  void shouldSweepTokenPrincipalIndex() {
+    when(sessionStorageProvider.getIfAvailable()).thenReturn(null);
+    when(authorizationProvider.getIfAvailable()).thenReturn(authorizationService);
+    Cursor<String> cursor = cursorOf("wedge:index:principal:user-1");
+    when(authorizationService.scanPrincipalIndexKeys(2)).thenReturn(cursor);
+    when(authorizationService.removeStalePrincipalIndexes(List.of("wedge:index:principal:user-1")))
+        .thenReturn(1);
+
+    sweeper.sweep();
+
+    assertThat(keysCounter(RedisIndexSweeper.TOKEN_PRINCIPAL_INDEX, "removed")).isEqualTo(1);
+  }
+
+  @Test
+  void shouldStopIndexSweepOnRedisFailure() {
+    when(sessionStorageProvider.getIfAvailable()).thenReturn(sessionStorage);
+    when(authorizationProvider.getIfAvailable()).thenReturn(null);
+    Cursor<String> cursor = mock();
+    when(cursor.hasNext()).thenThrow(new IllegalStateException("connection reset"));
+    when(sessionStorage.scanUserIndexKeys(2)).thenReturn(cursor);
+
+    sweeper.sweep();
+
+    verify(sessionStorage, never()).removeStaleUserIndexMembers(anyList(), anyInt());
+    verify(cursor).close();
+  }
+
+  private double keysCounter(String index, String result) {
+    return meterRegistry
+        .get("wedge.redis.index.sweep.keys")
+        .tag("index", index)
+        .tag("result", result)
+        .counter()
+        .count();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Cursor<String> cursorOf(String... keys) {
+    Cursor<String> cursor = mock(Cursor.class);
+    List<String> remaining = new ArrayList<>(List.of(keys));
+    when(cursor.hasNext()).thenAnswer(invocation -> !remaining.isEmpty());
+    when(cursor.next()).thenAnswer(invocation -> remaining.removeFirst());
+    return cursor;
+  }
+}
@@ -0,0 +1,74 @@
+package com.kuneiform.infrastructure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class OffHeapTokenIndexTest {
+
+  private final OffHeapTokenIndex<String> index = new OffHeapTokenIndex<>(8);
+
+  @Test
+  void putAndGet() {
+    TokenDigest key = TokenIndexKeys.digestOf("access_token", "token-1");
+
+    index.put(key, "auth-1");
+
+    assertThat(index.get(key)).isEqualTo("auth-1");
+    assertThat(index.get(TokenIndexKeys.digestOf("access_token", "token-2"))).isNull();
+    assertThat(index.size()).isEqualTo(1);
+  }
+
+  @Test
+  void get_shouldSeparateTokenTypes() {
+    index.put(TokenIndexKeys.digestOf("access_token", "same-value"), "auth-1");
+
+    assertThat(index.get(TokenIndexKeys.digestOf("refresh_token", "same-value"))).isNull();
+  }
+
+  @Test
+  void put_shouldReplaceExistingMapping() {
+    TokenDigest key = TokenIndexKeys.digestOf("refresh_token", "token-1");
+
+    index.put(key, "auth-1");
+    index.put(key, "auth-2");
+
+    assertThat(index.get(key)).isEqualTo("auth-2");
+    assertThat(index.size()).isEqualTo(1);
+  }
+
+  @Test
+  void remove_shouldOnlyRemoveMappingOfSameValue() {
+    TokenDigest key = TokenIndexKeys.digestOf("refresh_token", "token-1");
+    String owner = new String("auth-1");
+    index.put(key, owner);
+
+    index.remove(key, new String("auth-1"));
+    assertThat(index.get(key)).isSameAs(owner);
+
+    index.remove(key, owner);
+    assertThat(index.get(key)).isNull();
+    assertThat(index.size()).isZero();
+  }
+
+  @Test
+  void put_shouldGrowBeyondExpectedEntriesAndReuseRemovedEntries() {
+    for (int i = 0; i < 1000; i++) {
+      index.put(TokenIndexKeys.digestOf("access_token", "token-" + i), "auth-" + i);
+    }
+    for (int i = 0; i < 1000; i += 2) {
+      TokenDigest key = TokenIndexKeys.digestOf("access_token", "token-" + i);
+      index.remove(key, index.get(key));
+    }
+    for (int i = 1000; i < 1500; i++) {
+      index.put(TokenIndexKeys.digestOf("access_token", "token-" + i), "auth-" + i);
+    }
+
+    assertThat(index.size()).isEqualTo(1000);
+    assertThat(index.get(TokenIndexKeys.digestOf("access_token", "token-0"))).isNull();
+    assertThat(index.get(TokenIndexKeys.digestOf("access_token", "token-999")))
+        .isEqualTo("auth-999");
+    assertThat(index.get(TokenIndexKeys.digestOf("access_token", "token-1499")))
+        .isEqualTo("auth-1499");
+  }
+}
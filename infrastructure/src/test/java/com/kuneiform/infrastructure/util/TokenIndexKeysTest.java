@@ -0,0 +1,35 @@
+package com.kuneiform.infrastructure.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+class TokenIndexKeysTest {
+
+  @Test
+  void hashed_shouldEncodeTruncatedSha256AsBase64Url() throws Exception {
+    for (String token : new String[] {"a", "access-token-123", "x".repeat(1500), "ñandú"}) {
+      byte[] hash =
+          MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      String expected =
+          "refresh_token:"
+              + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16));
+
+      assertThat(TokenIndexKeys.hashed("refresh_token", token)).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void digestOf_shouldMatchAcrossTypesOnlyByValue() {
+    TokenDigest access = TokenIndexKeys.digestOf("access_token", "token-1");
+
+    assertThat(access).isNotEqualTo(TokenIndexKeys.digestOf("refresh_token", "token-1"));
+    assertThat(access.withTokenType("refresh_token"))
+        .isEqualTo(TokenIndexKeys.digestOf("refresh_token", "token-1"));
+    assertThat(access.toIndexKey()).isEqualTo(TokenIndexKeys.hashed("access_token", "token-1"));
+  }
+}
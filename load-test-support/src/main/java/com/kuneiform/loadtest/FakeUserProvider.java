@@ -0,0 +1,390 @@
+package com.kuneiform.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * In-process fake of the user provider API, for load tests of the whole authorization server.
+ *
+ * <p>Serves every endpoint {@code UserProviderRestClient} calls, under {@link #endpoint()} (the
+ * value for a tenant's {@code user-provider.endpoint}):
+ *
+ * <ul>
+ *   <li>{@code POST /api/users/validate} and {@code POST /api/users/validate/batch}
+ *   <li>{@code GET /api/users/validate/find?username=}
+ *   <li>{@code POST /api/users/{userId}/scopes} and {@code POST
+ *       /api/users/{userId}/scopes/decision}
+ *   <li>{@code PATCH /api/users/{userId}/mfa}
+ * </ul>
+ *
+ * <p>Runs on the JDK HTTP server with one virtual thread per request, so injected latency costs no
+ * platform threads. See {@link FakeUserProviderConfig} for users, latency, errors and payload size.
+ */
+@Slf4j
+public class FakeUserProvider implements AutoCloseable {
+
+  public static final String OP_VALIDATE = "validate";
+  public static final String OP_VALIDATE_BATCH = "validateBatch";
+  public static final String OP_FIND = "find";
+  public static final String OP_SCOPES = "scopes";
+  public static final String OP_SCOPES_DECISION = "scopesDecision";
+  public static final String OP_MFA = "mfa";
+  public static final String OP_INJECTED_ERROR = "injectedError";
+
+  private static final String BASE_PATH = "/api/users/";
+  private static final String VALIDATE_PATH = BASE_PATH + "validate";
+
+  private final FakeUserProviderConfig config;
+  private final ObjectMapper objectMapper = JsonMapper.builder().build();
+  private final Map<String, LongAdder> requests = new ConcurrentHashMap<>();
+  private final Map<String, String> mfaSecrets = new ConcurrentHashMap<>();
+  private final String metadataPadding;
+
+  private HttpServer server;
+  private ExecutorService executor;
+
+  public FakeUserProvider(FakeUserProviderConfig config) {
+    this.config = config;
+    this.metadataPadding = "x".repeat(Math.max(0, config.getMetadataBytes()));
+  }
+
+  /** Starts a fake user provider with the given configuration. */
+  public static FakeUserProvider start(FakeUserProviderConfig config) throws IOException {
+    FakeUserProvider provider = new FakeUserProvider(config);
+    provider.start();
+    return provider;
+  }
+
+  public synchronized void start() throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("Fake user provider already started");
+    }
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.getPort()), 1024);
+    server.setExecutor(executor);
+    server.createContext(BASE_PATH, this::handle);
+    server.start();
+    log.info(
+        "Fake user provider listening on {} ({} users, error rate {})",
+        baseUrl(),
+        config.getUserCount(),
+        config.getErrorRate());
+  }
+
+  @Override
+  public synchronized void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      server = null;
+    }
+  }
+
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  public String baseUrl() {
+    return "http://127.0.0.1:" + port();
+  }
+
+  /** Credential validation endpoint, to configure as the tenant's user provider endpoint. */
+  public String endpoint() {
+    return baseUrl() + VALIDATE_PATH;
+  }
+
+  public String mfaRegistrationEndpoint() {
+    return baseUrl() + BASE_PATH + "{userId}/mfa";
+  }
+
+  public String scopesValidationEndpoint() {
+    return baseUrl() + BASE_PATH + "{userId}/scopes";
+  }
+
+  public String scopesBatchValidationEndpoint() {
+    return baseUrl() + BASE_PATH + "{userId}/scopes/decision";
+  }
+
+  /** Number of requests served for one of the {@code OP_*} operations. */
+  public long requestCount(String operation) {
+    LongAdder count = requests.get(operation);
+    return count != null ? count.sum() : 0;
+  }
+
+  public void resetCounts() {
+    requests.clear();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String method = exchange.getRequestMethod();
+      String path = exchange.getRequestURI().getPath();
+
+      delay();
+      if (config.getErrorRate() > 0
+          && ThreadLocalRandom.current().nextDouble() < config.getErrorRate()) {
+        count(OP_INJECTED_ERROR);
+        sendError(exchange, config.getErrorStatus(), "error.code.injected", "Injected failure");
+        return;
+      }
+      String apiKey = exchange.getRequestHeaders().getFirst(config.getApiKeyHeader());
+      if (config.getApiKey() != null && !config.getApiKey().equals(apiKey)) {
+        sendError(exchange, 401, "error.code.api-key.invalid", "Invalid API key");
+        return;
+      }
+
+      if (path.equals(VALIDATE_PATH) && method.equals("POST")) {
+        count(OP_VALIDATE);
+        validate(exchange);
+      } else if (path.equals(VALIDATE_PATH + "/batch") && method.equals("POST")) {
+        count(OP_VALIDATE_BATCH);
+        validateBatch(exchange);
+      } else if (path.equals(VALIDATE_PATH + "/find") && method.equals("GET")) {
+        count(OP_FIND);
+        find(exchange);
+      } else if (path.endsWith("/scopes") && method.equals("POST")) {
+        count(OP_SCOPES);
+        scopes(exchange);
+      } else if (path.endsWith("/scopes/decision") && method.equals("POST")) {
+        count(OP_SCOPES_DECISION);
+        scopesDecision(exchange);
+      } else if (path.endsWith("/mfa") && method.equals("PATCH")) {
+        count(OP_MFA);
+        registerMfa(exchange, userIdFromPath(path, "/mfa"));
+      } else {
+        String message = "No such endpoint: " + method + " " + path;
+        sendError(exchange, 404, "error.code.not-found", message);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Fake user provider failed to handle request", e);
+      sendError(exchange, 500, "error.code.internal", String.valueOf(e.getMessage()));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void validate(HttpExchange exchange) throws IOException {
+    Map<?, ?> body = readBody(exchange);
+    CheckResult result = check(body);
+    if (result.user() != null) {
+      sendJson(exchange, 200, result.user());
+    } else {
+      sendJson(exchange, result.status(), result.error());
+    }
+  }
+
+  private void validateBatch(HttpExchange exchange) throws IOException {
+    Map<?, ?> body = readBody(exchange);
+    List<Map<String, Object>> results = new ArrayList<>();
+    if (body.get("requests") instanceof List<?> checks) {
+      for (Object check : checks) {
+        CheckResult result = check(check instanceof Map<?, ?> map ? map : Map.of());
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("status", result.status());
+        if (result.user() != null) {
+          entry.put("user", result.user());
+        } else {
+          entry.put("error", result.error());
+        }
+        results.add(entry);
+      }
+    }
+    sendJson(exchange, 200, Map.of("results", results));
+  }
+
+  private void find(HttpExchange exchange) throws IOException {
+    String username = queryParameter(exchange, "username");
+    int index = userIndex(username);
+    if (index < 0) {
+      sendError(exchange, 404, "error.code.user.not-found", "User not found");
+      return;
+    }
+    sendJson(exchange, 200, user(index));
+  }
+
+  private void scopes(HttpExchange exchange) throws IOException {
+    Set<String> requested = scopesOf(readBody(exchange));
+    boolean allowed = requested.stream().noneMatch(config.getDeniedScopes()::contains);
+    send(exchange, allowed ? 200 : 403, null, null);
+  }
+
+  private void scopesDecision(HttpExchange exchange) throws IOException {
+    Set<String> allowed = scopesOf(readBody(exchange));
+    allowed.removeAll(config.getDeniedScopes());
+    if (config.getScopeDecisionMaxAgeSeconds() > 0) {
+      exchange
+          .getResponseHeaders()
+          .set("Cache-Control", "private, max-age=" + config.getScopeDecisionMaxAgeSeconds());
+    }
+    sendJson(exchange, 200, Map.of("allowedScopes", allowed));
+  }
+
+  private void registerMfa(HttpExchange exchange, String userId) throws IOException {
+    Map<?, ?> body = readBody(exchange);
+    if (!(body.get("mfaSecret") instanceof String secret) || secret.isBlank()) {
+      sendError(exchange, 400, "error.code.mfa.secret-missing", "mfaSecret is required");
+      return;
+    }
+    mfaSecrets.put(userId, secret);
+    send(exchange, 204, null, null);
+  }
+
+  private CheckResult check(Map<?, ?> request) {
+    int index = userIndex(request.get("username") instanceof String name ? name : null);
+    if (index < 0 || !config.getPassword().equals(request.get("password"))) {
+      return new CheckResult(
+          401, null, error("error.code.credentials.invalid", "Invalid credentials"));
+    }
+    return new CheckResult(200, user(index), null);
+  }
+
+  /** Returns the index of {@code user-<i>}, or -1 when no such user exists. */
+  private int userIndex(String username) {
+    if (username == null || !username.startsWith("user-")) {
+      return -1;
+    }
+    try {
+      int index = Integer.parseInt(username, 5, username.length(), 10);
+      return index >= 0 && index < config.getUserCount() ? index : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private Map<String, Object> user(int index) {
+    String userId = "uid-" + index;
+    Map<String, Object> metadata = new LinkedHashMap<>();
+    metadata.put("role", index % 100 == 0 ? "admin" : "user");
+    metadata.put("department", "dept-" + (index % 20));
+    if (!metadataPadding.isEmpty()) {
+      metadata.put("padding", metadataPadding);
+    }
+
+    Map<String, Object> user = new LinkedHashMap<>();
+    user.put("userId", userId);
+    user.put("username", "user-" + index);
+    user.put("email", "user-" + index + "@loadtest.local");
+    user.put("metadata", metadata);
+    user.put("mfaEnabled", config.isMfaEnabled());
+    if (config.isMfaEnabled()) {
+      String secret = mfaSecrets.get(userId);
+      Map<String, Object> mfaData = new LinkedHashMap<>();
+      mfaData.put("twoFaRegistered", secret != null);
+      mfaData.put("mfaKeyId", "WedgeAuth:user-" + index);
+      mfaData.put("mfaSecret", secret);
+      user.put("mfaData", mfaData);
+    }
+    return user;
+  }
+
+  private void delay() {
+    long micros = config.getLatency().sampleMicros(ThreadLocalRandom.current());
+    if (micros <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(Duration.ofNanos(micros * 1000));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void count(String operation) {
+    requests.computeIfAbsent(operation, key -> new LongAdder()).increment();
+  }
+
+  private Map<?, ?> readBody(HttpExchange exchange) throws IOException {
+    try (InputStream body = exchange.getRequestBody()) {
+      byte[] bytes = body.readAllBytes();
+      if (bytes.length == 0) {
+        return Map.of();
+      }
+      Object value = objectMapper.readValue(bytes, Object.class);
+      return value instanceof Map<?, ?> map ? map : Map.of();
+    }
+  }
+
+  private static Set<String> scopesOf(Map<?, ?> body) {
+    Set<String> scopes = new LinkedHashSet<>();
+    if (body.get("scopes") instanceof Collection<?> values) {
+      values.forEach(value -> scopes.add(String.valueOf(value)));
+    }
+    return scopes;
+  }
+
+  private static String userIdFromPath(String path, String suffix) {
+    String rest = path.substring(BASE_PATH.length(), path.length() - suffix.length());
+    return URLDecoder.decode(rest, StandardCharsets.UTF_8);
+  }
+
+  private static String queryParameter(HttpExchange exchange, String name) {
+    String query = exchange.getRequestURI().getRawQuery();
+    if (query == null) {
+      return null;
+    }
+    for (String pair : query.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0 && pair.substring(0, equals).equals(name)) {
+        return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+      }
+    }
+    return null;
+  }
+
+  private static Map<String, Object> error(String code, String message) {
+    Map<String, Object> error = new LinkedHashMap<>();
+    error.put("errorCodes", List.of(code));
+    error.put("messages", List.of(message));
+    error.put("errorDate", Instant.now().toString());
+    return error;
+  }
+
+  private void sendError(HttpExchange exchange, int status, String code, String message)
+      throws IOException {
+    sendJson(exchange, status, error(code, message));
+  }
+
+  private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+    send(exchange, status, objectMapper.writeValueAsBytes(body), "application/json");
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body, String contentType)
+      throws IOException {
+    if (contentType != null) {
+      exchange.getResponseHeaders().set("Content-Type", contentType);
+    }
+    if (body == null || body.length == 0) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private record CheckResult(int status, Map<String, Object> user, Map<String, Object> error) {}
+}
@@ -0,0 +1,52 @@
+package com.kuneiform.loadtest;
+
+import java.util.Set;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Behaviour of a {@link FakeUserProvider}.
+ *
+ * <p>The provider knows {@code userCount} users named {@code user-0} to {@code user-<n-1>}, with
+ * user IDs {@code uid-<i>} and the same {@code password}. Every response waits for a delay drawn
+ * from {@code latency}, and a fraction {@code errorRate} of requests fails with {@code errorStatus}
+ * instead.
+ */
+@Value
+@Builder(toBuilder = true)
+public class FakeUserProviderConfig {
+
+  /** Port to listen on; 0 picks a free port. */
+  @Builder.Default int port = 0;
+
+  @Builder.Default int userCount = 10_000;
+
+  @Builder.Default String password = "password";
+
+  @Builder.Default LatencyModel latency = LatencyModel.none();
+
+  /** Fraction of requests (0 to 1) answered with {@code errorStatus}. */
+  @Builder.Default double errorRate = 0.0;
+
+  @Builder.Default int errorStatus = 503;
+
+  /** Size of the padding added to each user's metadata, to simulate large profiles. */
+  @Builder.Default int metadataBytes = 0;
+
+  @Builder.Default boolean mfaEnabled = false;
+
+  /** Scopes no user is allowed; every other scope is allowed. */
+  @Builder.Default Set<String> deniedScopes = Set.of();
+
+  /** Cache-Control max-age sent with batch scope decisions; 0 sends no header. */
+  @Builder.Default int scopeDecisionMaxAgeSeconds = 0;
+
+  /** Expected value of the API key header; null accepts every request. */
+  String apiKey;
+
+  @Builder.Default String apiKeyHeader = "X-API-Key";
+
+  public static FakeUserProviderConfig defaults() {
+    return builder().build();
+  }
+}
@@ -0,0 +1,73 @@
+package com.kuneiform.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+/**
+ * Runs a standalone fake user provider until the JVM is stopped, and prints the server arguments
+ * that point generated tenants at it.
+ *
+ * <p>Configured with system properties: {@code fake-user-provider.port} (default 8081), {@code
+ * .users}, {@code .password}, {@code .latency} (see {@link LatencyModel#parse}), {@code
+ * .error-rate}, {@code .error-status}, {@code .metadata-bytes}, {@code .mfa-enabled}, {@code
+ * .denied-scopes}, {@code .scope-max-age-seconds}, {@code .tenants} and {@code
+ * .clients-per-tenant}.
+ */
+public final class FakeUserProviderMain {
+
+  private static final String PREFIX = "fake-user-provider.";
+
+  private FakeUserProviderMain() {}
+
+  public static void main(String[] args) throws Exception {
+    FakeUserProviderConfig defaults = FakeUserProviderConfig.defaults();
+    FakeUserProviderConfig config =
+        FakeUserProviderConfig.builder()
+            .port(intProperty("port", 8081))
+            .userCount(intProperty("users", defaults.getUserCount()))
+            .password(System.getProperty(PREFIX + "password", defaults.getPassword()))
+            .latency(LatencyModel.parse(System.getProperty(PREFIX + "latency", "none")))
+            .errorRate(Double.parseDouble(System.getProperty(PREFIX + "error-rate", "0")))
+            .errorStatus(intProperty("error-status", defaults.getErrorStatus()))
+            .metadataBytes(intProperty("metadata-bytes", 0))
+            .mfaEnabled(Boolean.parseBoolean(System.getProperty(PREFIX + "mfa-enabled", "false")))
+            .deniedScopes(listProperty("denied-scopes"))
+            .scopeDecisionMaxAgeSeconds(intProperty("scope-max-age-seconds", 0))
+            .build();
+
+    FakeUserProvider provider = FakeUserProvider.start(config);
+    CountDownLatch stopped = new CountDownLatch(1);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  provider.close();
+                  stopped.countDown();
+                }));
+
+    int tenants = intProperty("tenants", 1);
+    int clientsPerTenant = intProperty("clients-per-tenant", 1);
+    List<String> serverArgs =
+        TenantSimulator.toArgs(
+            TenantSimulator.properties(List.of(provider), tenants, clientsPerTenant));
+    System.out.println("Start the authorization server with:");
+    System.out.println(String.join(" ", serverArgs));
+    stopped.await();
+  }
+
+  private static int intProperty(String name, int defaultValue) {
+    String value = System.getProperty(PREFIX + name);
+    return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+  }
+
+  private static Set<String> listProperty(String name) {
+    String value = System.getProperty(PREFIX + name, "");
+    return Arrays.stream(value.split(","))
+        .map(String::trim)
+        .filter(scope -> !scope.isEmpty())
+        .collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,72 @@
+package com.kuneiform.loadtest;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/** Distribution of the artificial latency the fake user provider adds to each response. */
+@FunctionalInterface
+public interface LatencyModel {
+
+  /** z-score of the 99th percentile of the standard normal distribution. */
+  double Z_99 = 2.3263;
+
+  /** Returns the delay, in microseconds, for one response. */
+  long sampleMicros(RandomGenerator random);
+
+  /** Answers immediately. */
+  static LatencyModel none() {
+    return random -> 0;
+  }
+
+  static LatencyModel fixed(Duration latency) {
+    long micros = latency.toNanos() / 1000;
+    return random -> micros;
+  }
+
+  static LatencyModel uniform(Duration min, Duration max) {
+    long minMicros = min.toNanos() / 1000;
+    long maxMicros = max.toNanos() / 1000;
+    if (maxMicros < minMicros) {
+      throw new IllegalArgumentException("max latency must not be below min latency");
+    }
+    return random -> minMicros == maxMicros ? minMicros : random.nextLong(minMicros, maxMicros + 1);
+  }
+
+  /**
+   * Log-normal latency with the given median and 99th percentile: most responses are close to the
+   * median with a long tail, as seen from real services.
+   */
+  static LatencyModel logNormal(Duration median, Duration p99) {
+    double medianMicros = median.toNanos() / 1000.0;
+    double p99Micros = p99.toNanos() / 1000.0;
+    if (medianMicros <= 0 || p99Micros < medianMicros) {
+      throw new IllegalArgumentException("median must be positive and p99 must not be below it");
+    }
+    double mu = Math.log(medianMicros);
+    double sigma = (Math.log(p99Micros) - mu) / Z_99;
+    return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+  }
+
+  /**
+   * Parses {@code none}, {@code fixed:<ms>}, {@code uniform:<minMs>:<maxMs>} or {@code
+   * lognormal:<medianMs>:<p99Ms>}.
+   */
+  static LatencyModel parse(String spec) {
+    String[] parts = spec.trim().toLowerCase().split(":");
+    return switch (parts[0]) {
+      case "none" -> none();
+      case "fixed" -> fixed(millis(parts, 1));
+      case "uniform" -> uniform(millis(parts, 1), millis(parts, 2));
+      case "lognormal" -> logNormal(millis(parts, 1), millis(parts, 2));
+      default -> throw new IllegalArgumentException("Unknown latency model: " + spec);
+    };
+  }
+
+  private static Duration millis(String[] parts, int index) {
+    if (parts.length <= index) {
+      throw new IllegalArgumentException(
+          "Missing value in latency model: " + String.join(":", parts));
+    }
+    return Duration.ofNanos(Math.round(Double.parseDouble(parts[index]) * 1_000_000));
+  }
+}
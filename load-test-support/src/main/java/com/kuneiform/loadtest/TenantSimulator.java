@@ -0,0 +1,85 @@
+package com.kuneiform.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates tenant and client configuration for load tests against fake user providers.
+ *
+ * <p>The result is a map of {@code wedge.tenants[i]} and {@code wedge.clients[j]} properties that
+ * replaces the tenants and clients of {@code application.yaml}. Pass it to {@code
+ * SpringApplicationBuilder.properties} for an in-process server, or as {@link #toArgs command-line
+ * arguments} to the server jar. Tenant {@code i} is {@code tenant-<i>}, served by provider {@code i
+ * mod providers}, so a failing provider only affects its own tenants. Its clients are {@code
+ * tenant-<i>-client-<k>}, confidential clients with secret {@value #CLIENT_SECRET} and redirect URI
+ * {@value #REDIRECT_URI}.
+ */
+public final class TenantSimulator {
+
+  public static final String CLIENT_SECRET = "secret";
+  public static final String REDIRECT_URI = "http://127.0.0.1:3000/callback";
+
+  private TenantSimulator() {}
+
+  public static Map<String, String> properties(
+      List<FakeUserProvider> providers, int tenantCount, int clientsPerTenant) {
+    if (providers.isEmpty()) {
+      throw new IllegalArgumentException("At least one fake user provider is required");
+    }
+    if (tenantCount <= 0 || clientsPerTenant <= 0) {
+      throw new IllegalArgumentException("Tenant and client counts must be positive");
+    }
+
+    Map<String, String> properties = new LinkedHashMap<>();
+    int client = 0;
+    for (int i = 0; i < tenantCount; i++) {
+      String tenantId = tenantId(i);
+      FakeUserProvider provider = providers.get(i % providers.size());
+      String tenant = "wedge.tenants[" + i + "].";
+      properties.put(tenant + "id", tenantId);
+      properties.put(tenant + "name", "Load Test Tenant " + i);
+      properties.put(tenant + "user-provider.endpoint", provider.endpoint());
+      properties.put(tenant + "user-provider.timeout", "5000");
+      properties.put(
+          tenant + "user-provider.mfa-registration-endpoint", provider.mfaRegistrationEndpoint());
+      properties.put(
+          tenant + "user-provider.scopes-validation-endpoint", provider.scopesValidationEndpoint());
+
+      for (int k = 0; k < clientsPerTenant; k++, client++) {
+        String prefix = "wedge.clients[" + client + "].";
+        properties.put(prefix + "client-id", clientId(i, k));
+        properties.put(prefix + "client-secret", CLIENT_SECRET);
+        properties.put(prefix + "client-name", "Load Test Client " + i + "-" + k);
+        properties.put(
+            prefix + "client-authentication-methods", "client_secret_basic,client_secret_post");
+        properties.put(
+            prefix + "authorization-grant-types",
+            "authorization_code,refresh_token,client_credentials");
+        properties.put(prefix + "redirect-uris", REDIRECT_URI);
+        properties.put(prefix + "post-logout-redirect-uris", REDIRECT_URI);
+        properties.put(prefix + "scopes", "openid,profile,email");
+        properties.put(prefix + "require-authorization-consent", "false");
+        properties.put(prefix + "require-pkce", "false");
+        properties.put(prefix + "tenant-id", tenantId);
+      }
+    }
+    return properties;
+  }
+
+  public static String tenantId(int tenant) {
+    return "tenant-" + tenant;
+  }
+
+  public static String clientId(int tenant, int client) {
+    return tenantId(tenant) + "-client-" + client;
+  }
+
+  /** Formats the properties as {@code --key=value} arguments. */
+  public static List<String> toArgs(Map<String, String> properties) {
+    List<String> args = new ArrayList<>(properties.size());
+    properties.forEach((key, value) -> args.add("--" + key + "=" + value));
+    return args;
+  }
+}
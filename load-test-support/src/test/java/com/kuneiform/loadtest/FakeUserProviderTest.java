@@ -0,0 +1,157 @@
+package com.kuneiform.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FakeUserProviderTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private FakeUserProvider provider;
+
+  @AfterEach
+  void tearDown() {
+    if (provider != null) {
+      provider.close();
+    }
+  }
+
+  @Test
+  void validate_shouldReturnUserForValidCredentials() throws Exception {
+    provider = FakeUserProvider.start(FakeUserProviderConfig.defaults());
+
+    HttpResponse<String> response =
+        post(provider.endpoint(), "{\"username\":\"user-7\",\"password\":\"password\"}");
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.body()).contains("\"userId\":\"uid-7\"");
+    assertThat(provider.requestCount(FakeUserProvider.OP_VALIDATE)).isEqualTo(1);
+  }
+
+  @Test
+  void validate_shouldRejectWrongPasswordAndUnknownUser() throws Exception {
+    provider = FakeUserProvider.start(FakeUserProviderConfig.builder().userCount(5).build());
+
+    assertThat(
+            post(provider.endpoint(), "{\"username\":\"user-1\",\"password\":\"x\"}")
+                .statusCode())
+        .isEqualTo(401);
+    assertThat(
+            post(provider.endpoint(), "{\"username\":\"user-5\",\"password\":\"password\"}")
+                .statusCode())
+        .isEqualTo(401);
+  }
+
+  @Test
+  void validateBatch_shouldAnswerEachCheckInOrder() throws Exception {
+    provider = FakeUserProvider.start(FakeUserProviderConfig.defaults());
+
+    HttpResponse<String> response =
+        post(
+            provider.endpoint() + "/batch",
+            "{\"requests\":[{\"username\":\"user-1\",\"password\":\"password\"},"
+                + "{\"username\":\"user-2\",\"password\":\"wrong\"}]}");
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.body())
+        .containsSubsequence("\"status\":200", "uid-1", "\"status\":401", "errorCodes");
+  }
+
+  @Test
+  void find_shouldPadMetadataToConfiguredSize() throws Exception {
+    provider = FakeUserProvider.start(FakeUserProviderConfig.builder().metadataBytes(4096).build());
+
+    HttpResponse<String> response = get(provider.endpoint() + "/find?username=user-3");
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.body().length()).isGreaterThan(4096);
+  }
+
+  @Test
+  void scopes_shouldForbidDeniedScopesAndDecisionShouldFilterThem() throws Exception {
+    provider =
+        FakeUserProvider.start(
+            FakeUserProviderConfig.builder()
+                .deniedScopes(Set.of("admin"))
+                .scopeDecisionMaxAgeSeconds(30)
+                .build());
+    String scopes = provider.scopesValidationEndpoint().replace("{userId}", "uid-1");
+    String decision = provider.scopesBatchValidationEndpoint().replace("{userId}", "uid-1");
+
+    assertThat(post(scopes, "{\"scopes\":[\"openid\"]}").statusCode()).isEqualTo(200);
+    assertThat(post(scopes, "{\"scopes\":[\"openid\",\"admin\"]}").statusCode()).isEqualTo(403);
+
+    HttpResponse<String> response = post(decision, "{\"scopes\":[\"openid\",\"admin\"]}");
+    assertThat(response.body()).isEqualTo("{\"allowedScopes\":[\"openid\"]}");
+    assertThat(response.headers().firstValue("Cache-Control")).contains("private, max-age=30");
+  }
+
+  @Test
+  void registerMfa_shouldMarkUserAsRegistered() throws Exception {
+    provider = FakeUserProvider.start(FakeUserProviderConfig.builder().mfaEnabled(true).build());
+    String mfa = provider.mfaRegistrationEndpoint().replace("{userId}", "uid-4");
+
+    HttpResponse<String> response =
+        client.send(
+            HttpRequest.newBuilder(URI.create(mfa))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"mfaSecret\":\"ABC\"}"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(204);
+    assertThat(get(provider.endpoint() + "/find?username=user-4").body())
+        .contains("\"twoFaRegistered\":true");
+  }
+
+  @Test
+  void shouldInjectErrorsAtConfiguredRate() throws Exception {
+    provider =
+        FakeUserProvider.start(
+            FakeUserProviderConfig.builder().errorRate(1.0).errorStatus(503).build());
+
+    HttpResponse<String> response = get(provider.endpoint() + "/find?username=user-1");
+
+    assertThat(response.statusCode()).isEqualTo(503);
+    assertThat(provider.requestCount(FakeUserProvider.OP_INJECTED_ERROR)).isEqualTo(1);
+    assertThat(provider.requestCount(FakeUserProvider.OP_FIND)).isZero();
+  }
+
+  @Test
+  void tenantSimulator_shouldSpreadTenantsOverProviders() throws Exception {
+    provider = FakeUserProvider.start(FakeUserProviderConfig.defaults());
+    try (FakeUserProvider second = FakeUserProvider.start(FakeUserProviderConfig.defaults())) {
+      Map<String, String> properties =
+          TenantSimulator.properties(List.of(provider, second), 3, 2);
+
+      assertThat(properties)
+          .containsEntry("wedge.tenants[0].user-provider.endpoint", provider.endpoint())
+          .containsEntry("wedge.tenants[1].user-provider.endpoint", second.endpoint())
+          .containsEntry("wedge.tenants[2].user-provider.endpoint", provider.endpoint())
+          .containsEntry("wedge.clients[5].client-id", "tenant-2-client-1")
+          .containsEntry("wedge.clients[5].tenant-id", "tenant-2");
+    }
+  }
+
+  private HttpResponse<String> post(String url, String json) throws Exception {
+    return client.send(
+        HttpRequest.newBuilder(URI.create(url))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpResponse<String> get(String url) throws Exception {
+    return client.send(
+        HttpRequest.newBuilder(URI.create(url)).GET().build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+}
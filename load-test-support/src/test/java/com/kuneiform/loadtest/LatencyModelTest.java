@@ -0,0 +1,39 @@
+package com.kuneiform.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LatencyModelTest {
+
+  @Test
+  void logNormal_shouldMatchConfiguredMedianAndP99() {
+    LatencyModel model = LatencyModel.logNormal(Duration.ofMillis(10), Duration.ofMillis(100));
+    Random random = new Random(42);
+
+    long[] samples = new long[100_000];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = model.sampleMicros(random);
+    }
+    Arrays.sort(samples);
+
+    assertThat(samples[samples.length / 2]).isBetween(9_000L, 11_000L);
+    assertThat(samples[(int) (samples.length * 0.99)]).isBetween(85_000L, 115_000L);
+  }
+
+  @Test
+  void parse_shouldReadEveryModel() {
+    Random random = new Random(1);
+
+    assertThat(LatencyModel.parse("none").sampleMicros(random)).isZero();
+    assertThat(LatencyModel.parse("fixed:2.5").sampleMicros(random)).isEqualTo(2_500);
+    assertThat(LatencyModel.parse("uniform:1:2").sampleMicros(random)).isBetween(1_000L, 2_000L);
+    assertThat(LatencyModel.parse("lognormal:5:50").sampleMicros(random)).isPositive();
+    assertThatThrownBy(() -> LatencyModel.parse("gamma:1"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}